@@ -34,6 +34,8 @@ public static class Envoy {
     private Integer adminPort = 9901;
     private String tapDir = "/var/log/envoy/taps";
     private Long maxBufferedBytes = 2097152L;
+    // file：tap 写入 sidecar 文件后轮询采集；streaming：通过 admin /tap 接口流式推送
+    private String tapMode = "file";
 
     public String getImage() {
       return image;
@@ -74,6 +76,14 @@ public Long getMaxBufferedBytes() {
     public void setMaxBufferedBytes(Long maxBufferedBytes) {
       this.maxBufferedBytes = maxBufferedBytes;
     }
+
+    public String getTapMode() {
+      return tapMode;
+    }
+
+    public void setTapMode(String tapMode) {
+      this.tapMode = tapMode;
+    }
   }
 
   public Envoy getEnvoy() {
@@ -31,6 +31,99 @@ public class RecordingSettings {
   @Value("${reqrsp.tap.readRetry.sleepMillis:300}")
   private long tapReadRetrySleepMillis;
 
+  @Value("${reqrsp.tap.exec.timeoutMillis:30000}")
+  private long tapExecTimeoutMillis;
+
+  @Value("${reqrsp.tap.exec.maxOutputBytes:16777216}")
+  private int tapExecMaxOutputBytes;
+
+  @Value("${reqrsp.tap.bulk.enabled:true}")
+  private boolean tapBulkEnabled;
+
+  @Value("${reqrsp.tap.bulk.maxFiles:500}")
+  private int tapBulkMaxFiles;
+
+  @Value("${reqrsp.tap.writeBatchSize:500}")
+  private int tapWriteBatchSize;
+
+  @Value("${reqrsp.informer.enabled:true}")
+  private boolean informerEnabled;
+
+  @Value("${reqrsp.informer.resyncMillis:600000}")
+  private long informerResyncMillis;
+
+  @Value("${reqrsp.pattern.cluster.enabled:true}")
+  private boolean patternClusterEnabled;
+
+  @Value("${reqrsp.pattern.cluster.maxLiteralChildren:20}")
+  private int patternClusterMaxLiteralChildren;
+
+  @Value("${reqrsp.pattern.cluster.samplesPerTemplate:3}")
+  private int patternClusterSamplesPerTemplate;
+
+  @Value("${reqrsp.replay.concurrency:16}")
+  private int replayConcurrency;
+
+  @Value("${reqrsp.replay.rps:0}")
+  private double replayRps;
+
+  @Value("${reqrsp.replay.timeoutMillis:30000}")
+  private long replayTimeoutMillis;
+
+  @Value("${reqrsp.replay.maxConnections:64}")
+  private int replayMaxConnections;
+
+  @Value("${reqrsp.replay.portForward.idleMillis:300000}")
+  private long replayPortForwardIdleMillis;
+
+  @Value("${reqrsp.xds.enabled:false}")
+  private boolean xdsEnabled;
+
+  @Value("${reqrsp.xds.host:}")
+  private String xdsHost;
+
+  @Value("${reqrsp.xds.port:${server.port:8105}}")
+  private int xdsPort;
+
+  @Value("${reqrsp.xds.refreshMillis:1000}")
+  private long xdsRefreshMillis;
+
+  @Value("${reqrsp.fixture.applyConcurrency:4}")
+  private int fixtureApplyConcurrency;
+
+  @Value("${reqrsp.fixture.rolloutTimeoutMillis:180000}")
+  private long fixtureRolloutTimeoutMillis;
+
+  @Value("${reqrsp.body.compressMinBytes:256}")
+  private int bodyCompressMinBytes;
+
+  @Value("${reqrsp.body.inlineMaxBytes:4096}")
+  private int bodyInlineMaxBytes;
+
+  @Value("${reqrsp.entries.maxScan:5000}")
+  private int entriesMaxScan;
+
+  @Value("${reqrsp.sampling.enabled:true}")
+  private boolean samplingEnabled;
+
+  @Value("${reqrsp.sampling.exemplarsPerFingerprint:3}")
+  private int samplingExemplarsPerFingerprint;
+
+  @Value("${reqrsp.sampling.exemplarsPerEndpoint:50}")
+  private int samplingExemplarsPerEndpoint;
+
+  @Value("${reqrsp.sampling.defaultRate:0}")
+  private double samplingDefaultRate;
+
+  @Value("${reqrsp.sampling.rates:}")
+  private String samplingRates;
+
+  @Value("${reqrsp.pattern.maxEntries:20000}")
+  private int patternMaxEntries;
+
+  @Value("${reqrsp.task.progressMillis:1000}")
+  private long taskProgressMillis;
+
   @Value("${reqrsp.collection.concurrent:18}")
   private int collectionConcurrent;
 
@@ -49,6 +142,155 @@ public long getTapReadRetrySleepMillis() {
     return tapReadRetrySleepMillis;
   }
 
+  public long getTapExecTimeoutMillis() {
+    return tapExecTimeoutMillis;
+  }
+
+  public int getTapExecMaxOutputBytes() {
+    return tapExecMaxOutputBytes;
+  }
+
+  /** 每个 Pod 是否用一次 exec 批量导出 tap 文件 */
+  public boolean isTapBulkEnabled() {
+    return tapBulkEnabled;
+  }
+
+  public int getTapBulkMaxFiles() {
+    return tapBulkMaxFiles;
+  }
+
+  /** 条目写入 Redis 的批大小 */
+  public int getTapWriteBatchSize() {
+    return tapWriteBatchSize;
+  }
+
+  /** 是否使用 informer 缓存 Pod 与 Deployment，关闭时每次直接访问 API Server */
+  public boolean isInformerEnabled() {
+    return informerEnabled;
+  }
+
+  public long getInformerResyncMillis() {
+    return informerResyncMillis;
+  }
+
+  /** 是否按路径模板聚类录制的请求，关闭时按完整 URL 去重 */
+  public boolean isPatternClusterEnabled() {
+    return patternClusterEnabled;
+  }
+
+  /** 同一路径位置允许的子树相同的字面段数，超过后视为变量段 */
+  public int getPatternClusterMaxLiteralChildren() {
+    return patternClusterMaxLiteralChildren;
+  }
+
+  /** 每个路径模板保留的代表样本数 */
+  public int getPatternClusterSamplesPerTemplate() {
+    return patternClusterSamplesPerTemplate;
+  }
+
+  /** 重放时同时在途的请求上限 */
+  public int getReplayConcurrency() {
+    return replayConcurrency;
+  }
+
+  /** 重放目标速率，不大于 0 时不限速 */
+  public double getReplayRps() {
+    return replayRps;
+  }
+
+  public long getReplayTimeoutMillis() {
+    return replayTimeoutMillis;
+  }
+
+  /** 重放 HTTP 客户端对每个目标地址的连接池上限 */
+  public int getReplayMaxConnections() {
+    return replayMaxConnections;
+  }
+
+  /** 端口转发会话空闲多久后关闭 */
+  public long getReplayPortForwardIdleMillis() {
+    return replayPortForwardIdleMillis;
+  }
+
+  /** 是否通过内嵌 xDS 控制面下发 listener 与路由，需同时配置 {@code reqrsp.xds.host} */
+  public boolean isXdsEnabled() {
+    return xdsEnabled;
+  }
+
+  /** sidecar 访问本服务的地址（通常为本服务的 Service 域名） */
+  public String getXdsHost() {
+    return xdsHost;
+  }
+
+  public int getXdsPort() {
+    return xdsPort;
+  }
+
+  /** sidecar 轮询 xDS 资源的间隔 */
+  public long getXdsRefreshMillis() {
+    return xdsRefreshMillis;
+  }
+
+  /** 多服务 Fixture 同时下发的服务数 */
+  public int getFixtureApplyConcurrency() {
+    return fixtureApplyConcurrency;
+  }
+
+  /** 一次 Fixture 下发等待所有滚动更新完成的总期限 */
+  public long getFixtureRolloutTimeoutMillis() {
+    return fixtureRolloutTimeoutMillis;
+  }
+
+  /** 小于该字节数的 body 不压缩，直接内联 */
+  public int getBodyCompressMinBytes() {
+    return bodyCompressMinBytes;
+  }
+
+  /** 压缩后不超过该字节数的 body 内联存入 Redis，否则写入 Redis 块存储 */
+  public int getBodyInlineMaxBytes() {
+    return bodyInlineMaxBytes;
+  }
+
+  /** 游标分页时每页最多扫描的条目数，过滤条件命中率低时提前返回游标 */
+  public int getEntriesMaxScan() {
+    return entriesMaxScan;
+  }
+
+  /** 是否在录制时按指纹去重与采样 */
+  public boolean isSamplingEnabled() {
+    return samplingEnabled;
+  }
+
+  /** 每个指纹保留的样本数 */
+  public int getSamplingExemplarsPerFingerprint() {
+    return samplingExemplarsPerFingerprint;
+  }
+
+  /** 每个端点（method + 路径模板）保留的样本总数 */
+  public int getSamplingExemplarsPerEndpoint() {
+    return samplingExemplarsPerEndpoint;
+  }
+
+  /** 样本配额用完后的默认采样率 */
+  public double getSamplingDefaultRate() {
+    return samplingDefaultRate;
+  }
+
+  /** 按端点覆盖的采样率，格式为逗号分隔的 {@code [METHOD ]/path/template=rate} */
+  public String getSamplingRates() {
+    return samplingRates;
+  }
+
+  /** 请求模式分析时每个录制最多读取的条目数 */
+  public int getPatternMaxEntries() {
+    return patternMaxEntries;
+  }
+
+  /** 任务进度 SSE 的轮询间隔 */
+  public long getTaskProgressMillis() {
+    return taskProgressMillis;
+  }
+
   public int getCollectionConcurrent() {
     return collectionConcurrent;
   }
@@ -17,16 +17,25 @@
 package com.chaosblade.svc.reqrspproxy.controller;
 
 import com.chaosblade.common.core.ApiResponse;
+import com.chaosblade.svc.reqrspproxy.dto.EntryFilter;
 import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
 import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
 import com.chaosblade.svc.reqrspproxy.service.DirectTapReader;
+import com.chaosblade.svc.reqrspproxy.service.EntryCursor;
+import com.chaosblade.svc.reqrspproxy.service.NdjsonEntryWriter;
 import com.chaosblade.svc.reqrspproxy.service.RecordingStateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.constraints.Min;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** 直接从 Pod 文件系统读取 Tap 数据的控制器 用于调试和临时访问 tap 数据 */
 @RestController
@@ -39,6 +48,8 @@ public class DirectTapController {
 
   @Autowired private RecordingStateService stateService;
 
+  @Autowired private ObjectMapper objectMapper;
+
   /** 直接从 Pod 读取 tap 数据 GET /api/direct-tap/{namespace}/{serviceName}/entries */
   @GetMapping("/{namespace}/{serviceName}/entries")
   public ApiResponse<List<RecordedEntry>> getEntriesDirectly(
@@ -73,6 +84,56 @@ public ApiResponse<List<RecordedEntry>> getEntriesDirectly(
     }
   }
 
+  /**
+   * 按游标流式读取 Pod 中的 tap 数据 GET /api/direct-tap/{namespace}/{serviceName}/entries/stream
+   *
+   * <p>响应为 NDJSON，格式与 {@code /api/recordings/{recordingId}/entries/stream} 相同，每页只读取并传回游标之后的文件。
+   */
+  @GetMapping(
+      value = "/{namespace}/{serviceName}/entries/stream",
+      produces = NdjsonEntryWriter.MEDIA_TYPE)
+  public ResponseEntity<StreamingResponseBody> streamEntriesDirectly(
+      @PathVariable String namespace,
+      @PathVariable String serviceName,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", defaultValue = "50") @Min(1) int limit,
+      @RequestParam(value = "method", required = false) String method,
+      @RequestParam(value = "pathPrefix", required = false) String pathPrefix,
+      @RequestParam(value = "status", required = false) Integer status,
+      @RequestParam(value = "from", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(value = "to", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to) {
+
+    logger.info(
+        "GET /api/direct-tap/{}/{}/entries/stream - cursor: {}, limit: {}",
+        namespace,
+        serviceName,
+        cursor,
+        limit);
+
+    try {
+      EntryCursor.decode(cursor, namespace + "/" + serviceName);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Rejected cursor for {}/{}: {}", namespace, serviceName, e.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+
+    EntryFilter filter = new EntryFilter(method, pathPrefix, status, from, to);
+    StreamingResponseBody body =
+        out -> {
+          NdjsonEntryWriter writer = new NdjsonEntryWriter(objectMapper, out);
+          String next =
+              directTapReader.scanTapData(namespace, serviceName, cursor, limit, filter, writer);
+          writer.finish(next);
+        };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(NdjsonEntryWriter.MEDIA_TYPE))
+        .body(body);
+  }
+
   /** 获取指定服务的 Pod 列表和 tap 文件统计 GET /api/direct-tap/{namespace}/{serviceName}/info */
   @GetMapping("/{namespace}/{serviceName}/info")
   public ApiResponse<Object> getTapInfo(
@@ -18,14 +18,24 @@
 
 import com.chaosblade.common.core.ApiResponse;
 import com.chaosblade.svc.reqrspproxy.dto.*;
+import com.chaosblade.svc.reqrspproxy.service.EntryCursor;
+import com.chaosblade.svc.reqrspproxy.service.NdjsonEntryWriter;
 import com.chaosblade.svc.reqrspproxy.service.RecordingService;
+import com.chaosblade.svc.reqrspproxy.service.RecordingStateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** 录制控制器 */
 @RestController
@@ -36,6 +46,10 @@ public class RecordingController {
 
   @Autowired private RecordingService recordingService;
 
+  @Autowired private RecordingStateService stateService;
+
+  @Autowired private ObjectMapper objectMapper;
+
   /** 开始录制 POST /api/recordings/start */
   @PostMapping("/start")
   public ApiResponse<RecordingResponse> start(@Valid @RequestBody StartRecordingRequest request) {
@@ -101,6 +115,69 @@ public ApiResponse<List<RecordedEntry>> getEntries(
     }
   }
 
+  /** 获取录制的指纹计数 GET /api/recordings/{recordingId}/fingerprints */
+  @GetMapping("/{recordingId}/fingerprints")
+  public ApiResponse<Map<String, Long>> getFingerprints(@PathVariable String recordingId) {
+    logger.info("GET /api/recordings/{}/fingerprints", recordingId);
+
+    try {
+      return ApiResponse.success(recordingService.getFingerprintCounts(recordingId));
+    } catch (Exception e) {
+      logger.error(
+          "Failed to get fingerprints for recording {}: {}", recordingId, e.getMessage(), e);
+      return ApiResponse.error("500", "Failed to get recording fingerprints: " + e.getMessage());
+    }
+  }
+
+  /**
+   * 按游标流式读取录制条目 GET /api/recordings/{recordingId}/entries/stream
+   *
+   * <p>响应为 NDJSON，每行一个条目，最后一行为 {@code {"nextCursor": ..., "count": ...}}；把 nextCursor 作为下一次请求的
+   * cursor 继续读取，为 null 时表示已读完。过滤条件在扫描时执行。
+   */
+  @GetMapping(value = "/{recordingId}/entries/stream", produces = NdjsonEntryWriter.MEDIA_TYPE)
+  public ResponseEntity<StreamingResponseBody> streamEntries(
+      @PathVariable String recordingId,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", defaultValue = "50") @Min(1) int limit,
+      @RequestParam(value = "method", required = false) String method,
+      @RequestParam(value = "pathPrefix", required = false) String pathPrefix,
+      @RequestParam(value = "status", required = false) Integer status,
+      @RequestParam(value = "from", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(value = "to", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to) {
+
+    logger.info(
+        "GET /api/recordings/{}/entries/stream - cursor: {}, limit: {}",
+        recordingId,
+        cursor,
+        limit);
+
+    if (!stateService.exists(recordingId)) {
+      return ResponseEntity.notFound().build();
+    }
+    try {
+      EntryCursor.decode(cursor, recordingId);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Rejected cursor for recording {}: {}", recordingId, e.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+
+    EntryFilter filter = new EntryFilter(method, pathPrefix, status, from, to);
+    StreamingResponseBody body =
+        out -> {
+          NdjsonEntryWriter writer = new NdjsonEntryWriter(objectMapper, out);
+          String next = recordingService.scanEntries(recordingId, cursor, limit, filter, writer);
+          writer.finish(next);
+        };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(NdjsonEntryWriter.MEDIA_TYPE))
+        .body(body);
+  }
+
   /** 健康检查 GET /api/recordings/health */
   @GetMapping("/health")
   public ApiResponse<String> health() {
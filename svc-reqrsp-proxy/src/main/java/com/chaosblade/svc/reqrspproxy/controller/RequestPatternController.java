@@ -30,7 +30,10 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 /** 请求模式获取控制器 提供请求模式获取的REST API接口 */
 @RestController
@@ -109,6 +112,20 @@ public ApiResponse<RequestPatternResponse> getTaskStatus(@PathVariable String ta
     }
   }
 
+  /**
+   * 任务进度事件流 GET /api/request-patterns/tasks/{taskId}/events
+   *
+   * <p>任务状态变化时推送 progress 事件（数据同任务状态接口），任务完成、失败或不存在时推送 done 事件后结束
+   */
+  @GetMapping(value = "/tasks/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<RequestPatternResponse>> taskEvents(@PathVariable String taskId) {
+    logger.info("GET /api/request-patterns/tasks/{}/events", taskId);
+    return requestPatternService
+        .taskEvents(taskId)
+        .doOnError(
+            e -> logger.error("Task event stream for {} failed: {}", taskId, e.getMessage()));
+  }
+
   /**
    * 手动触发请求发起 POST /api/request-patterns/tasks/{taskId}/trigger
    *
@@ -225,4 +242,29 @@ public ApiResponse<List<ReplayResult>> replay(@Valid @RequestBody ReplayRequest
       return ApiResponse.error("500", "Failed to replay: " + e.getMessage());
     }
   }
+
+  /**
+   * 流式请求重放 POST /api/request-patterns/replay/stream
+   *
+   * <p>每完成一个请求推送一个 result 事件，结束时推送包含延迟直方图的 summary 事件
+   */
+  @PostMapping(value = "/replay/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Object>> replayStream(@Valid @RequestBody ReplayRequest request) {
+    logger.info(
+        "POST /api/request-patterns/replay/stream - execution_id: {}, namespace: {},"
+            + " service_name: {}",
+        request.getExecutionId(),
+        request.getNamespace(),
+        request.getServiceName());
+    return replayService
+        .replayEvents(request)
+        .onErrorResume(
+            e -> {
+              logger.error("Failed to replay: {}", e.getMessage(), e);
+              return Flux.just(
+                  ServerSentEvent.<Object>builder("Failed to replay: " + e.getMessage())
+                      .event("error")
+                      .build());
+            });
+  }
 }
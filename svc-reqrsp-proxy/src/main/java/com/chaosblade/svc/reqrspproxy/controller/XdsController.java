@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.controller;
+
+import com.chaosblade.svc.reqrspproxy.service.XdsControlPlane;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Envoy REST-JSON xDS 接口，由 sidecar 按 refresh_delay 轮询
+ *
+ * <p>响应体是原始的 DiscoveryResponse，不包装为 ApiResponse。节点未知或控制面未启用时返回 503，Envoy 保留已有配置。
+ */
+@RestController
+@RequestMapping("/v3")
+public class XdsController {
+
+  private static final Logger logger = LoggerFactory.getLogger(XdsController.class);
+
+  @Autowired private XdsControlPlane xdsControlPlane;
+
+  /** LDS POST /v3/discovery:listeners */
+  @PostMapping("/discovery:listeners")
+  public ResponseEntity<Map<String, Object>> listeners(@RequestBody Map<String, Object> request) {
+    return discover(XdsControlPlane.LISTENER_TYPE, request);
+  }
+
+  /** RDS POST /v3/discovery:routes */
+  @PostMapping("/discovery:routes")
+  public ResponseEntity<Map<String, Object>> routes(@RequestBody Map<String, Object> request) {
+    return discover(XdsControlPlane.ROUTE_TYPE, request);
+  }
+
+  private ResponseEntity<Map<String, Object>> discover(
+      String typeUrl, Map<String, Object> request) {
+    if (!xdsControlPlane.isEnabled()) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    Map<String, Object> response = xdsControlPlane.discover(typeUrl, request);
+    if (response == null) {
+      logger.debug("No xDS snapshot for request node: {}", request.get("node"));
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    return ResponseEntity.ok(response);
+  }
+}
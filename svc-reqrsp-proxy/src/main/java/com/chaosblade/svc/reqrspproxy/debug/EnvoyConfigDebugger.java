@@ -59,7 +59,7 @@ public void debugEnvoyConfig() {
       int appPort = 12031;
 
       // 生成配置
-      String yamlContent = renderer.render(appPort, rules);
+      String yamlContent = renderer.render(appPort, rules, "debug");
 
       logger.info("生成的 Envoy 配置:");
       logger.info("==========================================");
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.chaosblade.svc.reqrspproxy.dto;
+
+import java.time.LocalDateTime;
+
+/** 录制条目的服务端过滤条件，各条件为空时不过滤 */
+public class EntryFilter {
+
+  private final String method;
+  private final String pathPrefix;
+  private final Integer status;
+  private final LocalDateTime from;
+  private final LocalDateTime to;
+
+  public EntryFilter(
+      String method, String pathPrefix, Integer status, LocalDateTime from, LocalDateTime to) {
+    this.method = method;
+    this.pathPrefix = pathPrefix;
+    this.status = status;
+    this.from = from;
+    this.to = to;
+  }
+
+  /** 不过滤 */
+  public static EntryFilter none() {
+    return new EntryFilter(null, null, null, null, null);
+  }
+
+  /** 条目是否满足全部条件，时间范围为左闭右开 */
+  public boolean matches(RecordedEntry entry) {
+    if (method != null && !method.equalsIgnoreCase(entry.getMethod())) {
+      return false;
+    }
+    String path = entry.getPath();
+    if (pathPrefix != null && (path == null || !path.startsWith(pathPrefix))) {
+      return false;
+    }
+    if (status != null && !status.equals(entry.getStatus())) {
+      return false;
+    }
+    LocalDateTime timestamp = entry.getTimestamp();
+    if (from != null && (timestamp == null || timestamp.isBefore(from))) {
+      return false;
+    }
+    return to == null || (timestamp != null && timestamp.isBefore(to));
+  }
+}
@@ -18,6 +18,7 @@
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /** Fixture管理 - 批量更新响应 */
 public class FixtureUpsertResponse {
@@ -29,6 +30,9 @@ public class FixtureUpsertResponse {
   @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
   private LocalDateTime expiresAt;
 
+  /** 逐服务的下发结果 */
+  private List<ServiceResult> services;
+
   // Constructors
   public FixtureUpsertResponse() {}
 
@@ -54,8 +58,83 @@ public void setExpiresAt(LocalDateTime expiresAt) {
     this.expiresAt = expiresAt;
   }
 
+  public List<ServiceResult> getServices() {
+    return services;
+  }
+
+  public void setServices(List<ServiceResult> services) {
+    this.services = services;
+  }
+
   @Override
   public String toString() {
-    return "FixtureUpsertResponse{" + "upserted=" + upserted + ", expiresAt=" + expiresAt + '}';
+    return "FixtureUpsertResponse{"
+        + "upserted="
+        + upserted
+        + ", expiresAt="
+        + expiresAt
+        + ", services="
+        + services
+        + '}';
+  }
+
+  /** 单个服务的下发结果 */
+  public static class ServiceResult {
+
+    private String serviceName;
+
+    /** APPLIED：滚动更新完成；PUSHED：经 xDS 推送；TIMED_OUT：期限内未完成滚动更新；FAILED：下发失败 */
+    private String status;
+
+    private String message;
+
+    /** 从开始下发到该服务完成（或失败）的耗时 */
+    private Long elapsedMillis;
+
+    public ServiceResult() {}
+
+    public ServiceResult(String serviceName, String status, String message, Long elapsedMillis) {
+      this.serviceName = serviceName;
+      this.status = status;
+      this.message = message;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getServiceName() {
+      return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+      this.serviceName = serviceName;
+    }
+
+    public String getStatus() {
+      return status;
+    }
+
+    public void setStatus(String status) {
+      this.status = status;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public void setMessage(String message) {
+      this.message = message;
+    }
+
+    public Long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    public void setElapsedMillis(Long elapsedMillis) {
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return serviceName + "=" + status + "(" + elapsedMillis + "ms)";
+    }
   }
 }
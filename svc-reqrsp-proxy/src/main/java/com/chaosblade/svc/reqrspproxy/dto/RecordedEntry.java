@@ -49,6 +49,9 @@ public class RecordedEntry {
   private Boolean requestTruncated;
   private Boolean responseTruncated;
 
+  // 录制时的去重指纹：method、路径模板、响应码与请求体摘要
+  private String fingerprint;
+
   public RecordedEntry() {}
 
   public String getRecordingId() {
@@ -195,6 +198,14 @@ public void setResponseTruncated(Boolean responseTruncated) {
     this.responseTruncated = responseTruncated;
   }
 
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public void setFingerprint(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
   @Override
   public String toString() {
     return "RecordedEntry{"
@@ -32,6 +32,11 @@ public class ReplayRequest {
   @NotBlank(message = "service_name不能为空") @JsonProperty("service_name")
   private String serviceName;
 
+  // 可选：覆盖默认的重放并发与速率
+  private Integer concurrency;
+
+  private Double rps;
+
   public Long getExecutionId() {
     return executionId;
   }
@@ -55,4 +60,20 @@ public String getServiceName() {
   public void setServiceName(String serviceName) {
     this.serviceName = serviceName;
   }
+
+  public Integer getConcurrency() {
+    return concurrency;
+  }
+
+  public void setConcurrency(Integer concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public Double getRps() {
+    return rps;
+  }
+
+  public void setRps(Double rps) {
+    this.rps = rps;
+  }
 }
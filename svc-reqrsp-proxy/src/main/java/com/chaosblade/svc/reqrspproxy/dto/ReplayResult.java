@@ -30,6 +30,7 @@ public class ReplayResult {
   private Integer statusCode; // HTTP 状态码
   private Map<String, List<String>> responseHeaders; // 响应头（多值）
   private String errorMessage; // 错误信息
+  private Long latencyMillis; // 从计划发送时刻到收到完整响应的耗时
 
   public ReplayResult() {}
 
@@ -86,4 +87,12 @@ public String getErrorMessage() {
   public void setErrorMessage(String errorMessage) {
     this.errorMessage = errorMessage;
   }
+
+  public Long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public void setLatencyMillis(Long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
 }
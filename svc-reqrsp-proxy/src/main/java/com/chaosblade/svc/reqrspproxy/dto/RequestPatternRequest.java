@@ -51,6 +51,12 @@ public class RequestPatternRequest {
   /** 单个请求超时时间（秒），默认120秒 */
   private Integer requestTimeoutSeconds = 120;
 
+  /** 自动触发时同时在途的请求数上限，默认8 */
+  private Integer triggerConcurrency = 8;
+
+  /** 自动触发的目标速率（请求/秒），不大于0时不限速，默认10 */
+  private Double triggerRps = 10.0;
+
   public RequestPatternRequest() {}
 
   public RequestPatternRequest(Long reqDefId, String namespace, List<String> serviceList) {
@@ -131,6 +137,22 @@ public void setRequestTimeoutSeconds(Integer requestTimeoutSeconds) {
     this.requestTimeoutSeconds = requestTimeoutSeconds;
   }
 
+  public Integer getTriggerConcurrency() {
+    return triggerConcurrency;
+  }
+
+  public void setTriggerConcurrency(Integer triggerConcurrency) {
+    this.triggerConcurrency = triggerConcurrency;
+  }
+
+  public Double getTriggerRps() {
+    return triggerRps;
+  }
+
+  public void setTriggerRps(Double triggerRps) {
+    this.triggerRps = triggerRps;
+  }
+
   @Override
   public String toString() {
     return "RequestPatternRequest{"
@@ -153,6 +175,10 @@ public String toString() {
         + requestCount
         + ", requestTimeoutSeconds="
         + requestTimeoutSeconds
+        + ", triggerConcurrency="
+        + triggerConcurrency
+        + ", triggerRps="
+        + triggerRps
         + '}';
   }
 }
@@ -45,6 +45,9 @@ public class RequestPatternResponse {
   @com.fasterxml.jackson.annotation.JsonProperty("execution_id")
   private Long executionId;
 
+  /** 自动触发请求的执行汇总，未自动触发时为空 */
+  private TriggerSummary triggerSummary;
+
   public RequestPatternResponse() {}
 
   public RequestPatternResponse(String taskId, String status, String message) {
@@ -157,6 +160,14 @@ public void setExecutionId(Long executionId) {
     this.executionId = executionId;
   }
 
+  public TriggerSummary getTriggerSummary() {
+    return triggerSummary;
+  }
+
+  public void setTriggerSummary(TriggerSummary triggerSummary) {
+    this.triggerSummary = triggerSummary;
+  }
+
   @Override
   public String toString() {
     return "RequestPatternResponse{"
@@ -191,6 +202,8 @@ public String toString() {
         + '\''
         + ", executionId="
         + executionId
+        + ", triggerSummary="
+        + triggerSummary
         + '}';
   }
 }
@@ -69,6 +69,8 @@ public static class RequestMode {
     private String responseBody;
     private Integer responseStatus;
     private Long responseTime; // 毫秒，可选
+    private String pathTemplate; // 聚类得到的路径模板，如 /orders/{id}，可选
+    private Long templateCount; // 归入该模板的请求数，可选
 
     public RequestMode() {}
 
@@ -160,6 +162,22 @@ public void setResponseTime(Long responseTime) {
       this.responseTime = responseTime;
     }
 
+    public String getPathTemplate() {
+      return pathTemplate;
+    }
+
+    public void setPathTemplate(String pathTemplate) {
+      this.pathTemplate = pathTemplate;
+    }
+
+    public Long getTemplateCount() {
+      return templateCount;
+    }
+
+    public void setTemplateCount(Long templateCount) {
+      this.templateCount = templateCount;
+    }
+
     @Override
     public String toString() {
       // 为避免日志中泄露敏感信息，仅打印 method 与 url
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.dto;
+
+/** 请求触发阶段的执行汇总，延迟从计划发送时刻算起（毫秒） */
+public class TriggerSummary {
+
+  private int total;
+  private int succeeded;
+  private int failed;
+  private int timedOut;
+  private long durationMillis;
+  private double targetRps;
+  private double achievedRps;
+  private int concurrency;
+  private double meanLatencyMillis;
+  private long p50LatencyMillis;
+  private long p90LatencyMillis;
+  private long p99LatencyMillis;
+  private long maxLatencyMillis;
+
+  public TriggerSummary() {}
+
+  public int getTotal() {
+    return total;
+  }
+
+  public void setTotal(int total) {
+    this.total = total;
+  }
+
+  public int getSucceeded() {
+    return succeeded;
+  }
+
+  public void setSucceeded(int succeeded) {
+    this.succeeded = succeeded;
+  }
+
+  public int getFailed() {
+    return failed;
+  }
+
+  public void setFailed(int failed) {
+    this.failed = failed;
+  }
+
+  public int getTimedOut() {
+    return timedOut;
+  }
+
+  public void setTimedOut(int timedOut) {
+    this.timedOut = timedOut;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  public double getTargetRps() {
+    return targetRps;
+  }
+
+  public void setTargetRps(double targetRps) {
+    this.targetRps = targetRps;
+  }
+
+  public double getAchievedRps() {
+    return achievedRps;
+  }
+
+  public void setAchievedRps(double achievedRps) {
+    this.achievedRps = achievedRps;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public void setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public double getMeanLatencyMillis() {
+    return meanLatencyMillis;
+  }
+
+  public void setMeanLatencyMillis(double meanLatencyMillis) {
+    this.meanLatencyMillis = meanLatencyMillis;
+  }
+
+  public long getP50LatencyMillis() {
+    return p50LatencyMillis;
+  }
+
+  public void setP50LatencyMillis(long p50LatencyMillis) {
+    this.p50LatencyMillis = p50LatencyMillis;
+  }
+
+  public long getP90LatencyMillis() {
+    return p90LatencyMillis;
+  }
+
+  public void setP90LatencyMillis(long p90LatencyMillis) {
+    this.p90LatencyMillis = p90LatencyMillis;
+  }
+
+  public long getP99LatencyMillis() {
+    return p99LatencyMillis;
+  }
+
+  public void setP99LatencyMillis(long p99LatencyMillis) {
+    this.p99LatencyMillis = p99LatencyMillis;
+  }
+
+  public long getMaxLatencyMillis() {
+    return maxLatencyMillis;
+  }
+
+  public void setMaxLatencyMillis(long maxLatencyMillis) {
+    this.maxLatencyMillis = maxLatencyMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "TriggerSummary{"
+        + "total="
+        + total
+        + ", succeeded="
+        + succeeded
+        + ", failed="
+        + failed
+        + ", timedOut="
+        + timedOut
+        + ", durationMillis="
+        + durationMillis
+        + ", achievedRps="
+        + String.format("%.1f", achievedRps)
+        + ", p50="
+        + p50LatencyMillis
+        + ", p90="
+        + p90LatencyMillis
+        + ", p99="
+        + p99LatencyMillis
+        + ", max="
+        + maxLatencyMillis
+        + '}';
+  }
+}
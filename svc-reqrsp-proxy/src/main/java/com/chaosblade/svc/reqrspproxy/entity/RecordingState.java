@@ -56,6 +56,8 @@ public enum RecordingStatus {
   private String errorMessage;
   private String configMapName;
   private String deploymentName;
+  // 每次保存递增，用于丢弃乱序到达的缓存更新
+  private Long version;
 
   public RecordingState() {}
 
@@ -204,6 +206,14 @@ public void setDeploymentName(String deploymentName) {
     this.deploymentName = deploymentName;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   @Override
   public String toString() {
     return "RecordingState{"
@@ -17,8 +17,12 @@
 package com.chaosblade.svc.reqrspproxy.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,9 +49,38 @@ public class AuthenticationService {
   private final ObjectMapper objectMapper = new ObjectMapper();
   private final ReentrantLock lock = new ReentrantLock();
 
-  // Token缓存
-  private String cachedToken;
-  private LocalDateTime tokenExpireTime;
+  // 假设 token 有效期为 1 小时
+  private static final long TOKEN_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  // 剩余有效期低于该值时在后台刷新，调用方继续使用当前 token
+  private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  // 剩余有效期低于该值时视为过期，同步重新登录
+  private static final long EXPIRY_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+  // 后台刷新会阻塞在登录请求上，使用独立线程，不占用公共 ForkJoinPool
+  private final ExecutorService refreshExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  // Token缓存，token 与过期时间一起替换，读取无需加锁
+  private volatile CachedToken cachedToken;
+
+  private static final class CachedToken {
+    final String value;
+    final long expiresAt;
+
+    CachedToken(String value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
 
   /** 登录请求体 */
   public static class LoginRequest {
@@ -150,16 +183,28 @@ public void setToken(String token) {
     }
   }
 
-  /** 获取有效的认证token 如果token不存在或即将过期，会自动重新登录 */
+  /**
+   * 获取有效的认证token
+   *
+   * <p>缓存的 token 有效时直接返回，不加锁；临近过期时触发一次后台刷新。只有 token 不存在或已过期时才同步登录。
+   */
   public String getValidToken() {
+    CachedToken current = cachedToken;
+    long now = System.currentTimeMillis();
+    if (current != null && now < current.expiresAt - EXPIRY_MARGIN_MILLIS) {
+      if (now >= current.expiresAt - REFRESH_AHEAD_MILLIS) {
+        refreshAsync();
+      }
+      return current.value;
+    }
+
     lock.lock();
     try {
-      // 检查token是否存在且未过期（提前5分钟刷新）
-      if (cachedToken != null
-          && tokenExpireTime != null
-          && LocalDateTime.now().isBefore(tokenExpireTime.minus(5, ChronoUnit.MINUTES))) {
-        logger.debug("Using cached token");
-        return cachedToken;
+      // 等锁期间可能已由其他线程刷新
+      current = cachedToken;
+      if (current != null
+          && System.currentTimeMillis() < current.expiresAt - EXPIRY_MARGIN_MILLIS) {
+        return current.value;
       }
 
       // 重新登录获取token
@@ -171,6 +216,40 @@ public String getValidToken() {
     }
   }
 
+  /** 后台刷新 token，同一时间只有一个刷新在进行 */
+  private void refreshAsync() {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(
+          () -> {
+            lock.lock();
+            try {
+              CachedToken current = cachedToken;
+              if (current == null
+                  || System.currentTimeMillis() >= current.expiresAt - REFRESH_AHEAD_MILLIS) {
+                logger.info("Token close to expiry, refreshing in background...");
+                performLogin();
+              }
+            } catch (Exception e) {
+              logger.warn("Background token refresh failed: {}", e.getMessage());
+            } finally {
+              lock.unlock();
+              refreshing.set(false);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // 服务关闭中，下次取 token 时同步登录
+      refreshing.set(false);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refreshExecutor.shutdownNow();
+  }
+
   /** 执行登录操作 */
   private String performLogin() {
     try {
@@ -202,16 +281,16 @@ private String performLogin() {
         throw new RuntimeException("Login response does not contain token");
       }
 
-      // 缓存token和过期时间（假设token有效期为1小时）
-      cachedToken = loginResponse.getData().getToken();
-      tokenExpireTime = LocalDateTime.now().plus(1, ChronoUnit.HOURS);
+      // 缓存token和过期时间
+      String token = loginResponse.getData().getToken();
+      cachedToken = new CachedToken(token, System.currentTimeMillis() + TOKEN_TTL_MILLIS);
 
       logger.info(
           "Login successful, token cached. Username: {}, UserId: {}",
           loginResponse.getData().getUsername(),
           loginResponse.getData().getUserId());
 
-      return cachedToken;
+      return token;
 
     } catch (Exception e) {
       logger.error("Login failed: {}", e.getMessage(), e);
@@ -235,7 +314,6 @@ public void clearToken() {
     lock.lock();
     try {
       cachedToken = null;
-      tokenExpireTime = null;
       logger.info("Token cache cleared");
     } finally {
       lock.unlock();
@@ -244,13 +322,13 @@ public void clearToken() {
 
   /** 检查token是否有效 */
   public boolean isTokenValid() {
-    return cachedToken != null
-        && tokenExpireTime != null
-        && LocalDateTime.now().isBefore(tokenExpireTime);
+    CachedToken current = cachedToken;
+    return current != null && System.currentTimeMillis() < current.expiresAt;
   }
 
   /** 获取当前缓存的token（不触发登录） */
   public String getCachedToken() {
-    return cachedToken;
+    CachedToken current = cachedToken;
+    return current != null ? current.value : null;
   }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内容寻址块存储，保存压缩后的大 body
+ *
+ * <p>块以内容 SHA-256 命名，以原始字节存放在 Redis 的 {@code rec:chunk:<摘要>} 中，所有副本共享，相同内容只存一份。块可能被多个录制
+ * 引用，不随录制删除，TTL 与条目相同，每次重复写入都会刷新。
+ */
+@Component
+public class BodyChunkStore {
+
+  private final StringRedisTemplate redis;
+
+  public BodyChunkStore(StringRedisTemplate redis) {
+    this.redis = redis;
+  }
+
+  static String chunkKey(String digest) {
+    return "rec:chunk:" + digest;
+  }
+
+  /**
+   * 写入一个块，已存在时刷新 TTL
+   *
+   * @return 块摘要
+   */
+  public String put(byte[] data) {
+    String digest = digest(data);
+    byte[] key = chunkKey(digest).getBytes(StandardCharsets.UTF_8);
+    redis.execute(
+        (RedisCallback<Object>)
+            connection ->
+                connection
+                    .stringCommands()
+                    .set(
+                        key,
+                        data,
+                        Expiration.seconds(TapEntryBatch.TTL.getSeconds()),
+                        SetOption.upsert()));
+    return digest;
+  }
+
+  /**
+   * 读取块
+   *
+   * @return 块内容，不存在（已过期）时为 null
+   */
+  public byte[] get(String digest) {
+    if (!isDigest(digest)) {
+      return null;
+    }
+    byte[] key = chunkKey(digest).getBytes(StandardCharsets.UTF_8);
+    return redis.execute(
+        (RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+  }
+
+  private static boolean isDigest(String value) {
+    return value != null
+        && value.length() == 64
+        && value.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+  }
+
+  private static String digest(byte[] data) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    } catch (Exception e) {
+      throw new RuntimeException("SHA-256 not available", e);
+    }
+  }
+}
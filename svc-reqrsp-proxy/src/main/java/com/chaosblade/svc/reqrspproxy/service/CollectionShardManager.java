@@ -0,0 +1,364 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.chaosblade.svc.reqrspproxy.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 采集工作在多个副本间的分片
+ *
+ * <p>采集单元为 (录制, Pod)，单元 ID 为 {@code recordingId/podName}。各副本定期把心跳写入有序集合 {@value #MEMBERS_KEY}
+ * （分数为心跳时间），据存活成员构建一致性哈希环（每个成员 {@code reqrsp.shard.virtualNodes} 个虚拟节点），单元按哈希落到唯一的副本上。
+ * 副本增减时只有相邻区间的单元迁移。
+ *
+ * <p>真正执行采集前还要持有单元租约 {@code rec:lease:<单元>}：环视图在副本间短暂不一致时，租约保证同一单元同一时刻只有一个副本在采集。 每次取得租约时从 {@value
+ * #FENCE_KEY} 分配递增的防护令牌，租约值为 {@code <副本>:<令牌>}；写入条目时确认租约值未变 （见 {@link
+ * Fence}），租约过期或被接管后旧持有者在途的写入被拒绝，其文件不确认，由新持有者重新导出。持有期间按 {@code reqrsp.shard.renewMillis}
+ * 续期，与采集周期无关，单次采集耗时再长也不会中途过期。单元不再分配给本副本时主动释放租约； 副本宕机后心跳过期被移出环，其租约在 {@code reqrsp.shard.leaseMillis}
+ * 后过期，由新的归属副本接管。
+ *
+ * <p>停止录制时的最后一次采集用 {@link #takeOver} 强制接管各 Pod 的租约，不等待原持有者。
+ *
+ * <p>关闭 {@code reqrsp.shard.enabled} 时每个副本都认为自己拥有全部单元，与单副本部署的行为一致。
+ */
+@Component
+public class CollectionShardManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(CollectionShardManager.class);
+
+  static final String MEMBERS_KEY = "rec:collectors";
+  private static final String LEASE_PREFIX = "rec:lease:";
+  static final String FENCE_KEY = "rec:lease:fence";
+
+  private static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+  // 仍为本副本持有（ARGV[3]）则续期；否则在无人持有或强制接管（ARGV[4] 为 1）时以新令牌获取，返回租约值
+  private static final DefaultRedisScript<String> ACQUIRE_SCRIPT =
+      new DefaultRedisScript<>(
+          "local v = redis.call('get', KEYS[1]) "
+              + "if v and v == ARGV[3] then redis.call('pexpire', KEYS[1], ARGV[2]) return v end "
+              + "if v and ARGV[4] ~= '1' then return false end "
+              + "local nv = ARGV[1] .. ':' .. redis.call('incr', KEYS[2]) "
+              + "redis.call('set', KEYS[1], nv, 'PX', ARGV[2]) "
+              + "return nv",
+          String.class);
+
+  // 只续期自己持有的租约
+  private static final DefaultRedisScript<Long> RENEW_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then"
+              + " return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+              + "return 0",
+          Long.class);
+
+  // 只删除自己持有的租约
+  private static final DefaultRedisScript<Long> RELEASE_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end "
+              + "return 0",
+          Long.class);
+
+  @Autowired private StringRedisTemplate redis;
+
+  @Value("${reqrsp.shard.enabled:true}")
+  private boolean enabled;
+
+  @Value("${reqrsp.shard.memberTtlMillis:15000}")
+  private long memberTtlMillis;
+
+  @Value("${reqrsp.shard.leaseMillis:60000}")
+  private long leaseMillis;
+
+  @Value("${reqrsp.shard.virtualNodes:64}")
+  private int virtualNodes;
+
+  private volatile NavigableMap<Long, String> ring = new TreeMap<>();
+
+  private volatile Set<String> members = Set.of();
+
+  // 本副本当前持有租约的单元 -> 租约值
+  private final Map<String, String> heldUnits = new ConcurrentHashMap<>();
+
+  private final List<Consumer<String>> releaseListeners = new CopyOnWriteArrayList<>();
+
+  public static String unitId(String recordingId, String podName) {
+    return recordingId + "/" + podName;
+  }
+
+  /** 注册单元迁出本副本时的回调，参数为单元 ID */
+  public void addReleaseListener(Consumer<String> listener) {
+    releaseListeners.add(listener);
+  }
+
+  @PostConstruct
+  public void join() {
+    if (enabled) {
+      heartbeat();
+    }
+  }
+
+  /** 写入心跳、清除过期成员并重建哈希环，释放不再归属本副本的单元 */
+  @Scheduled(fixedDelayString = "${reqrsp.shard.heartbeatMillis:5000}")
+  public void heartbeat() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      long now = System.currentTimeMillis();
+      redis.opsForZSet().add(MEMBERS_KEY, INSTANCE_ID, now);
+      redis.opsForZSet().removeRangeByScore(MEMBERS_KEY, 0, now - memberTtlMillis);
+      Set<String> live = redis.opsForZSet().range(MEMBERS_KEY, 0, -1);
+      if (live != null && !live.equals(members)) {
+        logger.info("Collector membership changed: {} live replica(s)", live.size());
+        ring = buildRing(live);
+        members = live;
+      }
+    } catch (Exception e) {
+      logger.warn("Collector heartbeat failed: {}", e.getMessage());
+      return;
+    }
+    for (String unit : new ArrayList<>(heldUnits.keySet())) {
+      if (!isAssigned(unit)) {
+        logger.info("Collection unit {} moved to another replica", unit);
+        release(unit);
+      }
+    }
+  }
+
+  /** 单元是否归本副本采集：按哈希环分配给本副本，并且成功获取（或续期）租约 */
+  public boolean tryOwn(String unit) {
+    if (!enabled) {
+      return true;
+    }
+    return isAssigned(unit) && acquire(unit, false);
+  }
+
+  /**
+   * 不看哈希环，强制接管单元租约（停止录制时的最后一次采集）
+   *
+   * <p>接管会分配新令牌，原持有者在途的写入因令牌过期被拒绝，其文件留在 Pod 中由本次采集重新导出。
+   */
+  public boolean takeOver(String unit) {
+    return !enabled || acquire(unit, true);
+  }
+
+  /**
+   * 本副本持有的单元租约的防护令牌
+   *
+   * @return 未开启分片时为 null，表示写入不做检查；未持有租约时返回的令牌必然失配
+   */
+  public Fence fence(String unit) {
+    if (!enabled) {
+      return null;
+    }
+    return new Fence(LEASE_PREFIX + unit, heldUnits.getOrDefault(unit, ""));
+  }
+
+  /** 续期本副本持有的全部租约，已过期或被接管的单元视为迁出 */
+  @Scheduled(fixedDelayString = "${reqrsp.shard.renewMillis:20000}")
+  public void renewLeases() {
+    if (!enabled) {
+      return;
+    }
+    for (Map.Entry<String, String> held : new ArrayList<>(heldUnits.entrySet())) {
+      String unit = held.getKey();
+      Long renewed;
+      try {
+        renewed =
+            redis.execute(
+                RENEW_SCRIPT,
+                List.of(LEASE_PREFIX + unit),
+                held.getValue(),
+                String.valueOf(leaseMillis));
+      } catch (Exception e) {
+        logger.warn("Failed to renew lease for {}: {}", unit, e.getMessage());
+        continue;
+      }
+      if ((renewed == null || renewed == 0) && heldUnits.remove(unit, held.getValue())) {
+        logger.info("Lost lease for collection unit {}", unit);
+        notifyReleased(unit);
+      }
+    }
+  }
+
+  /** 释放单元租约 */
+  public void release(String unit) {
+    String value = enabled ? heldUnits.remove(unit) : null;
+    if (value == null) {
+      return;
+    }
+    try {
+      redis.execute(RELEASE_SCRIPT, List.of(LEASE_PREFIX + unit), value);
+    } catch (Exception e) {
+      logger.debug("Failed to release lease for {}: {}", unit, e.getMessage());
+    }
+    notifyReleased(unit);
+  }
+
+  /** 释放某个录制的全部单元 */
+  public void releaseRecording(String recordingId) {
+    String prefix = recordingId + "/";
+    for (String unit : new ArrayList<>(heldUnits.keySet())) {
+      if (unit.startsWith(prefix)) {
+        release(unit);
+      }
+    }
+  }
+
+  /** 释放不属于给定录制集合的全部单元（录制已被其他副本清理时） */
+  public void retainRecordings(Collection<String> recordingIds) {
+    for (String unit : new ArrayList<>(heldUnits.keySet())) {
+      if (!recordingIds.contains(unit.substring(0, unit.indexOf('/')))) {
+        release(unit);
+      }
+    }
+  }
+
+  /** 退出时移出成员并释放租约，由其他副本立即接管 */
+  @PreDestroy
+  public void leave() {
+    if (!enabled) {
+      return;
+    }
+    for (String unit : new ArrayList<>(heldUnits.keySet())) {
+      release(unit);
+    }
+    try {
+      redis.opsForZSet().remove(MEMBERS_KEY, INSTANCE_ID);
+    } catch (Exception e) {
+      logger.debug("Failed to leave collector group: {}", e.getMessage());
+    }
+  }
+
+  private boolean isAssigned(String unit) {
+    NavigableMap<Long, String> current = ring;
+    if (current.isEmpty()) {
+      // 尚未完成第一次心跳
+      return true;
+    }
+    Map.Entry<Long, String> owner = current.ceilingEntry(hash(unit));
+    if (owner == null) {
+      owner = current.firstEntry();
+    }
+    return INSTANCE_ID.equals(owner.getValue());
+  }
+
+  private boolean acquire(String unit, boolean force) {
+    try {
+      String value =
+          redis.execute(
+              ACQUIRE_SCRIPT,
+              List.of(LEASE_PREFIX + unit, FENCE_KEY),
+              INSTANCE_ID,
+              String.valueOf(leaseMillis),
+              heldUnits.getOrDefault(unit, ""),
+              force ? "1" : "0");
+      if (value != null) {
+        heldUnits.put(unit, value);
+        return true;
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to acquire lease for {}: {}", unit, e.getMessage());
+    }
+    // 租约已过期并被其他副本取得
+    if (heldUnits.remove(unit) != null) {
+      logger.info("Lost lease for collection unit {}", unit);
+      notifyReleased(unit);
+    }
+    return false;
+  }
+
+  private void notifyReleased(String unit) {
+    for (Consumer<String> listener : releaseListeners) {
+      try {
+        listener.accept(unit);
+      } catch (Exception e) {
+        logger.warn("Release listener failed for {}: {}", unit, e.getMessage());
+      }
+    }
+  }
+
+  private NavigableMap<Long, String> buildRing(Set<String> live) {
+    NavigableMap<Long, String> next = new TreeMap<>();
+    for (String member : live) {
+      for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+        next.put(hash(member + "#" + i), member);
+      }
+    }
+    return next;
+  }
+
+  private static long hash(String value) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+      return ByteBuffer.wrap(digest).getLong();
+    } catch (Exception e) {
+      throw new RuntimeException("SHA-256 not available", e);
+    }
+  }
+
+  /** 单元租约的防护令牌，写入条目前确认租约键的值仍为 token */
+  public static final class Fence {
+
+    private final String leaseKey;
+    private final String token;
+
+    Fence(String leaseKey, String token) {
+      this.leaseKey = leaseKey;
+      this.token = token;
+    }
+
+    String getLeaseKey() {
+      return leaseKey;
+    }
+
+    String getToken() {
+      return token;
+    }
+  }
+
+  /** 写入时发现单元租约已过期或被其他副本接管 */
+  public static class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(String leaseKey) {
+      super("Lease " + leaseKey + " is no longer held by this replica");
+    }
+  }
+}
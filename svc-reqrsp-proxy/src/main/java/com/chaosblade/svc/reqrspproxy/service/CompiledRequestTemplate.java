@@ -0,0 +1,213 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.entity.HttpReqDef;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+
+/**
+ * 预编译的请求定义
+ *
+ * <p>URL、请求头、查询参数和 raw 请求体中的 {@code {{name}}} 占位符在编译时拆分为静态片段和变量槽，请求头和查询参数的 JSON
+ * 也在编译时解析好；每次请求只需按顺序拼接字符串。未提供值的占位符原样保留，与逐次正则替换的行为一致。
+ */
+final class CompiledRequestTemplate {
+
+  private static final Logger logger = LoggerFactory.getLogger(CompiledRequestTemplate.class);
+
+  private static final TypeReference<LinkedHashMap<String, String>> STRING_MAP =
+      new TypeReference<LinkedHashMap<String, String>>() {};
+
+  private final LocalDateTime updatedAt;
+  private final HttpReqDef.HttpMethod method;
+  private final Template url;
+  private final Map<String, Template> headers;
+  private final Map<String, Template> queryParams;
+  // 请求体为 null 表示没有请求体
+  private final Template body;
+
+  private CompiledRequestTemplate(HttpReqDef reqDef, ObjectMapper objectMapper) {
+    this.updatedAt = reqDef.getUpdatedAt();
+    this.method = reqDef.getMethod();
+    this.url = Template.compile(reqDef.getUrlTemplate());
+    this.headers = compileMap(reqDef.getHeaders(), objectMapper, "headers");
+    this.queryParams = compileMap(reqDef.getQueryParams(), objectMapper, "query params");
+    this.body = compileBody(reqDef);
+  }
+
+  static CompiledRequestTemplate compile(HttpReqDef reqDef, ObjectMapper objectMapper) {
+    return new CompiledRequestTemplate(reqDef, objectMapper);
+  }
+
+  /** 请求定义在编译后是否被修改过 */
+  boolean isStale(HttpReqDef reqDef) {
+    return !Objects.equals(updatedAt, reqDef.getUpdatedAt());
+  }
+
+  HttpReqDef.HttpMethod getMethod() {
+    return method;
+  }
+
+  /** 生成包含查询参数的完整 URL */
+  String renderUrl(Map<String, Object> variables) {
+    String base = url.render(variables);
+    if (queryParams.isEmpty()) {
+      return base;
+    }
+    StringBuilder sb = new StringBuilder(base);
+    boolean first = !base.contains("?");
+    for (Map.Entry<String, Template> entry : queryParams.entrySet()) {
+      sb.append(first ? '?' : '&').append(entry.getKey()).append('=');
+      entry.getValue().appendTo(sb, variables);
+      first = false;
+    }
+    return sb.toString();
+  }
+
+  /** 生成请求定义中的请求头，不含自动补充的认证与内容类型 */
+  HttpHeaders renderHeaders(Map<String, Object> variables) {
+    HttpHeaders result = new HttpHeaders();
+    for (Map.Entry<String, Template> entry : headers.entrySet()) {
+      result.add(entry.getKey(), entry.getValue().render(variables));
+    }
+    return result;
+  }
+
+  /** 生成请求体，没有请求体时返回 null */
+  String renderBody(Map<String, Object> variables) {
+    return body != null ? body.render(variables) : null;
+  }
+
+  private static Map<String, Template> compileMap(
+      String json, ObjectMapper objectMapper, String what) {
+    if (!StringUtils.hasText(json)) {
+      return Collections.emptyMap();
+    }
+    try {
+      Map<String, Template> compiled = new LinkedHashMap<>();
+      for (Map.Entry<String, String> entry : objectMapper.readValue(json, STRING_MAP).entrySet()) {
+        compiled.put(entry.getKey(), Template.compile(entry.getValue()));
+      }
+      return compiled;
+    } catch (Exception e) {
+      logger.warn("Failed to parse {} JSON: {}", what, e.getMessage());
+      return Collections.emptyMap();
+    }
+  }
+
+  private static Template compileBody(HttpReqDef reqDef) {
+    if (reqDef.getBodyMode() == null) {
+      return null;
+    }
+    switch (reqDef.getBodyMode()) {
+      case JSON:
+      case FORM:
+        // body_template 直接作为请求体，不做变量替换
+        return StringUtils.hasText(reqDef.getBodyTemplate())
+            ? Template.literal(reqDef.getBodyTemplate())
+            : null;
+      case RAW:
+        // 优先使用 raw_body，如果为空则使用 body_template
+        if (StringUtils.hasText(reqDef.getRawBody())) {
+          return Template.compile(reqDef.getRawBody());
+        }
+        return StringUtils.hasText(reqDef.getBodyTemplate())
+            ? Template.literal(reqDef.getBodyTemplate())
+            : null;
+      case NONE:
+      default:
+        return null;
+    }
+  }
+
+  /** 拆分为静态片段与变量槽的模板 */
+  static final class Template {
+    // 偶数下标为静态片段，奇数下标为变量名
+    private final String[] parts;
+
+    private Template(String[] parts) {
+      this.parts = parts;
+    }
+
+    static Template literal(String text) {
+      return new Template(new String[] {text});
+    }
+
+    static Template compile(String template) {
+      if (template == null) {
+        return literal(null);
+      }
+      List<String> parts = new ArrayList<>();
+      int pos = 0;
+      while (true) {
+        int open = template.indexOf("{{", pos);
+        int close = open >= 0 ? template.indexOf("}}", open + 2) : -1;
+        // 与 \{\{([^}]+)\}\} 一致：变量名非空且不含 '}'
+        while (open >= 0
+            && close >= 0
+            && (close == open + 2 || template.indexOf('}', open + 2) < close)) {
+          open = template.indexOf("{{", open + 1);
+          close = open >= 0 ? template.indexOf("}}", open + 2) : -1;
+        }
+        if (open < 0 || close < 0) {
+          parts.add(template.substring(pos));
+          break;
+        }
+        parts.add(template.substring(pos, open));
+        parts.add(template.substring(open + 2, close));
+        pos = close + 2;
+      }
+      return new Template(parts.toArray(new String[0]));
+    }
+
+    String render(Map<String, Object> variables) {
+      if (parts.length == 1) {
+        return parts[0];
+      }
+      StringBuilder sb = new StringBuilder();
+      appendTo(sb, variables);
+      return sb.toString();
+    }
+
+    void appendTo(StringBuilder sb, Map<String, Object> variables) {
+      for (int i = 0; i < parts.length; i++) {
+        if ((i & 1) == 0) {
+          sb.append(parts[i]);
+          continue;
+        }
+        Object value = variables != null ? variables.get(parts[i]) : null;
+        if (value != null) {
+          sb.append(value);
+        } else {
+          sb.append("{{").append(parts[i]).append("}}");
+        }
+      }
+    }
+  }
+}
@@ -16,16 +16,15 @@
 
 package com.chaosblade.svc.reqrspproxy.service;
 
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.EntryFilter;
 import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.PodList;
-import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.ExecWatch;
-import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,10 +37,16 @@ public class DirectTapReader {
 
   private static final Logger logger = LoggerFactory.getLogger(DirectTapReader.class);
 
-  @Autowired private KubernetesClient kubernetesClient;
+  private static final String TAP_DIR = "/var/log/envoy/taps";
+
+  @Autowired private WorkloadCache workloadCache;
 
   @Autowired private ObjectMapper objectMapper;
 
+  @Autowired private PodCommandExecutor podCommandExecutor;
+
+  @Autowired private RecordingSettings settings;
+
   /** 直接从 Pod 读取 tap 数据 */
   public List<RecordedEntry> readTapDataDirectly(
       String namespace, String serviceName, int offset, int limit) {
@@ -79,6 +84,160 @@ public List<RecordedEntry> readTapDataDirectly(
     }
   }
 
+  /**
+   * 按游标分页直接读取 Pod 中的 tap 文件，逐条写入 sink
+   *
+   * <p>Pod 按名称、文件按文件名字节序遍历，游标记录当前 Pod 与最后一个已扫描的文件，下一页只读取其后的文件。每页读取的文件数不超过页大小与 {@code
+   * reqrsp.entries.maxScan}，不再读取全部文件后排序分页。
+   *
+   * <p>tap 目录没有索引，每页在 Pod 内仍要列出并排序整个目录（与文件总数成正比），但只有游标之后的文件名和内容会传回代理。
+   *
+   * @param cursor 上一页返回的游标，为空时从头开始
+   * @return 下一页游标，已读完时为 null
+   */
+  public String scanTapData(
+      String namespace,
+      String serviceName,
+      String cursor,
+      int limit,
+      EntryFilter filter,
+      Consumer<RecordedEntry> sink) {
+    String source = namespace + "/" + serviceName;
+    EntryCursor start = EntryCursor.decode(cursor, source);
+    if (start != null && !TapArchive.isSafeFileName(start.getPosition())) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+    List<Pod> pods = new ArrayList<>(getPodsByService(namespace, serviceName));
+    pods.sort(Comparator.comparing(pod -> pod.getMetadata().getName()));
+
+    PageScan scan = new PageScan(limit, settings.getEntriesMaxScan(), filter, sink);
+    for (Pod pod : pods) {
+      String podName = pod.getMetadata().getName();
+      String after = "";
+      if (start != null) {
+        int order = podName.compareTo(start.getSegment());
+        if (order < 0) {
+          continue;
+        }
+        if (order == 0) {
+          after = start.getPosition();
+        }
+      }
+      String last = scanPod(namespace, podName, after, scan);
+      if (scan.isDone()) {
+        return new EntryCursor(source, podName, last).encode();
+      }
+    }
+    return null;
+  }
+
+  /** 单页扫描的计数与过滤 */
+  private static final class PageScan {
+    private final int limit;
+    private final int maxScan;
+    private final EntryFilter filter;
+    private final Consumer<RecordedEntry> sink;
+    private int emitted;
+    private int scanned;
+
+    PageScan(int limit, int maxScan, EntryFilter filter, Consumer<RecordedEntry> sink) {
+      this.limit = limit;
+      this.maxScan = maxScan;
+      this.filter = filter;
+      this.sink = sink;
+    }
+
+    boolean isDone() {
+      return emitted >= limit || scanned >= maxScan;
+    }
+
+    /** 剩余可扫描的文件数 */
+    int remaining() {
+      return Math.max(0, Math.min(limit - emitted, maxScan - scanned));
+    }
+
+    void offer(RecordedEntry entry) {
+      scanned++;
+      if (entry != null && filter.matches(entry)) {
+        sink.accept(entry);
+        emitted++;
+      }
+    }
+  }
+
+  /**
+   * 扫描单个 Pod 中名字大于 after 的文件，直到 Pod 读完或本页结束
+   *
+   * @return 最后一个已扫描的文件名
+   */
+  private String scanPod(String namespace, String podName, String after, PageScan scan) {
+    String last = after;
+    if (!settings.isTapBulkEnabled()) {
+      while (!scan.isDone()) {
+        int batch = scan.remaining();
+        List<String> names = listTapFilesAfter(namespace, podName, last, batch);
+        for (String name : names) {
+          String filePath = TAP_DIR + "/" + name;
+          RecordedEntry entry = null;
+          try {
+            entry = parseTapContent(readTapFile(namespace, podName, filePath), podName, filePath);
+          } catch (Exception e) {
+            logger.warn("Failed to read tap file {}: {}", filePath, e.getMessage());
+          }
+          scan.offer(entry);
+          last = name;
+        }
+        if (names.size() < batch) {
+          break;
+        }
+      }
+      return last;
+    }
+
+    while (!scan.isDone()) {
+      int batch = scan.remaining();
+      String[] lastRead = {last};
+      TapArchive.Decoder decoder =
+          new TapArchive.Decoder(
+              settings.getTapExecMaxOutputBytes(),
+              (name, content) -> {
+                // 本页已满时忽略同一批中多读的文件，下一页从游标处重新读取
+                if (scan.isDone()) {
+                  return;
+                }
+                scan.offer(parseTapContent(content, podName, TAP_DIR + "/" + name));
+                lastRead[0] = name;
+              },
+              name -> {
+                // 超过大小上限的文件计入扫描数，游标越过它
+                if (scan.isDone()) {
+                  return;
+                }
+                scan.offer(null);
+                lastRead[0] = name;
+              });
+      try {
+        podCommandExecutor.stream(
+            namespace,
+            podName,
+            "envoy",
+            settings.getTapExecTimeoutMillis(),
+            decoder,
+            "sh",
+            "-c",
+            TapArchive.buildPageScript(TAP_DIR, last, batch, settings.getTapExecMaxOutputBytes()));
+      } catch (Exception e) {
+        logger.warn("Failed to read tap files from pod {}: {}", podName, e.getMessage());
+        return lastRead[0];
+      }
+      last = lastRead[0];
+      if (decoder.getFileCount() + decoder.getSkippedCount() < batch) {
+        break;
+      }
+    }
+    return last;
+  }
+
   /** 获取 tap 信息统计 */
   public Map<String, Object> getTapInfo(String namespace, String serviceName) {
     try {
@@ -117,12 +276,8 @@ public Map<String, Object> getTapInfo(String namespace, String serviceName) {
   }
 
   /** 获取服务对应的 Pod 列表 */
-  private List<Pod> getPodsByService(String namespace, String serviceName) throws Exception {
-    String labelSelector = "app=" + serviceName;
-    PodList podList =
-        kubernetesClient.pods().inNamespace(namespace).withLabelSelector(labelSelector).list();
-
-    return podList.getItems().stream()
+  private List<Pod> getPodsByService(String namespace, String serviceName) {
+    return workloadCache.getPods(namespace, serviceName).stream()
         .filter(pod -> "Running".equals(pod.getStatus().getPhase()))
         .collect(Collectors.toList());
   }
@@ -130,7 +285,7 @@ private List<Pod> getPodsByService(String namespace, String serviceName) throws
   /** 列出 Pod 中的 tap 文件 */
   private List<String> listTapFiles(String namespace, String podName) {
     try {
-      String[] command = {"find", "/var/log/envoy/taps", "-name", "*.json", "-type", "f"};
+      String[] command = {"find", TAP_DIR, "-name", "*.json", "-type", "f"};
       String output = execCommand(namespace, podName, "envoy", command);
 
       return Arrays.stream(output.split("\n"))
@@ -143,8 +298,30 @@ private List<String> listTapFiles(String namespace, String podName) {
     }
   }
 
+  /** 在 Pod 内按字节序列出名字大于 after 的前 maxFiles 个 tap 文件名 */
+  private List<String> listTapFilesAfter(
+      String namespace, String podName, String after, int maxFiles) {
+    try {
+      String[] command = {"sh", "-c", TapArchive.buildPageListScript(TAP_DIR, after, maxFiles)};
+      String output = execCommand(namespace, podName, "envoy", command);
+
+      return Arrays.stream(output.split("\n"))
+          .map(String::trim)
+          .filter(name -> !name.isEmpty() && TapArchive.isSafeFileName(name))
+          .collect(Collectors.toList());
+
+    } catch (Exception e) {
+      logger.warn("Failed to list tap files from pod {}: {}", podName, e.getMessage());
+      return Collections.emptyList();
+    }
+  }
+
   /** 从 Pod 读取所有 tap 文件 */
   private List<RecordedEntry> readTapFilesFromPod(String namespace, String podName) {
+    if (settings.isTapBulkEnabled()) {
+      return readTapFilesFromPodBulk(namespace, podName);
+    }
+
     List<String> tapFiles = listTapFiles(namespace, podName);
     List<RecordedEntry> entries = new ArrayList<>();
 
@@ -163,6 +340,44 @@ private List<RecordedEntry> readTapFilesFromPod(String namespace, String podName
     return entries;
   }
 
+  /** 一次 exec 读取 Pod 内的 tap 文件，只读不删除 */
+  private List<RecordedEntry> readTapFilesFromPodBulk(String namespace, String podName) {
+    List<RecordedEntry> entries = Collections.synchronizedList(new ArrayList<>());
+    TapArchive.Decoder decoder =
+        new TapArchive.Decoder(
+            settings.getTapExecMaxOutputBytes(),
+            (name, content) -> {
+              RecordedEntry entry = parseTapContent(content, podName, TAP_DIR + "/" + name);
+              if (entry != null) {
+                entries.add(entry);
+              }
+            });
+
+    try {
+      PodCommandExecutor.ExecResult result =
+          podCommandExecutor.stream(
+              namespace,
+              podName,
+              "envoy",
+              settings.getTapExecTimeoutMillis(),
+              decoder,
+              "sh",
+              "-c",
+              TapArchive.buildScript(
+                  TAP_DIR,
+                  settings.getTapBulkMaxFiles(),
+                  settings.getTapExecMaxOutputBytes(),
+                  false));
+      if (!result.getStderr().isEmpty()) {
+        logger.warn("Command stderr: {}", result.getStderr());
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to read tap files from pod {}: {}", podName, e.getMessage());
+    }
+
+    return new ArrayList<>(entries);
+  }
+
   /** 读取单个 tap 文件内容（带重试） */
   private String readTapFile(String namespace, String podName, String filePath) throws Exception {
     String[] command = {"cat", filePath};
@@ -267,32 +482,17 @@ private String extractFileId(String filePath) {
     return fileName.replace(".json", "");
   }
 
-  /** 执行 kubectl exec 命令 */
-  private String execCommand(String namespace, String podName, String container, String[] command)
-      throws Exception {
-    ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-    ByteArrayOutputStream stderr = new ByteArrayOutputStream();
-
-    try (ExecWatch execWatch =
-        kubernetesClient
-            .pods()
-            .inNamespace(namespace)
-            .withName(podName)
-            .inContainer(container)
-            .writingOutput(stdout)
-            .writingError(stderr)
-            .exec(command)) {
-
-      // 等待命令完成，使用简单的睡眠等待
-      Thread.sleep(5000); // 等待5秒让命令执行完成
-
-      String error = stderr.toString();
-      if (!error.isEmpty()) {
-        logger.warn("Command stderr: {}", error);
-      }
+  /** 执行 kubectl exec 命令，容器进程退出即返回 */
+  private String execCommand(String namespace, String podName, String container, String[] command) {
+    PodCommandExecutor.ExecResult result =
+        podCommandExecutor.exec(namespace, podName, container, command);
 
-      return stdout.toString();
+    String error = result.getStderr();
+    if (!error.isEmpty()) {
+      logger.warn("Command stderr: {}", error);
     }
+
+    return result.getStdout();
   }
 
   private String execCommandWithRetry(
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.chaosblade.svc.reqrspproxy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 录制条目分页游标
+ *
+ * <p>由 (来源, 分段, 位置) 组成，对外编码为不透明的 base64url 字符串：来源是录制 ID 或 namespace/service，分段与位置的含义由读取方决定 （Redis
+ * 条目为空分段与列表下标，直接读取 Pod 时为 Pod 名与最后一个已扫描的 tap 文件名）。每页只把游标之后的数据传回代理并解码。
+ *
+ * <p>游标不能让存储端跳过前面的数据：Redis 列表按下标 LRANGE 的开销为 O(下标 + 页大小)，Pod 内每页仍需列出并排序整个 tap 目录。
+ */
+public final class EntryCursor {
+
+  private static final char SEPARATOR = '\n';
+
+  private final String source;
+  private final String segment;
+  private final String position;
+
+  public EntryCursor(String source, String segment, String position) {
+    this.source = source;
+    this.segment = segment == null ? "" : segment;
+    this.position = position == null ? "" : position;
+  }
+
+  public String getSegment() {
+    return segment;
+  }
+
+  public String getPosition() {
+    return position;
+  }
+
+  /** 编码为对外的游标字符串 */
+  public String encode() {
+    String raw = source + SEPARATOR + segment + SEPARATOR + position;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 解析游标，为空时返回 null（从头开始）
+   *
+   * @throws IllegalArgumentException 游标格式错误或不属于该来源
+   */
+  public static EntryCursor decode(String cursor, String expectedSource) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+    String[] parts = raw.split(String.valueOf(SEPARATOR), -1);
+    if (parts.length != 3 || !parts[0].equals(expectedSource)) {
+      throw new IllegalArgumentException("Cursor does not belong to " + expectedSource);
+    }
+    return new EntryCursor(parts[0], parts[1], parts[2]);
+  }
+}
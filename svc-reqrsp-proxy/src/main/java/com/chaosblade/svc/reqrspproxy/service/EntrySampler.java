@@ -0,0 +1,293 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 录制时的条目去重与采样
+ *
+ * <p>每个条目按 method + 路径模板 + 响应码 + 请求体摘要计算指纹（路径模板按 {@link PathTemplateClusterer#shapeOf} 逐段归一化）。
+ * 每个指纹的第一条总会保留，之后每个指纹最多保留 {@code reqrsp.sampling.exemplarsPerFingerprint} 条，同一端点（method +
+ * 路径模板）的样本总数不超过 {@code reqrsp.sampling.exemplarsPerEndpoint}；配额用完后按端点采样率（{@code
+ * reqrsp.sampling.rates}，默认 {@code reqrsp.sampling.defaultRate}）随机保留。被丢弃的条目仍计入指纹计数（见 {@link
+ * TapEntryBatch}），因此录制数据量与不同响应形态的数量成正比，而不是与请求量成正比。
+ *
+ * <p>配额占用分两步：{@link #admit} 先在本副本预留，条目所在批次写入成功后 {@link #commit} 转为已用，写入失败或被去重跳过时 {@link #release}
+ * 归还。已用配额随条目一起写入 Redis 哈希 {@link TapEntryBatch#keptKey}，各副本在每轮采集开始时 {@link #refresh}
+ * 读取全部副本的已用数，多副本分片采集同一录制时配额不会按副本数放大；超出量不超过一个采集周期内其他副本的预留数。
+ */
+@Component
+public class EntrySampler {
+
+  private static final Logger logger = LoggerFactory.getLogger(EntrySampler.class);
+
+  // 单个录制在内存中跟踪的配额计数上限，超出后新指纹只按采样率保留
+  private static final int MAX_TRACKED_COUNTERS = 50000;
+
+  private static final String FINGERPRINT_PREFIX = "fp:";
+  private static final String ENDPOINT_PREFIX = "ep:";
+
+  /** 采样结果 */
+  public enum Admission {
+    /** 占用配额保留，批次写入后需要 {@link #commit} 或 {@link #release} */
+    RESERVED,
+    /** 按采样率保留，不占配额 */
+    SAMPLED,
+    /** 丢弃 */
+    DROPPED;
+
+    public boolean isKept() {
+      return this != DROPPED;
+    }
+  }
+
+  @Autowired private RecordingSettings settings;
+
+  @Autowired private StringRedisTemplate redis;
+
+  private final Map<String, RecordingQuota> quotas = new ConcurrentHashMap<>();
+
+  // key: "METHOD /template" 或 "/template"
+  private final Map<String, Double> rates = new HashMap<>();
+
+  @PostConstruct
+  public void parseRates() {
+    String spec = settings.getSamplingRates();
+    if (spec == null || spec.isBlank()) {
+      return;
+    }
+    for (String item : spec.split(",")) {
+      int eq = item.lastIndexOf('=');
+      if (eq <= 0) {
+        logger.warn("Ignoring malformed sampling rate: {}", item);
+        continue;
+      }
+      try {
+        double rate = Double.parseDouble(item.substring(eq + 1).trim());
+        rates.put(item.substring(0, eq).trim(), Math.max(0, Math.min(1, rate)));
+      } catch (NumberFormatException e) {
+        logger.warn("Ignoring malformed sampling rate: {}", item);
+      }
+    }
+    logger.info("Loaded {} per-endpoint sampling rates", rates.size());
+  }
+
+  /**
+   * 计算条目指纹并决定是否保存，指纹写入 {@link RecordedEntry#setFingerprint}
+   *
+   * @return 采样结果，{@link Admission#RESERVED} 表示占用了配额
+   */
+  public Admission admit(RecordedEntry entry) {
+    if (!settings.isSamplingEnabled()) {
+      return Admission.SAMPLED;
+    }
+    String method = entry.getMethod() != null ? entry.getMethod() : "-";
+    String template = template(entry.getPath());
+    String endpoint = method + " " + template;
+    String fingerprint =
+        endpoint
+            + " "
+            + (entry.getStatus() != null ? entry.getStatus() : "-")
+            + " "
+            + bodyDigest(entry.getRequestBody());
+    entry.setFingerprint(fingerprint);
+
+    RecordingQuota quota =
+        quotas.computeIfAbsent(entry.getRecordingId(), id -> new RecordingQuota());
+    if (quota.reserve(
+        fingerprint,
+        endpoint,
+        Math.max(1, settings.getSamplingExemplarsPerFingerprint()),
+        Math.max(1, settings.getSamplingExemplarsPerEndpoint()))) {
+      return Admission.RESERVED;
+    }
+    double rate = rates.getOrDefault(endpoint, rates.getOrDefault(template, -1.0));
+    if (rate < 0) {
+      rate = settings.getSamplingDefaultRate();
+    }
+    return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate
+        ? Admission.SAMPLED
+        : Admission.DROPPED;
+  }
+
+  /**
+   * 批次写入成功，预留的配额转为已用
+   *
+   * @param fingerprints 占用配额且已写入的条目指纹
+   */
+  void commit(String recordingId, List<String> fingerprints) {
+    RecordingQuota quota = quotas.get(recordingId);
+    if (quota != null && !fingerprints.isEmpty()) {
+      quota.settle(fingerprints, true);
+    }
+  }
+
+  /**
+   * 批次写入失败或条目被跳过，归还预留的配额
+   *
+   * @param fingerprints 占用配额但未写入的条目指纹
+   */
+  void release(String recordingId, List<String> fingerprints) {
+    RecordingQuota quota = quotas.get(recordingId);
+    if (quota != null && !fingerprints.isEmpty()) {
+      quota.settle(fingerprints, false);
+    }
+  }
+
+  /** 从 Redis 读取全部副本已用的配额，读取失败时沿用本地计数 */
+  public void refresh(String recordingId) {
+    if (!settings.isSamplingEnabled()) {
+      return;
+    }
+    try {
+      Map<Object, Object> used = redis.opsForHash().entries(TapEntryBatch.keptKey(recordingId));
+      if (used.isEmpty()) {
+        return;
+      }
+      quotas.computeIfAbsent(recordingId, id -> new RecordingQuota()).merge(used);
+    } catch (Exception e) {
+      logger.debug("Failed to refresh sampling quota of {}: {}", recordingId, e.getMessage());
+    }
+  }
+
+  /** 释放录制的配额计数 */
+  public void forget(String recordingId) {
+    quotas.remove(recordingId);
+  }
+
+  /** 已用配额计数在 {@link TapEntryBatch#keptKey} 中的字段：指纹与所属端点各一个 */
+  static List<String> quotaFields(String fingerprint) {
+    return List.of(FINGERPRINT_PREFIX + fingerprint, ENDPOINT_PREFIX + endpointOf(fingerprint));
+  }
+
+  /** 指纹中的端点部分（去掉末尾的响应码与请求体摘要） */
+  static String endpointOf(String fingerprint) {
+    int digest = fingerprint.lastIndexOf(' ');
+    int status = digest > 0 ? fingerprint.lastIndexOf(' ', digest - 1) : -1;
+    return status > 0 ? fingerprint.substring(0, status) : fingerprint;
+  }
+
+  /** 路径模板：去掉查询串，可识别形状的段替换为变量 */
+  static String template(String path) {
+    if (path == null || path.isEmpty()) {
+      return "/";
+    }
+    int end = path.length();
+    int query = path.indexOf('?');
+    if (query >= 0) {
+      end = query;
+    }
+    StringBuilder template = new StringBuilder();
+    for (String segment : path.substring(0, end).split("/", -1)) {
+      if (template.length() > 0 || !segment.isEmpty()) {
+        template.append('/');
+      }
+      String shape = PathTemplateClusterer.shapeOf(segment);
+      template.append(shape != null ? shape : segment);
+    }
+    return template.length() > 0 ? template.toString() : "/";
+  }
+
+  private static String bodyDigest(String body) {
+    if (body == null || body.isEmpty()) {
+      return "-";
+    }
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 8);
+    } catch (Exception e) {
+      return Integer.toHexString(body.hashCode());
+    }
+  }
+
+  /**
+   * 单个录制的配额计数
+   *
+   * <p>每个计数分为已用（used，含其他副本写入 Redis 的）与本副本预留（reserved）两部分，判断配额时取二者之和。
+   */
+  private static final class RecordingQuota {
+    private final Map<String, long[]> counters = new HashMap<>();
+
+    /** 指纹首次出现，或指纹与端点都还有配额时预留一条 */
+    synchronized boolean reserve(
+        String fingerprint, String endpoint, int perFingerprint, int perEndpoint) {
+      long[] fp = counters.get(FINGERPRINT_PREFIX + fingerprint);
+      long fpTotal = fp != null ? fp[0] + fp[1] : 0;
+      if (fpTotal > 0) {
+        long[] ep = counters.get(ENDPOINT_PREFIX + endpoint);
+        long epTotal = ep != null ? ep[0] + ep[1] : 0;
+        if (fpTotal >= perFingerprint || epTotal >= perEndpoint) {
+          return false;
+        }
+      } else if (counters.size() >= MAX_TRACKED_COUNTERS) {
+        return false;
+      }
+      counter(FINGERPRINT_PREFIX + fingerprint)[1]++;
+      counter(ENDPOINT_PREFIX + endpoint)[1]++;
+      return true;
+    }
+
+    synchronized void settle(List<String> fingerprints, boolean written) {
+      for (String fingerprint : fingerprints) {
+        for (String field : quotaFields(fingerprint)) {
+          long[] counter = counters.get(field);
+          if (counter == null) {
+            continue;
+          }
+          counter[1] = Math.max(0, counter[1] - 1);
+          if (written) {
+            counter[0]++;
+          }
+        }
+      }
+    }
+
+    /** 合并 Redis 中的已用数，只增不减 */
+    synchronized void merge(Map<Object, Object> used) {
+      used.forEach(
+          (field, value) -> {
+            try {
+              long n = Long.parseLong(value.toString());
+              long[] counter = counter(field.toString());
+              counter[0] = Math.max(counter[0], n);
+            } catch (NumberFormatException e) {
+              // 忽略非法值
+            }
+          });
+    }
+
+    private long[] counter(String field) {
+      return counters.computeIfAbsent(field, k -> new long[2]);
+    }
+  }
+}
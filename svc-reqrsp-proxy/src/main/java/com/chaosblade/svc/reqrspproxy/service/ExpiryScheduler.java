@@ -0,0 +1,276 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 持久化的到期调度器
+ *
+ * <p>到期任务保存在 Redis 有序集合 {@value #QUEUE_KEY} 中（分数为到期时间毫秒，成员为会话 ID），任务类型保存在哈希 {@value #KIND_KEY}
+ * 中，进程重启或扩缩容后不会丢失。各副本每秒尝试续租 {@value #LEASE_KEY}，只有持有租约的副本扫描到期任务。
+ *
+ * <p>认领采用可见性超时：把到期任务的分数原子地改为当前时间加 {@code reqrsp.expiry.visibilityMillis}，认领成功才执行，
+ * 回调成功后才从队列移除。执行中的副本崩溃时任务留在队列里，超时后重新到期，由其他副本再次执行。因此任务至少执行一次， 回调耗时超过可见性超时或租约交接时也可能重复执行。
+ *
+ * <p>任务回调按类型注册（{@link #registerHandler}），回调本身必须幂等：会话已被手动清理时应直接返回。回调抛出异常时按 {@code
+ * reqrsp.expiry.retryDelayMillis} 延后重试，最多 {@code reqrsp.expiry.maxAttempts} 次。
+ *
+ * <p>回调可能阻塞数分钟（等待滚动更新），在本类独占的 {@code reqrsp.expiry.handlerThreads} 个线程上执行，不占用共享的调度线程池，
+ * 避免拖慢心跳、租约续期等定时任务。每次扫描只认领空闲线程数量的任务，其余留在队列中等待下一次扫描。
+ */
+@Component
+public class ExpiryScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(ExpiryScheduler.class);
+
+  static final String QUEUE_KEY = "rec:expiry";
+  static final String KIND_KEY = "rec:expiry:kind";
+  static final String ATTEMPTS_KEY = "rec:expiry:attempts";
+  static final String LEASE_KEY = "rec:expiry:lease";
+
+  private static final int BATCH_SIZE = 100;
+
+  private static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+  // 已持有则续期，否则仅在无人持有时获取
+  private static final DefaultRedisScript<Long> LEASE_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then"
+              + " return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+              + "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end "
+              + "return 0",
+          Long.class);
+
+  // 仍到期时改分数为可见性截止时间；返回 1 表示认领成功
+  private static final DefaultRedisScript<Long> CLAIM_SCRIPT =
+      new DefaultRedisScript<>(
+          "local s = redis.call('zscore', KEYS[1], ARGV[1]) "
+              + "if s and tonumber(s) <= tonumber(ARGV[2]) then"
+              + " redis.call('zadd', KEYS[1], ARGV[3], ARGV[1]) return 1 end "
+              + "return 0",
+          Long.class);
+
+  // 分数仍是本次认领的截止时间（或回调内已取消）时移除任务及元数据；执行期间被重新调度则保留
+  private static final DefaultRedisScript<Long> COMPLETE_SCRIPT =
+      new DefaultRedisScript<>(
+          "local s = redis.call('zscore', KEYS[1], ARGV[1]) "
+              + "if s and tonumber(s) ~= tonumber(ARGV[2]) then return 0 end "
+              + "redis.call('zrem', KEYS[1], ARGV[1]) "
+              + "redis.call('hdel', KEYS[2], ARGV[1]) "
+              + "redis.call('hdel', KEYS[3], ARGV[1]) "
+              + "return 1",
+          Long.class);
+
+  @Autowired private StringRedisTemplate redis;
+
+  @Value("${reqrsp.expiry.leaseMillis:5000}")
+  private long leaseMillis;
+
+  @Value("${reqrsp.expiry.visibilityMillis:600000}")
+  private long visibilityMillis;
+
+  @Value("${reqrsp.expiry.retryDelayMillis:30000}")
+  private long retryDelayMillis;
+
+  @Value("${reqrsp.expiry.maxAttempts:5}")
+  private int maxAttempts;
+
+  @Value("${reqrsp.expiry.handlerThreads:4}")
+  private int handlerThreads;
+
+  private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+  // 已认领、尚未执行完的任务数，不超过 handlerThreads
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private ExecutorService handlerExecutor;
+
+  @PostConstruct
+  public void start() {
+    AtomicInteger threadCount = new AtomicInteger();
+    handlerExecutor =
+        Executors.newFixedThreadPool(
+            Math.max(1, handlerThreads),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "expiry-handler-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    // 未执行完的任务留在队列中，可见性超时后由其他副本重新执行
+    handlerExecutor.shutdownNow();
+  }
+
+  /** 注册某类任务的到期回调，参数为会话 ID */
+  public void registerHandler(String kind, Consumer<String> handler) {
+    handlers.put(kind, handler);
+  }
+
+  /** 调度（或重新调度）会话在 delay 之后到期 */
+  public void schedule(String kind, String sessionId, Duration delay) {
+    long deadline = System.currentTimeMillis() + Math.max(0, delay.toMillis());
+    redis.opsForHash().put(KIND_KEY, sessionId, kind);
+    redis.opsForHash().delete(ATTEMPTS_KEY, sessionId);
+    redis.opsForZSet().add(QUEUE_KEY, sessionId, deadline);
+    logger.info(
+        "Scheduled {} expiry for {} at {}", kind, sessionId, Instant.ofEpochMilli(deadline));
+  }
+
+  /** 取消会话的到期任务，不存在时忽略 */
+  public void cancel(String sessionId) {
+    try {
+      Long removed = redis.opsForZSet().remove(QUEUE_KEY, sessionId);
+      redis.opsForHash().delete(KIND_KEY, sessionId);
+      redis.opsForHash().delete(ATTEMPTS_KEY, sessionId);
+      logger.debug("Expiry for {} cancelled: {}", sessionId, removed != null && removed > 0);
+    } catch (Exception e) {
+      logger.warn("Failed to cancel expiry for {}: {}", sessionId, e.getMessage());
+    }
+  }
+
+  /** 持有租约时处理到期任务 */
+  @Scheduled(fixedDelayString = "${reqrsp.expiry.pollMillis:1000}")
+  public void poll() {
+    try {
+      if (!acquireLease()) {
+        return;
+      }
+      int capacity = Math.min(BATCH_SIZE, Math.max(1, handlerThreads) - inFlight.get());
+      if (capacity <= 0) {
+        return;
+      }
+      long now = System.currentTimeMillis();
+      Set<String> due = redis.opsForZSet().rangeByScore(QUEUE_KEY, 0, now, 0, capacity);
+      if (due == null) {
+        return;
+      }
+      for (String sessionId : due) {
+        // 认领：推迟到可见性截止时间，只有改分数成功的副本执行该任务
+        long claimDeadline = now + visibilityMillis;
+        Long claimed =
+            redis.execute(
+                CLAIM_SCRIPT,
+                List.of(QUEUE_KEY),
+                sessionId,
+                String.valueOf(now),
+                String.valueOf(claimDeadline));
+        if (claimed != null && claimed > 0) {
+          dispatch(sessionId, claimDeadline);
+        }
+      }
+    } catch (Exception e) {
+      logger.warn("Expiry poll failed: {}", e.getMessage());
+    }
+  }
+
+  private boolean acquireLease() {
+    Long result =
+        redis.execute(LEASE_SCRIPT, List.of(LEASE_KEY), INSTANCE_ID, String.valueOf(leaseMillis));
+    return result != null && result > 0;
+  }
+
+  private void dispatch(String sessionId, long claimDeadline) {
+    Object kind = redis.opsForHash().get(KIND_KEY, sessionId);
+    Consumer<String> handler = kind != null ? handlers.get(kind.toString()) : null;
+    if (handler == null) {
+      logger.warn("No expiry handler for {} (kind={}), dropping", sessionId, kind);
+      complete(sessionId, claimDeadline);
+      return;
+    }
+    // 回调可能耗时（等待滚动更新），放到独占线程池执行，不阻塞扫描
+    inFlight.incrementAndGet();
+    try {
+      handlerExecutor.execute(
+          () -> {
+            try {
+              run(kind.toString(), sessionId, handler, claimDeadline);
+            } finally {
+              inFlight.decrementAndGet();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // 正在关闭，任务留在队列中等可见性超时
+      inFlight.decrementAndGet();
+    }
+  }
+
+  private void complete(String sessionId, long claimDeadline) {
+    redis.execute(
+        COMPLETE_SCRIPT,
+        List.of(QUEUE_KEY, KIND_KEY, ATTEMPTS_KEY),
+        sessionId,
+        String.valueOf(claimDeadline));
+  }
+
+  private void run(String kind, String sessionId, Consumer<String> handler, long claimDeadline) {
+    logger.info("Running {} expiry for {}", kind, sessionId);
+    try {
+      handler.accept(sessionId);
+      // 回调成功后才出队；执行期间被重新调度时分数已变，保留新的调度
+      complete(sessionId, claimDeadline);
+    } catch (Exception e) {
+      long attempts = redis.opsForHash().increment(ATTEMPTS_KEY, sessionId, 1);
+      if (attempts < maxAttempts) {
+        logger.warn(
+            "{} expiry for {} failed (attempt {}), retrying in {}ms: {}",
+            kind,
+            sessionId,
+            attempts,
+            retryDelayMillis,
+            e.getMessage());
+        // 回调内部可能已取消过该任务，重新登记类型后再入队
+        redis.opsForHash().put(KIND_KEY, sessionId, kind);
+        redis.opsForZSet().add(QUEUE_KEY, sessionId, System.currentTimeMillis() + retryDelayMillis);
+      } else {
+        logger.error(
+            "{} expiry for {} failed after {} attempts, giving up: {}",
+            kind,
+            sessionId,
+            attempts,
+            e.getMessage(),
+            e);
+        complete(sessionId, claimDeadline);
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingConfig;
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.FixtureUpsertResponse;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 多服务 Fixture 下发计划
+ *
+ * <p>调用方先为每个服务渲染好配置，再交给 {@link #apply} 统一下发：ConfigMap、sidecar 注入与 Service 重定向按服务并发执行 （并发数 {@code
+ * reqrsp.fixture.applyConcurrency}），之后在同一个总期限内一起等待所有滚动更新完成。整体耗时约等于最慢的单个服务， 单个服务失败不影响其他服务，结果逐服务返回。
+ */
+@Component
+public class FixtureApplyPlanner {
+
+  private static final Logger logger = LoggerFactory.getLogger(FixtureApplyPlanner.class);
+
+  public static final String APPLIED = "APPLIED";
+  public static final String PUSHED = "PUSHED";
+  public static final String TIMED_OUT = "TIMED_OUT";
+  public static final String FAILED = "FAILED";
+
+  @Autowired private K8sTapManager tapManager;
+
+  @Autowired private RolloutWaiter rolloutWaiter;
+
+  @Autowired private RecordingConfig recordingConfig;
+
+  private final RecordingSettings settings;
+
+  private final ExecutorService applyExecutor;
+
+  public FixtureApplyPlanner(RecordingSettings settings) {
+    this.settings = settings;
+    this.applyExecutor =
+        Executors.newFixedThreadPool(Math.max(1, settings.getFixtureApplyConcurrency()));
+  }
+
+  /** 单个服务的待下发配置 */
+  public static final class Plan {
+    private final String namespace;
+    private final String serviceName;
+    private final String configMapName;
+    private final String envoyYaml;
+
+    public Plan(String namespace, String serviceName, String configMapName, String envoyYaml) {
+      this.namespace = namespace;
+      this.serviceName = serviceName;
+      this.configMapName = configMapName;
+      this.envoyYaml = envoyYaml;
+    }
+
+    public String getServiceName() {
+      return serviceName;
+    }
+
+    public String getConfigMapName() {
+      return configMapName;
+    }
+  }
+
+  /**
+   * 执行下发计划
+   *
+   * @return 与 plans 顺序一致的逐服务结果
+   */
+  public List<FixtureUpsertResponse.ServiceResult> apply(List<Plan> plans) {
+    long start = System.currentTimeMillis();
+    long deadline = start + settings.getFixtureRolloutTimeoutMillis();
+
+    // 1) 并发下发配置，每个服务内部仍按 ConfigMap -> sidecar -> Service 的顺序
+    List<CompletableFuture<Boolean>> applied = new ArrayList<>();
+    for (Plan plan : plans) {
+      applied.add(CompletableFuture.supplyAsync(() -> applyOne(plan), applyExecutor));
+    }
+
+    // 2) 需要滚动更新的服务在同一个总期限内一起等待
+    List<CompletableFuture<FixtureUpsertResponse.ServiceResult>> results = new ArrayList<>();
+    for (int i = 0; i < plans.size(); i++) {
+      Plan plan = plans.get(i);
+      results.add(
+          applied
+              .get(i)
+              .thenCompose(
+                  pushed -> {
+                    if (pushed) {
+                      return CompletableFuture.completedFuture(result(plan, PUSHED, null, start));
+                    }
+                    long remaining = Math.max(1, deadline - System.currentTimeMillis());
+                    return rolloutWaiter
+                        .await(
+                            plan.namespace,
+                            plan.serviceName,
+                            RolloutWaiter::isRolledOut,
+                            Duration.ofMillis(remaining))
+                        .thenApply(d -> result(plan, APPLIED, null, start));
+                  })
+              .exceptionally(e -> failure(plan, e, start)));
+    }
+
+    List<FixtureUpsertResponse.ServiceResult> outcome = new ArrayList<>();
+    for (CompletableFuture<FixtureUpsertResponse.ServiceResult> future : results) {
+      outcome.add(future.join());
+    }
+    logger.info(
+        "Applied fixtures to {} service(s) in {}ms: {}",
+        plans.size(),
+        System.currentTimeMillis() - start,
+        outcome);
+    return outcome;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    applyExecutor.shutdownNow();
+  }
+
+  /**
+   * 下发单个服务的配置
+   *
+   * @return 是否通过 xDS 直接推送（无需等待滚动更新）
+   */
+  private boolean applyOne(Plan plan) {
+    // sidecar 已通过 xDS 接入时只推送新配置，不重启
+    boolean pushed =
+        tapManager.pushConfigIfXdsManaged(plan.namespace, plan.configMapName, plan.envoyYaml);
+    if (!pushed) {
+      tapManager.applyOrUpdateConfigMap(plan.namespace, plan.configMapName, plan.envoyYaml);
+      tapManager.injectOrUpdateSidecar(plan.namespace, plan.serviceName, plan.configMapName);
+    }
+    tapManager.redirectServiceToEnvoy(
+        plan.namespace, plan.serviceName, recordingConfig.getEnvoy().getPort());
+    return pushed;
+  }
+
+  private FixtureUpsertResponse.ServiceResult failure(Plan plan, Throwable e, long start) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    if (cause instanceof TimeoutException) {
+      logger.warn("Rollout of {} did not finish before the deadline", plan.serviceName);
+      return result(plan, TIMED_OUT, "Rollout did not finish before the deadline", start);
+    }
+    logger.error("Failed to apply fixtures to {}: {}", plan.serviceName, cause.getMessage(), cause);
+    return result(plan, FAILED, cause.getMessage(), start);
+  }
+
+  private static FixtureUpsertResponse.ServiceResult result(
+      Plan plan, String status, String message, long start) {
+    return new FixtureUpsertResponse.ServiceResult(
+        plan.serviceName, status, message, System.currentTimeMillis() - start);
+  }
+}
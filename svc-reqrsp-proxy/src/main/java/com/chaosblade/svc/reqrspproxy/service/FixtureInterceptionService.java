@@ -20,7 +20,9 @@
 import com.chaosblade.svc.reqrspproxy.dto.FixtureUpsertRequest;
 import com.chaosblade.svc.reqrspproxy.dto.FixtureUpsertResponse;
 import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import org.slf4j.Logger;
@@ -37,6 +39,23 @@ public class FixtureInterceptionService {
   @Autowired private FilterInterceptionConfigRenderer filterRenderer;
   @Autowired private RecordingStateService stateService;
   @Autowired private RecordingConfig recordingConfig;
+  @Autowired private FixtureApplyPlanner applyPlanner;
+  @Autowired private ExpiryScheduler expiryScheduler;
+
+  /** 到期任务类型：Fixture TTL 清理 */
+  static final String TTL_CLEANUP = "fixture-ttl-cleanup";
+
+  @PostConstruct
+  public void registerTtlCleanup() {
+    expiryScheduler.registerHandler(
+        TTL_CLEANUP,
+        sessionId -> {
+          if (stateService.exists(sessionId)) {
+            logger.info("Auto TTL cleanup for session {}", sessionId);
+            deleteByRecordId(sessionId);
+          }
+        });
+  }
 
   /** 处理 upsert，请生成并下发 Envoy 配置，不再写数据库 */
   public FixtureUpsertResponse upsert(FixtureUpsertRequest req, HttpServletRequest httpRequest) {
@@ -50,28 +69,38 @@ public FixtureUpsertResponse upsert(FixtureUpsertRequest req, HttpServletRequest
     LocalDateTime expiresAt =
         LocalDateTime.now().plusSeconds(Optional.ofNullable(req.getTtlSec()).orElse(600));
 
+    // 1. 先为所有服务读取应用端口并渲染配置
+    List<FixtureApplyPlanner.Plan> plans = new ArrayList<>();
+    Map<String, Integer> appPorts = new HashMap<>();
     for (Map.Entry<String, List<FixtureUpsertRequest.FixtureItem>> entry : byService.entrySet()) {
       String serviceName = entry.getKey();
       List<FixtureUpsertRequest.FixtureItem> items = entry.getValue();
 
-      // 1. 读取应用端口
       int appPort = getApplicationPort(namespace, serviceName);
+      appPorts.put(serviceName, appPort);
 
-      // 2. 渲染 Envoy 过滤器配置（包含 direct_response + baggage 条件）
+      // 渲染 Envoy 过滤器配置（包含 direct_response + baggage 条件）
       String tapPrefix =
           String.format(
               "%s/fi-%s-%s-",
               recordingConfig.getEnvoy().getTapDir(), serviceName, System.currentTimeMillis());
       String envoyYaml = filterRenderer.render(appPort, items, true, tapPrefix);
-
-      // 3. 应用到 K8s：ConfigMap + 注入/更新 sidecar + redirect service
       String configMapName = String.format("envoy-fi-%s", serviceName);
-      tapManager.applyOrUpdateConfigMap(namespace, configMapName, envoyYaml);
-      tapManager.injectOrUpdateSidecar(namespace, serviceName, configMapName);
-      tapManager.redirectServiceToEnvoy(
-          namespace, serviceName, recordingConfig.getEnvoy().getPort());
+      plans.add(new FixtureApplyPlanner.Plan(namespace, serviceName, configMapName, envoyYaml));
+    }
+
+    // 2. 并发应用到 K8s（ConfigMap + 注入/更新 sidecar + redirect service），一起等待滚动更新
+    List<FixtureUpsertResponse.ServiceResult> results = applyPlanner.apply(plans);
+    if (!results.isEmpty()
+        && results.stream().allMatch(r -> FixtureApplyPlanner.FAILED.equals(r.getStatus()))) {
+      throw new RuntimeException("Failed to apply fixtures: " + results);
+    }
 
-      // 4. 保存/更新状态（Redis），便于 recordId 查询与 TTL 清理
+    Integer ttlSec = Optional.ofNullable(req.getTtlSec()).orElse(600);
+    for (FixtureApplyPlanner.Plan plan : plans) {
+      String serviceName = plan.getServiceName();
+
+      // 3. 保存/更新状态（Redis），便于 recordId 查询与 TTL 清理；失败的服务也保存，以便清理部分下发的资源
       String sessionId = buildSessionId(req.getRecordId(), serviceName);
       RecordingState state = new RecordingState();
       state.setRecordingId(sessionId);
@@ -81,29 +110,20 @@ public FixtureUpsertResponse upsert(FixtureUpsertRequest req, HttpServletRequest
       state.setInterceptionRules(List.of());
       state.setStatus(RecordingState.RecordingStatus.RECORDING);
       state.setStartedAt(LocalDateTime.now());
-      state.setConfigMapName(configMapName);
+      state.setConfigMapName(plan.getConfigMapName());
       state.setDeploymentName(serviceName);
-      state.setAppPortOriginal(appPort);
+      state.setAppPortOriginal(appPorts.get(serviceName));
       stateService.saveState(state);
 
-      // 5. TTL 自动清理：到期后恢复服务并删除配置
-      Integer ttlSec = Optional.ofNullable(req.getTtlSec()).orElse(600);
-      tapManager.scheduleAutoStop(
-          sessionId,
-          ttlSec,
-          () -> {
-            try {
-              if (stateService.exists(sessionId)) {
-                logger.info("Auto TTL cleanup for session {}", sessionId);
-                deleteByRecordId(sessionId);
-              }
-            } catch (Exception e) {
-              logger.warn("Auto cleanup failed for {}: {}", sessionId, e.getMessage());
-            }
-          });
+      // 4. TTL 自动清理：到期后恢复服务并删除配置（持久化调度，重启后仍会执行）
+      if (ttlSec > 0) {
+        expiryScheduler.schedule(TTL_CLEANUP, sessionId, Duration.ofSeconds(ttlSec));
+      }
     }
 
-    return new FixtureUpsertResponse(req.getItems().size(), expiresAt);
+    FixtureUpsertResponse response = new FixtureUpsertResponse(req.getItems().size(), expiresAt);
+    response.setServices(results);
+    return response;
   }
 
   public Map<String, Object> getStatusByRecordId(String recordId) {
@@ -166,10 +186,7 @@ public void deleteByRecordId(String recordId) {
         if (!stateService.exists(id)) continue;
         RecordingState st = stateService.loadState(id);
         // 先取消可能的自动停止任务，避免在清理过程中被触发
-        try {
-          tapManager.cancelAutoStop(id);
-        } catch (Exception ignore) {
-        }
+        expiryScheduler.cancel(id);
 
         tapManager.restoreServiceToOriginal(
             st.getNamespace(), st.getServiceName(), st.getAppPortOriginal());
@@ -17,15 +17,12 @@
 package com.chaosblade.svc.reqrspproxy.service;
 
 import com.chaosblade.svc.reqrspproxy.entity.HttpReqDef;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -45,12 +42,14 @@
 public class HttpRequestExecutor {
 
   private static final Logger logger = LoggerFactory.getLogger(HttpRequestExecutor.class);
-  private static final Pattern TEMPLATE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
 
   private final ObjectMapper objectMapper;
   private final WebClient webClient;
   private final AuthenticationService authenticationService;
 
+  // key: HttpReqDef id
+  private final Map<Long, CompiledRequestTemplate> templateCache = new ConcurrentHashMap<>();
+
   public HttpRequestExecutor(AuthenticationService authenticationService) {
     this.authenticationService = authenticationService;
     this.objectMapper = new ObjectMapper();
@@ -91,7 +90,7 @@ public HttpRequestExecutor(AuthenticationService authenticationService) {
 
   /** 执行HTTP请求 */
   public Mono<HttpRequestResult> executeRequest(HttpReqDef reqDef, Map<String, Object> variables) {
-    logger.info("Executing HTTP request: {} {}", reqDef.getMethod(), reqDef.getUrlTemplate());
+    logger.debug("Executing HTTP request: {} {}", reqDef.getMethod(), reqDef.getUrlTemplate());
 
     return executeRequestWithRetry(reqDef, variables, false);
   }
@@ -100,23 +99,16 @@ public Mono<HttpRequestResult> executeRequest(HttpReqDef reqDef, Map<String, Obj
   private Mono<HttpRequestResult> executeRequestWithRetry(
       HttpReqDef reqDef, Map<String, Object> variables, boolean isRetry) {
     try {
-      // 1. 处理URL模板
-      String url = processTemplate(reqDef.getUrlTemplate(), variables);
-
-      // 2. 处理请求头
-      HttpHeaders headers = processHeaders(reqDef.getHeaders(), variables);
-
-      // 3. 处理查询参数
-      Map<String, String> queryParams = processQueryParams(reqDef.getQueryParams(), variables);
+      // 1. 取预编译模板，定义被修改过时重新编译
+      CompiledRequestTemplate template = compiledTemplate(reqDef);
 
-      // 4. 构建完整URL（包含查询参数）
-      String fullUrl = buildFullUrl(url, queryParams);
+      // 2. 生成URL（包含查询参数）、请求头和请求体
+      String fullUrl = template.renderUrl(variables);
+      HttpHeaders headers = completeHeaders(template.renderHeaders(variables));
+      Object requestBody = template.renderBody(variables);
 
-      // 5. 处理请求体
-      Object requestBody = processRequestBody(reqDef, variables);
-
-      // 6. 发起请求
-      return executeWebClientRequest(reqDef.getMethod(), fullUrl, headers, requestBody)
+      // 3. 发起请求
+      return executeWebClientRequest(template.getMethod(), fullUrl, headers, requestBody)
           .map(
               response ->
                   new HttpRequestResult(
@@ -159,44 +151,21 @@ private boolean isTokenExpiredError(Throwable throwable) {
         || message.contains("HTTP 401");
   }
 
-  /** 处理模板字符串，替换变量 */
-  private String processTemplate(String template, Map<String, Object> variables) {
-    if (!StringUtils.hasText(template) || variables == null || variables.isEmpty()) {
-      return template;
-    }
-
-    Matcher matcher = TEMPLATE_PATTERN.matcher(template);
-    StringBuffer result = new StringBuffer();
-
-    while (matcher.find()) {
-      String varName = matcher.group(1);
-      Object value = variables.get(varName);
-      String replacement = value != null ? value.toString() : matcher.group(0);
-      matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+  /** 按 id 取预编译模板，定义的 updatedAt 变化后重新编译 */
+  private CompiledRequestTemplate compiledTemplate(HttpReqDef reqDef) {
+    if (reqDef.getId() == null) {
+      return CompiledRequestTemplate.compile(reqDef, objectMapper);
     }
-    matcher.appendTail(result);
-
-    return result.toString();
+    return templateCache.compute(
+        reqDef.getId(),
+        (id, cached) ->
+            cached != null && !cached.isStale(reqDef)
+                ? cached
+                : CompiledRequestTemplate.compile(reqDef, objectMapper));
   }
 
-  /** 处理请求头 */
-  private HttpHeaders processHeaders(String headersJson, Map<String, Object> variables) {
-    HttpHeaders headers = new HttpHeaders();
-
-    if (StringUtils.hasText(headersJson)) {
-      try {
-        Map<String, String> headerMap =
-            objectMapper.readValue(headersJson, new TypeReference<Map<String, String>>() {});
-
-        for (Map.Entry<String, String> entry : headerMap.entrySet()) {
-          String value = processTemplate(entry.getValue(), variables);
-          headers.add(entry.getKey(), value);
-        }
-      } catch (Exception e) {
-        logger.warn("Failed to parse headers JSON: {}", e.getMessage());
-      }
-    }
-
+  /** 补充认证、Content-Type 和 Accept 请求头 */
+  private HttpHeaders completeHeaders(HttpHeaders headers) {
     // 处理 Authorization 头 - 仅在未提供时，才尝试补充最新有效 token；绝不覆盖已有值
     if (!headers.containsKey(HttpHeaders.AUTHORIZATION)) {
       try {
@@ -228,116 +197,24 @@ private HttpHeaders processHeaders(String headersJson, Map<String, Object> varia
     return headers;
   }
 
-  /** 处理查询参数 */
-  private Map<String, String> processQueryParams(
-      String queryParamsJson, Map<String, Object> variables) {
-    Map<String, String> queryParams = new HashMap<>();
-
-    if (StringUtils.hasText(queryParamsJson)) {
-      try {
-        Map<String, String> paramMap =
-            objectMapper.readValue(queryParamsJson, new TypeReference<Map<String, String>>() {});
-
-        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
-          String value = processTemplate(entry.getValue(), variables);
-          queryParams.put(entry.getKey(), value);
-        }
-      } catch (Exception e) {
-        logger.warn("Failed to parse query params JSON: {}", e.getMessage());
-      }
-    }
-
-    return queryParams;
-  }
-
-  /** 构建完整URL（包含查询参数） */
-  private String buildFullUrl(String baseUrl, Map<String, String> queryParams) {
-    if (queryParams.isEmpty()) {
-      return baseUrl;
-    }
-
-    StringBuilder urlBuilder = new StringBuilder(baseUrl);
-    boolean first = !baseUrl.contains("?");
-
-    for (Map.Entry<String, String> entry : queryParams.entrySet()) {
-      if (first) {
-        urlBuilder.append("?");
-        first = false;
-      } else {
-        urlBuilder.append("&");
-      }
-      urlBuilder.append(entry.getKey()).append("=").append(entry.getValue());
-    }
-
-    return urlBuilder.toString();
-  }
-
-  /** 处理请求体 */
-  private Object processRequestBody(HttpReqDef reqDef, Map<String, Object> variables) {
-    if (reqDef.getBodyMode() == HttpReqDef.BodyMode.NONE) {
-      return null;
-    }
-
-    try {
-      logger.debug(
-          "Processing request body - mode: {}, bodyTemplate: {}, rawBody: {}",
-          reqDef.getBodyMode(),
-          reqDef.getBodyTemplate(),
-          reqDef.getRawBody());
-
-      switch (reqDef.getBodyMode()) {
-        case JSON:
-        case FORM:
-          if (StringUtils.hasText(reqDef.getBodyTemplate())) {
-            // body_template 在数据库中是 JSON 类型，但在 Java 中是字符串
-            // 直接返回字符串，不需要再次序列化
-            String bodyJson = reqDef.getBodyTemplate();
-            logger.debug("Using JSON body template directly: {}", bodyJson);
-            return bodyJson;
-          }
-          break;
-        case RAW:
-          // 优先使用 raw_body，如果为空则使用 body_template
-          if (StringUtils.hasText(reqDef.getRawBody())) {
-            String rawBody = processTemplate(reqDef.getRawBody(), variables);
-            logger.debug("Processed raw body: {}", rawBody);
-            return rawBody;
-          } else if (StringUtils.hasText(reqDef.getBodyTemplate())) {
-            // 如果 raw_body 为空但 body_template 有值，使用 body_template
-            logger.debug("raw_body is empty, using body_template for RAW mode");
-            // body_template 在数据库中是 JSON 类型，但在 Java 中是字符串
-            // 直接返回字符串，不需要再次序列化
-            String bodyFromTemplate = reqDef.getBodyTemplate();
-            logger.debug("Using body template directly for RAW mode: {}", bodyFromTemplate);
-            return bodyFromTemplate;
-          }
-          break;
-        case NONE:
-        default:
-          return null;
-      }
-    } catch (Exception e) {
-      logger.error("Failed to process request body: {}", e.getMessage(), e);
-    }
-
-    return null;
-  }
-
   /** 执行WebClient请求 */
   private Mono<ResponseEntity<String>> executeWebClientRequest(
       HttpReqDef.HttpMethod method, String url, HttpHeaders headers, Object body) {
 
-    logger.info("=== HTTP 请求详情 ===");
-    logger.info("请求方法: {}", method);
-    logger.info("请求URL: {}", url);
-    logger.info("请求头完整信息:");
-    headers.forEach(
-        (key, values) -> {
-          logger.info("  {}: {}", key, String.join(", ", values));
-        });
-    logger.info("请求体类型: {}", body != null ? body.getClass().getSimpleName() : "null");
-    logger.info("请求体内容: {}", body);
-    logger.info("请求体长度: {}", body != null ? body.toString().length() : 0);
+    // 逐请求的详细日志只在 debug 级别输出，批量触发时避免日志成为瓶颈
+    if (logger.isDebugEnabled()) {
+      logger.debug("=== HTTP 请求详情 ===");
+      logger.debug("请求方法: {}", method);
+      logger.debug("请求URL: {}", url);
+      logger.debug("请求头完整信息:");
+      headers.forEach(
+          (key, values) -> {
+            logger.debug("  {}: {}", key, String.join(", ", values));
+          });
+      logger.debug("请求体类型: {}", body != null ? body.getClass().getSimpleName() : "null");
+      logger.debug("请求体内容: {}", body);
+      logger.debug("请求体长度: {}", body != null ? body.toString().length() : 0);
+    }
 
     try {
       WebClient.RequestBodyUriSpec requestUriSpec =
@@ -398,17 +275,20 @@ private Mono<ResponseEntity<String>> executeWebClientRequest(
           .timeout(Duration.ofSeconds(120))
           .doOnSuccess(
               response -> {
-                logger.info("=== HTTP 响应成功 ===");
-                logger.info("响应状态码: {}", response.getStatusCode());
-                logger.info("响应URL: {}", url);
-                logger.info("响应头:");
+                if (!logger.isDebugEnabled()) {
+                  return;
+                }
+                logger.debug("=== HTTP 响应成功 ===");
+                logger.debug("响应状态码: {}", response.getStatusCode());
+                logger.debug("响应URL: {}", url);
+                logger.debug("响应头:");
                 response
                     .getHeaders()
                     .forEach(
                         (key, values) -> {
-                          logger.info("  {}: {}", key, String.join(", ", values));
+                          logger.debug("  {}: {}", key, String.join(", ", values));
                         });
-                logger.info("响应体: {}", response.getBody());
+                logger.debug("响应体: {}", response.getBody());
               })
           .doOnError(
               error -> {
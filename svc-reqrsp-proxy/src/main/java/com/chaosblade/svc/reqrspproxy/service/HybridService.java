@@ -124,8 +124,12 @@ public HybridResponse addInterceptionRules(String hybridId, List<InterceptionRul
           hybridRenderer.renderHybridConfig(
               state.getAppPortOriginal(), allRecordingRules, allInterceptionRules);
 
-      // 5. 更新 ConfigMap
-      tapManager.applyOrUpdateConfigMap(state.getNamespace(), state.getConfigMapName(), envoyYaml);
+      // 5. 更新 ConfigMap（已接入 xDS 时同时推送到 sidecar）
+      if (!tapManager.pushConfigIfXdsManaged(
+          state.getNamespace(), state.getConfigMapName(), envoyYaml)) {
+        tapManager.applyOrUpdateConfigMap(
+            state.getNamespace(), state.getConfigMapName(), envoyYaml);
+      }
 
       // 6. 更新状态
       state.setInterceptionRules(allInterceptionRules);
@@ -302,8 +306,12 @@ public HybridResponse removeInterceptionRules(
           hybridRenderer.renderHybridConfig(
               state.getAppPortOriginal(), state.getRules(), currentRules);
 
-      // 更新 ConfigMap
-      tapManager.applyOrUpdateConfigMap(state.getNamespace(), state.getConfigMapName(), envoyYaml);
+      // 更新 ConfigMap（已接入 xDS 时同时推送到 sidecar）
+      if (!tapManager.pushConfigIfXdsManaged(
+          state.getNamespace(), state.getConfigMapName(), envoyYaml)) {
+        tapManager.applyOrUpdateConfigMap(
+            state.getNamespace(), state.getConfigMapName(), envoyYaml);
+      }
 
       // 更新状态
       state.setInterceptionRules(currentRules);
@@ -340,8 +348,12 @@ public HybridResponse updateInterceptionRules(String hybridId, List<Interception
           hybridRenderer.renderHybridConfig(
               state.getAppPortOriginal(), allRecordingRules, newRules);
 
-      // 更新 ConfigMap
-      tapManager.applyOrUpdateConfigMap(state.getNamespace(), state.getConfigMapName(), envoyYaml);
+      // 更新 ConfigMap（已接入 xDS 时同时推送到 sidecar）
+      if (!tapManager.pushConfigIfXdsManaged(
+          state.getNamespace(), state.getConfigMapName(), envoyYaml)) {
+        tapManager.applyOrUpdateConfigMap(
+            state.getNamespace(), state.getConfigMapName(), envoyYaml);
+      }
 
       // 更新状态
       state.setInterceptionRules(newRules);
@@ -80,14 +80,7 @@ private Optional<RecordingState> findActiveRecordingForService(
     logger.debug("Searching for active recording for service {}/{}", namespace, serviceName);
 
     try {
-      List<RecordingState> activeRecordings = stateService.getAllActiveRecordingStates();
-
-      return activeRecordings.stream()
-          .filter(
-              state ->
-                  namespace.equals(state.getNamespace())
-                      && serviceName.equals(state.getServiceName()))
-          .findFirst();
+      return stateService.findActiveByService(namespace, serviceName);
 
     } catch (Exception e) {
       logger.error("Failed to search for active recordings: {}", e.getMessage(), e);
@@ -116,13 +109,14 @@ private InterceptionResponse addInterceptionToExistingRecording(
           hybridRenderer.renderHybridConfig(
               existingState.getAppPortOriginal(), allRecordingRules, allInterceptionRules);
 
-      // 4. 更新 ConfigMap
-      tapManager.applyOrUpdateConfigMap(
-          existingState.getNamespace(), existingState.getConfigMapName(), envoyYaml);
-
-      // 5. 触发滚动更新以应用新的拦截配置
-      tapManager.triggerRollingUpdateForConfigChange(
-          existingState.getNamespace(), existingState.getDeploymentName());
+      // 4. 已接入 xDS 时直接推送；否则更新 ConfigMap 并触发滚动更新以应用新的拦截配置
+      if (!tapManager.pushConfigIfXdsManaged(
+          existingState.getNamespace(), existingState.getConfigMapName(), envoyYaml)) {
+        tapManager.applyOrUpdateConfigMap(
+            existingState.getNamespace(), existingState.getConfigMapName(), envoyYaml);
+        tapManager.triggerRollingUpdateForConfigChange(
+            existingState.getNamespace(), existingState.getDeploymentName());
+      }
 
       // 6. 更新状态
       existingState.setInterceptionRules(allInterceptionRules);
@@ -254,12 +248,14 @@ public InterceptionResponse removeInterception(
           hybridRenderer.renderHybridConfig(
               state.getAppPortOriginal(), state.getRules(), currentRules);
 
-      // 更新 ConfigMap
-      tapManager.applyOrUpdateConfigMap(state.getNamespace(), state.getConfigMapName(), envoyYaml);
-
-      // 触发滚动更新以应用移除拦截规则后的配置
-      tapManager.triggerRollingUpdateForConfigChange(
-          state.getNamespace(), state.getDeploymentName());
+      // 已接入 xDS 时直接推送；否则更新 ConfigMap 并触发滚动更新
+      if (!tapManager.pushConfigIfXdsManaged(
+          state.getNamespace(), state.getConfigMapName(), envoyYaml)) {
+        tapManager.applyOrUpdateConfigMap(
+            state.getNamespace(), state.getConfigMapName(), envoyYaml);
+        tapManager.triggerRollingUpdateForConfigChange(
+            state.getNamespace(), state.getDeploymentName());
+      }
 
       // 更新状态
       state.setInterceptionRules(currentRules);
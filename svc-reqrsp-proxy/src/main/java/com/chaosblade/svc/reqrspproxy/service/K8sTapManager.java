@@ -21,16 +21,16 @@
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
 /** Kubernetes Tap 管理器 */
@@ -43,18 +43,28 @@ public class K8sTapManager {
 
   @Autowired private RecordingConfig recordingConfig;
 
-  @Autowired private TaskScheduler taskScheduler;
+  @Autowired private RolloutWaiter rolloutWaiter;
 
-  // 管理每个 recording 的自动停止任务句柄，便于取消
-  private final java.util.concurrent.ConcurrentHashMap<
-          String, java.util.concurrent.ScheduledFuture<?>>
-      autoStopTasks = new java.util.concurrent.ConcurrentHashMap<>();
+  @Autowired private XdsControlPlane xdsControlPlane;
 
-  /** 创建或更新 ConfigMap */
+  /**
+   * 创建或更新 ConfigMap
+   *
+   * <p>启用 xDS 时 envoy.yaml 为指向控制面的 bootstrap，完整配置另存于 {@link XdsControlPlane#RESOURCES_KEY}
+   * 并同步发布到控制面
+   */
   public void applyOrUpdateConfigMap(String namespace, String cmName, String envoyYaml) {
     logger.info("Creating/updating ConfigMap {} in namespace {}", cmName, namespace);
 
     try {
+      Map<String, String> data = new LinkedHashMap<>();
+      boolean xds = xdsControlPlane.isEnabled();
+      if (xds) {
+        data.put("envoy.yaml", xdsControlPlane.renderBootstrap(namespace, cmName, envoyYaml));
+        data.put(XdsControlPlane.RESOURCES_KEY, envoyYaml);
+      } else {
+        data.put("envoy.yaml", envoyYaml);
+      }
       ConfigMap cm =
           new ConfigMapBuilder()
               .withNewMetadata()
@@ -63,10 +73,13 @@ public void applyOrUpdateConfigMap(String namespace, String cmName, String envoy
               .addToLabels("app", "envoy-tap")
               .addToLabels("managed-by", "reqrsp-proxy")
               .endMetadata()
-              .addToData("envoy.yaml", envoyYaml)
+              .addToData(data)
               .build();
 
       k8s.configMaps().inNamespace(namespace).resource(cm).createOrReplace();
+      if (xds) {
+        xdsControlPlane.publish(namespace, cmName, envoyYaml);
+      }
       logger.info("ConfigMap {} created/updated successfully", cmName);
 
     } catch (KubernetesClientException e) {
@@ -75,6 +88,35 @@ public void applyOrUpdateConfigMap(String namespace, String cmName, String envoy
     }
   }
 
+  /**
+   * 若 sidecar 已通过 xDS 接入且 bootstrap 不变，更新 ConfigMap 并推送新配置，无需滚动更新
+   *
+   * @return 是否已推送；返回 false 时调用方仍需更新 ConfigMap 并重启 sidecar
+   */
+  public boolean pushConfigIfXdsManaged(String namespace, String cmName, String envoyYaml) {
+    if (!xdsControlPlane.isEnabled()) {
+      return false;
+    }
+    try {
+      ConfigMap existing = k8s.configMaps().inNamespace(namespace).withName(cmName).get();
+      Map<String, String> data = existing != null ? existing.getData() : null;
+      if (data == null || !data.containsKey(XdsControlPlane.RESOURCES_KEY)) {
+        return false;
+      }
+      String bootstrap = xdsControlPlane.renderBootstrap(namespace, cmName, envoyYaml);
+      if (!bootstrap.equals(data.get("envoy.yaml"))) {
+        logger.info("Bootstrap of ConfigMap {} changed, sidecar restart required", cmName);
+        return false;
+      }
+      applyOrUpdateConfigMap(namespace, cmName, envoyYaml);
+      logger.info("Pushed config of ConfigMap {} through xDS without restart", cmName);
+      return true;
+    } catch (KubernetesClientException e) {
+      logger.warn("Failed to check xDS state of ConfigMap {}: {}", cmName, e.getMessage());
+      return false;
+    }
+  }
+
   /** 注入或更新 Envoy sidecar 包含重试机制处理并发冲突 */
   public void injectOrUpdateSidecar(String namespace, String deploymentName, String cmName) {
     logger.info(
@@ -202,6 +244,17 @@ private Container createEnvoyContainer() {
                 .withContainerPort(recordingConfig.getEnvoy().getAdminPort())
                 .withName("admin")
                 .build())
+        // Envoy 就绪后 Pod 才算 Ready，滚动更新等待的就绪条件因此覆盖 sidecar
+        .withReadinessProbe(
+            new ProbeBuilder()
+                .withHttpGet(
+                    new HTTPGetActionBuilder()
+                        .withPath("/ready")
+                        .withPort(new IntOrString(recordingConfig.getEnvoy().getAdminPort()))
+                        .build())
+                .withPeriodSeconds(1)
+                .withFailureThreshold(3)
+                .build())
         .addToVolumeMounts(
             new VolumeMountBuilder()
                 .withName("envoy-config")
@@ -261,15 +314,12 @@ public void waitRolloutReady(String namespace, String deploymentName) {
     logger.info("Waiting for deployment {} to be ready in namespace {}", deploymentName, namespace);
 
     try {
-      k8s.apps()
-          .deployments()
-          .inNamespace(namespace)
-          .withName(deploymentName)
-          .waitUntilReady(5, TimeUnit.MINUTES);
+      // watch 到 observedGeneration、updatedReplicas、readyReplicas 收敛即返回
+      rolloutWaiter.awaitRolledOut(namespace, deploymentName, Duration.ofMinutes(5));
 
       logger.info("Deployment {} is ready", deploymentName);
 
-    } catch (KubernetesClientException e) {
+    } catch (RuntimeException e) {
       logger.error(
           "Failed to wait for deployment {} readiness: {}", deploymentName, e.getMessage(), e);
       throw new RuntimeException("Deployment readiness timeout: " + e.getMessage(), e);
@@ -322,48 +372,6 @@ public void removeSidecarOrDisableTap(String namespace, String deploymentName) {
     }
   }
 
-  /** 调度自动停止任务 */
-  public void scheduleAutoStop(String recordingId, Integer durationSec, Runnable stopCallback) {
-    if (durationSec == null || durationSec <= 0) {
-      logger.debug("No auto-stop scheduled for recording {}", recordingId);
-      return;
-    }
-
-    logger.info("Scheduling auto-stop for recording {} in {} seconds", recordingId, durationSec);
-
-    java.util.Date startAt = new java.util.Date(System.currentTimeMillis() + durationSec * 1000L);
-    java.util.concurrent.ScheduledFuture<?> future =
-        taskScheduler.schedule(
-            () -> {
-              logger.info("Auto-stopping recording {} after {} seconds", recordingId, durationSec);
-              try {
-                stopCallback.run();
-              } catch (Exception e) {
-                logger.error(
-                    "Failed to auto-stop recording {}: {}", recordingId, e.getMessage(), e);
-              } finally {
-                autoStopTasks.remove(recordingId);
-              }
-            },
-            startAt);
-    if (future != null) {
-      autoStopTasks.put(recordingId, future);
-    }
-  }
-
-  /** 取消自动停止任务 */
-  public void cancelAutoStop(String recordingId) {
-    try {
-      java.util.concurrent.ScheduledFuture<?> f = autoStopTasks.remove(recordingId);
-      if (f != null) {
-        boolean cancelled = f.cancel(false);
-        logger.debug("Auto-stop task for {} cancelled: {}", recordingId, cancelled);
-      }
-    } catch (Exception e) {
-      logger.warn("Failed to cancel auto-stop for {}: {}", recordingId, e.getMessage());
-    }
-  }
-
   /** 确保 Volume 存在 */
   private void ensureVolume(PodSpec spec, String name, Volume volume) {
     List<Volume> volumes = spec.getVolumes();
@@ -435,6 +443,7 @@ public void deleteConfigMap(String namespace, String configMapName) {
 
     try {
       k8s.configMaps().inNamespace(namespace).withName(configMapName).delete();
+      xdsControlPlane.remove(namespace, configMapName);
       logger.info("ConfigMap {} deleted successfully", configMapName);
 
     } catch (KubernetesClientException e) {
@@ -467,41 +476,34 @@ private void triggerRollingUpdate(String namespace, String deploymentName) {
         String restartAnnotation = "kubectl.kubernetes.io/restartedAt";
         String timestamp = java.time.Instant.now().toString();
 
-        k8s.apps()
-            .deployments()
-            .inNamespace(namespace)
-            .withName(deploymentName)
-            .edit(
-                deployment -> {
-                  // 确保 template.metadata 存在
-                  if (deployment.getSpec().getTemplate().getMetadata() == null) {
-                    deployment.getSpec().getTemplate().setMetadata(new ObjectMetaBuilder().build());
-                  }
-
-                  // 确保 annotations 存在
-                  if (deployment.getSpec().getTemplate().getMetadata().getAnnotations() == null) {
-                    deployment
-                        .getSpec()
-                        .getTemplate()
-                        .getMetadata()
-                        .setAnnotations(new HashMap<>());
-                  }
-
-                  // 添加重启注解
-                  deployment
-                      .getSpec()
-                      .getTemplate()
-                      .getMetadata()
-                      .getAnnotations()
-                      .put(restartAnnotation, timestamp);
-
-                  // 清理管理字段
-                  if (deployment.getMetadata() != null) {
-                    deployment.getMetadata().setManagedFields(null);
-                  }
-
-                  return deployment;
-                });
+        Deployment edited =
+            k8s.apps()
+                .deployments()
+                .inNamespace(namespace)
+                .withName(deploymentName)
+                .edit(
+                    deployment -> {
+                      // 确保 template.metadata 存在
+                      PodTemplateSpec template = deployment.getSpec().getTemplate();
+                      if (template.getMetadata() == null) {
+                        template.setMetadata(new ObjectMetaBuilder().build());
+                      }
+
+                      // 确保 annotations 存在
+                      if (template.getMetadata().getAnnotations() == null) {
+                        template.getMetadata().setAnnotations(new HashMap<>());
+                      }
+
+                      // 添加重启注解
+                      template.getMetadata().getAnnotations().put(restartAnnotation, timestamp);
+
+                      // 清理管理字段
+                      if (deployment.getMetadata() != null) {
+                        deployment.getMetadata().setManagedFields(null);
+                      }
+
+                      return deployment;
+                    });
 
         logger.info(
             "Rolling update triggered successfully for deployment {} (attempt {})",
@@ -509,7 +511,7 @@ private void triggerRollingUpdate(String namespace, String deploymentName) {
             attempt);
 
         // 等待滚动更新开始
-        waitForRollingUpdateToStart(namespace, deploymentName);
+        waitForRollingUpdateToStart(namespace, deploymentName, edited);
         return; // 成功，退出重试循环
 
       } catch (KubernetesClientException e) {
@@ -543,42 +545,29 @@ private void triggerRollingUpdate(String namespace, String deploymentName) {
     }
   }
 
-  /** 等待滚动更新开始 */
-  private void waitForRollingUpdateToStart(String namespace, String deploymentName) {
+  /** 等待滚动更新开始：控制器观察到编辑后的 spec 即视为开始 */
+  private void waitForRollingUpdateToStart(
+      String namespace, String deploymentName, Deployment edited) {
     logger.info("Waiting for rolling update to start for deployment {}", deploymentName);
 
+    Long generation = edited != null ? edited.getMetadata().getGeneration() : null;
+    if (generation == null) {
+      return;
+    }
     try {
-      // 等待最多 30 秒，检查 Deployment 状态
-      for (int i = 0; i < 30; i++) {
-        Deployment deployment =
-            k8s.apps().deployments().inNamespace(namespace).withName(deploymentName).get();
-
-        if (deployment != null && deployment.getStatus() != null) {
-          Integer updatedReplicas = deployment.getStatus().getUpdatedReplicas();
-          Integer replicas = deployment.getStatus().getReplicas();
-
-          if (updatedReplicas != null && replicas != null && updatedReplicas > 0) {
-            logger.info(
-                "Rolling update started for deployment {}, updated replicas: {}/{}",
-                deploymentName,
-                updatedReplicas,
-                replicas);
-            return;
-          }
-        }
-
-        Thread.sleep(1000); // 等待 1 秒
-      }
-
-      logger.warn(
-          "Rolling update may not have started within 30 seconds for deployment {}",
-          deploymentName);
-
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      logger.warn("Interrupted while waiting for rolling update to start: {}", e.getMessage());
+      Deployment deployment =
+          rolloutWaiter.awaitObserved(
+              namespace, deploymentName, generation, Duration.ofSeconds(30));
+      logger.info(
+          "Rolling update started for deployment {}, updated replicas: {}/{}",
+          deploymentName,
+          deployment.getStatus().getUpdatedReplicas(),
+          deployment.getStatus().getReplicas());
     } catch (Exception e) {
-      logger.warn("Error while waiting for rolling update to start: {}", e.getMessage());
+      logger.warn(
+          "Rolling update may not have started within 30 seconds for deployment {}: {}",
+          deploymentName,
+          e.getMessage());
     }
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图（毫秒）
+ *
+ * <p>按 1-2-5 档位分桶，分位数取所在桶的上界（不超过实际最大值），相对误差不超过一个档位。线程安全，记录时无锁。
+ */
+class LatencyHistogram {
+
+  // 桶上界（含），最后一个桶收纳更大的值
+  private static final long[] BOUNDS = {
+    1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 20_000, 60_000, 120_000
+  };
+
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long millis) {
+    long value = Math.max(0, millis);
+    counts.incrementAndGet(bucketOf(value));
+    total.incrementAndGet();
+    sum.addAndGet(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  long getCount() {
+    return total.get();
+  }
+
+  long getMax() {
+    return max.get();
+  }
+
+  double getMean() {
+    long n = total.get();
+    return n == 0 ? 0 : (double) sum.get() / n;
+  }
+
+  /**
+   * 估算分位数
+   *
+   * @param quantile 0~1
+   * @return 延迟上界（毫秒），没有样本时为 0
+   */
+  long percentile(double quantile) {
+    long n = total.get();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * n);
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return i < BOUNDS.length ? Math.min(BOUNDS[i], max.get()) : max.get();
+      }
+    }
+    return max.get();
+  }
+
+  /** 各桶计数，key 为桶上界（如 {@code <=50}），最后一个桶为 {@code >120000} */
+  Map<String, Long> buckets() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (int i = 0; i < BOUNDS.length; i++) {
+      result.put("<=" + BOUNDS[i], counts.get(i));
+    }
+    result.put(">" + BOUNDS[BOUNDS.length - 1], counts.get(BOUNDS.length));
+    return result;
+  }
+
+  private static int bucketOf(long value) {
+    for (int i = 0; i < BOUNDS.length; i++) {
+      if (value <= BOUNDS[i]) {
+        return i;
+      }
+    }
+    return BOUNDS.length;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 以 NDJSON 逐条写出录制条目
+ *
+ * <p>每个条目用同一个 {@link JsonGenerator} 直接序列化到响应流并立即 flush，不在内存中拼接整页。最后一行是 {@code {"nextCursor": ...,
+ * "count": ...}}，nextCursor 为 null 表示已读完。
+ */
+public class NdjsonEntryWriter implements Consumer<RecordedEntry> {
+
+  public static final String MEDIA_TYPE = "application/x-ndjson";
+
+  private final ObjectMapper objectMapper;
+  private final JsonGenerator generator;
+  private int count;
+
+  public NdjsonEntryWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+    this.objectMapper = objectMapper;
+    this.generator = objectMapper.getFactory().createGenerator(out);
+    this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    // 行之间用换行分隔，不要默认的空格
+    this.generator.setRootValueSeparator(null);
+  }
+
+  @Override
+  public void accept(RecordedEntry entry) {
+    try {
+      objectMapper.writeValue(generator, entry);
+      generator.writeRaw('\n');
+      generator.flush();
+      count++;
+    } catch (IOException e) {
+      // 客户端断开时中止扫描
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** 写出结尾行 */
+  public void finish(String nextCursor) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("nextCursor", nextCursor);
+    generator.writeNumberField("count", count);
+    generator.writeEndObject();
+    generator.writeRaw('\n');
+    generator.close();
+  }
+}
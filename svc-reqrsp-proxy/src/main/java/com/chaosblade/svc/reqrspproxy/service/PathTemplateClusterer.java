@@ -0,0 +1,367 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * URL 路径模板聚类
+ *
+ * <p>每个 (method, scheme://host) 维护一棵按路径段展开的前缀树，请求逐条插入：
+ *
+ * <ul>
+ *   <li>形状可识别的段（纯数字、UUID、长十六进制串、日期）直接归入变量子节点，如 {@code /orders/{id}}
+ *   <li>其余段作为字面子节点。同一位置子树相同（是否为终点、子节点的段名与变量名都相同）的字面子节点超过上限时， 这些节点合并为变量子节点 {@code
+ *       {param}}，之后子树相同的新字面段也并入其中；子树不同的字面段视为不同端点，保持独立
+ *   <li>同一位置的字面子节点总数超过上限的 {@value #LITERAL_LIMIT_FACTOR} 倍时不再区分子树，全部合并，限制内存占用
+ * </ul>
+ *
+ * <p>每个模板只保留计数和有限个代表样本（URL 不重复，优先覆盖不同的响应码），内存占用与模板数成正比，与请求量无关。
+ *
+ * @param <T> 样本类型
+ */
+final class PathTemplateClusterer<T> {
+
+  private static final Pattern NUMERIC = Pattern.compile("-?\\d+");
+  private static final Pattern UUID =
+      Pattern.compile(
+          "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+  private static final Pattern HEX = Pattern.compile("(?=.*\\d)[0-9a-fA-F]{16,}");
+  private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}([T ][0-9:.]+Z?)?");
+
+  static final String PARAM = "{param}";
+
+  // 字面子节点总数的硬上限（相对 maxLiteralChildren 的倍数）
+  static final int LITERAL_LIMIT_FACTOR = 5;
+
+  private final int maxLiteralChildren;
+  private final int maxSamples;
+
+  // key: method + " " + scheme://host
+  private final Map<String, Node<T>> roots = new LinkedHashMap<>();
+
+  /** 聚类结果 */
+  static final class Cluster<T> {
+    private final String method;
+    private final String template;
+    private final long count;
+    private final List<T> samples;
+
+    Cluster(String method, String template, long count, List<T> samples) {
+      this.method = method;
+      this.template = template;
+      this.count = count;
+      this.samples = samples;
+    }
+
+    String getMethod() {
+      return method;
+    }
+
+    /** 含 scheme://host 前缀的路径模板 */
+    String getTemplate() {
+      return template;
+    }
+
+    /** 归入该模板的请求数 */
+    long getCount() {
+      return count;
+    }
+
+    List<T> getSamples() {
+      return samples;
+    }
+  }
+
+  /**
+   * @param maxLiteralChildren 同一位置允许的子树相同的字面段数，超过后合并为变量
+   * @param maxSamples 每个模板保留的样本数
+   */
+  PathTemplateClusterer(int maxLiteralChildren, int maxSamples) {
+    this.maxLiteralChildren = Math.max(1, maxLiteralChildren);
+    this.maxSamples = Math.max(1, maxSamples);
+  }
+
+  /**
+   * 插入一条请求
+   *
+   * @param url 完整 URL 或以 / 开头的路径，查询串不参与聚类
+   * @param variant 样本的区分维度（如响应码），样本已满时用于替换重复维度的样本
+   */
+  void add(String method, String url, String variant, T sample) {
+    int schemeIdx = url.indexOf("://");
+    int pathStart = schemeIdx >= 0 ? url.indexOf('/', schemeIdx + 3) : url.indexOf('/');
+    if (pathStart < 0) {
+      pathStart = url.length();
+    }
+    int pathEnd = pathStart;
+    while (pathEnd < url.length() && url.charAt(pathEnd) != '?' && url.charAt(pathEnd) != '#') {
+      pathEnd++;
+    }
+    String prefix = url.substring(0, pathStart);
+    String path = url.substring(pathStart, pathEnd);
+    String[] segments = path.length() > 1 ? path.substring(1).split("/", -1) : new String[0];
+
+    Node<T> node = roots.computeIfAbsent(method + " " + prefix, k -> new Node<>());
+    List<Node<T>> visited = new ArrayList<>(segments.length + 1);
+    visited.add(node);
+    boolean grown = false;
+    for (String segment : segments) {
+      int before = node.childCount();
+      Node<T> parent = node;
+      node = child(parent, segment);
+      grown |= parent.childCount() != before;
+      visited.add(node);
+    }
+    grown |= node.stats == null;
+    node.stats().add(url, variant, sample, maxSamples);
+
+    // 子树结构有变化时，自下而上重新判断各层的字面子节点能否合并
+    if (grown) {
+      for (int i = visited.size() - 2; i >= 0; i--) {
+        regroup(visited.get(i));
+      }
+    }
+  }
+
+  /** 按 method、模板排序输出全部聚类 */
+  List<Cluster<T>> clusters() {
+    List<Cluster<T>> result = new ArrayList<>();
+    for (Map.Entry<String, Node<T>> root : roots.entrySet()) {
+      int space = root.getKey().indexOf(' ');
+      String method = root.getKey().substring(0, space);
+      String prefix = root.getKey().substring(space + 1);
+      collect(root.getValue(), method, new StringBuilder(prefix), true, result);
+    }
+    result.sort(
+        Comparator.comparing((Cluster<T> c) -> c.getMethod()).thenComparing(Cluster::getTemplate));
+    return result;
+  }
+
+  /** 段的形状变量名，无法识别时返回 null */
+  static String shapeOf(String segment) {
+    if (segment.isEmpty()) {
+      return null;
+    }
+    if (NUMERIC.matcher(segment).matches()) {
+      return "{id}";
+    }
+    if (DATE.matcher(segment).matches()) {
+      return "{date}";
+    }
+    if (UUID.matcher(segment).matches()) {
+      return "{uuid}";
+    }
+    if (HEX.matcher(segment).matches()) {
+      return "{hex}";
+    }
+    return null;
+  }
+
+  private Node<T> child(Node<T> node, String segment) {
+    String shape = shapeOf(segment);
+    if (shape != null) {
+      return node.wildcard(shape);
+    }
+    Node<T> literal = node.literals.get(segment);
+    if (literal != null) {
+      return literal;
+    }
+    if (node.collapsed) {
+      return node.wildcard(PARAM);
+    }
+    literal = new Node<>();
+    node.literals.put(segment, literal);
+    return literal;
+  }
+
+  /** 子树相同的字面子节点超过上限（或与已合并的子树相同）时并入变量子节点，字面子节点总数超过硬上限时全部合并 */
+  private void regroup(Node<T> node) {
+    if (node.collapsed || node.literals.isEmpty()) {
+      return;
+    }
+    if (node.literals.size() > maxLiteralChildren * LITERAL_LIMIT_FACTOR) {
+      collapse(node);
+      return;
+    }
+    Map<String, List<String>> groups = new LinkedHashMap<>();
+    for (Map.Entry<String, Node<T>> entry : node.literals.entrySet()) {
+      groups
+          .computeIfAbsent(entry.getValue().signature(), k -> new ArrayList<>())
+          .add(entry.getKey());
+    }
+    for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+      if (group.getValue().size() > maxLiteralChildren
+          || node.collapsedSignatures.contains(group.getKey())) {
+        node.collapsedSignatures.add(group.getKey());
+        for (String segment : group.getValue()) {
+          merge(node.literals.remove(segment), node.wildcard(PARAM));
+        }
+      }
+    }
+  }
+
+  /** 字面子节点过多，全部并入变量子节点 */
+  private void collapse(Node<T> node) {
+    node.collapsed = true;
+    List<Node<T>> literals = new ArrayList<>(node.literals.values());
+    node.literals.clear();
+    Node<T> target = node.wildcard(PARAM);
+    for (Node<T> literal : literals) {
+      merge(literal, target);
+    }
+  }
+
+  private void merge(Node<T> from, Node<T> into) {
+    if (from.stats != null) {
+      into.stats().merge(from.stats, maxSamples);
+    }
+    for (Map.Entry<String, Node<T>> entry : from.literals.entrySet()) {
+      Node<T> existing = into.collapsed ? null : into.literals.get(entry.getKey());
+      if (existing != null) {
+        merge(entry.getValue(), existing);
+      } else if (into.collapsed) {
+        merge(entry.getValue(), into.wildcard(PARAM));
+      } else {
+        into.literals.put(entry.getKey(), entry.getValue());
+      }
+    }
+    for (Map.Entry<String, Node<T>> entry : from.wildcards.entrySet()) {
+      merge(entry.getValue(), into.wildcard(entry.getKey()));
+    }
+    into.collapsedSignatures.addAll(from.collapsedSignatures);
+    if (from.collapsed && !into.collapsed) {
+      collapse(into);
+    } else {
+      regroup(into);
+    }
+  }
+
+  private void collect(
+      Node<T> node, String method, StringBuilder path, boolean root, List<Cluster<T>> out) {
+    if (node.stats != null) {
+      String template = root ? path + "/" : path.toString();
+      out.add(
+          new Cluster<>(method, template, node.stats.count, new ArrayList<>(node.stats.samples)));
+    }
+    int length = path.length();
+    for (Map.Entry<String, Node<T>> entry : new TreeMap<>(node.literals).entrySet()) {
+      path.append('/').append(entry.getKey());
+      collect(entry.getValue(), method, path, false, out);
+      path.setLength(length);
+    }
+    for (Map.Entry<String, Node<T>> entry : node.wildcards.entrySet()) {
+      path.append('/').append(entry.getKey());
+      collect(entry.getValue(), method, path, false, out);
+      path.setLength(length);
+    }
+  }
+
+  private static final class Node<T> {
+    final Map<String, Node<T>> literals = new LinkedHashMap<>();
+    // key: 变量名（形状或 {param}），同一位置每种形状一个子节点
+    final Map<String, Node<T>> wildcards = new TreeMap<>();
+    // 已并入 {param} 的字面子节点的子树签名
+    final Set<String> collapsedSignatures = new HashSet<>();
+    boolean collapsed;
+    Stats<T> stats;
+
+    Node<T> wildcard(String name) {
+      return wildcards.computeIfAbsent(name, k -> new Node<>());
+    }
+
+    int childCount() {
+      return literals.size() + wildcards.size();
+    }
+
+    /** 子树签名：是否为终点，以及子节点的段名和变量名 */
+    String signature() {
+      StringBuilder signature = new StringBuilder(stats != null ? "$" : "-");
+      for (String segment : new TreeMap<>(literals).keySet()) {
+        signature.append('/').append(segment);
+      }
+      for (String name : wildcards.keySet()) {
+        signature.append('/').append(name);
+      }
+      return collapsed ? signature.append("/*").toString() : signature.toString();
+    }
+
+    Stats<T> stats() {
+      if (stats == null) {
+        stats = new Stats<>();
+      }
+      return stats;
+    }
+  }
+
+  private static final class Stats<T> {
+    long count;
+    final List<T> samples = new ArrayList<>();
+    final List<String> sampleUrls = new ArrayList<>();
+    final List<String> sampleVariants = new ArrayList<>();
+
+    void add(String url, String variant, T sample, int maxSamples) {
+      count++;
+      offer(url, variant, sample, maxSamples);
+    }
+
+    void merge(Stats<T> other, int maxSamples) {
+      count += other.count;
+      for (int i = 0; i < other.samples.size(); i++) {
+        offer(
+            other.sampleUrls.get(i), other.sampleVariants.get(i), other.samples.get(i), maxSamples);
+      }
+    }
+
+    private void offer(String url, String variant, T sample, int maxSamples) {
+      if (sampleUrls.contains(url)) {
+        return;
+      }
+      if (samples.size() < maxSamples) {
+        samples.add(sample);
+        sampleUrls.add(url);
+        sampleVariants.add(variant);
+        return;
+      }
+      // 样本已满：新的 variant 替换最后一个 variant 重复的样本
+      if (sampleVariants.contains(variant)) {
+        return;
+      }
+      Set<String> seen = new HashSet<>();
+      int replace = -1;
+      for (int i = 0; i < sampleVariants.size(); i++) {
+        if (!seen.add(Objects.toString(sampleVariants.get(i)))) {
+          replace = i;
+        }
+      }
+      if (replace >= 0) {
+        samples.set(replace, sample);
+        sampleUrls.set(replace, url);
+        sampleVariants.set(replace, variant);
+      }
+    }
+  }
+}
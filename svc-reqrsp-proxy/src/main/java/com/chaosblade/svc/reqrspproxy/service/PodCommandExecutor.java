@@ -0,0 +1,220 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import io.fabric8.kubernetes.api.model.Status;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.ExecListener;
+import io.fabric8.kubernetes.client.dsl.ExecWatch;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pod 内命令执行器
+ *
+ * <p>通过 exec 监听器感知容器进程退出，进程结束即返回，不再固定等待；超过超时时间仍未结束时主动关闭连接。 标准输出写入有界缓冲，超过上限的部分丢弃并标记截断。
+ */
+@Component
+public class PodCommandExecutor {
+
+  private static final Logger logger = LoggerFactory.getLogger(PodCommandExecutor.class);
+
+  // 标准错误只用于日志，保留较小的上限
+  private static final int MAX_STDERR_BYTES = 64 * 1024;
+
+  @Autowired private KubernetesClient k8s;
+
+  @Autowired private RecordingSettings settings;
+
+  /** 命令执行结果 */
+  public static class ExecResult {
+    private final String stdout;
+    private final String stderr;
+    private final Integer exitCode;
+    private final boolean truncated;
+
+    public ExecResult(String stdout, String stderr, Integer exitCode, boolean truncated) {
+      this.stdout = stdout;
+      this.stderr = stderr;
+      this.exitCode = exitCode;
+      this.truncated = truncated;
+    }
+
+    public String getStdout() {
+      return stdout;
+    }
+
+    public String getStderr() {
+      return stderr;
+    }
+
+    /** 进程退出码，连接异常关闭时为 null */
+    public Integer getExitCode() {
+      return exitCode;
+    }
+
+    /** 标准输出是否超过上限被截断 */
+    public boolean isTruncated() {
+      return truncated;
+    }
+  }
+
+  /** 使用默认超时和输出上限执行命令 */
+  public ExecResult exec(
+      String namespace, String podName, String containerName, String... command) {
+    return exec(
+        namespace,
+        podName,
+        containerName,
+        settings.getTapExecTimeoutMillis(),
+        settings.getTapExecMaxOutputBytes(),
+        command);
+  }
+
+  /**
+   * 执行命令并等待进程退出
+   *
+   * @param timeoutMillis 超时时间（毫秒）
+   * @param maxOutputBytes 标准输出上限（字节）
+   * @return 执行结果
+   * @throws RuntimeException 建立连接失败、执行超时或被中断
+   */
+  public ExecResult exec(
+      String namespace,
+      String podName,
+      String containerName,
+      long timeoutMillis,
+      int maxOutputBytes,
+      String... command) {
+    BoundedOutputStream out = new BoundedOutputStream(maxOutputBytes);
+    ExecResult result = stream(namespace, podName, containerName, timeoutMillis, out, command);
+    if (out.isTruncated()) {
+      logger.warn(
+          "Command output in pod {} exceeded {} bytes and was truncated", podName, maxOutputBytes);
+    }
+    return new ExecResult(
+        out.asString(), result.getStderr(), result.getExitCode(), out.isTruncated());
+  }
+
+  /**
+   * 执行命令，标准输出直接写入调用方提供的流，适合边接收边解码的大输出
+   *
+   * @param timeoutMillis 超时时间（毫秒）
+   * @param out 标准输出的写入目标，由 exec 连接线程写入
+   * @return 执行结果，stdout 为空串
+   * @throws RuntimeException 建立连接失败、执行超时或被中断
+   */
+  public ExecResult stream(
+      String namespace,
+      String podName,
+      String containerName,
+      long timeoutMillis,
+      OutputStream out,
+      String... command) {
+    BoundedOutputStream err = new BoundedOutputStream(MAX_STDERR_BYTES);
+    CompletableFuture<Integer> finished = new CompletableFuture<>();
+
+    try (ExecWatch watch =
+        k8s.pods()
+            .inNamespace(namespace)
+            .withName(podName)
+            .inContainer(containerName)
+            .writingOutput(out)
+            .writingError(err)
+            .usingListener(
+                new ExecListener() {
+                  @Override
+                  public void onExit(int code, Status status) {
+                    finished.complete(code);
+                  }
+
+                  @Override
+                  public void onClose(int code, String reason) {
+                    // 未收到退出状态就关闭，视为结束但退出码未知
+                    finished.complete(null);
+                  }
+
+                  @Override
+                  public void onFailure(Throwable t, Response failureResponse) {
+                    finished.completeExceptionally(t);
+                  }
+                })
+            .exec(command)) {
+
+      Integer exitCode = finished.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      return new ExecResult("", err.asString(), exitCode, false);
+
+    } catch (TimeoutException e) {
+      throw new RuntimeException(
+          "Command execution timed out after " + timeoutMillis + "ms in pod " + podName, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Command execution interrupted in pod " + podName, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      throw new RuntimeException("Command execution failed: " + cause.getMessage(), cause);
+    }
+  }
+
+  /** 有界输出缓冲，超过上限的字节直接丢弃 */
+  static class BoundedOutputStream extends OutputStream {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final int limit;
+    private volatile boolean truncated = false;
+
+    BoundedOutputStream(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+      if (buffer.size() < limit) {
+        buffer.write(b);
+      } else {
+        truncated = true;
+      }
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+      int remaining = limit - buffer.size();
+      if (len > remaining) {
+        truncated = true;
+        len = Math.max(0, remaining);
+      }
+      buffer.write(b, off, len);
+    }
+
+    boolean isTruncated() {
+      return truncated;
+    }
+
+    synchronized String asString() {
+      return buffer.toString(StandardCharsets.UTF_8);
+    }
+  }
+}
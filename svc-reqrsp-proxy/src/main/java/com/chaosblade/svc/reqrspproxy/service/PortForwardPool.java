@@ -0,0 +1,207 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.LocalPortForward;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 端口转发会话池
+ *
+ * <p>按 (namespace, service, port) 复用 k8s 端口转发，调用方通过 {@link #acquire} 取得租约，用完后关闭租约归还。
+ * 每次取用前检查会话是否存活，失效的会话会被替换；没有租约且空闲超过 {@code reqrsp.replay.portForward.idleMillis} 的会话由后台定期关闭。
+ */
+@Component
+public class PortForwardPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(PortForwardPool.class);
+
+  @Autowired private KubernetesClient k8s;
+
+  @Autowired private RecordingSettings settings;
+
+  // key: namespace/service:port
+  private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+  /** 端口转发租约，关闭即归还，不会关闭底层转发 */
+  public static final class Lease implements AutoCloseable {
+    private final PortForwardPool pool;
+    private final String key;
+    private final Session session;
+    private boolean released;
+
+    private Lease(PortForwardPool pool, String key, Session session) {
+      this.pool = pool;
+      this.key = key;
+      this.session = session;
+    }
+
+    public int getLocalPort() {
+      return session.forward.getLocalPort();
+    }
+
+    /** 标记底层转发已不可用，归还后立即关闭，下次取用时重建 */
+    public void invalidate() {
+      pool.retire(key, session);
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!released) {
+        released = true;
+        session.release();
+      }
+    }
+  }
+
+  /**
+   * 取得到指定 Service 端口的转发租约，没有可用会话时新建
+   *
+   * @throws RuntimeException 建立端口转发失败
+   */
+  public Lease acquire(String namespace, String service, int port) {
+    String key = namespace + "/" + service + ":" + port;
+    while (true) {
+      Session session = sessions.get(key);
+      if (session != null && !session.isHealthy()) {
+        logger.info("Port-forward {} is no longer healthy, reopening", key);
+        retire(key, session);
+        continue;
+      }
+      if (session == null) {
+        // 建立转发是阻塞的网络调用，不能放在 map 的原子操作里；并发建立时保留先放入的，关闭多余的
+        Session opened = open(namespace, service, port);
+        if (sessions.putIfAbsent(key, opened) != null) {
+          opened.retire();
+          continue;
+        }
+        session = opened;
+      }
+      // 会话可能在取出后被并发回收，此时重新取用
+      if (session.retain()) {
+        return new Lease(this, key, session);
+      }
+    }
+  }
+
+  /** 关闭空闲或失效的会话 */
+  @Scheduled(fixedDelayString = "${reqrsp.replay.portForward.sweepMillis:30000}")
+  public void evictIdle() {
+    long idleMillis = settings.getReplayPortForwardIdleMillis();
+    long now = System.currentTimeMillis();
+    for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+      Session session = entry.getValue();
+      if (session.isIdleSince(now - idleMillis) || !session.isHealthy()) {
+        logger.info("Closing idle port-forward {}", entry.getKey());
+        retire(entry.getKey(), session);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+      retire(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void retire(String key, Session session) {
+    sessions.remove(key, session);
+    session.retire();
+  }
+
+  private Session open(String namespace, String service, int port) {
+    try {
+      LocalPortForward forward =
+          k8s.services().inNamespace(namespace).withName(service).portForward(port);
+      logger.info(
+          "Port-forward established: localhost:{} -> {}/{}:{}",
+          forward.getLocalPort(),
+          namespace,
+          service,
+          port);
+      return new Session(forward);
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Failed to port-forward " + namespace + "/" + service + ":" + port, e);
+    }
+  }
+
+  private static final class Session {
+    final LocalPortForward forward;
+    private int refs;
+    private long lastUsed = System.currentTimeMillis();
+    private boolean retired;
+
+    Session(LocalPortForward forward) {
+      this.forward = forward;
+    }
+
+    boolean isHealthy() {
+      return forward.isAlive() && !forward.errorOccurred();
+    }
+
+    synchronized boolean retain() {
+      if (retired) {
+        return false;
+      }
+      refs++;
+      lastUsed = System.currentTimeMillis();
+      return true;
+    }
+
+    synchronized void release() {
+      refs--;
+      lastUsed = System.currentTimeMillis();
+      if (retired && refs == 0) {
+        closeQuietly();
+      }
+    }
+
+    synchronized boolean isIdleSince(long threshold) {
+      return refs == 0 && lastUsed < threshold;
+    }
+
+    /** 不再分配新租约，最后一个租约归还时关闭 */
+    synchronized void retire() {
+      if (retired) {
+        return;
+      }
+      retired = true;
+      if (refs == 0) {
+        closeQuietly();
+      }
+    }
+
+    private void closeQuietly() {
+      try {
+        forward.close();
+      } catch (Exception e) {
+        logger.debug("Failed to close port-forward: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 录制条目的存储编码
+ *
+ * <p>条目的元数据仍为 JSON，headers 与 body 分开编码：
+ *
+ * <ul>
+ *   <li>请求与响应 headers 合并为一段 JSON，以本录制的预置字典做 Deflate 压缩。字典取录制的第一条 headers，保存在哈希 {@code
+ *       rec:<id>:hdict} 中（字段为字典的 Adler-32，即 Deflate 流头部记录的字典标识），同一服务的 headers
+ *       高度重复，压缩后通常只剩几十字节。每批条目写入时都会重写本副本所用的字典并续期（见 {@link #refreshDictionary}），字典键即使丢失也会随下一批写入恢复
+ *   <li>body 小于 {@code reqrsp.body.compressMinBytes} 时原样内联；否则 Deflate 压缩，压缩后不超过 {@code
+ *       reqrsp.body.inlineMaxBytes} 时内联，更大的写入 {@link BodyChunkStore}，条目中只保留摘要
+ * </ul>
+ *
+ * <p>块已过期时 body 解码为 null，并把对应的 truncated 标记置为 true。不带格式标记的旧条目按原 JSON 解析。
+ */
+@Component
+public class RecordedEntryCodec {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecordedEntryCodec.class);
+
+  private static final String FORMAT_FIELD = "fmt";
+  private static final int FORMAT_VERSION = 2;
+  private static final String HEADERS_FIELD = "hdr";
+  private static final String REQUEST_BODY_FIELD = "reqBody";
+  private static final String RESPONSE_BODY_FIELD = "respBody";
+
+  private static final int MAX_CACHED_DICTIONARIES = 1024;
+
+  private static final TypeReference<Map<String, Map<String, String>>> HEADERS_TYPE =
+      new TypeReference<>() {};
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private StringRedisTemplate redis;
+
+  @Autowired private BodyChunkStore chunkStore;
+
+  @Autowired private RecordingSettings settings;
+
+  // recordingId -> 本副本编码所用的 headers 字典
+  private final Map<String, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+  // recordingId:adler -> 解码用的 headers 字典
+  private final Map<String, byte[]> decodeDictionaries = new ConcurrentHashMap<>();
+
+  /** 编码为写入 Redis 的字符串 */
+  public String encode(RecordedEntry entry) throws IOException {
+    ObjectNode node = objectMapper.valueToTree(entry);
+    node.remove(List.of("requestHeaders", "responseHeaders", "requestBody", "responseBody"));
+    node.put(FORMAT_FIELD, FORMAT_VERSION);
+
+    Map<String, Map<String, String>> headers = new LinkedHashMap<>();
+    headers.put("q", entry.getRequestHeaders());
+    headers.put("s", entry.getResponseHeaders());
+    byte[] headerJson = objectMapper.writeValueAsBytes(headers);
+    byte[] dictionary = encodeDictionary(entry.getRecordingId(), headerJson);
+    node.put(HEADERS_FIELD, Base64.getEncoder().encodeToString(deflate(headerJson, dictionary)));
+
+    putBody(node, REQUEST_BODY_FIELD, entry.getRequestBody());
+    putBody(node, RESPONSE_BODY_FIELD, entry.getResponseBody());
+    return objectMapper.writeValueAsString(node);
+  }
+
+  /** 从 Redis 中的字符串还原条目 */
+  public RecordedEntry decode(String recordingId, String stored) throws IOException {
+    JsonNode root = objectMapper.readTree(stored);
+    if (!(root instanceof ObjectNode node) || !node.has(FORMAT_FIELD)) {
+      return objectMapper.treeToValue(root, RecordedEntry.class);
+    }
+    node.remove(FORMAT_FIELD);
+    JsonNode headers = node.remove(HEADERS_FIELD);
+    JsonNode requestBody = node.remove(REQUEST_BODY_FIELD);
+    JsonNode responseBody = node.remove(RESPONSE_BODY_FIELD);
+
+    RecordedEntry entry = objectMapper.treeToValue(node, RecordedEntry.class);
+    if (headers != null) {
+      byte[] compressed = Base64.getDecoder().decode(headers.asText());
+      Map<String, Map<String, String>> decoded =
+          objectMapper.readValue(
+              inflate(compressed, adler -> decodeDictionary(recordingId, adler)), HEADERS_TYPE);
+      entry.setRequestHeaders(decoded.get("q"));
+      entry.setResponseHeaders(decoded.get("s"));
+    }
+    entry.setRequestBody(readBody(requestBody));
+    if (isUnavailable(requestBody, entry.getRequestBody())) {
+      entry.setRequestTruncated(true);
+    }
+    entry.setResponseBody(readBody(responseBody));
+    if (isUnavailable(responseBody, entry.getResponseBody())) {
+      entry.setResponseTruncated(true);
+    }
+    return entry;
+  }
+
+  private void putBody(ObjectNode node, String field, String body) {
+    if (body == null) {
+      return;
+    }
+    ObjectNode ref = node.putObject(field);
+    byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+    if (raw.length < settings.getBodyCompressMinBytes()) {
+      ref.put("t", body);
+      return;
+    }
+    byte[] compressed = deflate(raw, null);
+    if (compressed.length <= settings.getBodyInlineMaxBytes()) {
+      ref.put("z", Base64.getEncoder().encodeToString(compressed));
+    } else {
+      ref.put("ref", chunkStore.put(compressed));
+    }
+  }
+
+  private String readBody(JsonNode ref) throws IOException {
+    if (ref == null || ref.isNull()) {
+      return null;
+    }
+    if (ref.has("t")) {
+      return ref.get("t").asText();
+    }
+    byte[] compressed;
+    if (ref.has("z")) {
+      compressed = Base64.getDecoder().decode(ref.get("z").asText());
+    } else {
+      compressed = chunkStore.get(ref.path("ref").asText());
+      if (compressed == null) {
+        // 块在其他副本上或已过期
+        return null;
+      }
+    }
+    return new String(inflate(compressed, null), StandardCharsets.UTF_8);
+  }
+
+  // 引用了块但块已不存在
+  private static boolean isUnavailable(JsonNode ref, String body) {
+    return body == null && ref != null && ref.has("ref");
+  }
+
+  /**
+   * 取本副本编码所用的字典，尚未选定时优先沿用 Redis 中已有的字典，没有则以 sample 建立
+   *
+   * <p>多个副本并发建立时以 HSETNX 成功的一方为准；字典键丢失后各副本可能选定不同的字典，按 Adler-32 分字段保存，互不覆盖。
+   */
+  private byte[] encodeDictionary(String recordingId, byte[] sample) {
+    byte[] cached = dictionaries.get(recordingId);
+    if (cached != null) {
+      return cached;
+    }
+    String key = TapEntryBatch.headerDictKey(recordingId);
+    Map<Object, Object> stored = redis.opsForHash().entries(key);
+    if (stored.isEmpty()) {
+      String encoded = Base64.getEncoder().encodeToString(sample);
+      redis.opsForHash().putIfAbsent(key, String.valueOf(adler(sample)), encoded);
+      redis.expire(key, TapEntryBatch.TTL);
+      stored = redis.opsForHash().entries(key);
+    }
+    // 各副本选同一个字典：取标识最小的
+    byte[] dictionary =
+        stored.entrySet().stream()
+            .min(Comparator.comparingLong(e -> Long.parseLong(e.getKey().toString())))
+            .map(e -> Base64.getDecoder().decode(e.getValue().toString()))
+            .orElse(sample);
+    if (dictionaries.size() >= MAX_CACHED_DICTIONARIES) {
+      dictionaries.clear();
+    }
+    dictionaries.put(recordingId, dictionary);
+    return dictionary;
+  }
+
+  /** 按 Deflate 流中的字典标识取解码字典 */
+  private byte[] decodeDictionary(String recordingId, long adler) {
+    String cacheKey = recordingId + ":" + adler;
+    byte[] cached = decodeDictionaries.get(cacheKey);
+    if (cached != null) {
+      return cached;
+    }
+    Object stored =
+        redis.opsForHash().get(TapEntryBatch.headerDictKey(recordingId), String.valueOf(adler));
+    if (stored == null) {
+      return null;
+    }
+    if (decodeDictionaries.size() >= MAX_CACHED_DICTIONARIES) {
+      decodeDictionaries.clear();
+    }
+    byte[] dictionary = Base64.getDecoder().decode(stored.toString());
+    decodeDictionaries.put(cacheKey, dictionary);
+    return dictionary;
+  }
+
+  /** 在写入条目的 pipeline 中重写本副本所用的字典并续期，字典键丢失时随之恢复 */
+  void refreshDictionary(StringRedisConnection conn, String recordingId, long ttlSeconds) {
+    String key = TapEntryBatch.headerDictKey(recordingId);
+    byte[] dictionary = dictionaries.get(recordingId);
+    if (dictionary != null) {
+      String encoded = Base64.getEncoder().encodeToString(dictionary);
+      conn.hSet(key, String.valueOf(adler(dictionary)), encoded);
+    }
+    conn.expire(key, ttlSeconds);
+  }
+
+  private static long adler(byte[] data) {
+    Adler32 adler = new Adler32();
+    adler.update(data);
+    return adler.getValue();
+  }
+
+  private static byte[] deflate(byte[] data, byte[] dictionary) {
+    Deflater deflater = new Deflater();
+    try {
+      if (dictionary != null) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        int n = deflater.deflate(buffer);
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] data, LongFunction<byte[]> dictionaryLookup)
+      throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buffer);
+        if (n == 0) {
+          if (inflater.needsDictionary()) {
+            byte[] dictionary =
+                dictionaryLookup != null ? dictionaryLookup.apply(inflater.getAdler()) : null;
+            if (dictionary == null) {
+              throw new IOException("Header dictionary is missing");
+            }
+            inflater.setDictionary(dictionary);
+            continue;
+          }
+          if (inflater.needsInput()) {
+            throw new IOException("Compressed data is truncated");
+          }
+        }
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } catch (DataFormatException | IllegalArgumentException e) {
+      logger.debug("Failed to inflate stored entry data: {}", e.getMessage());
+      throw new IOException("Corrupt compressed data: " + e.getMessage(), e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -17,14 +17,19 @@
 package com.chaosblade.svc.reqrspproxy.service;
 
 import com.chaosblade.svc.reqrspproxy.config.RecordingConfig;
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
 import com.chaosblade.svc.reqrspproxy.dto.*;
 import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +53,40 @@ public class RecordingService {
 
   @Autowired private RecordingStateService stateService;
 
+  @Autowired private WorkloadCache workloadCache;
+
+  @Autowired private ExpiryScheduler expiryScheduler;
+
+  @Autowired private RecordingSettings settings;
+
+  @Autowired private EntrySampler entrySampler;
+
+  @Autowired private CollectionShardManager shardManager;
+
+  /** 到期任务类型：录制自动停止 */
+  static final String AUTO_STOP = "recording-auto-stop";
+
+  @PostConstruct
+  public void registerAutoStop() {
+    expiryScheduler.registerHandler(AUTO_STOP, this::autoStop);
+  }
+
+  /** 到期自动停止，录制已被删除时直接返回；失败时抛出异常由调度器重试 */
+  private void autoStop(String recordingId) {
+    if (!stateService.exists(recordingId)) {
+      logger.info("Recording {} no longer exists, skip auto-stop", recordingId);
+      return;
+    }
+    logger.info("Auto-stopping recording {}", recordingId);
+    try {
+      stop(recordingId);
+    } catch (Exception e) {
+      logger.error("Auto-stop failed for recording {}: {}", recordingId, e.getMessage(), e);
+      stateService.setError(recordingId, "Auto-stop failed: " + e.getMessage());
+      throw new RuntimeException("Auto-stop failed: " + e.getMessage(), e);
+    }
+  }
+
   /** 开始录制 */
   public RecordingResponse start(StartRecordingRequest request) {
     String recordingId = generateRecordingId();
@@ -87,7 +126,7 @@ public RecordingResponse start(StartRecordingRequest request) {
       stateService.saveState(state);
 
       // 5. 渲染 Envoy 配置
-      String envoyYaml = tapRenderer.render(appPort, request.getRules());
+      String envoyYaml = tapRenderer.render(appPort, request.getRules(), recordingId);
 
       // 6. 创建/更新 ConfigMap（命名包含 recordingId，用于之后精确清理）
       tapManager.applyOrUpdateConfigMap(request.getNamespace(), configMapName, envoyYaml);
@@ -107,18 +146,8 @@ public RecordingResponse start(StartRecordingRequest request) {
 
       // 11. 调度自动停止（如果设置了持续时间）
       if (request.getDurationSec() != null && request.getDurationSec() > 0) {
-        tapManager.scheduleAutoStop(
-            recordingId,
-            request.getDurationSec(),
-            () -> {
-              try {
-                stop(recordingId);
-              } catch (Exception e) {
-                logger.error(
-                    "Auto-stop failed for recording {}: {}", recordingId, e.getMessage(), e);
-                stateService.setError(recordingId, "Auto-stop failed: " + e.getMessage());
-              }
-            });
+        expiryScheduler.schedule(
+            AUTO_STOP, recordingId, Duration.ofSeconds(request.getDurationSec()));
       }
 
       logger.info("Recording {} started successfully", recordingId);
@@ -154,7 +183,7 @@ public RecordingResponse stop(String recordingId) {
 
       // 2. 取消自动停止任务，避免在stop过程中被再次触发
       try {
-        tapManager.cancelAutoStop(recordingId);
+        expiryScheduler.cancel(recordingId);
       } catch (Exception ignore) {
       }
 
@@ -174,6 +203,9 @@ public RecordingResponse stop(String recordingId) {
       } catch (Exception e) {
         logger.warn("Final collection failed for recording {}: {}", recordingId, e.getMessage());
       }
+      tapCollector.stopStreaming(recordingId);
+      shardManager.releaseRecording(recordingId);
+      entrySampler.forget(recordingId);
 
       // 6. 删除与本次录制关联的 Envoy ConfigMap（清空规则）
       try {
@@ -268,6 +300,42 @@ public List<RecordedEntry> getEntries(String recordingId, int offset, int limit)
     }
   }
 
+  /** 获取录制的指纹计数（含被采样丢弃的条目） */
+  public Map<String, Long> getFingerprintCounts(String recordingId) {
+    if (!stateService.exists(recordingId)) {
+      throw new RuntimeException("Recording not found: " + recordingId);
+    }
+    return tapCollector.getFingerprintCounts(recordingId);
+  }
+
+  /**
+   * 按游标分页读取录制条目，逐条写入 sink
+   *
+   * @param cursor 上一页返回的游标，为空时从头开始
+   * @return 下一页游标，已读完时为 null
+   */
+  public String scanEntries(
+      String recordingId,
+      String cursor,
+      int limit,
+      EntryFilter filter,
+      Consumer<RecordedEntry> sink) {
+    EntryCursor start = EntryCursor.decode(cursor, recordingId);
+    long offset = start != null ? parseOffset(start.getPosition()) : 0;
+    long next =
+        tapCollector.scanFromRedis(
+            recordingId, offset, limit, settings.getEntriesMaxScan(), filter, sink);
+    return next < 0 ? null : new EntryCursor(recordingId, "", String.valueOf(next)).encode();
+  }
+
+  private static long parseOffset(String position) {
+    try {
+      return Math.max(0, Long.parseLong(position));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+
   /** 生成录制 ID */
   private String generateRecordingId() {
     String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
@@ -299,8 +367,7 @@ private Integer getServiceOriginalTargetPort(String namespace, String serviceNam
   /** 获取部署状态 */
   private String getDeploymentStatus(String namespace, String deploymentName) {
     try {
-      var deployment =
-          k8s.apps().deployments().inNamespace(namespace).withName(deploymentName).get();
+      var deployment = workloadCache.getDeployment(namespace, deploymentName);
       if (deployment == null) {
         return "NOT_FOUND";
       }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 录制状态本地缓存
+ *
+ * <ul>
+ *   <li>按 recordingId 缓存单个状态，带版本号（由 Redis INCR 分配），只接受不低于当前版本的更新
+ *   <li>活跃录制列表整体缓存为快照，并按 (namespace, serviceName) 建二级索引
+ *   <li>任一实例修改状态后在 {@value #CHANNEL} 频道发布 {@code recordingId:version:instanceId}，
+ *       其他实例收到后淘汰不高于该版本的缓存；两个实例并发写出同一版本号时也会淘汰，以 Redis 为准
+ *   <li>pub/sub 不保证送达，缓存项另有最长存活时间兜底
+ * </ul>
+ *
+ * <p>缓存中的对象不对外暴露，读取方拿到的都是副本（由 {@link RecordingStateService} 负责复制）。
+ */
+@Component
+public class RecordingStateCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecordingStateCache.class);
+
+  static final String CHANNEL = "rec:state:changed";
+
+  // 删除消息的版本号，无条件淘汰
+  static final long DELETED = -1;
+
+  private static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+  @Autowired private StringRedisTemplate redis;
+
+  @Value("${reqrsp.state.cache.maxAgeMillis:30000}")
+  private long maxAgeMillis;
+
+  private final Map<String, Entry> states = new ConcurrentHashMap<>();
+
+  private volatile Snapshot activeSnapshot;
+
+  private RedisMessageListenerContainer container;
+
+  private static final class Entry {
+    final RecordingState state;
+    final long version;
+    final long cachedAt;
+
+    Entry(RecordingState state, long version) {
+      this.state = state;
+      this.version = version;
+      this.cachedAt = System.currentTimeMillis();
+    }
+  }
+
+  /** 活跃录制快照及按服务的二级索引 */
+  static final class Snapshot {
+    final List<RecordingState> states;
+    final Map<String, List<RecordingState>> byService;
+    final long cachedAt;
+
+    Snapshot(List<RecordingState> states) {
+      this.states = Collections.unmodifiableList(states);
+      Map<String, List<RecordingState>> index = new HashMap<>();
+      for (RecordingState state : states) {
+        index
+            .computeIfAbsent(
+                serviceKey(state.getNamespace(), state.getServiceName()), k -> new ArrayList<>())
+            .add(state);
+      }
+      this.byService = index;
+      this.cachedAt = System.currentTimeMillis();
+    }
+  }
+
+  @PostConstruct
+  public void subscribe() {
+    try {
+      container = new RedisMessageListenerContainer();
+      container.setConnectionFactory(redis.getConnectionFactory());
+      container.addMessageListener(
+          (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+          new ChannelTopic(CHANNEL));
+      container.afterPropertiesSet();
+      container.start();
+    } catch (Exception e) {
+      // 订阅失败时仍可工作，只是依赖最长存活时间过期
+      logger.warn("Failed to subscribe to {}: {}", CHANNEL, e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (container != null) {
+      try {
+        container.destroy();
+      } catch (Exception e) {
+        logger.debug("Failed to stop state listener: {}", e.getMessage());
+      }
+    }
+  }
+
+  /** 读取缓存的状态，过期或不存在时返回 null */
+  RecordingState get(String recordingId) {
+    Entry entry = states.get(recordingId);
+    if (entry == null) {
+      return null;
+    }
+    if (System.currentTimeMillis() - entry.cachedAt > maxAgeMillis) {
+      states.remove(recordingId, entry);
+      return null;
+    }
+    return entry.state;
+  }
+
+  /** 放入状态，版本低于已缓存版本时忽略 */
+  void put(RecordingState state) {
+    long version = state.getVersion() != null ? state.getVersion() : 0;
+    states.compute(
+        state.getRecordingId(),
+        (id, current) ->
+            current != null && current.version > version ? current : new Entry(state, version));
+  }
+
+  /** 淘汰单个状态，用于 Redis 中已不存在的录制 */
+  void evict(String recordingId) {
+    if (states.remove(recordingId) != null) {
+      activeSnapshot = null;
+    }
+  }
+
+  /** 本实例修改状态后调用：更新本地缓存并通知其他实例 */
+  void publishChange(String recordingId, long version) {
+    activeSnapshot = null;
+    if (version == DELETED) {
+      states.remove(recordingId);
+    }
+    try {
+      redis.convertAndSend(CHANNEL, recordingId + ":" + version + ":" + INSTANCE_ID);
+    } catch (Exception e) {
+      logger.warn("Failed to publish state change for {}: {}", recordingId, e.getMessage());
+    }
+  }
+
+  /** 读取活跃录制快照，过期或已失效时返回 null */
+  Snapshot getActiveSnapshot() {
+    Snapshot snapshot = activeSnapshot;
+    if (snapshot == null || System.currentTimeMillis() - snapshot.cachedAt > maxAgeMillis) {
+      return null;
+    }
+    return snapshot;
+  }
+
+  Snapshot putActiveSnapshot(List<RecordingState> states) {
+    Snapshot snapshot = new Snapshot(states);
+    activeSnapshot = snapshot;
+    return snapshot;
+  }
+
+  static String serviceKey(String namespace, String serviceName) {
+    return namespace + "/" + serviceName;
+  }
+
+  private void onMessage(String body) {
+    // recordingId 本身可能含有冒号，从右侧解析
+    int instanceIdx = body.lastIndexOf(':');
+    int versionIdx = instanceIdx > 0 ? body.lastIndexOf(':', instanceIdx - 1) : -1;
+    if (versionIdx <= 0) {
+      return;
+    }
+    String recordingId = body.substring(0, versionIdx);
+    boolean fromSelf = INSTANCE_ID.equals(body.substring(instanceIdx + 1));
+    long version;
+    try {
+      version = Long.parseLong(body.substring(versionIdx + 1, instanceIdx));
+    } catch (NumberFormatException e) {
+      return;
+    }
+
+    // 任何变化都可能改变活跃集合
+    activeSnapshot = null;
+    if (version == DELETED) {
+      states.remove(recordingId);
+      return;
+    }
+    // 自己发布的消息：本地已是该版本或更新；其他实例的消息：同版本也淘汰，避免并发写入的分歧
+    states.computeIfPresent(
+        recordingId,
+        (id, current) ->
+            current.version > version || (fromSelf && current.version == version) ? current : null);
+  }
+}
@@ -18,29 +18,43 @@
 
 import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-/** 录制状态管理服务 */
+/**
+ * 录制状态管理服务
+ *
+ * <p>录制 ID 维护在有序集合 {@value #INDEX_KEY} 中，分数为状态键的过期时间（毫秒）。所有列举操作读取该索引，过期成员在读取时惰性清理； 其余需要遍历键空间的统计使用分页
+ * SCAN，不再使用 KEYS。
+ */
 @Service
 public class RecordingStateService {
 
   private static final Logger logger = LoggerFactory.getLogger(RecordingStateService.class);
   private static final String STATE_KEY_PREFIX = "rec:";
   private static final String STATE_KEY_SUFFIX = ":state";
+  private static final String VERSION_KEY_SUFFIX = ":version";
   private static final int STATE_TTL_DAYS = 7;
+  static final String INDEX_KEY = "rec:index";
+  private static final int SCAN_PAGE_SIZE = 1000;
 
   @Autowired private StringRedisTemplate redis;
 
   @Autowired private ObjectMapper objectMapper;
 
+  @Autowired private RecordingStateCache cache;
+
   /** 测试 Redis 连接 */
   public void testConnection() {
     try {
@@ -67,23 +81,37 @@ public void testConnection() {
   public void saveState(RecordingState state) {
     try {
       String key = getStateKey(state.getRecordingId());
+      String versionKey = getVersionKey(state.getRecordingId());
+      long version = nextVersion(versionKey, state.getVersion());
+      state.setVersion(version);
       String json = objectMapper.writeValueAsString(state);
 
       logger.info("Saving recording state for {} with key: {}", state.getRecordingId(), key);
       logger.debug("Recording state JSON: {}", json);
 
-      redis.opsForValue().set(key, json);
-      redis.expire(key, Duration.ofDays(STATE_TTL_DAYS));
-
-      // 验证保存是否成功
-      String savedJson = redis.opsForValue().get(key);
-      if (savedJson != null) {
-        logger.info(
-            "Successfully saved and verified recording state for {}", state.getRecordingId());
-      } else {
+      Duration ttl = Duration.ofDays(STATE_TTL_DAYS);
+      long expireAtMillis = System.currentTimeMillis() + ttl.toMillis();
+      List<Object> results =
+          redis.executePipelined(
+              (RedisCallback<Object>)
+                  connection -> {
+                    StringRedisConnection conn = (StringRedisConnection) connection;
+                    conn.set(key, json);
+                    conn.expire(key, ttl.getSeconds());
+                    conn.zAdd(INDEX_KEY, expireAtMillis, state.getRecordingId());
+                    conn.expire(versionKey, ttl.getSeconds());
+                    return null;
+                  });
+
+      // 以 SET 的返回值确认写入，不再回读
+      if (results.isEmpty() || !Boolean.TRUE.equals(results.get(0))) {
         logger.error("Failed to verify saved recording state for {}", state.getRecordingId());
         throw new RuntimeException("Recording state verification failed");
       }
+      logger.info("Successfully saved recording state for {}", state.getRecordingId());
+
+      cache.put(objectMapper.readValue(json, RecordingState.class));
+      cache.publishChange(state.getRecordingId(), version);
 
     } catch (Exception e) {
       logger.error(
@@ -92,8 +120,32 @@ public void saveState(RecordingState state) {
     }
   }
 
-  /** 加载录制状态 */
+  /**
+   * 由 Redis INCR 分配状态版本号，多个实例并发保存同一录制时不会得到相同的版本
+   *
+   * <p>版本键缺失（如升级前写入的状态）时 INCR 从 1 开始，此时补足到高于已有版本。
+   */
+  private long nextVersion(String versionKey, Long previous) {
+    Long version = redis.opsForValue().increment(versionKey);
+    if (version == null) {
+      throw new RuntimeException("Failed to allocate state version");
+    }
+    if (previous != null && version <= previous) {
+      version = redis.opsForValue().increment(versionKey, previous - version + 1);
+      if (version == null) {
+        throw new RuntimeException("Failed to allocate state version");
+      }
+    }
+    return version;
+  }
+
+  /** 加载录制状态，优先读取本地缓存，返回的是副本 */
   public RecordingState loadState(String recordingId) {
+    RecordingState cached = cache.get(recordingId);
+    if (cached != null) {
+      return copy(cached);
+    }
+
     try {
       String key = getStateKey(recordingId);
 
@@ -102,9 +154,8 @@ public RecordingState loadState(String recordingId) {
       if (json == null) {
         logger.error("Recording state not found in Redis for key: {}", key);
 
-        // 列出所有相关的 key 用于调试
-        Set<String> allKeys = redis.keys("recording:state:*");
-        logger.error("Available recording keys in Redis: {}", allKeys);
+        Long indexed = redis.opsForZSet().zCard(INDEX_KEY);
+        logger.error("Recordings currently indexed in Redis: {}", indexed);
 
         throw new RuntimeException("Recording not found: " + recordingId);
       }
@@ -113,7 +164,8 @@ public RecordingState loadState(String recordingId) {
       RecordingState state = objectMapper.readValue(json, RecordingState.class);
       logger.info("Successfully loaded recording state for {}", recordingId);
 
-      return state;
+      cache.put(state);
+      return copy(state);
 
     } catch (Exception e) {
       logger.error("Failed to load recording state for {}: {}", recordingId, e.getMessage(), e);
@@ -121,11 +173,20 @@ public RecordingState loadState(String recordingId) {
     }
   }
 
-  /** 检查录制是否存在 */
+  /**
+   * 检查录制是否存在
+   *
+   * <p>以 Redis 为准，不读本地缓存：其他实例删除录制后的失效通知可能丢失，缓存最长会滞后 {@code reqrsp.state.cache.maxAgeMillis}。
+   * 不存在时同时淘汰本地缓存。
+   */
   public boolean exists(String recordingId) {
     try {
       String key = getStateKey(recordingId);
-      return Boolean.TRUE.equals(redis.hasKey(key));
+      boolean present = Boolean.TRUE.equals(redis.hasKey(key));
+      if (!present) {
+        cache.evict(recordingId);
+      }
+      return present;
     } catch (Exception e) {
       logger.error(
           "Failed to check recording existence for {}: {}", recordingId, e.getMessage(), e);
@@ -184,11 +245,18 @@ public void setError(String recordingId, String errorMessage) {
   public void deleteState(String recordingId) {
     try {
       String key = getStateKey(recordingId);
-      redis.delete(key);
-
       // 同时删除相关的条目和处理记录
-      redis.delete("rec:" + recordingId + ":entries");
-      redis.delete("rec:" + recordingId + ":processed");
+      redis.delete(
+          List.of(
+              key,
+              getVersionKey(recordingId),
+              TapEntryBatch.entriesKey(recordingId),
+              TapEntryBatch.processedKey(recordingId),
+              TapEntryBatch.fingerprintsKey(recordingId),
+              TapEntryBatch.keptKey(recordingId),
+              TapEntryBatch.headerDictKey(recordingId)));
+      redis.opsForZSet().remove(INDEX_KEY, recordingId);
+      cache.publishChange(recordingId, RecordingStateCache.DELETED);
 
       logger.info("Deleted recording state for {}", recordingId);
 
@@ -197,65 +265,27 @@ public void deleteState(String recordingId) {
     }
   }
 
+  /** 列出索引中的全部录制 ID（任意状态） */
+  public List<String> listRecordingIds() {
+    return new ArrayList<>(loadIndexedStates().keySet());
+  }
+
   /** 获取所有活跃的录制 ID */
   public List<String> getAllActiveRecordings() {
-    try {
-      String pattern = STATE_KEY_PREFIX + "*" + STATE_KEY_SUFFIX;
-      Set<String> keys = redis.keys(pattern);
-
-      List<String> activeRecordings = new ArrayList<>();
-
-      if (keys != null) {
-        for (String key : keys) {
-          try {
-            String json = redis.opsForValue().get(key);
-            if (json != null) {
-              RecordingState state = objectMapper.readValue(json, RecordingState.class);
-
-              // 只返回运行中的录制
-              if (state.getStatus() == RecordingState.RecordingStatus.RECORDING) {
-                activeRecordings.add(state.getRecordingId());
-              }
-            }
-          } catch (Exception e) {
-            logger.warn("Failed to parse recording state from key {}: {}", key, e.getMessage());
-          }
-        }
-      }
-
-      logger.debug("Found {} active recordings", activeRecordings.size());
-      return activeRecordings;
-
-    } catch (Exception e) {
-      logger.error("Failed to get all active recordings: {}", e.getMessage(), e);
-      return new ArrayList<>();
+    List<String> activeRecordings = new ArrayList<>();
+    for (RecordingState state : getAllActiveRecordingStates()) {
+      activeRecordings.add(state.getRecordingId());
     }
+    logger.debug("Found {} active recordings", activeRecordings.size());
+    return activeRecordings;
   }
 
   /** 获取所有活跃的录制状态详情 */
   public List<RecordingState> getAllActiveRecordingStates() {
     try {
-      String pattern = STATE_KEY_PREFIX + "*" + STATE_KEY_SUFFIX;
-      Set<String> keys = redis.keys(pattern);
-
       List<RecordingState> activeRecordings = new ArrayList<>();
-
-      if (keys != null) {
-        for (String key : keys) {
-          try {
-            String json = redis.opsForValue().get(key);
-            if (json != null) {
-              RecordingState state = objectMapper.readValue(json, RecordingState.class);
-
-              // 只返回运行中的录制
-              if (state.getStatus() == RecordingState.RecordingStatus.RECORDING) {
-                activeRecordings.add(state);
-              }
-            }
-          } catch (Exception e) {
-            logger.warn("Failed to parse recording state from key {}: {}", key, e.getMessage());
-          }
-        }
+      for (RecordingState state : activeSnapshot().states) {
+        activeRecordings.add(copy(state));
       }
 
       logger.debug("Found {} active recording states", activeRecordings.size());
@@ -267,53 +297,96 @@ public List<RecordingState> getAllActiveRecordingStates() {
     }
   }
 
+  /** 按服务查找运行中的录制，读取本地快照的二级索引 */
+  public Optional<RecordingState> findActiveByService(String namespace, String serviceName) {
+    List<RecordingState> states =
+        activeSnapshot().byService.get(RecordingStateCache.serviceKey(namespace, serviceName));
+    if (states == null || states.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(copy(states.get(0)));
+  }
+
+  /** 录制是否处于 RECORDING 状态，命中缓存时不访问 Redis */
+  public boolean isRecording(String recordingId) {
+    RecordingState state = cache.get(recordingId);
+    if (state == null) {
+      try {
+        state = loadState(recordingId);
+      } catch (Exception e) {
+        logger.debug("Recording {} considered inactive: {}", recordingId, e.getMessage());
+        return false;
+      }
+    }
+    return state.getStatus() == RecordingState.RecordingStatus.RECORDING;
+  }
+
+  /** 活跃录制快照，失效时从索引重新加载 */
+  private RecordingStateCache.Snapshot activeSnapshot() {
+    RecordingStateCache.Snapshot snapshot = cache.getActiveSnapshot();
+    if (snapshot != null) {
+      return snapshot;
+    }
+    List<RecordingState> active = new ArrayList<>();
+    for (RecordingState state : loadIndexedStates().values()) {
+      // 只保留运行中的录制
+      if (state != null && state.getStatus() == RecordingState.RecordingStatus.RECORDING) {
+        active.add(state);
+        cache.put(state);
+      }
+    }
+    return cache.putActiveSnapshot(active);
+  }
+
+  /** 复制状态，避免调用方修改缓存中的对象 */
+  private RecordingState copy(RecordingState state) {
+    try {
+      return objectMapper.readValue(objectMapper.writeValueAsBytes(state), RecordingState.class);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to copy recording state: " + e.getMessage(), e);
+    }
+  }
+
   /** 获取 Redis 数据统计 */
   public Map<String, Object> getRedisStats() {
     Map<String, Object> stats = new HashMap<>();
 
     try {
       // 统计任务数量
-      Set<String> taskKeys = redis.keys("task:pattern:*");
-      stats.put("totalTasks", taskKeys != null ? taskKeys.size() : 0);
+      List<String> recentTasks = new ArrayList<>();
+      long taskCount = scanKeys("task:pattern:*", recentTasks, 5);
+      stats.put("totalTasks", taskCount);
 
       // 统计录制状态数量
-      Set<String> recordingStateKeys = redis.keys("rec:*:state");
-      stats.put("totalRecordings", recordingStateKeys != null ? recordingStateKeys.size() : 0);
+      Map<String, RecordingState> indexedStates = loadIndexedStates();
+      List<String> recordingIds = new ArrayList<>(indexedStates.keySet());
+      stats.put("totalRecordings", recordingIds.size());
 
       // 统计录制数据数量
-      Set<String> recordingDataKeys = redis.keys("rec:*:entries");
-      stats.put("totalRecordingData", recordingDataKeys != null ? recordingDataKeys.size() : 0);
+      stats.put("totalRecordingData", scanKeys("rec:*:entries", null, 0));
 
       // 统计处理记录数量
-      Set<String> processedKeys = redis.keys("rec:*:processed");
-      stats.put("totalProcessedFiles", processedKeys != null ? processedKeys.size() : 0);
+      stats.put("totalProcessedFiles", scanKeys("rec:*:processed", null, 0));
 
       // 按状态统计录制
       Map<String, Integer> statusCounts = new HashMap<>();
-      if (recordingStateKeys != null) {
-        for (String stateKey : recordingStateKeys) {
-          try {
-            String json = redis.opsForValue().get(stateKey);
-            if (json != null) {
-              RecordingState state = objectMapper.readValue(json, RecordingState.class);
-              String status = state.getStatus().name();
-              statusCounts.put(status, statusCounts.getOrDefault(status, 0) + 1);
-            }
-          } catch (Exception e) {
-            statusCounts.put("INVALID", statusCounts.getOrDefault("INVALID", 0) + 1);
-          }
-        }
+      for (RecordingState state : indexedStates.values()) {
+        String status = state != null ? state.getStatus().name() : "INVALID";
+        statusCounts.put(status, statusCounts.getOrDefault(status, 0) + 1);
       }
       stats.put("recordingsByStatus", statusCounts);
 
       // 最近的任务和录制
-      if (taskKeys != null && !taskKeys.isEmpty()) {
-        stats.put("recentTasks", taskKeys.stream().limit(5).collect(Collectors.toList()));
+      if (!recentTasks.isEmpty()) {
+        stats.put("recentTasks", recentTasks);
       }
 
-      if (recordingStateKeys != null && !recordingStateKeys.isEmpty()) {
-        stats.put(
-            "recentRecordings", recordingStateKeys.stream().limit(10).collect(Collectors.toList()));
+      if (!recordingIds.isEmpty()) {
+        List<String> recentRecordings = new ArrayList<>();
+        for (String id : recordingIds.subList(0, Math.min(10, recordingIds.size()))) {
+          recentRecordings.add(getStateKey(id));
+        }
+        stats.put("recentRecordings", recentRecordings);
       }
 
       logger.debug("Redis stats collected successfully");
@@ -326,8 +399,106 @@ public Map<String, Object> getRedisStats() {
     return stats;
   }
 
+  /** 启动时用 SCAN 把已有的状态键补进索引（升级前创建的录制没有索引） */
+  @PostConstruct
+  public void rebuildIndex() {
+    try {
+      List<String> keys = new ArrayList<>();
+      scanKeys(STATE_KEY_PREFIX + "*" + STATE_KEY_SUFFIX, keys, Integer.MAX_VALUE);
+      int added = 0;
+      for (String key : keys) {
+        String recordingId =
+            key.substring(STATE_KEY_PREFIX.length(), key.length() - STATE_KEY_SUFFIX.length());
+        Long ttlSeconds = redis.getExpire(key);
+        long expireAtMillis =
+            System.currentTimeMillis()
+                + (ttlSeconds != null && ttlSeconds > 0
+                    ? ttlSeconds * 1000
+                    : Duration.ofDays(STATE_TTL_DAYS).toMillis());
+        if (Boolean.TRUE.equals(
+            redis.opsForZSet().addIfAbsent(INDEX_KEY, recordingId, expireAtMillis))) {
+          added++;
+        }
+      }
+      if (added > 0) {
+        logger.info("Added {} existing recordings to the recording index", added);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to rebuild recording index: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * 读取索引中的全部录制状态
+   *
+   * <p>先移除分数已过期的成员，再用一次 MGET 读取状态；状态键已不存在的成员（被 TTL 或其他流程删除）从索引中移除， 无法解析的状态以 null 保留。
+   *
+   * @return 录制 ID 到状态的映射，按索引顺序
+   */
+  private Map<String, RecordingState> loadIndexedStates() {
+    redis.opsForZSet().removeRangeByScore(INDEX_KEY, 0, System.currentTimeMillis());
+    Set<String> members = redis.opsForZSet().range(INDEX_KEY, 0, -1);
+    Map<String, RecordingState> states = new LinkedHashMap<>();
+    if (members == null || members.isEmpty()) {
+      return states;
+    }
+
+    List<String> ids = new ArrayList<>(members);
+    List<String> keys = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      keys.add(getStateKey(id));
+    }
+    List<String> values = redis.opsForValue().multiGet(keys);
+    List<String> stale = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i++) {
+      String json = values != null ? values.get(i) : null;
+      if (json == null) {
+        stale.add(ids.get(i));
+        continue;
+      }
+      RecordingState state = null;
+      try {
+        state = objectMapper.readValue(json, RecordingState.class);
+      } catch (Exception e) {
+        logger.warn("Failed to parse recording state from key {}: {}", keys.get(i), e.getMessage());
+      }
+      states.put(ids.get(i), state);
+    }
+
+    if (!stale.isEmpty()) {
+      redis.opsForZSet().remove(INDEX_KEY, stale.toArray());
+      logger.debug("Removed {} stale entries from recording index", stale.size());
+    }
+    return states;
+  }
+
+  /**
+   * 分页 SCAN 统计匹配的键
+   *
+   * @param sample 非空时收集前 sampleSize 个键
+   * @return 匹配的键数量
+   */
+  private long scanKeys(String pattern, List<String> sample, int sampleSize) {
+    long count = 0;
+    ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_PAGE_SIZE).build();
+    try (Cursor<String> cursor = redis.scan(options)) {
+      while (cursor.hasNext()) {
+        String key = cursor.next();
+        if (sample != null && sample.size() < sampleSize) {
+          sample.add(key);
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
   /** 生成状态键 */
   private String getStateKey(String recordingId) {
     return STATE_KEY_PREFIX + recordingId + STATE_KEY_SUFFIX;
   }
+
+  private String getVersionKey(String recordingId) {
+    return STATE_KEY_PREFIX + recordingId + VERSION_KEY_SUFFIX;
+  }
 }
@@ -16,30 +16,45 @@
 
 package com.chaosblade.svc.reqrspproxy.service;
 
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
 import com.chaosblade.svc.reqrspproxy.dto.ReplayRequest;
 import com.chaosblade.svc.reqrspproxy.dto.ReplayResult;
+import com.chaosblade.svc.reqrspproxy.dto.ReplaySummary;
 import com.chaosblade.svc.reqrspproxy.entity.RequestPattern;
 import com.chaosblade.svc.reqrspproxy.repository.RequestPatternRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.ServicePort;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.LocalPortForward;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-
-/** 请求重放服务 */
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * 请求重放服务
+ *
+ * <p>所有重放共用一个非阻塞 {@link WebClient}，连接池按目标地址划分；到 Service 的端口转发由 {@link PortForwardPool}
+ * 复用。请求按令牌桶节奏发出，并发与速率可按次覆盖，结果逐条产出并汇总延迟直方图。
+ */
 @Service
 public class ReplayService {
 
@@ -47,30 +62,140 @@ public class ReplayService {
 
   @Autowired private KubernetesClient k8s;
   @Autowired private RequestPatternRepository requestPatternRepository;
+  @Autowired private PortForwardPool portForwardPool;
+  @Autowired private RecordingSettings settings;
 
-  private final RestTemplate restTemplate = new RestTemplate();
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private WebClient webClient;
 
   // HTTP/2 伪头部前缀，需过滤
   private static final Set<String> H2_PSEUDO_HEADERS =
       Set.of(":method", ":scheme", ":authority", ":path");
 
+  @PostConstruct
+  public void init() {
+    // 连接池按远端地址分别维护，每个端口转发的本地端口各有一组长连接
+    ConnectionProvider connectionProvider =
+        ConnectionProvider.builder("replay")
+            .maxConnections(Math.max(1, settings.getReplayMaxConnections()))
+            .maxIdleTime(Duration.ofSeconds(30))
+            .pendingAcquireTimeout(Duration.ofSeconds(60))
+            .evictInBackground(Duration.ofSeconds(60))
+            .build();
+    HttpClient httpClient =
+        HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .option(ChannelOption.TCP_NODELAY, true);
+    this.webClient =
+        WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
+            .build();
+  }
+
   /** 基于 execution_id 查询请求模式并重放到指定 service */
   public List<ReplayResult> replay(ReplayRequest request) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    long start = System.nanoTime();
+    try {
+      List<ReplayResult> results = replayResults(request, histogram).collectList().block();
+      ReplaySummary summary =
+          summarize(results, histogram, request, (System.nanoTime() - start) / 1_000_000);
+      logger.info("Replay finished: {}", summary);
+      return results;
+    } catch (Exception e) {
+      logger.error("Port-forward or replay failed: {}", e.getMessage(), e);
+      throw new RuntimeException("Replay failed: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * 流式重放：每完成一个请求推送一个 {@code result} 事件，全部结束后推送 {@code summary} 事件
+   *
+   * @return SSE 事件流，data 为 {@link ReplayResult} 或 {@link ReplaySummary}
+   */
+  public Flux<ServerSentEvent<Object>> replayEvents(ReplayRequest request) {
+    return Flux.defer(
+        () -> {
+          LatencyHistogram histogram = new LatencyHistogram();
+          List<ReplayResult> results = Collections.synchronizedList(new ArrayList<>());
+          long start = System.nanoTime();
+          Flux<ServerSentEvent<Object>> events =
+              replayResults(request, histogram)
+                  .doOnNext(results::add)
+                  .map(r -> ServerSentEvent.<Object>builder(r).event("result").build());
+          Mono<ServerSentEvent<Object>> summary =
+              Mono.fromSupplier(
+                  () -> {
+                    ReplaySummary s =
+                        summarize(
+                            results, histogram, request, (System.nanoTime() - start) / 1_000_000);
+                    logger.info("Replay finished: {}", s);
+                    return ServerSentEvent.<Object>builder(s).event("summary").build();
+                  });
+          return events.concatWith(summary);
+        });
+  }
+
+  private Flux<ReplayResult> replayResults(ReplayRequest request, LatencyHistogram histogram) {
     Long executionId = request.getExecutionId();
     String ns = request.getNamespace();
     String svc = request.getServiceName();
 
-    logger.info("Replay start: executionId={}, ns={}, svc={}", executionId, ns, svc);
+    return Flux.defer(
+            () -> {
+              logger.info("Replay start: executionId={}, ns={}, svc={}", executionId, ns, svc);
+
+              // 1) 查询请求模式
+              List<RequestPattern> patterns =
+                  requestPatternRepository.findByExecutionIdAndServiceName(executionId, svc);
+              if (patterns == null || patterns.isEmpty()) {
+                logger.warn(
+                    "No request patterns for executionId={} and service={}", executionId, svc);
+                return Flux.<ReplayResult>empty();
+              }
+
+              // 2) 服务发现：获取 Service & 端口（取第一个端口）
+              ServicePort sp = resolveServicePort(ns, svc);
+              String defaultScheme = isHttpsPort(sp) ? "https" : "http";
+
+              // 3) 复用端口转发：本地端口 -> Service 端口，整个重放期间持有租约
+              return Flux.using(
+                  () -> portForwardPool.acquire(ns, svc, sp.getPort()),
+                  lease -> replayAll(lease, patterns, defaultScheme, request, histogram),
+                  PortForwardPool.Lease::close);
+            })
+        .subscribeOn(Schedulers.boundedElastic());
+  }
 
-    // 1) 查询请求模式
-    List<RequestPattern> patterns =
-        requestPatternRepository.findByExecutionIdAndServiceName(executionId, svc);
-    if (patterns == null || patterns.isEmpty()) {
-      logger.warn("No request patterns for executionId={} and service={}", executionId, svc);
-      return Collections.emptyList();
-    }
+  // 4) 按令牌桶节奏发出，在途请求不超过 concurrency
+  private Flux<ReplayResult> replayAll(
+      PortForwardPool.Lease lease,
+      List<RequestPattern> patterns,
+      String defaultScheme,
+      ReplayRequest request,
+      LatencyHistogram histogram) {
+    int concurrency = concurrencyOf(request);
+    double rps = rpsOf(request);
+    Duration timeout = Duration.ofMillis(settings.getReplayTimeoutMillis());
+    long start = System.nanoTime();
+    return RequestTrigger.schedule(start, patterns.size(), rps, concurrency)
+        .index()
+        .flatMap(
+            slot ->
+                replaySingle(lease, patterns.get(slot.getT1().intValue()), defaultScheme, timeout)
+                    .doOnNext(
+                        r -> {
+                          long latency = (System.nanoTime() - slot.getT2()) / 1_000_000;
+                          r.setLatencyMillis(latency);
+                          histogram.record(latency);
+                        }),
+            concurrency);
+  }
 
-    // 2) 服务发现：获取 Service & 端口（取第一个端口）
+  private ServicePort resolveServicePort(String ns, String svc) {
     io.fabric8.kubernetes.api.model.Service svcObj =
         k8s.services().inNamespace(ns).withName(svc).get();
     if (svcObj == null
@@ -80,52 +205,14 @@ public List<ReplayResult> replay(ReplayRequest request) {
       throw new RuntimeException("Service not found or has no ports: " + svc);
     }
     ServicePort sp = svcObj.getSpec().getPorts().get(0);
-    Integer targetPort = sp.getPort();
-    if (targetPort == null) {
+    if (sp.getPort() == null) {
       throw new RuntimeException("Service has no ports: " + svc);
     }
-    String defaultScheme = isHttpsPort(sp) ? "https" : "http";
-
-    // 3) 端口转发：本地随机端口 -> Service 端口
-    try (LocalPortForward pf =
-        k8s.services().inNamespace(ns).withName(svc).portForward(targetPort)) {
-
-      int localPort = pf.getLocalPort();
-      logger.info(
-          "Port-forward established: localhost:{} -> {}/{}:{} (defaultScheme={})",
-          localPort,
-          ns,
-          svc,
-          targetPort,
-          defaultScheme);
-
-      // 4) 并发回放
-      ExecutorService pool =
-          Executors.newFixedThreadPool(Math.min(8, Math.max(1, patterns.size())));
-      try {
-        List<CompletableFuture<ReplayResult>> futures =
-            patterns.stream()
-                .map(
-                    p ->
-                        CompletableFuture.supplyAsync(
-                            () -> replaySingle(localPort, p, defaultScheme), pool))
-                .collect(Collectors.toList());
-
-        List<ReplayResult> results =
-            futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
-
-        logger.info("Replay finished: {} requests", results.size());
-        return results;
-      } finally {
-        pool.shutdown();
-      }
-    } catch (Exception e) {
-      logger.error("Port-forward or replay failed: {}", e.getMessage(), e);
-      throw new RuntimeException("Replay failed: " + e.getMessage(), e);
-    }
+    return sp;
   }
 
-  private ReplayResult replaySingle(int localPort, RequestPattern p, String defaultScheme) {
+  private Mono<ReplayResult> replaySingle(
+      PortForwardPool.Lease lease, RequestPattern p, String defaultScheme, Duration timeout) {
     String method = p.getMethod();
     String urlPath = p.getUrl();
     String headersJson = p.getRequestHeaders();
@@ -135,70 +222,120 @@ private ReplayResult replaySingle(int localPort, RequestPattern p, String defaul
     String scheme = inferScheme(headersJson, defaultScheme);
 
     String path = extractPathAndQuery(urlPath);
-    String fullUrl = scheme + "://localhost:" + localPort + path;
+    String fullUrl = scheme + "://localhost:" + lease.getLocalPort() + path;
 
     HttpHeaders headers = buildFilteredHeaders(headersJson);
 
-    // 详细请求调试日志
-    logger.info("=== Replay Request Debug ===");
-    logger.info("Method: {}", method);
-    logger.info("Full URL: {}", fullUrl);
-    logger.info("Original headers JSON: {}", headersJson);
-    logger.info("Filtered headers: {}", headers);
-    logger.info("Request body: {}", body);
-    logger.info("=== End Request Debug ===");
+    if (logger.isDebugEnabled()) {
+      logger.debug("Replay request: {} {}, headers={}, body={}", method, fullUrl, headers, body);
+    }
 
     try {
       HttpMethod httpMethod = HttpMethod.valueOf(method);
-      HttpEntity<String> entity = new HttpEntity<>(body, headers);
-
-      long t0 = System.currentTimeMillis();
-      ResponseEntity<byte[]> resp =
-          restTemplate.exchange(fullUrl, httpMethod, entity, byte[].class);
-      long t1 = System.currentTimeMillis();
-
-      ReplayResult result = new ReplayResult(fullUrl, method, null);
-      result.setStatusCode(resp.getStatusCode().value());
-      Map<String, List<String>> respHeaders = new LinkedHashMap<>();
-      resp.getHeaders().forEach((k, list) -> respHeaders.put(k, new ArrayList<>(list)));
-      result.setResponseHeaders(respHeaders);
-      logger.info("result: ", result);
-      byte[] respBytes = Optional.ofNullable(resp.getBody()).orElse(new byte[0]);
-      MediaType ctType = resp.getHeaders().getContentType();
-      java.nio.charset.Charset cs =
-          Optional.ofNullable(ctType)
-              .map(MediaType::getCharset)
-              .orElse(java.nio.charset.StandardCharsets.UTF_8);
-      String respBody = new String(respBytes, cs);
-
-      // 调试日志
-      try {
-        String ct = Optional.ofNullable(ctType).map(MediaType::toString).orElse("unknown");
-        String te =
-            String.join(",", resp.getHeaders().getOrDefault("Transfer-Encoding", List.of()));
-        String preview =
-            respBody.length() > 256 ? respBody.substring(0, 256) + "...(truncated)" : respBody;
-        logger.info(
-            "Replay debug: status={}, content-type={}, transfer-encoding={}, body-bytes={},"
-                + " tookMs={}, preview={}",
-            result.getStatusCode(),
-            ct,
-            te,
-            respBytes.length,
-            (t1 - t0),
-            preview);
-      } catch (Exception ignore) {
+      WebClient.RequestBodySpec spec =
+          webClient.method(httpMethod).uri(toUri(fullUrl)).headers(h -> h.addAll(headers));
+      WebClient.RequestHeadersSpec<?> ready = body != null ? spec.bodyValue(body) : spec;
+      return ready
+          .exchangeToMono(
+              resp ->
+                  resp.bodyToMono(byte[].class)
+                      .defaultIfEmpty(new byte[0])
+                      .map(
+                          bytes -> {
+                            ReplayResult result = new ReplayResult(fullUrl, method, null);
+                            result.setStatusCode(resp.statusCode().value());
+                            Map<String, List<String>> respHeaders = new LinkedHashMap<>();
+                            resp.headers()
+                                .asHttpHeaders()
+                                .forEach((k, list) -> respHeaders.put(k, new ArrayList<>(list)));
+                            result.setResponseHeaders(respHeaders);
+                            MediaType ctType = resp.headers().contentType().orElse(null);
+                            java.nio.charset.Charset cs =
+                                Optional.ofNullable(ctType)
+                                    .map(MediaType::getCharset)
+                                    .orElse(java.nio.charset.StandardCharsets.UTF_8);
+                            result.setResponseBody(new String(bytes, cs));
+                            if (logger.isDebugEnabled()) {
+                              logger.debug(
+                                  "Replay response: status={}, content-type={}, body-bytes={}",
+                                  result.getStatusCode(),
+                                  ctType,
+                                  bytes.length);
+                            }
+                            return result;
+                          }))
+          .timeout(timeout)
+          .onErrorResume(
+              ex -> {
+                if (ex instanceof ConnectException || ex.getCause() instanceof ConnectException) {
+                  // 转发已断开，归还后重建
+                  lease.invalidate();
+                }
+                return Mono.just(failedResult(fullUrl, method, ex));
+              });
+    } catch (Exception ex) {
+      return Mono.just(failedResult(fullUrl, method, ex));
+    }
+  }
+
+  private ReplayResult failedResult(String fullUrl, String method, Throwable ex) {
+    logger.warn("Replay exception for {} {}: {}", method, fullUrl, ex.toString());
+    ReplayResult result = new ReplayResult(fullUrl, method, "");
+    result.setStatusCode(0);
+    result.setResponseHeaders(Collections.emptyMap());
+    result.setErrorMessage(ex instanceof TimeoutException ? "Request timed out" : ex.getMessage());
+    return result;
+  }
+
+  private ReplaySummary summarize(
+      List<ReplayResult> results,
+      LatencyHistogram histogram,
+      ReplayRequest request,
+      long elapsedMillis) {
+    int total = results != null ? results.size() : 0;
+    int succeeded = 0;
+    if (results != null) {
+      synchronized (results) {
+        for (ReplayResult r : results) {
+          if (r.getStatusCode() != null && r.getStatusCode() > 0 && r.getStatusCode() < 400) {
+            succeeded++;
+          }
+        }
       }
+    }
+    ReplaySummary summary = new ReplaySummary();
+    summary.setTotal(total);
+    summary.setSucceeded(succeeded);
+    summary.setFailed(total - succeeded);
+    summary.setDurationMillis(elapsedMillis);
+    summary.setConcurrency(concurrencyOf(request));
+    summary.setTargetRps(Math.max(0, rpsOf(request)));
+    summary.setAchievedRps(elapsedMillis > 0 ? total * 1000.0 / elapsedMillis : total);
+    summary.setMeanLatencyMillis(histogram.getMean());
+    summary.setP50LatencyMillis(histogram.percentile(0.50));
+    summary.setP90LatencyMillis(histogram.percentile(0.90));
+    summary.setP99LatencyMillis(histogram.percentile(0.99));
+    summary.setMaxLatencyMillis(histogram.getMax());
+    summary.setLatencyHistogram(histogram.buckets());
+    return summary;
+  }
 
-      result.setResponseBody(respBody);
-      return result;
-    } catch (Exception ex) {
-      logger.warn("Replay exception for {} {}: {}", method, fullUrl, ex.toString());
-      ReplayResult result = new ReplayResult(fullUrl, method, "");
-      result.setStatusCode(0);
-      result.setResponseHeaders(Collections.emptyMap());
-      result.setErrorMessage(ex.getMessage());
-      return result;
+  private int concurrencyOf(ReplayRequest request) {
+    Integer c = request.getConcurrency();
+    return Math.max(1, c != null ? c : settings.getReplayConcurrency());
+  }
+
+  private double rpsOf(ReplayRequest request) {
+    Double rps = request.getRps();
+    return rps != null ? rps : settings.getReplayRps();
+  }
+
+  // 已编码的 URL 原样使用，否则按 RestTemplate 的方式编码
+  private URI toUri(String url) {
+    try {
+      return URI.create(url);
+    } catch (IllegalArgumentException e) {
+      return UriComponentsBuilder.fromUriString(url).build().encode().toUri();
     }
   }
 
@@ -208,8 +345,7 @@ private HttpHeaders buildFilteredHeaders(String headersJson) {
     if (headersJson == null || headersJson.isEmpty()) return headers;
     try {
       @SuppressWarnings("unchecked")
-      Map<String, Object> map =
-          new com.fasterxml.jackson.databind.ObjectMapper().readValue(headersJson, Map.class);
+      Map<String, Object> map = OBJECT_MAPPER.readValue(headersJson, Map.class);
       for (Map.Entry<String, Object> e : map.entrySet()) {
         String key = e.getKey();
         Object vObj = e.getValue();
@@ -252,8 +388,7 @@ private String inferScheme(String headersJson, String defaultScheme) {
     if (headersJson != null && !headersJson.isEmpty()) {
       try {
         @SuppressWarnings("unchecked")
-        Map<String, Object> map =
-            new com.fasterxml.jackson.databind.ObjectMapper().readValue(headersJson, Map.class);
+        Map<String, Object> map = OBJECT_MAPPER.readValue(headersJson, Map.class);
         Object s = map.get(":scheme");
         if (s != null) {
           String v = String.valueOf(s).toLowerCase();
@@ -16,6 +16,7 @@
 
 package com.chaosblade.svc.reqrspproxy.service;
 
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
 import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
 import com.chaosblade.svc.reqrspproxy.dto.ServiceRequestPattern;
 import java.net.URI;
@@ -24,6 +25,7 @@
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -33,6 +35,8 @@ public class RequestPatternAnalyzer {
 
   private static final Logger logger = LoggerFactory.getLogger(RequestPatternAnalyzer.class);
 
+  @Autowired private RecordingSettings settings;
+
   /** 分析录制的请求数据，提取服务请求模式 */
   public List<ServiceRequestPattern> analyzeRequestPatterns(
       List<RecordedEntry> recordedEntries, List<String> targetServices) {
@@ -195,23 +199,52 @@ private String determineTargetService(RequestInfo requestInfo, List<String> targ
     return null;
   }
 
-  /** 为单个服务提取请求模式 */
+  /**
+   * 为单个服务提取请求模式
+   *
+   * <p>启用聚类时按路径模板合并请求（如 {@code /orders/1001}、{@code /orders/1002} 合并为 {@code
+   * /orders/{id}}），每个模板输出有限个代表样本，样本上带有模板和模板的请求数；否则按 method + 完整 URL 去重。
+   */
   private ServiceRequestPattern extractServicePattern(
       String serviceName, List<RequestInfo> requests) {
-    // 去重并排序请求模式（保持原有逻辑：仅按 method + url；url 使用完整URL，保留查询串）
+    List<ServiceRequestPattern.RequestMode> requestModes =
+        settings.isPatternClusterEnabled()
+            ? clusterRequestModes(requests)
+            : exactRequestModes(requests);
+
+    logger.debug("Service {} has {} unique request patterns", serviceName, requestModes.size());
+
+    return new ServiceRequestPattern(serviceName, requestModes);
+  }
+
+  private List<ServiceRequestPattern.RequestMode> clusterRequestModes(List<RequestInfo> requests) {
+    PathTemplateClusterer<RequestInfo> clusterer =
+        new PathTemplateClusterer<>(
+            settings.getPatternClusterMaxLiteralChildren(),
+            settings.getPatternClusterSamplesPerTemplate());
+    for (RequestInfo req : requests) {
+      clusterer.add(req.getMethod(), req.getUrl(), String.valueOf(req.getRespStatus()), req);
+    }
+
+    List<ServiceRequestPattern.RequestMode> requestModes = new ArrayList<>();
+    for (PathTemplateClusterer.Cluster<RequestInfo> cluster : clusterer.clusters()) {
+      for (RequestInfo req : cluster.getSamples()) {
+        ServiceRequestPattern.RequestMode mode = toRequestMode(req);
+        mode.setPathTemplate(cluster.getTemplate());
+        mode.setTemplateCount(cluster.getCount());
+        requestModes.add(mode);
+      }
+    }
+    logger.debug(
+        "Clustered {} requests into {} request modes", requests.size(), requestModes.size());
+    return requestModes;
+  }
+
+  private List<ServiceRequestPattern.RequestMode> exactRequestModes(List<RequestInfo> requests) {
+    // 去重并排序请求模式（仅按 method + url；url 使用完整URL，保留查询串）
     Set<ServiceRequestPattern.RequestMode> uniqueModes =
         requests.stream()
-            .map(
-                req ->
-                    new ServiceRequestPattern.RequestMode(
-                        req.getMethod(),
-                        req.getUrl(),
-                        req.getHeaders(),
-                        req.getBody(),
-                        req.getRespHeaders(),
-                        req.getRespBody(),
-                        req.getRespStatus(),
-                        req.getRespTime()))
+            .map(this::toRequestMode)
             .collect(
                 Collectors.toCollection(
                     () ->
@@ -222,12 +255,19 @@ private ServiceRequestPattern extractServicePattern(
                                   ? methodCompare
                                   : a.getUrl().compareTo(b.getUrl());
                             })));
+    return new ArrayList<>(uniqueModes);
+  }
 
-    List<ServiceRequestPattern.RequestMode> requestModes = new ArrayList<>(uniqueModes);
-
-    logger.debug("Service {} has {} unique request patterns", serviceName, requestModes.size());
-
-    return new ServiceRequestPattern(serviceName, requestModes);
+  private ServiceRequestPattern.RequestMode toRequestMode(RequestInfo req) {
+    return new ServiceRequestPattern.RequestMode(
+        req.getMethod(),
+        req.getUrl(),
+        req.getHeaders(),
+        req.getBody(),
+        req.getRespHeaders(),
+        req.getRespBody(),
+        req.getRespStatus(),
+        req.getRespTime());
   }
 
   /** 标准化URL，移除查询参数和fragment */
@@ -42,9 +42,13 @@
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /** 请求模式获取服务 核心业务逻辑：根据 reqDefId 获取请求定义，启动录制模式，发起请求，收集请求模式，停止录制 */
 @Service
@@ -58,10 +62,16 @@ public class RequestPatternService {
 
   @Autowired private HttpRequestExecutor httpRequestExecutor;
 
+  @Autowired private RequestTrigger requestTrigger;
+
+  @Autowired private ExpiryScheduler expiryScheduler;
+
   @Autowired private RequestPatternAnalyzer requestPatternAnalyzer;
 
   @Autowired private TaskStateManager taskStateManager;
 
+  @Autowired private TaskCheckpointStore checkpointStore;
+
   @Autowired private TapCollector tapCollector;
 
   @Autowired private RecordingSettings recordingSettings;
@@ -70,6 +80,8 @@ public class RequestPatternService {
 
   @Autowired private K8sTapManager k8sTapManager;
 
+  @Autowired private RolloutWaiter rolloutWaiter;
+
   @Autowired private RecordingStateService recordingStateService;
 
   @Autowired private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
@@ -141,6 +153,7 @@ public RequestPatternResponse getRequestPattern(RequestPatternRequest request) {
 
     // 保存初始状态
     taskStateManager.saveTaskState(response);
+    checkpointStore.begin(taskId, request);
 
     // 异步执行完整流程
     CompletableFuture.runAsync(() -> executeRequestPatternFlow(request, response));
@@ -148,9 +161,79 @@ public RequestPatternResponse getRequestPattern(RequestPatternRequest request) {
     return response;
   }
 
+  /**
+   * 续跑中断的任务
+   *
+   * <p>执行任务的副本崩溃或重新部署后其租约过期，由任一副本认领并从最后完成的检查点继续执行。
+   */
+  @Scheduled(
+      fixedDelayString = "${reqrsp.task.resumeScanMillis:30000}",
+      initialDelayString = "${reqrsp.task.resumeScanMillis:30000}")
+  public void resumeInterruptedTasks() {
+    List<String> orphans;
+    try {
+      orphans = checkpointStore.findOrphans();
+    } catch (Exception e) {
+      logger.warn("Failed to scan interrupted tasks: {}", e.getMessage());
+      return;
+    }
+    for (String taskId : orphans) {
+      if (!checkpointStore.claim(taskId)) {
+        continue;
+      }
+      RequestPatternRequest request = checkpointStore.loadRequest(taskId);
+      RequestPatternResponse response = taskStateManager.loadTaskState(taskId);
+      if (request == null || response == null || isFinalStatus(response.getStatus())) {
+        // 检查点或任务状态已过期，或任务已被手动停止
+        logger.info("Dropping checkpoint of task {} which can no longer be resumed", taskId);
+        checkpointStore.finish(taskId);
+        continue;
+      }
+      logger.info("Resuming interrupted request pattern task {}", taskId);
+      CompletableFuture.runAsync(() -> executeRequestPatternFlow(request, response));
+    }
+  }
+
+  /**
+   * 任务进度事件流
+   *
+   * <p>按 {@code reqrsp.task.progressMillis} 从 Redis 读取任务状态，状态、消息或计数变化时推送一个 progress 事件；
+   * 任务完成、失败或不存在时推送 done 事件并结束。任务可能在其他副本上执行，因此不读本地缓存。
+   */
+  public Flux<ServerSentEvent<RequestPatternResponse>> taskEvents(String taskId) {
+    Duration interval = Duration.ofMillis(recordingSettings.getTaskProgressMillis());
+    return Flux.interval(Duration.ZERO, interval)
+        .onBackpressureDrop()
+        .concatMap(
+            tick ->
+                Mono.fromCallable(() -> getTaskStatus(taskId))
+                    .subscribeOn(Schedulers.boundedElastic()))
+        .distinctUntilChanged(
+            r ->
+                r.getStatus()
+                    + "|"
+                    + r.getMessage()
+                    + "|"
+                    + r.getTotalRecordedRequests()
+                    + "|"
+                    + r.getAnalyzedServices())
+        .takeUntil(r -> isFinalStatus(r.getStatus()))
+        .map(
+            r ->
+                ServerSentEvent.builder(r)
+                    .event(isFinalStatus(r.getStatus()) ? "done" : "progress")
+                    .build());
+  }
+
+  private static boolean isFinalStatus(String status) {
+    return TaskStateManager.TaskPhase.COMPLETED.name().equals(status)
+        || TaskStateManager.TaskPhase.FAILED.name().equals(status)
+        || "NOT_FOUND".equals(status);
+  }
+
   /** 获取任务状态 */
   public RequestPatternResponse getTaskStatus(String taskId) {
-    RequestPatternResponse response = taskStateManager.getTaskState(taskId);
+    RequestPatternResponse response = taskStateManager.loadTaskState(taskId);
     if (response == null) {
       response = new RequestPatternResponse();
       response.setTaskId(taskId);
@@ -191,7 +274,7 @@ public boolean triggerRequestsForTask(String taskId) {
           taskId, TaskStateManager.TaskPhase.TRIGGERING_REQUESTS, "手动触发HTTP请求中...");
 
       // 发起请求
-      triggerHttpRequests(reqDef, request);
+      recordTriggerSummary(taskId, triggerHttpRequests(reqDef, request));
 
       logger.info("Requests triggered successfully for task {}", taskId);
       return true;
@@ -298,13 +381,31 @@ public boolean stopRequestPatternRecording(String taskId) {
     }
   }
 
-  /** 执行完整的请求模式获取流程 */
-  private void executeRequestPatternFlow(
-      RequestPatternRequest request, RequestPatternResponse response) {
+  /**
+   * 执行完整的请求模式获取流程
+   *
+   * <p>每个阶段完成后写入检查点（见 {@link TaskCheckpointStore}），续跑时跳过已完成的阶段：录制已启动则不再重复滚动更新，
+   * 已收集则按记下的条目范围重读录制条目，已分析则直接读取保存的模式。每个阶段开始前确认本副本仍持有任务，任务已被其他副本 接管时立即退出，不停止录制也不清理，由新的持有者继续。
+   */
+  void executeRequestPatternFlow(RequestPatternRequest request, RequestPatternResponse response) {
     String taskId = response.getTaskId();
-    List<String> recordingIds = new ArrayList<>();
+    TaskCheckpointStore.Checkpoint done = checkpointStore.getCheckpoint(taskId);
+    List<String> recordingIds = checkpointStore.loadRecordingIds(taskId);
 
     try {
+      checkpointStore.ensureOwner(taskId);
+      if (done.reached(TaskCheckpointStore.Checkpoint.RECORDING_STARTED)
+          && !done.reached(TaskCheckpointStore.Checkpoint.ANALYZED)
+          && !recordingIds.stream().allMatch(recordingStateService::exists)) {
+        // 中断期间录制已被清理（如手动停止后删除），只能从头开始
+        logger.warn("Recordings of task {} are gone, restarting from the beginning", taskId);
+        done = TaskCheckpointStore.Checkpoint.NONE;
+        recordingIds = new ArrayList<>();
+      }
+      if (done != TaskCheckpointStore.Checkpoint.NONE) {
+        logger.info("Resuming request pattern task {} after checkpoint {}", taskId, done);
+      }
+
       // 1. 获取请求定义
       taskStateManager.updateTaskPhase(
           taskId, TaskStateManager.TaskPhase.INITIALIZING, "获取请求定义中...");
@@ -327,93 +428,113 @@ private void executeRequestPatternFlow(
       logger.info("=== 请求定义详情结束 ===");
 
       // 2. 启动录制模式（应用规则和 Envoy 配置）
-      taskStateManager.updateTaskPhase(
-          taskId, TaskStateManager.TaskPhase.APPLYING_RULES, "为所有服务应用录制规则和 Envoy 配置中...");
-      logger.info(
-          "Step 2: Starting recording for services (includes Envoy configuration): {}",
-          request.getServiceList());
-      recordingIds = startRecordingForServices(request);
-      response.setRecordingId(recordingIds.isEmpty() ? null : recordingIds.get(0));
-      taskStateManager.saveTaskState(response);
-
-      // 3. 等待滚动更新完成
-      taskStateManager.updateTaskPhase(
-          taskId, TaskStateManager.TaskPhase.ROLLING_UPDATE, "等待服务滚动更新完成...");
-      logger.info("Step 3: Waiting for rolling update to complete...");
-      waitForRollingUpdateComplete(request);
-
-      // 4. 等待录制启动完成
-      taskStateManager.updateTaskPhase(
-          taskId, TaskStateManager.TaskPhase.APPLYING_RULES, "等待录制模式启动完成...");
-      logger.info("Step 4: Waiting for recording to be ready...");
-      waitForAllRecordingsReady(recordingIds);
+      if (!done.reached(TaskCheckpointStore.Checkpoint.RECORDING_STARTED)) {
+        checkpointStore.ensureOwner(taskId);
+        taskStateManager.updateTaskPhase(
+            taskId, TaskStateManager.TaskPhase.APPLYING_RULES, "为所有服务应用录制规则和 Envoy 配置中...");
+        logger.info(
+            "Step 2: Starting recording for services (includes Envoy configuration): {}",
+            request.getServiceList());
+        recordingIds = startRecordingForServices(request);
+        response.setRecordingId(recordingIds.isEmpty() ? null : recordingIds.get(0));
+        taskStateManager.saveTaskState(response);
+        checkpointStore.markRecordingStarted(taskId, recordingIds);
+      }
 
-      // 5. 发起请求（如果启用自动触发）
-      if (request.getAutoTriggerRequest()) {
+      if (!done.reached(TaskCheckpointStore.Checkpoint.ROLLED_OUT)) {
+        checkpointStore.ensureOwner(taskId);
+        // 3. 等待滚动更新完成
         taskStateManager.updateTaskPhase(
-            taskId, TaskStateManager.TaskPhase.TRIGGERING_REQUESTS, "发起HTTP请求中...");
-        logger.info("Step 5: Triggering HTTP requests...");
-        triggerHttpRequests(reqDef, request);
-      } else {
+            taskId, TaskStateManager.TaskPhase.ROLLING_UPDATE, "等待服务滚动更新完成...");
+        logger.info("Step 3: Waiting for rolling update to complete...");
+        waitForRollingUpdateComplete(request);
+
+        // 4. 等待录制启动完成
         taskStateManager.updateTaskPhase(
-            taskId, TaskStateManager.TaskPhase.TRIGGERING_REQUESTS, "等待外部触发请求，请手动执行相关业务操作...");
-        logger.info("Step 5: Waiting for external request triggering...");
+            taskId, TaskStateManager.TaskPhase.APPLYING_RULES, "等待录制模式启动完成...");
+        logger.info("Step 4: Waiting for recording to be ready...");
+        waitForAllRecordingsReady(recordingIds);
+        checkpointStore.mark(taskId, TaskCheckpointStore.Checkpoint.ROLLED_OUT);
       }
 
-      // 6. 等待请求完成和数据收集
-      taskStateManager.updateTaskPhase(
-          taskId, TaskStateManager.TaskPhase.COLLECTING_DATA, "等待数据收集完成...");
-      logger.info("Step 6: Waiting for data collection...");
-      waitForDataCollection(request);
-
-      // 7. 收集录制数据（前添加调试导出步骤）
-      logger.info("Step 7: Collecting recorded data...");
-      // 调试：导出每个服务的原始录制数据（结构化 entries）以及容器内原始 tap JSON 文件
-      try {
-        Path debugDir = createRecordingDebugDir();
-        exportRawDataPerService(debugDir, request.getServiceList(), recordingIds);
-        // 可选：导出容器内 Envoy 生成的 tap 原始 JSON 文件，默认关闭
-        if (recordingSettings.isDebugExportRawEnabled()) {
-          for (String recId : recordingIds) {
-            try {
-              RecordingState st = recordingStateService.loadState(recId);
-              Path rawDir = debugDir.resolve("tap-raw-files");
-              int n = tapCollector.exportRawTapFiles(recId, st, rawDir);
-              logger.info(
-                  "Exported {} raw tap files for recording {} to {}",
-                  n,
-                  recId,
-                  rawDir.toAbsolutePath());
-            } catch (Exception ex) {
-              logger.warn("Export raw tap files failed for {}: {}", recId, ex.getMessage());
-            }
-          }
+      // 5. 发起请求（如果启用自动触发）
+      if (!done.reached(TaskCheckpointStore.Checkpoint.TRIGGERED)) {
+        checkpointStore.ensureOwner(taskId);
+        if (request.getAutoTriggerRequest()) {
+          taskStateManager.updateTaskPhase(
+              taskId, TaskStateManager.TaskPhase.TRIGGERING_REQUESTS, "发起HTTP请求中...");
+          logger.info("Step 5: Triggering HTTP requests...");
+          recordTriggerSummary(taskId, triggerHttpRequests(reqDef, request));
+        } else {
+          taskStateManager.updateTaskPhase(
+              taskId, TaskStateManager.TaskPhase.TRIGGERING_REQUESTS, "等待外部触发请求，请手动执行相关业务操作...");
+          logger.info("Step 5: Waiting for external request triggering...");
         }
-      } catch (Exception e) {
-        logger.warn("Debug export failed: {}", e.getMessage());
+        checkpointStore.mark(taskId, TaskCheckpointStore.Checkpoint.TRIGGERED);
       }
 
-      List<RecordedEntry> recordedEntries = collectAllRecordedData(recordingIds);
-      taskStateManager.updateTaskProgress(taskId, recordedEntries.size(), null);
+      List<RecordedEntry> recordedEntries;
+      if (!done.reached(TaskCheckpointStore.Checkpoint.COLLECTED)) {
+        checkpointStore.ensureOwner(taskId);
+        // 6. 等待请求完成和数据收集
+        taskStateManager.updateTaskPhase(
+            taskId, TaskStateManager.TaskPhase.COLLECTING_DATA, "等待数据收集完成...");
+        logger.info("Step 6: Waiting for data collection...");
+        waitForDataCollection(request);
+
+        // 7. 收集录制数据（前添加调试导出步骤）
+        logger.info("Step 7: Collecting recorded data...");
+        exportDebugData(request, recordingIds);
+        // 录制仍在进行，先固定本次读取的条目范围，续跑时重读同一范围
+        Map<String, Integer> collected = snapshotEntryCounts(recordingIds);
+        recordedEntries = collectAllRecordedData(collected);
+        checkpointStore.saveCollected(taskId, collected);
+      } else if (!done.reached(TaskCheckpointStore.Checkpoint.ANALYZED)) {
+        recordedEntries = collectAllRecordedData(checkpointStore.loadCollected(taskId));
+        logger.info("Reloaded {} collected entries from checkpoint", recordedEntries.size());
+      } else {
+        // 已分析完成，不再需要条目，只恢复计数
+        recordedEntries = null;
+      }
+      if (recordedEntries != null) {
+        taskStateManager.updateTaskProgress(taskId, recordedEntries.size(), null);
+      }
 
       // 8. 分析请求模式
-      taskStateManager.updateTaskPhase(
-          taskId, TaskStateManager.TaskPhase.ANALYZING_PATTERNS, "分析请求模式中...");
-      logger.info("Step 8: Analyzing request patterns...");
-      List<ServiceRequestPattern> patterns =
-          requestPatternAnalyzer.analyzeRequestPatterns(recordedEntries, request.getServiceList());
+      List<ServiceRequestPattern> patterns;
+      if (!done.reached(TaskCheckpointStore.Checkpoint.ANALYZED)) {
+        checkpointStore.ensureOwner(taskId);
+        taskStateManager.updateTaskPhase(
+            taskId, TaskStateManager.TaskPhase.ANALYZING_PATTERNS, "分析请求模式中...");
+        logger.info("Step 8: Analyzing request patterns...");
+        patterns =
+            requestPatternAnalyzer.analyzeRequestPatterns(
+                recordedEntries, request.getServiceList());
+        checkpointStore.savePatterns(taskId, patterns);
+      } else {
+        patterns = checkpointStore.loadPatterns(taskId);
+      }
       response.setRequestPatterns(patterns);
-      response.setTotalRecordedRequests(recordedEntries.size());
+      if (recordedEntries != null) {
+        response.setTotalRecordedRequests(recordedEntries.size());
+      }
       response.setAnalyzedServices(patterns.size());
 
       // 8.1 分析结果持久化到 MySQL
-      try {
-        persistPatterns(request.getExecutionId(), patterns);
-      } catch (Exception persistEx) {
-        logger.error("Persisting request patterns failed: {}", persistEx.getMessage(), persistEx);
+      if (!done.reached(TaskCheckpointStore.Checkpoint.PERSISTED)) {
+        checkpointStore.ensureOwner(taskId);
+        try {
+          // 从分析之后续跑时上一次可能已写入部分行
+          persistPatterns(
+              request.getExecutionId(), patterns, done == TaskCheckpointStore.Checkpoint.ANALYZED);
+        } catch (Exception persistEx) {
+          logger.error("Persisting request patterns failed: {}", persistEx.getMessage(), persistEx);
+        }
+        checkpointStore.mark(taskId, TaskCheckpointStore.Checkpoint.PERSISTED);
       }
 
       // 9. 停止录制
+      checkpointStore.ensureOwner(taskId);
       logger.info("Step 9: Stopping recording...");
       stopAllRecordings(recordingIds);
 
@@ -426,6 +547,10 @@ private void executeRequestPatternFlow(
           patterns.stream().mapToInt(p -> p.getRequestMode().size()).sum(),
           patterns.size());
 
+    } catch (TaskCheckpointStore.OwnershipLostException e) {
+      // 已由其他副本接管，录制与检查点都留给新的持有者
+      logger.warn("Request pattern task {} abandoned: {}", taskId, e.getMessage());
+      return;
     } catch (Exception e) {
       logger.error("Request pattern task {} failed: {}", taskId, e.getMessage(), e);
 
@@ -440,6 +565,7 @@ private void executeRequestPatternFlow(
 
       taskStateManager.setTaskFailed(taskId, e.getMessage());
     }
+    checkpointStore.finish(taskId);
     // 统一的资源清理与生命周期收尾：无论成功或失败，均执行
     try {
       if (recordingIds != null && !recordingIds.isEmpty()) {
@@ -449,7 +575,7 @@ private void executeRequestPatternFlow(
         for (String recId : recordingIds) {
           try {
             // 先停止任何可能的自动停止任务
-            k8sTapManager.cancelAutoStop(recId);
+            expiryScheduler.cancel(recId);
           } catch (Exception e) {
             logger.debug("Cancel auto-stop ignored for {}: {}", recId, e.getMessage());
           }
@@ -469,6 +595,33 @@ private void executeRequestPatternFlow(
     }
   }
 
+  /** 调试：导出每个服务的原始录制数据（结构化 entries）以及容器内原始 tap JSON 文件 */
+  private void exportDebugData(RequestPatternRequest request, List<String> recordingIds) {
+    try {
+      Path debugDir = createRecordingDebugDir();
+      exportRawDataPerService(debugDir, request.getServiceList(), recordingIds);
+      // 可选：导出容器内 Envoy 生成的 tap 原始 JSON 文件，默认关闭
+      if (recordingSettings.isDebugExportRawEnabled()) {
+        for (String recId : recordingIds) {
+          try {
+            RecordingState st = recordingStateService.loadState(recId);
+            Path rawDir = debugDir.resolve("tap-raw-files");
+            int n = tapCollector.exportRawTapFiles(recId, st, rawDir);
+            logger.info(
+                "Exported {} raw tap files for recording {} to {}",
+                n,
+                recId,
+                rawDir.toAbsolutePath());
+          } catch (Exception ex) {
+            logger.warn("Export raw tap files failed for {}: {}", recId, ex.getMessage());
+          }
+        }
+      }
+    } catch (Exception e) {
+      logger.warn("Debug export failed: {}", e.getMessage());
+    }
+  }
+
   /** 获取请求定义 */
   private HttpReqDef getRequestDefinition(Long reqDefId) {
     return httpReqDefRepository
@@ -732,64 +885,66 @@ private void waitForRollingUpdateComplete(RequestPatternRequest request)
       }
     }
 
-    // 所有服务就绪后，额外等待确保 Envoy 配置完全生效
-    logger.info(
-        "All deployments ready, waiting additional 15 seconds for Envoy configuration to"
-            + " stabilize...");
-    Thread.sleep(15000);
-
+    // Envoy 容器带有就绪探针，Deployment 就绪即表示 sidecar 已加载配置，无需额外等待
     logger.info("Rolling update completed for all services");
   }
 
-  /** 等待所有录制准备就绪 */
-  private void waitForAllRecordingsReady(List<String> recordingIds) throws InterruptedException {
-    int maxWaitSeconds = 120; // 增加等待时间，因为要等待多个服务
-    int waitedSeconds = 0;
+  /**
+   * 等待所有录制准备就绪
+   *
+   * <p>录制启动时已等待过一次滚动更新，这里通过 {@link RolloutWaiter} 的 watch 再确认各录制的 Deployment 仍处于滚动完成状态，
+   * 不再按固定间隔轮询录制状态。
+   */
+  private void waitForAllRecordingsReady(List<String> recordingIds) {
+    Duration maxWait = Duration.ofSeconds(120); // 所有录制共用的等待时间
+    long deadline = System.currentTimeMillis() + maxWait.toMillis();
 
-    while (waitedSeconds < maxWaitSeconds) {
-      boolean allReady = true;
-
-      for (String recordingId : recordingIds) {
-        try {
-          RecordingStatusResponse status = recordingService.getStatus(recordingId);
-          if (!"RECORDING".equals(status.getStatus())) {
-            if ("ERROR".equals(status.getStatus())) {
-              logger.error("Recording {} failed: {}", recordingId, status.getMessage());
-            } else {
-              allReady = false;
-              logger.debug(
-                  "Recording {} not ready yet, status: {}", recordingId, status.getStatus());
-            }
-          }
-        } catch (Exception e) {
-          logger.warn("Failed to check recording status for {}: {}", recordingId, e.getMessage());
-          allReady = false;
-        }
+    for (String recordingId : recordingIds) {
+      RecordingState state = recordingStateService.loadState(recordingId);
+      if (state == null) {
+        throw new RuntimeException("Recording not found: " + recordingId);
       }
-
-      if (allReady) {
-        logger.info("All {} recordings are ready", recordingIds.size());
-        return;
+      if (state.getStatus() == RecordingState.RecordingStatus.ERROR) {
+        logger.error("Recording {} failed: {}", recordingId, state.getErrorMessage());
+        continue;
       }
-
-      Thread.sleep(10000); // 等待10秒
-      waitedSeconds += 10;
+      if (state.getStatus() != RecordingState.RecordingStatus.RECORDING) {
+        throw new RuntimeException(
+            "Recording " + recordingId + " is not recording, status: " + state.getStatus());
+      }
+      Duration remaining = Duration.ofMillis(Math.max(0, deadline - System.currentTimeMillis()));
+      rolloutWaiter.awaitRolledOut(state.getNamespace(), state.getDeploymentName(), remaining);
+      logger.debug("Recording {} is ready", recordingId);
     }
 
-    throw new RuntimeException(
-        "Not all recordings became ready within " + maxWaitSeconds + " seconds");
+    logger.info("All {} recordings are ready", recordingIds.size());
   }
 
-  /** 收集所有录制数据 */
-  private List<RecordedEntry> collectAllRecordedData(List<String> recordingIds) {
+  /** 各录制当前的条目数，每个录制最多取 {@code reqrsp.pattern.maxEntries} 条 */
+  private Map<String, Integer> snapshotEntryCounts(List<String> recordingIds) {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (String recordingId : recordingIds) {
+      long size = tapCollector.getEntryCount(recordingId);
+      counts.put(recordingId, (int) Math.min(size, recordingSettings.getPatternMaxEntries()));
+    }
+    return counts;
+  }
+
+  /** 收集所有录制数据（每个录制从头读取给定条数） */
+  private List<RecordedEntry> collectAllRecordedData(Map<String, Integer> counts) {
     // 并行收集每个 recordingId 的数据，提高整体吞吐
     List<CompletableFuture<List<RecordedEntry>>> futures = new ArrayList<>();
-    for (String recordingId : recordingIds) {
+    for (Map.Entry<String, Integer> count : counts.entrySet()) {
+      String recordingId = count.getKey();
+      if (count.getValue() <= 0) {
+        continue;
+      }
       CompletableFuture<List<RecordedEntry>> f =
           CompletableFuture.supplyAsync(
               () -> {
                 try {
-                  List<RecordedEntry> entries = recordingService.getEntries(recordingId, 0, 2000);
+                  List<RecordedEntry> entries =
+                      recordingService.getEntries(recordingId, 0, count.getValue());
                   logger.info(
                       "Collected {} entries from recording {}", entries.size(), recordingId);
                   return entries;
@@ -825,8 +980,14 @@ private void stopAllRecordings(List<String> recordingIds) {
     }
   }
 
-  /** 触发HTTP请求 */
-  private void triggerHttpRequests(HttpReqDef reqDef, RequestPatternRequest request) {
+  /**
+   * 触发HTTP请求
+   *
+   * <p>requestCount 个请求按 triggerRps 开环发送，最多 triggerConcurrency 个同时在途，每个请求独立超时。
+   *
+   * @return 执行汇总
+   */
+  private TriggerSummary triggerHttpRequests(HttpReqDef reqDef, RequestPatternRequest request) {
     try {
       // 等待一段时间让录制稳定
       Thread.sleep(request.getRequestDelaySeconds() * 1000L);
@@ -834,45 +995,53 @@ private void triggerHttpRequests(HttpReqDef reqDef, RequestPatternRequest reques
       // 准备请求变量（可以从示例数据中提取）
       Map<String, Object> variables = prepareRequestVariables(reqDef);
 
-      // 发起多次请求
-      for (int i = 0; i < request.getRequestCount(); i++) {
-        logger.info("Triggering HTTP request {}/{}", i + 1, request.getRequestCount());
-
-        Mono<HttpRequestExecutor.HttpRequestResult> resultMono =
-            httpRequestExecutor.executeRequest(reqDef, variables);
-
-        HttpRequestExecutor.HttpRequestResult result = resultMono.block();
-
-        if (result != null && result.isSuccess()) {
-          logger.info(
-              "Request {}/{} completed successfully with status {}",
-              i + 1,
-              request.getRequestCount(),
-              result.getStatusCode());
-        } else {
-          logger.warn(
-              "Request {}/{} failed: {}",
-              i + 1,
-              request.getRequestCount(),
-              result != null ? result.getErrorMessage() : "Unknown error");
-        }
-
-        // 请求间隔
-        if (i < request.getRequestCount() - 1) {
-          Thread.sleep(2000); // 2秒间隔
-        }
-      }
+      int total = request.getRequestCount() != null ? request.getRequestCount() : 1;
+      int concurrency =
+          request.getTriggerConcurrency() != null ? request.getTriggerConcurrency() : 1;
+      double rps = request.getTriggerRps() != null ? request.getTriggerRps() : 0;
+      int timeoutSeconds =
+          request.getRequestTimeoutSeconds() != null ? request.getRequestTimeoutSeconds() : 120;
+      logger.info(
+          "Triggering {} HTTP requests (concurrency {}, target {} rps, timeout {}s)",
+          total,
+          concurrency,
+          rps > 0 ? rps : "unlimited",
+          timeoutSeconds);
+
+      // 令牌桶容量取并发上限：开始时可立即发出一整批，之后按速率补充
+      TriggerSummary summary =
+          requestTrigger
+              .run(
+                  () -> httpRequestExecutor.executeRequest(reqDef, variables),
+                  total,
+                  concurrency,
+                  rps,
+                  concurrency,
+                  Duration.ofSeconds(timeoutSeconds))
+              .block();
+      logger.info("HTTP request trigger finished: {}", summary);
 
       // 所有请求完成后，额外等待确保数据被 Envoy 完全捕获
       logger.info("All requests completed, waiting additional time for Envoy to capture data...");
       Thread.sleep(5000); // 额外等待5秒确保数据被捕获
 
+      return summary;
+
     } catch (Exception e) {
       logger.error("Failed to trigger HTTP requests: {}", e.getMessage(), e);
       throw new RuntimeException("Failed to trigger HTTP requests", e);
     }
   }
 
+  /** 将触发汇总写入任务状态 */
+  private void recordTriggerSummary(String taskId, TriggerSummary summary) {
+    RequestPatternResponse state = taskStateManager.getTaskState(taskId);
+    if (state != null && summary != null) {
+      state.setTriggerSummary(summary);
+      taskStateManager.saveTaskState(state);
+    }
+  }
+
   /** 准备请求变量 */
   private Map<String, Object> prepareRequestVariables(HttpReqDef reqDef) {
     Map<String, Object> variables = new HashMap<>();
@@ -1199,7 +1368,8 @@ private void exportRawDataPerService(
 
   /** 将分析得到的请求模式持久化 */
   @org.springframework.transaction.annotation.Transactional
-  protected void persistPatterns(Long executionId, List<ServiceRequestPattern> patterns) {
+  protected void persistPatterns(
+      Long executionId, List<ServiceRequestPattern> patterns, boolean skipExisting) {
     if (executionId == null) {
       throw new IllegalArgumentException("execution_id 不能为空");
     }
@@ -1207,11 +1377,22 @@ protected void persistPatterns(Long executionId, List<ServiceRequestPattern> pat
       logger.info("No patterns to persist for executionId={}", executionId);
       return;
     }
+    // 续跑时跳过上一次已写入的行
+    Set<String> existing = new HashSet<>();
+    if (skipExisting) {
+      for (com.chaosblade.svc.reqrspproxy.entity.RequestPattern row :
+          requestPatternRepository.findByExecutionId(executionId)) {
+        existing.add(row.getServiceName() + " " + row.getMethod() + " " + row.getUrl());
+      }
+    }
     // 将每个服务的每个请求模式展开为一行
     for (ServiceRequestPattern sp : patterns) {
       if (sp == null || sp.getRequestMode() == null) continue;
       String serviceName = sp.getServiceName();
       for (ServiceRequestPattern.RequestMode rm : sp.getRequestMode()) {
+        if (existing.contains(serviceName + " " + rm.getMethod() + " " + rm.getUrl())) {
+          continue;
+        }
         try {
           String reqHeadersJson = toJsonOrNull(rm.getRequestHeaders());
           String respHeadersJson = toJsonOrNull(rm.getResponseHeaders());
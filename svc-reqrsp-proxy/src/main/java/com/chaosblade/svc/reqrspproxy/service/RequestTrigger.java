@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.dto.TriggerSummary;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 开环请求触发器
+ *
+ * <p>按令牌桶计算每个请求的计划发送时刻：桶容量为 burst，之后每 1/rps 秒补充一个令牌。请求到点即发出，不等待前一个请求返回， 并发上限由 concurrency
+ * 控制。达到并发上限时发送会推迟，但延迟仍从计划时刻算起，避免协调遗漏（coordinated omission） 让慢响应在统计中被低估。
+ *
+ * <p>请求在 boundedElastic 线程上订阅，请求构造中的阻塞调用（如获取认证令牌）不会拖慢发送计划。
+ */
+@Component
+public class RequestTrigger {
+
+  private static final Logger logger = LoggerFactory.getLogger(RequestTrigger.class);
+
+  private enum Outcome {
+    SUCCEEDED,
+    FAILED,
+    TIMED_OUT
+  }
+
+  /**
+   * 按计划发送 total 个请求
+   *
+   * @param request 每次调用生成一个新的请求
+   * @param concurrency 同时在途的请求上限
+   * @param rps 目标速率，不大于 0 时不限速
+   * @param burst 令牌桶容量，即开始时可立即发出的请求数
+   * @param timeout 单个请求超时
+   * @return 全部请求结束后的汇总
+   */
+  public Mono<TriggerSummary> run(
+      Supplier<Mono<HttpRequestExecutor.HttpRequestResult>> request,
+      int total,
+      int concurrency,
+      double rps,
+      int burst,
+      Duration timeout) {
+    int count = Math.max(0, total);
+    int maxInFlight = Math.max(1, concurrency);
+    int bucket = Math.max(1, burst);
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    AtomicInteger succeeded = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    AtomicInteger timedOut = new AtomicInteger();
+
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          return schedule(start, count, rps, bucket)
+              .flatMap(
+                  intended ->
+                      Mono.defer(request)
+                          // 请求构造会同步获取令牌（可能阻塞登录），不能占用 delay 所在的 parallel 线程
+                          .subscribeOn(Schedulers.boundedElastic())
+                          .timeout(timeout)
+                          .map(r -> r.isSuccess() ? Outcome.SUCCEEDED : Outcome.FAILED)
+                          .onErrorResume(TimeoutException.class, e -> Mono.just(Outcome.TIMED_OUT))
+                          .onErrorResume(
+                              e -> {
+                                logger.debug("Triggered request failed: {}", e.getMessage());
+                                return Mono.just(Outcome.FAILED);
+                              })
+                          .defaultIfEmpty(Outcome.FAILED)
+                          .doOnNext(
+                              outcome -> {
+                                histogram.record((System.nanoTime() - intended) / 1_000_000);
+                                if (outcome == Outcome.SUCCEEDED) {
+                                  succeeded.incrementAndGet();
+                                } else if (outcome == Outcome.TIMED_OUT) {
+                                  timedOut.incrementAndGet();
+                                } else {
+                                  failed.incrementAndGet();
+                                }
+                              }),
+                  maxInFlight)
+              .then(
+                  Mono.fromSupplier(
+                      () -> {
+                        TriggerSummary summary = new TriggerSummary();
+                        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                        summary.setTotal(count);
+                        summary.setSucceeded(succeeded.get());
+                        summary.setFailed(failed.get());
+                        summary.setTimedOut(timedOut.get());
+                        summary.setDurationMillis(elapsedMillis);
+                        summary.setTargetRps(Math.max(0, rps));
+                        summary.setAchievedRps(
+                            elapsedMillis > 0 ? count * 1000.0 / elapsedMillis : count);
+                        summary.setConcurrency(maxInFlight);
+                        summary.setMeanLatencyMillis(histogram.getMean());
+                        summary.setP50LatencyMillis(histogram.percentile(0.50));
+                        summary.setP90LatencyMillis(histogram.percentile(0.90));
+                        summary.setP99LatencyMillis(histogram.percentile(0.99));
+                        summary.setMaxLatencyMillis(histogram.getMax());
+                        return summary;
+                      }));
+        });
+  }
+
+  /**
+   * 令牌桶发送计划：第 i 个元素在其计划时刻发出，值为计划时刻（{@link System#nanoTime()} 时基）
+   *
+   * @param start 计划起点
+   * @param rps 目标速率，不大于 0 时全部立即发出
+   * @param burst 令牌桶容量
+   */
+  static Flux<Long> schedule(long start, int count, double rps, int burst) {
+    int bucket = Math.max(1, burst);
+    long intervalNanos = rps > 0 ? (long) (1_000_000_000L / rps) : 0;
+    return Flux.range(0, Math.max(0, count))
+        .concatMap(
+            i -> {
+              long intended = start + Math.max(0, i - bucket + 1) * intervalNanos;
+              long wait = intended - System.nanoTime();
+              return wait > 0
+                  ? Mono.delay(Duration.ofNanos(wait)).thenReturn(intended)
+                  : Mono.just(intended);
+            });
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 watch 的 Deployment 滚动更新等待器
+ *
+ * <p>先订阅变化再读取一次当前状态，避免订阅前的变化被漏掉；之后每个事件到达时检查条件，满足即完成 future，不再固定间隔轮询。 Deployment 的 status 已经由控制器汇总了
+ * ReplicaSet 和 Pod 的状态，因此只需关注 Deployment 本身。
+ *
+ * <p>{@link WorkloadCache} 的 informer 可用时直接复用其事件，不再单独建立 watch；初始状态仍直接 GET， 避免读到刚编辑之前的缓存而误判。
+ */
+@Component
+public class RolloutWaiter {
+
+  private static final Logger logger = LoggerFactory.getLogger(RolloutWaiter.class);
+
+  @Autowired private KubernetesClient k8s;
+
+  @Autowired private WorkloadCache workloadCache;
+
+  /**
+   * 等待 Deployment 满足条件
+   *
+   * @param condition 判断条件，Deployment 不存在时传入 null
+   * @param timeout 超时时间，超时后 future 以 {@link TimeoutException} 结束
+   * @return 满足条件时的 Deployment
+   */
+  public CompletableFuture<Deployment> await(
+      String namespace, String name, Predicate<Deployment> condition, Duration timeout) {
+    CompletableFuture<Deployment> future = new CompletableFuture<>();
+    Runnable unsubscribe =
+        workloadCache.isDeploymentCacheReady(namespace)
+            ? workloadCache.addDeploymentListener(
+                deployment -> {
+                  if (namespace.equals(deployment.getMetadata().getNamespace())
+                      && name.equals(deployment.getMetadata().getName())
+                      && condition.test(deployment)) {
+                    future.complete(deployment);
+                  }
+                })
+            : watch(namespace, name, condition, future)::close;
+
+    future
+        .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+        .whenComplete((d, e) -> unsubscribe.run());
+
+    Deployment current = k8s.apps().deployments().inNamespace(namespace).withName(name).get();
+    if (current != null && condition.test(current)) {
+      future.complete(current);
+    }
+    return future;
+  }
+
+  private Watch watch(
+      String namespace,
+      String name,
+      Predicate<Deployment> condition,
+      CompletableFuture<Deployment> future) {
+    return k8s.apps()
+        .deployments()
+        .inNamespace(namespace)
+        .withName(name)
+        .watch(
+            new Watcher<Deployment>() {
+              @Override
+              public void eventReceived(Action action, Deployment deployment) {
+                if (action != Action.DELETED && condition.test(deployment)) {
+                  future.complete(deployment);
+                }
+              }
+
+              @Override
+              public void onClose(WatcherException cause) {
+                if (!future.isDone()) {
+                  future.completeExceptionally(cause);
+                }
+              }
+            });
+  }
+
+  /** 等待滚动更新完成，阻塞直到条件满足或超时 */
+  public Deployment awaitRolledOut(String namespace, String name, Duration timeout) {
+    return join(await(namespace, name, RolloutWaiter::isRolledOut, timeout), name, timeout);
+  }
+
+  /** 等待控制器观察到指定代数的 spec（滚动更新已开始） */
+  public Deployment awaitObserved(
+      String namespace, String name, long generation, Duration timeout) {
+    return join(
+        await(namespace, name, d -> observedGeneration(d) >= generation, timeout), name, timeout);
+  }
+
+  /**
+   * 滚动更新是否完成，判断方式与 kubectl rollout status 相同
+   *
+   * <ul>
+   *   <li>控制器已观察到最新的 spec（observedGeneration ≥ generation）
+   *   <li>所有副本都已更新（updatedReplicas ≥ spec.replicas）且旧副本已全部退出（replicas == updatedReplicas）
+   *   <li>更新后的副本全部就绪且可用
+   * </ul>
+   */
+  public static boolean isRolledOut(Deployment deployment) {
+    if (deployment == null || deployment.getSpec() == null || deployment.getStatus() == null) {
+      return false;
+    }
+    Long generation = deployment.getMetadata().getGeneration();
+    if (generation != null && observedGeneration(deployment) < generation) {
+      return false;
+    }
+    DeploymentStatus status = deployment.getStatus();
+    Integer replicas = deployment.getSpec().getReplicas();
+    int desired = replicas != null ? replicas : 1;
+    int updated = orZero(status.getUpdatedReplicas());
+    return updated >= desired
+        && orZero(status.getReplicas()) == updated
+        && orZero(status.getReadyReplicas()) >= updated
+        && orZero(status.getAvailableReplicas()) >= updated;
+  }
+
+  private static long observedGeneration(Deployment deployment) {
+    if (deployment == null || deployment.getStatus() == null) {
+      return -1;
+    }
+    Long observed = deployment.getStatus().getObservedGeneration();
+    return observed != null ? observed : -1;
+  }
+
+  private static int orZero(Integer value) {
+    return value != null ? value : 0;
+  }
+
+  private Deployment join(CompletableFuture<Deployment> future, String name, Duration timeout) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for deployment " + name, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      if (cause instanceof TimeoutException) {
+        throw new RuntimeException(
+            "Deployment " + name + " not ready within " + timeout.getSeconds() + "s", cause);
+      }
+      logger.warn("Watch on deployment {} failed: {}", name, cause.getMessage());
+      throw new RuntimeException(
+          "Failed to watch deployment " + name + ": " + cause.getMessage(), cause);
+    }
+  }
+}
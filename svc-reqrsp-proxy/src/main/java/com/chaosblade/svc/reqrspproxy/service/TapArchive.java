@@ -0,0 +1,325 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * tap 文件批量传输格式
+ *
+ * <p>在 sidecar 内用一个 shell 脚本把多个 tap 文件拼成一条流，每个文件前有一行头部：
+ *
+ * <pre>
+ * @@TAP &lt;文件名&gt; &lt;字节数&gt;\n
+ * &lt;文件内容&gt;
+ * </pre>
+ *
+ * 接收端的 {@link Decoder} 作为 exec 的标准输出，边接收边切分文件，每收完一个文件立即回调，不需要等整条流结束。
+ *
+ * <p>超过大小上限的文件不输出内容，只输出一行 {@code @@SKIP <文件名> <字节数>}，由接收端决定如何处理（如移入 {@code .rejected}）。
+ */
+final class TapArchive {
+
+  static final String HEADER_PREFIX = "@@TAP ";
+
+  static final String SKIP_PREFIX = "@@SKIP ";
+
+  private TapArchive() {}
+
+  /**
+   * 生成批量导出脚本
+   *
+   * <p>consume 为 true 时先把非空的 tap 文件移入 {@code .collecting} 子目录（同一文件系统内的 rename 是原子的，Envoy
+   * 不会再写入）再逐个输出。脚本本身不删除任何文件：接收端确认入库后用 {@link #buildAckScript} 另行删除，传输中断、解析 失败或写入 Redis
+   * 失败的文件留在子目录中，下一次一并输出。consume 为 false 时只读。
+   *
+   * @param tapDir tap 目录
+   * @param maxFiles 单次最多导出的文件数
+   * @param maxFileBytes 单个文件的最大字节数，超过的文件只输出跳过记录
+   * @param consume 是否先移入 {@code .collecting}
+   * @return sh -c 执行的脚本
+   */
+  static String buildScript(String tapDir, int maxFiles, long maxFileBytes, boolean consume) {
+    StringBuilder script = new StringBuilder();
+    script.append("cd '").append(tapDir.replace("'", "'\\''")).append("' 2>/dev/null || exit 0; ");
+    if (consume) {
+      script
+          .append("mkdir -p .collecting; ")
+          .append("for f in $(ls -1 *.json 2>/dev/null | head -n ")
+          .append(maxFiles)
+          .append("); do [ -s \"$f\" ] && mv -f \"$f\" .collecting/; done; ")
+          .append("cd .collecting || exit 0; ");
+    }
+    script
+        .append("for f in $(ls -1 *.json 2>/dev/null | head -n ")
+        .append(maxFiles)
+        .append("); do [ -s \"$f\" ] || continue; ");
+    appendEmit(script, maxFileBytes);
+    script.append("done");
+    return script.toString();
+  }
+
+  /**
+   * 生成确认脚本：删除已入库的文件，把无法解析的文件移入 {@code .rejected} 保留待查
+   *
+   * <p>只处理 {@link #isSafeFileName} 的文件名，其余留在原处。
+   *
+   * @param tapDir tap 目录
+   * @param stored 已写入 Redis 的文件名（{@code .collecting} 内的相对名）
+   * @param rejected 内容无法解析的文件名
+   * @return sh -c 执行的脚本，没有要处理的文件时为 null
+   */
+  static String buildAckScript(String tapDir, List<String> stored, List<String> rejected) {
+    String storedNames = joinSafeNames(stored);
+    String rejectedNames = joinSafeNames(rejected);
+    if (storedNames.isEmpty() && rejectedNames.isEmpty()) {
+      return null;
+    }
+    StringBuilder script = new StringBuilder();
+    script
+        .append("cd '")
+        .append(tapDir.replace("'", "'\\''"))
+        .append("/.collecting' 2>/dev/null || exit 0; ");
+    if (!storedNames.isEmpty()) {
+      script.append("rm -f --").append(storedNames).append("; ");
+    }
+    if (!rejectedNames.isEmpty()) {
+      script
+          .append("mkdir -p ../.rejected && mv -f --")
+          .append(rejectedNames)
+          .append(" ../.rejected/");
+    }
+    return script.toString();
+  }
+
+  private static String joinSafeNames(List<String> names) {
+    StringBuilder joined = new StringBuilder();
+    for (String name : names) {
+      if (!name.isEmpty() && isSafeFileName(name)) {
+        joined.append(' ').append(name);
+      }
+    }
+    return joined.toString();
+  }
+
+  /**
+   * 生成按文件名分页的只读导出脚本
+   *
+   * <p>文件按字节序排序，只输出名字大于 after 的前 maxFiles 个，配合 {@link EntryCursor} 从上一页的最后一个文件继续。 目录本身没有索引，Pod
+   * 内每页仍需列出并排序整个目录，省下的是读取与传输前面文件的开销。
+   *
+   * @param after 上一页最后一个文件名，空串表示从头开始，只允许字母、数字与 {@code ._-}
+   * @param maxFileBytes 单个文件的最大字节数，超过的文件只输出跳过记录
+   */
+  static String buildPageScript(String tapDir, String after, int maxFiles, long maxFileBytes) {
+    StringBuilder script = new StringBuilder();
+    script.append("cd '").append(tapDir.replace("'", "'\\''")).append("' 2>/dev/null || exit 0; ");
+    script.append("for f in $(");
+    appendPageNames(script, after, maxFiles);
+    script.append("); do [ -s \"$f\" ] || continue; ");
+    appendEmit(script, maxFileBytes);
+    script.append("done");
+    return script.toString();
+  }
+
+  /** 生成只列出文件名的分页脚本，文件范围与 {@link #buildPageScript} 相同，每行一个文件名 */
+  static String buildPageListScript(String tapDir, String after, int maxFiles) {
+    StringBuilder script = new StringBuilder();
+    script.append("cd '").append(tapDir.replace("'", "'\\''")).append("' 2>/dev/null || exit 0; ");
+    appendPageNames(script, after, maxFiles);
+    return script.toString();
+  }
+
+  // 输出名字大于 after 的前 maxFiles 个文件名
+  private static void appendPageNames(StringBuilder script, String after, int maxFiles) {
+    if (!isSafeFileName(after)) {
+      throw new IllegalArgumentException("Invalid tap file name: " + after);
+    }
+    script
+        .append("ls -1 *.json 2>/dev/null | LC_ALL=C sort")
+        .append(" | LC_ALL=C awk -v a='")
+        .append(after)
+        .append("' '$0 > a' | head -n ")
+        .append(maxFiles);
+  }
+
+  static boolean isSafeFileName(String name) {
+    return name.chars().allMatch(TapArchive::isSafeFileNameChar);
+  }
+
+  private static boolean isSafeFileNameChar(int c) {
+    return (c < 128 && Character.isLetterOrDigit(c)) || c == '.' || c == '_' || c == '-';
+  }
+
+  // 输出 $f 的头部与内容，超过上限的文件只输出跳过记录
+  private static void appendEmit(StringBuilder script, long maxFileBytes) {
+    script
+        .append("n=$(wc -c < \"$f\" | tr -d ' '); ")
+        .append("if [ \"$n\" -gt ")
+        .append(maxFileBytes)
+        .append(" ]; then printf '")
+        .append(SKIP_PREFIX)
+        .append("%s %s\\n' \"$f\" \"$n\"; ")
+        .append("else printf '")
+        .append(HEADER_PREFIX)
+        .append("%s %s\\n' \"$f\" \"$n\"; cat \"$f\"; fi; ");
+  }
+
+  /** 增量解码器，作为 exec 标准输出的写入目标 */
+  static class Decoder extends OutputStream {
+
+    private final BiConsumer<String, String> onFile;
+    private final Consumer<String> onSkipped;
+    private final int maxFileBytes;
+
+    private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+    private ByteArrayOutputStream body;
+    private String fileName;
+    private long remaining = -1; // -1 表示正在读取头部
+    private boolean skipping = false;
+    private int fileCount = 0;
+    private int malformedCount = 0;
+    private int skippedCount = 0;
+
+    /**
+     * @param maxFileBytes 单个文件的最大字节数，超过的文件被跳过
+     * @param onFile 文件回调（文件名，内容）
+     */
+    Decoder(int maxFileBytes, BiConsumer<String, String> onFile) {
+      this(maxFileBytes, onFile, name -> {});
+    }
+
+    /**
+     * @param maxFileBytes 单个文件的最大字节数，超过的文件被跳过
+     * @param onFile 文件回调（文件名，内容）
+     * @param onSkipped 超过大小上限被跳过的文件名回调
+     */
+    Decoder(int maxFileBytes, BiConsumer<String, String> onFile, Consumer<String> onSkipped) {
+      this.maxFileBytes = maxFileBytes;
+      this.onFile = onFile;
+      this.onSkipped = onSkipped;
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+      int end = off + len;
+      int pos = off;
+      while (pos < end) {
+        if (remaining < 0) {
+          // 读取头部直到换行
+          byte c = b[pos++];
+          if (c == '\n') {
+            startFile(header.toString(StandardCharsets.UTF_8));
+            header.reset();
+          } else if (header.size() < 4096) {
+            header.write(c);
+          }
+          continue;
+        }
+
+        int chunk = (int) Math.min(remaining, end - pos);
+        if (!skipping) {
+          body.write(b, pos, chunk);
+        }
+        pos += chunk;
+        remaining -= chunk;
+        if (remaining == 0) {
+          finishFile();
+        }
+      }
+    }
+
+    private void startFile(String line) {
+      if (line.startsWith(SKIP_PREFIX)) {
+        int lastSpace = line.lastIndexOf(' ');
+        if (lastSpace > SKIP_PREFIX.length()) {
+          skip(line.substring(SKIP_PREFIX.length(), lastSpace));
+        } else {
+          malformedCount++;
+        }
+        return;
+      }
+      if (!line.startsWith(HEADER_PREFIX)) {
+        if (!line.isBlank()) {
+          malformedCount++;
+        }
+        return;
+      }
+      int lastSpace = line.lastIndexOf(' ');
+      try {
+        long size = Long.parseLong(line.substring(lastSpace + 1).trim());
+        fileName = line.substring(HEADER_PREFIX.length(), lastSpace);
+        skipping = size > maxFileBytes;
+        body = skipping ? null : new ByteArrayOutputStream((int) size);
+        remaining = size;
+        if (size == 0) {
+          finishFile();
+        }
+      } catch (RuntimeException e) {
+        malformedCount++;
+      }
+    }
+
+    private void finishFile() {
+      if (skipping) {
+        skip(fileName);
+      } else {
+        fileCount++;
+        onFile.accept(fileName, body.toString(StandardCharsets.UTF_8));
+      }
+      body = null;
+      fileName = null;
+      skipping = false;
+      remaining = -1;
+    }
+
+    private void skip(String name) {
+      skippedCount++;
+      onSkipped.accept(name);
+    }
+
+    /** 已完整接收的文件数 */
+    synchronized int getFileCount() {
+      return fileCount;
+    }
+
+    /** 无法识别的记录数 */
+    synchronized int getMalformedCount() {
+      return malformedCount;
+    }
+
+    /** 超出大小上限被跳过的文件数 */
+    synchronized int getSkippedCount() {
+      return skippedCount;
+    }
+
+    /** 流结束时是否还有未接收完的文件 */
+    synchronized boolean isIncomplete() {
+      return remaining > 0;
+    }
+  }
+}
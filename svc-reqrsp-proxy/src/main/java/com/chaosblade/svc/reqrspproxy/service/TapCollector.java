@@ -18,23 +18,28 @@
 
 import com.chaosblade.svc.reqrspproxy.config.RecordingConfig;
 import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.EntryFilter;
 import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
 import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.ExecWatch;
-import java.io.ByteArrayOutputStream;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,7 +54,6 @@ public class TapCollector {
 
   private final ExecutorService tapExecutor;
   private final RecordingSettings settings;
-  private static final int MAX_BODY_SIZE = 10240; // 10KB
 
   public TapCollector(RecordingSettings settings) {
     this.settings = settings;
@@ -58,8 +62,6 @@ public TapCollector(RecordingSettings settings) {
         "TapCollector executor initialized with concurrency {}", settings.getTapConcurrent());
   }
 
-  @Autowired private KubernetesClient k8s;
-
   @Autowired private ObjectMapper objectMapper;
 
   @Autowired private StringRedisTemplate redis;
@@ -68,36 +70,121 @@ public TapCollector(RecordingSettings settings) {
 
   @Autowired private RecordingStateService stateService;
 
+  @Autowired private PodCommandExecutor podCommandExecutor;
+
+  @Autowired private TapStreamReceiver tapStreamReceiver;
+
+  @Autowired private WorkloadCache workloadCache;
+
+  @Autowired private RecordedEntryCodec entryCodec;
+
+  @Autowired private EntrySampler entrySampler;
+
+  @Autowired private CollectionShardManager shardManager;
+
+  // 同一单元（录制, Pod）的采集在本副本内串行：采集周期、Pod 就绪回调与停止时的最后一次采集不会同时导出同一个 Pod
+  private final Map<String, ReentrantLock> unitLocks = new ConcurrentHashMap<>();
+
   private boolean isRecordingActive(String recordingId) {
+    return stateService.isRecording(recordingId);
+  }
+
+  @PostConstruct
+  public void registerPodReadyListener() {
+    // 新的带 sidecar 的 Pod 就绪后立即采集一次（streaming 模式即建立 tap 流），不必等下一个采集周期
+    workloadCache.addTappedPodReadyListener(
+        pod -> tapExecutor.execute(() -> collectFromReadyPod(pod)));
+    // 单元迁到其他副本后关闭本副本上的 tap 流，由新的归属副本重新建立
+    shardManager.addReleaseListener(
+        unit -> {
+          int slash = unit.indexOf('/');
+          tapStreamReceiver.detach(unit.substring(0, slash), unit.substring(slash + 1));
+          unitLocks.computeIfPresent(unit, (k, lock) -> lock.isLocked() ? lock : null);
+        });
+  }
+
+  /** 为刚就绪的 Pod 找到其服务上的活跃录制并采集 */
+  private void collectFromReadyPod(Pod pod) {
+    Map<String, String> labels = pod.getMetadata().getLabels();
+    String serviceName = labels != null ? labels.get("app") : null;
+    if (serviceName == null) {
+      return;
+    }
+    String podName = pod.getMetadata().getName();
     try {
-      RecordingState st = stateService.loadState(recordingId);
-      return st != null && st.getStatus() == RecordingState.RecordingStatus.RECORDING;
+      stateService
+          .findActiveByService(pod.getMetadata().getNamespace(), serviceName)
+          // 只有分片归属本副本时才采集
+          .filter(
+              state ->
+                  shardManager.tryOwn(
+                      CollectionShardManager.unitId(state.getRecordingId(), podName)))
+          .ifPresent(
+              state -> {
+                logger.info(
+                    "Pod {} became ready, collecting for recording {}",
+                    podName,
+                    state.getRecordingId());
+                String unit = CollectionShardManager.unitId(state.getRecordingId(), podName);
+                // 与采集周期共用单元锁，周期正在采集该 Pod 时由周期负责
+                collectLocked(
+                    unit,
+                    false,
+                    () ->
+                        collectFromPod(
+                            state.getRecordingId(), state, pod, shardManager.fence(unit)));
+              });
     } catch (Exception e) {
-      logger.debug("Recording {} considered inactive: {}", recordingId, e.getMessage());
-      return false;
+      logger.warn("Failed to collect from newly ready pod {}: {}", podName, e.getMessage());
     }
   }
 
-  /** 从指定录制中收集数据 */
+  /**
+   * 从指定录制的全部 Pod 收集数据（停止录制时的最后一次采集）
+   *
+   * <p>录制此时已处于 STOPPING，不再检查录制状态。不看分片归属，强制接管每个 (录制, Pod) 租约：原持有者在途的写入因令牌过期被拒绝，
+   * 未确认的文件由本次重新导出，不会因其他副本正在采集而丢掉尾部数据。
+   */
   public CompletableFuture<Integer> collectOnce(String recordingId, RecordingState state) {
+    return collect(recordingId, state, shardManager::takeOver, true);
+  }
+
+  /** 只从分片归属本副本的 Pod 收集数据（定期采集） */
+  public CompletableFuture<Integer> collectOwned(String recordingId, RecordingState state) {
+    return collect(recordingId, state, shardManager::tryOwn, false);
+  }
+
+  private CompletableFuture<Integer> collect(
+      String recordingId, RecordingState state, Predicate<String> owns, boolean draining) {
 
     return CompletableFuture.supplyAsync(
         () -> {
           try {
-            if (!isRecordingActive(recordingId)) {
+            if (!draining && !isRecordingActive(recordingId)) {
               logger.debug("Recording {} is not active, skip collectOnce", recordingId);
               return 0;
             }
 
             List<Pod> pods = getPodsByService(state.getNamespace(), state.getServiceName());
+            // 读取其他副本已用的采样配额
+            entrySampler.refresh(recordingId);
             int totalCollected = 0;
 
             for (Pod pod : pods) {
-              if (!isRecordingActive(recordingId)) {
+              if (!draining && !isRecordingActive(recordingId)) {
                 logger.debug("Recording {} became inactive, abort remaining pods", recordingId);
                 break;
               }
-              int collected = collectFromPod(recordingId, state, pod);
+              String unit = CollectionShardManager.unitId(recordingId, pod.getMetadata().getName());
+              if (!owns.test(unit)) {
+                continue;
+              }
+              // 最后一次采集等待进行中的采集结束，周期采集遇到正在采集的单元直接跳过
+              int collected =
+                  collectLocked(
+                      unit,
+                      draining,
+                      () -> collectFromPod(recordingId, state, pod, shardManager.fence(unit)));
               totalCollected += collected;
             }
 
@@ -111,65 +198,99 @@ public CompletableFuture<Integer> collectOnce(String recordingId, RecordingState
         });
   }
 
-  /** 从单个 Pod 收集数据 */
-  private int collectFromPod(String recordingId, RecordingState state, Pod pod) {
+  /**
+   * 持有单元锁后采集
+   *
+   * @param wait 单元正在采集时是否等待，为 false 时直接跳过
+   */
+  private int collectLocked(String unit, boolean wait, IntSupplier collector) {
+    ReentrantLock lock = unitLocks.computeIfAbsent(unit, k -> new ReentrantLock());
+    if (wait) {
+      lock.lock();
+    } else if (!lock.tryLock()) {
+      logger.debug("Collection unit {} is already being collected, skipping", unit);
+      return 0;
+    }
+    try {
+      return collector.getAsInt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 从单个 Pod 收集数据，写入时用 fence 确认租约仍由本副本持有 */
+  private int collectFromPod(
+      String recordingId, RecordingState state, Pod pod, CollectionShardManager.Fence fence) {
     String podName = pod.getMetadata().getName();
     logger.debug("Collecting from pod {} for recording {}", podName, recordingId);
 
+    // 录制状态已由 collectOnce 在每个 Pod 开始前检查过，这里不再逐文件重复读取
     try {
-      if (!isRecordingActive(recordingId)) {
-        logger.debug("Recording {} inactive, skip pod {}", recordingId, podName);
+      if (!isEnvoyContainerReady(pod)) {
+        logger.debug("Envoy container not ready in pod {}, skipping collection", podName);
         return 0;
       }
 
-      if (!isEnvoyContainerReady(pod)) {
-        logger.debug("Envoy container not ready in pod {}, skipping collection", podName);
+      if (TapStreamReceiver.isStreamingMode(recordingConfig)) {
+        attachTapStream(recordingId, state, pod, fence);
         return 0;
       }
 
-      List<String> tapFiles = listTapFiles(state.getNamespace(), podName);
-      logger.debug("Found {} tap files in pod {}", tapFiles.size(), podName);
+      if (settings.isTapBulkEnabled()) {
+        return collectFromPodBulk(recordingId, state, pod, fence);
+      }
 
-      java.util.concurrent.atomic.AtomicInteger collected =
-          new java.util.concurrent.atomic.AtomicInteger(0);
-      tapFiles.parallelStream()
-          .forEach(
-              fileName -> {
-                try {
-                  if (!isRecordingActive(recordingId)) {
-                    return; // 已停止，取消处理
-                  }
-                  if (isFileProcessed(recordingId, fileName)) {
-                    logger.debug("File {} already processed, skipping", fileName);
-                    return;
-                  }
-                  String content =
-                      readTapFileWithRetry(
-                          recordingId,
-                          state.getNamespace(),
-                          podName,
-                          fileName,
-                          settings.getTapReadRetryMaxRetries(),
-                          settings.getTapReadRetrySleepMillis());
-                  if (content != null && !content.trim().isEmpty()) {
-                    RecordedEntry entry = parseTapContent(recordingId, state, pod, content);
-                    if (entry != null) {
-                      storeEntry(recordingId, entry);
-                      markFileProcessed(recordingId, fileName);
-                      collected.incrementAndGet();
+      List<String> tapFiles = listTapFiles(state.getNamespace(), podName);
+      // 整个清单一次 SMISMEMBER 过滤已处理文件
+      Set<String> processed = TapEntryBatch.findProcessed(redis, recordingId, tapFiles);
+      logger.debug(
+          "Found {} tap files in pod {}, {} already processed",
+          tapFiles.size(),
+          podName,
+          processed.size());
+
+      TapEntryBatch batch =
+          new TapEntryBatch(
+              redis,
+              entryCodec,
+              entrySampler,
+              recordingId,
+              settings.getTapWriteBatchSize(),
+              false,
+              fence);
+      try {
+        tapFiles.parallelStream()
+            .filter(fileName -> !processed.contains(fileName))
+            .forEach(
+                fileName -> {
+                  try {
+                    String content =
+                        readTapFileWithRetry(
+                            state.getNamespace(),
+                            podName,
+                            fileName,
+                            settings.getTapReadRetryMaxRetries(),
+                            settings.getTapReadRetrySleepMillis());
+                    if (content != null && !content.trim().isEmpty()) {
+                      RecordedEntry entry = parseTapContent(recordingId, state, pod, content);
+                      if (entry != null) {
+                        addSampled(batch, entry, fileName);
+                      }
                     }
+                  } catch (Exception ex) {
+                    logger.warn(
+                        "Failed to process tap file {} in pod {}: {}",
+                        fileName,
+                        podName,
+                        ex.getMessage());
                   }
-                } catch (Exception ex) {
-                  logger.warn(
-                      "Failed to process tap file {} in pod {}: {}",
-                      fileName,
-                      podName,
-                      ex.getMessage());
-                }
-              });
+                });
+      } finally {
+        batch.flush();
+      }
 
-      logger.debug("Collected {} entries from pod {}", collected.get(), podName);
-      return collected.get();
+      logger.debug("Collected {} entries from pod {}", batch.getWritten(), podName);
+      return batch.getWritten();
 
     } catch (Exception e) {
       logger.error("Failed to collect from pod {}: {}", podName, e.getMessage(), e);
@@ -177,19 +298,176 @@ private int collectFromPod(String recordingId, RecordingState state, Pod pod) {
     }
   }
 
+  /** streaming 模式：订阅 Pod 的 admin tap 流，trace 到达即入库，采集周期只负责补建断开的连接 */
+  private void attachTapStream(
+      String recordingId, RecordingState state, Pod pod, CollectionShardManager.Fence fence) {
+    String podName = pod.getMetadata().getName();
+    tapStreamReceiver.ensureAttached(
+        recordingId,
+        podName,
+        pod.getStatus().getPodIP(),
+        state.getRules(),
+        content -> {
+          RecordedEntry entry = parseTapContent(recordingId, state, pod, content);
+          if (entry != null) {
+            storeEntry(recordingId, entry, fence);
+          }
+        });
+  }
+
+  /** 关闭录制的 tap 流 */
+  public void stopStreaming(String recordingId) {
+    tapStreamReceiver.detachAll(recordingId);
+  }
+
+  /**
+   * 一次 exec 批量导出 Pod 内的 tap 文件
+   *
+   * <p>导出的流边接收边解码，每收完一个文件立即解析入库。导出脚本不删除文件：本批条目成功写入 Redis 后，再用一次 exec 删除已入库的文件，无法解析的文件移入 {@code
+   * .rejected}；传输中断或写入失败时不删除，下一轮重新导出，已入库的文件由 processed 集合去重。开启原始文件导出调试时保留文件，供 {@link
+   * #exportRawTapFiles} 读取。
+   */
+  private int collectFromPodBulk(
+      String recordingId, RecordingState state, Pod pod, CollectionShardManager.Fence fence) {
+    String podName = pod.getMetadata().getName();
+    String tapDir = recordingConfig.getEnvoy().getTapDir();
+    boolean consume = !settings.isDebugExportRawEnabled();
+    // 事先没有文件清单，写入前按批去重
+    TapEntryBatch batch =
+        new TapEntryBatch(
+            redis,
+            entryCodec,
+            entrySampler,
+            recordingId,
+            settings.getTapWriteBatchSize(),
+            true,
+            fence);
+    // 解码回调在 exec 输出线程上顺序执行
+    List<String> handled = new ArrayList<>();
+    List<String> rejected = new ArrayList<>();
+    AtomicBoolean storeFailed = new AtomicBoolean(false);
+
+    TapArchive.Decoder decoder =
+        new TapArchive.Decoder(
+            settings.getTapExecMaxOutputBytes(),
+            (name, content) -> {
+              String fileName = tapDir + "/" + name;
+              RecordedEntry entry;
+              try {
+                entry = parseTapContent(recordingId, state, pod, content);
+              } catch (Exception ex) {
+                rejected.add(name);
+                logger.warn(
+                    "Failed to parse tap file {} in pod {}: {}",
+                    fileName,
+                    podName,
+                    ex.getMessage());
+                return;
+              }
+              try {
+                if (entry != null) {
+                  addSampled(batch, entry, fileName);
+                }
+                handled.add(name);
+              } catch (Exception ex) {
+                // 批满时的写入失败，本轮不确认任何文件
+                storeFailed.set(true);
+                logger.warn(
+                    "Failed to store tap file {} in pod {}: {}",
+                    fileName,
+                    podName,
+                    ex.getMessage());
+              }
+            },
+            // 超过大小上限的文件不会被导出，移入 .rejected，否则会一直占据导出名额
+            name -> {
+              rejected.add(name);
+              logger.warn("Tap file {}/{} in pod {} exceeds size limit", tapDir, name, podName);
+            });
+
+    String script =
+        TapArchive.buildScript(
+            tapDir, settings.getTapBulkMaxFiles(), settings.getTapExecMaxOutputBytes(), consume);
+    try {
+      PodCommandExecutor.ExecResult result =
+          podCommandExecutor.stream(
+              state.getNamespace(),
+              podName,
+              "envoy",
+              settings.getTapExecTimeoutMillis(),
+              decoder,
+              "sh",
+              "-c",
+              script);
+      if (!result.getStderr().isEmpty()) {
+        logger.warn("Bulk tap export stderr in pod {}: {}", podName, result.getStderr());
+      }
+    } catch (RuntimeException e) {
+      if (e.getMessage() != null && e.getMessage().contains("container envoy not found")) {
+        logger.debug("Envoy container not found in pod {}, skipping bulk export", podName);
+      } else {
+        // 已完整接收的文件照常入库并确认，中断的文件仍留在 .collecting 中，下一轮重新导出
+        logger.warn("Bulk tap export from pod {} interrupted: {}", podName, e.getMessage());
+      }
+    }
+
+    boolean flushed = false;
+    try {
+      batch.flush();
+      flushed = true;
+    } catch (RuntimeException e) {
+      logger.warn(
+          "Failed to store tap entries from pod {}, files kept for retry: {}",
+          podName,
+          e.getMessage());
+    }
+    if (consume && flushed && !storeFailed.get()) {
+      acknowledgeTapFiles(state.getNamespace(), podName, tapDir, handled, rejected);
+    }
+
+    if (decoder.isIncomplete()
+        || decoder.getMalformedCount() > 0
+        || decoder.getSkippedCount() > 0) {
+      logger.warn(
+          "Bulk tap export from pod {}: incomplete={}, malformed records={}, oversized files={}",
+          podName,
+          decoder.isIncomplete(),
+          decoder.getMalformedCount(),
+          decoder.getSkippedCount());
+    }
+    logger.debug(
+        "Received {} tap files, collected {} entries ({} already processed, {} sampled out)"
+            + " from pod {}",
+        decoder.getFileCount(),
+        batch.getWritten(),
+        batch.getSkipped(),
+        batch.getDropped(),
+        podName);
+    return batch.getWritten();
+  }
+
+  /** 删除已入库的 tap 文件，失败时文件保留到下一轮重新导出（由 processed 集合去重） */
+  private void acknowledgeTapFiles(
+      String namespace, String podName, String tapDir, List<String> stored, List<String> rejected) {
+    String script = TapArchive.buildAckScript(tapDir, stored, rejected);
+    if (script == null) {
+      return;
+    }
+    try {
+      PodCommandExecutor.ExecResult result =
+          podCommandExecutor.exec(namespace, podName, "envoy", "sh", "-c", script);
+      if (!result.getStderr().isEmpty()) {
+        logger.warn("Tap file acknowledge stderr in pod {}: {}", podName, result.getStderr());
+      }
+    } catch (RuntimeException e) {
+      logger.warn("Failed to acknowledge tap files in pod {}: {}", podName, e.getMessage());
+    }
+  }
+
   /** 以重试方式读取 tap 文件，避免读取到空文件 */
   private String readTapFileWithRetry(
-      String recordingId,
-      String namespace,
-      String podName,
-      String fileName,
-      int maxRetries,
-      long sleepMillis) {
+      String namespace, String podName, String fileName, int maxRetries, long sleepMillis) {
     for (int i = 0; i < maxRetries; i++) {
-      if (!isRecordingActive(recordingId)) {
-        logger.debug("Recording {} inactive during read, cancel {}", recordingId, fileName);
-        return null;
-      }
       String content = readTapFile(namespace, podName, fileName);
       if (content != null && !content.trim().isEmpty()) {
         return content;
@@ -201,9 +479,6 @@ private String readTapFileWithRetry(
         break;
       }
     }
-    if (!isRecordingActive(recordingId)) {
-      return null;
-    }
     return readTapFile(namespace, podName, fileName);
   }
 
@@ -222,15 +497,17 @@ public int exportRawTapFiles(String recordingId, RecordingState state, Path outD
                   logger.debug("Envoy container not ready in pod {}, skip raw export", podName);
                   return;
                 }
+                if (!isRecordingActive(recordingId)) {
+                  return;
+                }
                 List<String> tapFiles = listTapFiles(state.getNamespace(), podName);
                 tapFiles.parallelStream()
                     .forEach(
                         filePath -> {
                           try {
-                            if (!isRecordingActive(recordingId)) return;
                             String content =
                                 readTapFileWithRetry(
-                                    recordingId, state.getNamespace(), podName, filePath, 5, 300);
+                                    state.getNamespace(), podName, filePath, 5, 300);
                             if (content == null || content.trim().isEmpty()) return;
                             String base = filePath;
                             int idx = base.lastIndexOf('/');
@@ -307,32 +584,18 @@ private String readTapFile(String namespace, String podName, String fileName) {
     }
   }
 
-  /** 执行命令（带重试，处理 WebSocket 握手失败等瞬时错误） */
+  /** 执行命令，容器进程退出即返回 */
   private String execCommand(
       String namespace, String podName, String containerName, String command) {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    ByteArrayOutputStream err = new ByteArrayOutputStream();
-
-    try (ExecWatch watch =
-        k8s.pods()
-            .inNamespace(namespace)
-            .withName(podName)
-            .inContainer(containerName)
-            .writingOutput(out)
-            .writingError(err)
-            .exec("sh", "-c", command)) {
-
-      // 等待命令完成，使用简单的睡眠等待
-      Thread.sleep(5000); // 等待5秒让命令执行完成
-
-      String output = out.toString();
-      String error = err.toString();
-
-      if (!error.isEmpty()) {
-        logger.warn("Command stderr: {}", error);
+    try {
+      PodCommandExecutor.ExecResult result =
+          podCommandExecutor.exec(namespace, podName, containerName, "sh", "-c", command);
+
+      if (!result.getStderr().isEmpty()) {
+        logger.warn("Command stderr: {}", result.getStderr());
       }
 
-      return output;
+      return result.getStdout();
 
     } catch (Exception e) {
       // 特殊处理容器不存在的情况
@@ -439,14 +702,10 @@ private void parseRequestInfo(RecordedEntry entry, JsonNode request) {
     // 解析 body
     JsonNode body = request.path("body");
     if (!body.isMissingNode()) {
+      // 完整保存，截断只来自 Envoy 的 max_buffered_*_bytes
       String bodyStr = body.path("as_string").asText();
-      if (bodyStr.length() > MAX_BODY_SIZE) {
-        entry.setRequestBody(bodyStr.substring(0, MAX_BODY_SIZE));
-        entry.setRequestTruncated(true);
-      } else {
-        entry.setRequestBody(bodyStr);
-        entry.setRequestTruncated(false);
-      }
+      entry.setRequestBody(bodyStr);
+      entry.setRequestTruncated(body.path("truncated").asBoolean(false));
       entry.setReqBytes((long) bodyStr.length());
     }
   }
@@ -470,14 +729,10 @@ private void parseResponseInfo(RecordedEntry entry, JsonNode response) {
     // 解析 body
     JsonNode body = response.path("body");
     if (!body.isMissingNode()) {
+      // 完整保存，截断只来自 Envoy 的 max_buffered_*_bytes
       String bodyStr = body.path("as_string").asText();
-      if (bodyStr.length() > MAX_BODY_SIZE) {
-        entry.setResponseBody(bodyStr.substring(0, MAX_BODY_SIZE));
-        entry.setResponseTruncated(true);
-      } else {
-        entry.setResponseBody(bodyStr);
-        entry.setResponseTruncated(false);
-      }
+      entry.setResponseBody(bodyStr);
+      entry.setResponseTruncated(body.path("truncated").asBoolean(false));
       entry.setRespBytes((long) bodyStr.length());
     }
   }
@@ -515,38 +770,39 @@ private Map<String, String> parseHeaders(JsonNode headersNode) {
     return headers;
   }
 
-  /** 存储条目到 Redis */
-  private void storeEntry(String recordingId, RecordedEntry entry) {
+  /** 经采样后加入批次，被丢弃的条目只计入指纹计数 */
+  private void addSampled(TapEntryBatch batch, RecordedEntry entry, String fileName)
+      throws IOException {
+    EntrySampler.Admission admission = entrySampler.admit(entry);
+    boolean reserved = admission == EntrySampler.Admission.RESERVED;
+    String json;
     try {
-      String json = objectMapper.writeValueAsString(entry);
-      String key = "rec:" + recordingId + ":entries";
-      redis.opsForList().rightPush(key, json);
-
-      // 设置过期时间（7天）
-      redis.expire(key, Duration.ofDays(7));
+      json = admission.isKept() ? entryCodec.encode(entry) : null;
+    } catch (IOException | RuntimeException e) {
+      if (reserved) {
+        entrySampler.release(entry.getRecordingId(), List.of(entry.getFingerprint()));
+      }
+      throw e;
+    }
+    batch.add(json, fileName, entry.getFingerprint(), reserved);
+  }
 
+  /** 存储单个条目到 Redis（流式接收），RPUSH 与 EXPIRE 合并为一次 pipeline */
+  private void storeEntry(
+      String recordingId, RecordedEntry entry, CollectionShardManager.Fence fence) {
+    try {
+      TapEntryBatch batch =
+          new TapEntryBatch(redis, entryCodec, entrySampler, recordingId, 1, false, fence);
+      addSampled(batch, entry, null);
     } catch (Exception e) {
       logger.error("Failed to store entry: {}", e.getMessage(), e);
     }
   }
 
-  /** 检查文件是否已处理 */
-  private boolean isFileProcessed(String recordingId, String fileName) {
-    String key = "rec:" + recordingId + ":processed";
-    return redis.opsForSet().isMember(key, fileName);
-  }
-
-  /** 标记文件已处理 */
-  private void markFileProcessed(String recordingId, String fileName) {
-    String key = "rec:" + recordingId + ":processed";
-    redis.opsForSet().add(key, fileName);
-    redis.expire(key, Duration.ofDays(7));
-  }
-
   /** 从 Redis 读取条目 */
   public List<RecordedEntry> readFromRedis(String recordingId, int offset, int limit) {
     try {
-      String key = "rec:" + recordingId + ":entries";
+      String key = TapEntryBatch.entriesKey(recordingId);
       List<String> jsonList = redis.opsForList().range(key, offset, offset + limit - 1);
 
       if (jsonList == null) {
@@ -556,8 +812,7 @@ public List<RecordedEntry> readFromRedis(String recordingId, int offset, int lim
       List<RecordedEntry> entries = new ArrayList<>();
       for (String json : jsonList) {
         try {
-          RecordedEntry entry = objectMapper.readValue(json, RecordedEntry.class);
-          entries.add(entry);
+          entries.add(entryCodec.decode(recordingId, json));
         } catch (Exception e) {
           logger.error("Failed to parse entry JSON: {}", e.getMessage(), e);
         }
@@ -571,10 +826,75 @@ public List<RecordedEntry> readFromRedis(String recordingId, int offset, int lim
     }
   }
 
+  /**
+   * 从列表下标 offset 开始扫描条目，满足过滤条件的逐条交给 sink
+   *
+   * <p>按页大小分块 LRANGE，凑满 limit 条或扫描满 maxScan 条即停止，代理端的传输与解码只与页大小和扫描上限有关。Redis 列表按下标定位， LRANGE 本身为
+   * O(offset + 页大小)，越靠后的页在 Redis 端越慢。
+   *
+   * @return 下一页的起始下标，已扫描到列表末尾时为 -1
+   */
+  public long scanFromRedis(
+      String recordingId,
+      long offset,
+      int limit,
+      int maxScan,
+      EntryFilter filter,
+      Consumer<RecordedEntry> sink) {
+    String key = TapEntryBatch.entriesKey(recordingId);
+    long position = offset;
+    int emitted = 0;
+    int scanned = 0;
+    while (emitted < limit && scanned < maxScan) {
+      int size = Math.min(Math.max(limit, 1), maxScan - scanned);
+      List<String> values = redis.opsForList().range(key, position, position + size - 1);
+      if (values == null || values.isEmpty()) {
+        return -1;
+      }
+      for (String json : values) {
+        position++;
+        scanned++;
+        RecordedEntry entry;
+        try {
+          entry = entryCodec.decode(recordingId, json);
+        } catch (Exception e) {
+          logger.error("Failed to parse entry JSON: {}", e.getMessage(), e);
+          continue;
+        }
+        if (filter.matches(entry)) {
+          sink.accept(entry);
+          if (++emitted >= limit) {
+            break;
+          }
+        }
+      }
+      if (emitted < limit && values.size() < size) {
+        return -1;
+      }
+    }
+    return position;
+  }
+
+  /** 读取录制的指纹计数，按次数从高到低排列 */
+  public Map<String, Long> getFingerprintCounts(String recordingId) {
+    Map<Object, Object> raw =
+        redis.opsForHash().entries(TapEntryBatch.fingerprintsKey(recordingId));
+    List<Map.Entry<String, Long>> counts = new ArrayList<>();
+    for (Map.Entry<Object, Object> e : raw.entrySet()) {
+      counts.add(Map.entry(e.getKey().toString(), Long.parseLong(e.getValue().toString())));
+    }
+    counts.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> e : counts) {
+      result.put(e.getKey(), e.getValue());
+    }
+    return result;
+  }
+
   /** 获取条目总数 */
   public long getEntryCount(String recordingId) {
     try {
-      String key = "rec:" + recordingId + ":entries";
+      String key = TapEntryBatch.entriesKey(recordingId);
       Long count = redis.opsForList().size(key);
       return count != null ? count : 0;
     } catch (Exception e) {
@@ -626,7 +946,7 @@ private boolean isEnvoyContainerReady(Pod pod) {
   /** 根据服务名获取 Pod 列表 */
   private List<Pod> getPodsByService(String namespace, String serviceName) {
     try {
-      return k8s.pods().inNamespace(namespace).withLabel("app", serviceName).list().getItems();
+      return workloadCache.getPods(namespace, serviceName);
     } catch (Exception e) {
       logger.error("Failed to get pods for service {}: {}", serviceName, e.getMessage(), e);
       return Collections.emptyList();
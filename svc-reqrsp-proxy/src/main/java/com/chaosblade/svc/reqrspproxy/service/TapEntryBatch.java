@@ -0,0 +1,334 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 录制条目的批量写入缓冲
+ *
+ * <p>一个采集周期内的条目先缓存在内存中，攒够一批后用一次 pipeline 写入：条目 RPUSH 多值、已处理文件 SADD 多值， 条目、已处理文件的 TTL
+ * 每批各续期一次，headers 字典每批重写并续期。条目与其文件标记在同一批中写入，不会出现只有标记没有条目的情况。
+ *
+ * <p>被 {@link EntrySampler} 丢弃的条目以 null 加入：不写入条目，但仍标记其文件已处理，并与保存的条目一起按指纹 HINCRBY 计数。
+ * 占用采样配额的条目随批次把已用配额 HINCRBY 到 {@link #keptKey}，写入成功后通知采样器确认，写入失败或被去重跳过时归还。
+ *
+ * <p>事先无法拿到文件清单时（批量导出边收边解码），可开启 dedup，在写入前对本批文件做一次 SMISMEMBER，跳过已处理的文件。
+ *
+ * <p>带防护令牌（{@link CollectionShardManager.Fence}）时，每批改为 WATCH 租约键后在 MULTI/EXEC 中写入：租约值已不是本批的令牌，
+ * 或写入期间租约被改动，整批不写入并抛出 {@link CollectionShardManager.LeaseLostException}。
+ *
+ * <p>线程安全，可在并行流中共用。
+ */
+class TapEntryBatch {
+
+  static final Duration TTL = Duration.ofDays(7);
+
+  private final StringRedisTemplate redis;
+  private final RecordedEntryCodec codec;
+  private final EntrySampler sampler;
+  private final String entriesKey;
+  private final String processedKey;
+  private final String fingerprintsKey;
+  private final String keptKey;
+  private final String recordingId;
+  private final int batchSize;
+  private final boolean dedup;
+  private final CollectionShardManager.Fence fence;
+
+  // 四者一一对应：采样丢弃的条目 value 为 null，流式接收的条目 fileName 为 null，未采样时 fingerprint 为 null
+  private List<String> values = new ArrayList<>();
+  private List<String> fileNames = new ArrayList<>();
+  private List<String> fingerprints = new ArrayList<>();
+  private List<Boolean> reservations = new ArrayList<>();
+  private int written = 0;
+  private int skipped = 0;
+  private int dropped = 0;
+
+  TapEntryBatch(
+      StringRedisTemplate redis,
+      RecordedEntryCodec codec,
+      EntrySampler sampler,
+      String recordingId,
+      int batchSize,
+      boolean dedup,
+      CollectionShardManager.Fence fence) {
+    this.redis = redis;
+    this.codec = codec;
+    this.sampler = sampler;
+    this.recordingId = recordingId;
+    this.entriesKey = entriesKey(recordingId);
+    this.processedKey = processedKey(recordingId);
+    this.fingerprintsKey = fingerprintsKey(recordingId);
+    this.keptKey = keptKey(recordingId);
+    this.batchSize = Math.max(1, batchSize);
+    this.dedup = dedup;
+    this.fence = fence;
+  }
+
+  static String entriesKey(String recordingId) {
+    return "rec:" + recordingId + ":entries";
+  }
+
+  static String processedKey(String recordingId) {
+    return "rec:" + recordingId + ":processed";
+  }
+
+  /** 指纹 -> 出现次数 */
+  static String fingerprintsKey(String recordingId) {
+    return "rec:" + recordingId + ":fp";
+  }
+
+  /** 采样配额字段 -> 已保存条数，见 {@link EntrySampler#quotaFields} */
+  static String keptKey(String recordingId) {
+    return "rec:" + recordingId + ":kept";
+  }
+
+  /** 条目 headers 压缩字典（哈希），见 {@link RecordedEntryCodec} */
+  static String headerDictKey(String recordingId) {
+    return "rec:" + recordingId + ":hdict";
+  }
+
+  /**
+   * 加入一条已序列化的条目，缓冲达到批大小时写入
+   *
+   * @param json 条目 JSON，被采样丢弃时为 null
+   * @param fileName 来源 tap 文件，流式接收时为 null
+   * @param fingerprint 条目指纹，未采样时为 null
+   * @param reserved 条目是否占用了采样配额
+   */
+  synchronized void add(String json, String fileName, String fingerprint, boolean reserved) {
+    values.add(json);
+    fileNames.add(fileName);
+    fingerprints.add(fingerprint);
+    reservations.add(reserved);
+    if (values.size() >= batchSize) {
+      flush();
+    }
+  }
+
+  /** 写入缓冲中的全部条目 */
+  synchronized void flush() {
+    if (values.isEmpty()) {
+      return;
+    }
+    List<String> pendingValues = values;
+    List<String> pendingFiles = fileNames;
+    List<String> pendingFingerprints = fingerprints;
+    List<Boolean> pendingReservations = reservations;
+    values = new ArrayList<>();
+    fileNames = new ArrayList<>();
+    fingerprints = new ArrayList<>();
+    reservations = new ArrayList<>();
+
+    List<String> reserved = new ArrayList<>();
+    List<String> unused = new ArrayList<>();
+    try {
+      write(
+          pendingValues, pendingFiles, pendingFingerprints, pendingReservations, reserved, unused);
+    } catch (RuntimeException e) {
+      unused.addAll(reserved);
+      reserved.clear();
+      throw e;
+    } finally {
+      if (sampler != null) {
+        sampler.commit(recordingId, reserved);
+        sampler.release(recordingId, unused);
+      }
+    }
+  }
+
+  /**
+   * 过滤并写入一批条目
+   *
+   * @param reserved 输出：写入的条目中占用配额的指纹
+   * @param unused 输出：占用配额但被跳过的指纹
+   */
+  private void write(
+      List<String> pendingValues,
+      List<String> pendingFiles,
+      List<String> pendingFingerprints,
+      List<Boolean> pendingReservations,
+      List<String> reserved,
+      List<String> unused) {
+    Set<String> processed = Collections.emptySet();
+    if (dedup) {
+      List<String> names = new ArrayList<>();
+      for (String name : pendingFiles) {
+        if (name != null) {
+          names.add(name);
+        }
+      }
+      processed = findProcessed(redis, recordingId, names);
+    }
+
+    List<String> batchValues = new ArrayList<>(pendingValues.size());
+    List<String> batchFiles = new ArrayList<>(pendingFiles.size());
+    Map<String, Long> counts = new HashMap<>();
+    Map<String, Long> kept = new HashMap<>();
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < pendingValues.size(); i++) {
+      String name = pendingFiles.get(i);
+      String fingerprint = pendingFingerprints.get(i);
+      boolean quota = pendingReservations.get(i) && fingerprint != null;
+      if (name != null && (processed.contains(name) || !seen.add(name))) {
+        skipped++;
+        if (quota) {
+          unused.add(fingerprint);
+        }
+        continue;
+      }
+      String value = pendingValues.get(i);
+      if (value != null) {
+        batchValues.add(value);
+      } else {
+        dropped++;
+      }
+      if (name != null) {
+        batchFiles.add(name);
+      }
+      if (fingerprint != null) {
+        counts.merge(fingerprint, 1L, Long::sum);
+      }
+      if (quota) {
+        reserved.add(fingerprint);
+        for (String field : EntrySampler.quotaFields(fingerprint)) {
+          kept.merge(field, 1L, Long::sum);
+        }
+      }
+    }
+    if (batchValues.isEmpty() && batchFiles.isEmpty() && counts.isEmpty()) {
+      return;
+    }
+
+    if (fence == null) {
+      redis.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                write((StringRedisConnection) connection, batchValues, batchFiles, counts, kept);
+                return null;
+              });
+    } else {
+      writeFenced(batchValues, batchFiles, counts, kept);
+    }
+    written += batchValues.size();
+  }
+
+  private void writeFenced(
+      List<String> batchValues,
+      List<String> batchFiles,
+      Map<String, Long> counts,
+      Map<String, Long> kept) {
+    byte[] leaseKey = fence.getLeaseKey().getBytes(StandardCharsets.UTF_8);
+    Boolean committed =
+        redis.execute(
+            (RedisCallback<Boolean>)
+                connection -> {
+                  StringRedisConnection conn = (StringRedisConnection) connection;
+                  conn.watch(leaseKey);
+                  if (!fence.getToken().equals(conn.get(fence.getLeaseKey()))) {
+                    conn.unwatch();
+                    return false;
+                  }
+                  conn.multi();
+                  write(conn, batchValues, batchFiles, counts, kept);
+                  // 租约在 WATCH 之后被改动时事务被放弃
+                  List<Object> results = conn.exec();
+                  return results != null && !results.isEmpty();
+                });
+    if (!Boolean.TRUE.equals(committed)) {
+      throw new CollectionShardManager.LeaseLostException(fence.getLeaseKey());
+    }
+  }
+
+  private void write(
+      StringRedisConnection conn,
+      List<String> batchValues,
+      List<String> batchFiles,
+      Map<String, Long> counts,
+      Map<String, Long> kept) {
+    long ttlSeconds = TTL.getSeconds();
+    if (!batchValues.isEmpty()) {
+      conn.rPush(entriesKey, batchValues.toArray(new String[0]));
+      conn.expire(entriesKey, ttlSeconds);
+      codec.refreshDictionary(conn, recordingId, ttlSeconds);
+    }
+    if (!counts.isEmpty()) {
+      counts.forEach((fingerprint, n) -> conn.hIncrBy(fingerprintsKey, fingerprint, n));
+      conn.expire(fingerprintsKey, ttlSeconds);
+    }
+    if (!kept.isEmpty()) {
+      kept.forEach((field, n) -> conn.hIncrBy(keptKey, field, n));
+      conn.expire(keptKey, ttlSeconds);
+    }
+    if (!batchFiles.isEmpty()) {
+      conn.sAdd(processedKey, batchFiles.toArray(new String[0]));
+      conn.expire(processedKey, ttlSeconds);
+    }
+  }
+
+  /** 已写入 Redis 的条目数 */
+  synchronized int getWritten() {
+    return written;
+  }
+
+  /** 被采样丢弃的条目数 */
+  synchronized int getDropped() {
+    return dropped;
+  }
+
+  /** 因文件已处理而跳过的条目数 */
+  synchronized int getSkipped() {
+    return skipped;
+  }
+
+  /**
+   * 用一次 SMISMEMBER 找出已处理过的文件
+   *
+   * @return 已处理的文件名集合
+   */
+  static Set<String> findProcessed(
+      StringRedisTemplate redis, String recordingId, Collection<String> fileNames) {
+    if (fileNames.isEmpty()) {
+      return Collections.emptySet();
+    }
+    Map<Object, Boolean> members =
+        redis.opsForSet().isMember(processedKey(recordingId), fileNames.toArray());
+    Set<String> processed = new HashSet<>();
+    if (members != null) {
+      members.forEach(
+          (name, member) -> {
+            if (Boolean.TRUE.equals(member)) {
+              processed.add((String) name);
+            }
+          });
+    }
+    return processed;
+  }
+}
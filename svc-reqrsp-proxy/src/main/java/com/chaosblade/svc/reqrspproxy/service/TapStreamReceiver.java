@@ -0,0 +1,317 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingConfig;
+import com.chaosblade.svc.reqrspproxy.dto.RecordingRule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Envoy tap 流式接收器
+ *
+ * <p>streaming 模式下 sidecar 的 tap 过滤器使用 admin_config，由本服务对每个 Pod 的 admin {@code /tap} 接口发起一个长连接，
+ * Envoy 每完成一次请求就把 trace JSON 推送过来。响应体按到达的字节切分出完整的 JSON 对象后回调，不落盘、不 exec、不轮询。
+ *
+ * <p>连接断开（Pod 重建、Envoy 重启）后从订阅表中移除，下一轮采集时重新建立。
+ */
+@Service
+public class TapStreamReceiver {
+
+  private static final Logger logger = LoggerFactory.getLogger(TapStreamReceiver.class);
+
+  public static final String STREAMING_MODE = "streaming";
+
+  private static final String TAP_CONFIG_PREFIX = "rec-";
+
+  // 单个 trace 的上限，超过后丢弃该 trace 并重新对齐到下一个 JSON 对象
+  private static final int MAX_TRACE_BYTES = 16 * 1024 * 1024;
+
+  @Autowired private RecordingConfig recordingConfig;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private final WebClient webClient;
+
+  // key: recordingId/podName
+  private final Map<String, Disposable> streams = new ConcurrentHashMap<>();
+
+  public TapStreamReceiver() {
+    // 长连接没有响应超时，只限制建连时间
+    HttpClient httpClient =
+        HttpClient.create()
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5_000)
+            .option(ChannelOption.SO_KEEPALIVE, true);
+    this.webClient =
+        WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+  }
+
+  /**
+   * 录制的 admin tap config_id，模板中的 admin_config.config_id 与 /tap 请求都使用它
+   *
+   * <p>按录制区分，同一 Pod 上先后（或同时）存在的录制不会订阅到彼此的 tap 配置。
+   */
+  public static String tapConfigId(String recordingId) {
+    return TAP_CONFIG_PREFIX + recordingId;
+  }
+
+  /** 是否启用流式 tap */
+  public static boolean isStreamingMode(RecordingConfig config) {
+    return STREAMING_MODE.equalsIgnoreCase(config.getEnvoy().getTapMode());
+  }
+
+  /**
+   * 确保已订阅指定 Pod 的 tap 流
+   *
+   * @param podIp Pod IP
+   * @param rules 录制规则，转换为 admin tap 的匹配条件
+   * @param onTrace 每收到一个完整的 trace JSON 回调一次，在弹性线程池中执行
+   * @return 本次是否新建了订阅
+   */
+  public boolean ensureAttached(
+      String recordingId,
+      String podName,
+      String podIp,
+      List<RecordingRule> rules,
+      Consumer<String> onTrace) {
+    String key = recordingId + "/" + podName;
+    if (podIp == null || podIp.isEmpty()) {
+      return false;
+    }
+
+    String url = "http://" + podIp + ":" + recordingConfig.getEnvoy().getAdminPort() + "/tap";
+    String body;
+    try {
+      body = objectMapper.writeValueAsString(buildTapRequest(recordingId, rules));
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to build tap request: " + e.getMessage(), e);
+    }
+
+    // 原子占位，并发采集（采集周期与 Pod 就绪回调）中只有一个能建立连接
+    Disposable.Swap handle = Disposables.swap();
+    if (streams.putIfAbsent(key, handle) != null) {
+      return false;
+    }
+    TraceSplitter splitter = new TraceSplitter(onTrace);
+    Disposable subscription =
+        webClient
+            .post()
+            .uri(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(body)
+            .retrieve()
+            .bodyToFlux(DataBuffer.class)
+            .publishOn(Schedulers.boundedElastic())
+            .subscribe(
+                buffer -> {
+                  try {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    splitter.feed(bytes);
+                  } finally {
+                    DataBufferUtils.release(buffer);
+                  }
+                },
+                error -> {
+                  streams.remove(key, handle);
+                  logger.warn("Tap stream from pod {} closed: {}", podName, error.getMessage());
+                },
+                () -> {
+                  streams.remove(key, handle);
+                  logger.info("Tap stream from pod {} completed", podName);
+                });
+    // 占位期间已被 detach 时立即释放订阅
+    handle.update(subscription);
+    logger.info("Attached tap stream for recording {} to pod {} ({})", recordingId, podName, url);
+    return true;
+  }
+
+  /** 关闭某个录制在指定 Pod 上的 tap 流 */
+  public void detach(String recordingId, String podName) {
+    Disposable subscription = streams.remove(recordingId + "/" + podName);
+    if (subscription != null) {
+      subscription.dispose();
+      logger.info("Detached tap stream {}/{}", recordingId, podName);
+    }
+  }
+
+  /** 关闭某个录制的全部 tap 流 */
+  public void detachAll(String recordingId) {
+    String prefix = recordingId + "/";
+    streams
+        .keySet()
+        .removeIf(
+            key -> {
+              if (!key.startsWith(prefix)) {
+                return false;
+              }
+              Disposable subscription = streams.get(key);
+              if (subscription != null) {
+                subscription.dispose();
+              }
+              logger.info("Detached tap stream {}", key);
+              return true;
+            });
+  }
+
+  /** 当前打开的 tap 流数量 */
+  public int getActiveStreamCount() {
+    return streams.size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    streams.values().forEach(Disposable::dispose);
+    streams.clear();
+  }
+
+  /** 构建 admin /tap 请求体，匹配条件与模板中 static_config 的写法一致 */
+  private Map<String, Object> buildTapRequest(String recordingId, List<RecordingRule> rules) {
+    List<Map<String, Object>> matchers = new ArrayList<>();
+    if (rules != null) {
+      for (RecordingRule rule : rules) {
+        List<Map<String, Object>> headers = new ArrayList<>();
+        headers.add(Map.of("name", ":path", "string_match", Map.of("prefix", rule.getPath())));
+        headers.add(
+            Map.of(
+                "name",
+                ":method",
+                "string_match",
+                Map.of("exact", rule.getMethod().toUpperCase())));
+        matchers.add(Map.of("http_request_headers_match", Map.of("headers", headers)));
+      }
+    }
+
+    Map<String, Object> match;
+    if (matchers.isEmpty()) {
+      match = Map.of("any_match", true);
+    } else if (matchers.size() == 1) {
+      match = matchers.get(0);
+    } else {
+      // or_match.rules 至少需要 2 项
+      match = Map.of("or_match", Map.of("rules", matchers));
+    }
+
+    Long maxBufferedBytes = recordingConfig.getEnvoy().getMaxBufferedBytes();
+    Map<String, Object> outputConfig = new LinkedHashMap<>();
+    outputConfig.put(
+        "sinks", List.of(Map.of("format", "JSON_BODY_AS_STRING", "streaming_admin", Map.of())));
+    outputConfig.put("max_buffered_rx_bytes", maxBufferedBytes);
+    outputConfig.put("max_buffered_tx_bytes", maxBufferedBytes);
+
+    Map<String, Object> tapConfig = new LinkedHashMap<>();
+    tapConfig.put("match_config", match);
+    tapConfig.put("output_config", outputConfig);
+
+    Map<String, Object> request = new LinkedHashMap<>();
+    request.put("config_id", tapConfigId(recordingId));
+    request.put("tap_config", tapConfig);
+    return request;
+  }
+
+  /**
+   * 按字节切分连续输出的 JSON 对象
+   *
+   * <p>Envoy 逐个写出 trace 对象，对象之间只有空白；跟踪括号深度和字符串状态，深度回到 0 即得到一个完整对象。
+   */
+  static class TraceSplitter {
+    private final Consumer<String> onTrace;
+    private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+    private int depth = 0;
+    private boolean inString = false;
+    private boolean escaped = false;
+    private boolean overflow = false;
+
+    TraceSplitter(Consumer<String> onTrace) {
+      this.onTrace = onTrace;
+    }
+
+    void feed(byte[] bytes) {
+      for (byte b : bytes) {
+        if (depth == 0 && b != '{') {
+          // 对象之间的空白或无法识别的内容
+          continue;
+        }
+        if (!overflow) {
+          if (current.size() < MAX_TRACE_BYTES) {
+            current.write(b);
+          } else {
+            overflow = true;
+            current.reset();
+          }
+        }
+
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (b == '\\') {
+            escaped = true;
+          } else if (b == '"') {
+            inString = false;
+          }
+          continue;
+        }
+        if (b == '"') {
+          inString = true;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          depth--;
+          if (depth == 0) {
+            emit();
+          }
+        }
+      }
+    }
+
+    private void emit() {
+      if (overflow) {
+        logger.warn("Dropped tap trace larger than {} bytes", MAX_TRACE_BYTES);
+      } else {
+        try {
+          onTrace.accept(current.toString(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+          logger.warn("Failed to handle streamed tap trace: {}", e.getMessage());
+        }
+      }
+      current.reset();
+      overflow = false;
+    }
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.dto.RequestPatternRequest;
+import com.chaosblade.svc.reqrspproxy.dto.ServiceRequestPattern;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求模式任务的检查点存储
+ *
+ * <p>任务每完成一个阶段就在哈希 {@code task:pattern:<id>:ckpt} 中记下最后完成的 {@link Checkpoint}，连同原始请求、录制 ID
+ * 与阶段产物，与任务状态一样保留 24 小时。收集阶段不复制条目，只记下每个录制当时的条目数（录制条目列表只追加，续跑时按条目数 重读同一前缀）；分析阶段保存分析出的模式。
+ *
+ * <p>执行中的任务登记在有序集合 {@value #RUNNING_KEY}，执行它的副本在 {@code task:pattern:<id>:owner} 中写入本次认领的随机
+ * 令牌并定时续期。副本崩溃或重新部署后租约过期，任意副本都可以用 SETNX 认领该任务，从最后完成的阶段之后继续执行。
+ *
+ * <p>租约可能在原副本仍在执行时过期（如 Redis 短暂不可达），因此流程在每个阶段开始前调用 {@link #ensureOwner}，检查点也只在 owner 仍是自己的令牌时写入（同一个
+ * Lua 脚本中比较并写入）；令牌不符时抛出 {@link OwnershipLostException}，原流程就此退出， 由新的持有者继续。
+ */
+@Component
+public class TaskCheckpointStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(TaskCheckpointStore.class);
+
+  static final String RUNNING_KEY = "task:pattern:running";
+
+  private static final Duration TTL = Duration.ofHours(24);
+
+  private static final TypeReference<Map<String, Integer>> COLLECTED_TYPE =
+      new TypeReference<>() {};
+
+  private static final TypeReference<List<ServiceRequestPattern>> PATTERNS_TYPE =
+      new TypeReference<>() {};
+
+  // 仅续期自己持有的租约
+  private static final DefaultRedisScript<Long> RENEW_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) == ARGV[1] then"
+              + " return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0",
+          Long.class);
+
+  // 仍持有租约时写入检查点字段：KEYS = owner, ckpt；ARGV = 令牌, TTL 秒, 字段, 值, ...
+  private static final DefaultRedisScript<Long> FENCED_PUT_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end "
+              + "for i = 3, #ARGV, 2 do redis.call('hset', KEYS[2], ARGV[i], ARGV[i + 1]) end "
+              + "redis.call('expire', KEYS[2], ARGV[2]) return 1",
+          Long.class);
+
+  // 仍持有租约时结束任务：KEYS = owner, ckpt, running；ARGV = 令牌, 任务 ID
+  private static final DefaultRedisScript<Long> FINISH_SCRIPT =
+      new DefaultRedisScript<>(
+          "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end "
+              + "redis.call('del', KEYS[1], KEYS[2]) redis.call('zrem', KEYS[3], ARGV[2]) "
+              + "return 1",
+          Long.class);
+
+  /** 流程中已完成的阶段，按执行顺序排列 */
+  public enum Checkpoint {
+    NONE,
+    RECORDING_STARTED,
+    ROLLED_OUT,
+    TRIGGERED,
+    COLLECTED,
+    ANALYZED,
+    PERSISTED;
+
+    /** 本阶段是否已完成 */
+    public boolean reached(Checkpoint checkpoint) {
+      return compareTo(checkpoint) >= 0;
+    }
+  }
+
+  /** 任务已由其他副本接管 */
+  public static class OwnershipLostException extends RuntimeException {
+    public OwnershipLostException(String taskId) {
+      super("Task " + taskId + " is now owned by another instance");
+    }
+  }
+
+  @Autowired private StringRedisTemplate redis;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Value("${reqrsp.task.leaseMillis:60000}")
+  private long leaseMillis;
+
+  // 本副本正在执行的任务 -> 认领令牌
+  private final Map<String, String> owned = new ConcurrentHashMap<>();
+
+  private static String checkpointKey(String taskId) {
+    return "task:pattern:" + taskId + ":ckpt";
+  }
+
+  private static String ownerKey(String taskId) {
+    return "task:pattern:" + taskId + ":owner";
+  }
+
+  /** 登记新任务并由本副本持有 */
+  public void begin(String taskId, RequestPatternRequest request) {
+    String token = UUID.randomUUID().toString();
+    redis.opsForValue().set(ownerKey(taskId), token, Duration.ofMillis(leaseMillis));
+    owned.put(taskId, token);
+    try {
+      put(
+          taskId,
+          "request",
+          objectMapper.writeValueAsString(request),
+          "checkpoint",
+          Checkpoint.NONE.name());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to checkpoint task " + taskId, e);
+    }
+    redis.opsForZSet().add(RUNNING_KEY, taskId, System.currentTimeMillis());
+  }
+
+  /**
+   * 认领一个无人持有的任务
+   *
+   * @return 认领成功时为 true
+   */
+  public boolean claim(String taskId) {
+    String token = UUID.randomUUID().toString();
+    Boolean acquired =
+        redis.opsForValue().setIfAbsent(ownerKey(taskId), token, Duration.ofMillis(leaseMillis));
+    if (Boolean.TRUE.equals(acquired)) {
+      owned.put(taskId, token);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * 确认本副本仍持有任务并续期租约
+   *
+   * @throws OwnershipLostException 租约已过期或被其他副本认领
+   */
+  public void ensureOwner(String taskId) {
+    String token = owned.get(taskId);
+    Long renewed =
+        token == null
+            ? null
+            : redis.execute(
+                RENEW_SCRIPT, List.of(ownerKey(taskId)), token, String.valueOf(leaseMillis));
+    if (renewed == null || renewed == 0) {
+      owned.remove(taskId);
+      throw new OwnershipLostException(taskId);
+    }
+  }
+
+  /** 执行中但租约已过期的任务 */
+  public List<String> findOrphans() {
+    Set<String> running = redis.opsForZSet().range(RUNNING_KEY, 0, -1);
+    if (running == null || running.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> ids = new ArrayList<>(running);
+    List<String> owners =
+        redis
+            .opsForValue()
+            .multiGet(ids.stream().map(TaskCheckpointStore::ownerKey).collect(Collectors.toList()));
+    List<String> orphans = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i++) {
+      if (owners == null || owners.get(i) == null) {
+        orphans.add(ids.get(i));
+      }
+    }
+    return orphans;
+  }
+
+  /** 最后完成的阶段，没有检查点时为 {@link Checkpoint#NONE} */
+  public Checkpoint getCheckpoint(String taskId) {
+    Object value = redis.opsForHash().get(checkpointKey(taskId), "checkpoint");
+    return value != null ? Checkpoint.valueOf(value.toString()) : Checkpoint.NONE;
+  }
+
+  /** 任务的原始请求，检查点已过期时为 null */
+  public RequestPatternRequest loadRequest(String taskId) {
+    Object value = redis.opsForHash().get(checkpointKey(taskId), "request");
+    if (value == null) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(value.toString(), RequestPatternRequest.class);
+    } catch (IOException e) {
+      logger.warn("Corrupt checkpoint request for task {}: {}", taskId, e.getMessage());
+      return null;
+    }
+  }
+
+  /** 记录阶段完成 */
+  public void mark(String taskId, Checkpoint checkpoint) {
+    put(taskId, "checkpoint", checkpoint.name());
+    logger.info("Task {} checkpoint: {}", taskId, checkpoint);
+  }
+
+  /** 录制已启动，记下录制 ID */
+  public void markRecordingStarted(String taskId, List<String> recordingIds) {
+    put(
+        taskId,
+        "recordingIds",
+        String.join(",", recordingIds),
+        "checkpoint",
+        Checkpoint.RECORDING_STARTED.name());
+    logger.info("Task {} checkpoint: {}", taskId, Checkpoint.RECORDING_STARTED);
+  }
+
+  /** 已启动的录制 ID */
+  public List<String> loadRecordingIds(String taskId) {
+    Object value = redis.opsForHash().get(checkpointKey(taskId), "recordingIds");
+    if (value == null || value.toString().isEmpty()) {
+      return new ArrayList<>();
+    }
+    return new ArrayList<>(Arrays.asList(value.toString().split(",")));
+  }
+
+  /**
+   * 记下收集阶段读取的条目范围并记录 {@link Checkpoint#COLLECTED}
+   *
+   * @param counts 录制 ID -> 读取的条目数（从列表头开始）
+   */
+  public void saveCollected(String taskId, Map<String, Integer> counts) {
+    try {
+      put(
+          taskId,
+          "collected",
+          objectMapper.writeValueAsString(counts),
+          "checkpoint",
+          Checkpoint.COLLECTED.name());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to checkpoint collected entries of task " + taskId, e);
+    }
+    logger.info("Task {} checkpoint: {}", taskId, Checkpoint.COLLECTED);
+  }
+
+  /** 收集阶段读取的条目范围 */
+  public Map<String, Integer> loadCollected(String taskId) {
+    Object stored = redis.opsForHash().get(checkpointKey(taskId), "collected");
+    if (stored == null) {
+      throw new IllegalStateException("Collected entries of task " + taskId + " are missing");
+    }
+    try {
+      return objectMapper.readValue(stored.toString(), COLLECTED_TYPE);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read collected entries of task " + taskId, e);
+    }
+  }
+
+  /** 保存分析结果并记录 {@link Checkpoint#ANALYZED} */
+  public void savePatterns(String taskId, List<ServiceRequestPattern> patterns) {
+    try {
+      put(
+          taskId,
+          "patterns",
+          objectMapper.writeValueAsString(patterns),
+          "checkpoint",
+          Checkpoint.ANALYZED.name());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to checkpoint patterns of task " + taskId, e);
+    }
+    logger.info("Task {} checkpoint: {}", taskId, Checkpoint.ANALYZED);
+  }
+
+  /** 读取分析阶段保存的结果 */
+  public List<ServiceRequestPattern> loadPatterns(String taskId) {
+    Object stored = redis.opsForHash().get(checkpointKey(taskId), "patterns");
+    if (stored == null) {
+      throw new IllegalStateException("Analyzed patterns of task " + taskId + " are missing");
+    }
+    try {
+      return objectMapper.readValue(stored.toString(), PATTERNS_TYPE);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read analyzed patterns of task " + taskId, e);
+    }
+  }
+
+  /**
+   * 任务结束（完成或失败）：删除检查点并释放租约
+   *
+   * <p>租约已被其他副本认领时什么都不做，检查点留给新的持有者。
+   */
+  public void finish(String taskId) {
+    String token = owned.remove(taskId);
+    if (token == null) {
+      return;
+    }
+    try {
+      redis.execute(
+          FINISH_SCRIPT,
+          List.of(ownerKey(taskId), checkpointKey(taskId), RUNNING_KEY),
+          token,
+          taskId);
+    } catch (Exception e) {
+      logger.warn("Failed to clear checkpoint of task {}: {}", taskId, e.getMessage());
+    }
+  }
+
+  /** 续期本副本持有的任务租约，丢失的租约不再续期 */
+  @Scheduled(fixedDelayString = "${reqrsp.task.heartbeatMillis:15000}")
+  public void renewLeases() {
+    owned.forEach(
+        (taskId, token) -> {
+          try {
+            Long renewed =
+                redis.execute(
+                    RENEW_SCRIPT, List.of(ownerKey(taskId)), token, String.valueOf(leaseMillis));
+            if (renewed == null || renewed == 0) {
+              // 流程在下一次 ensureOwner 或写检查点时退出
+              logger.warn("Lost lease of task {}", taskId);
+              owned.remove(taskId, token);
+            }
+          } catch (Exception e) {
+            logger.warn("Failed to renew lease of task {}: {}", taskId, e.getMessage());
+          }
+        });
+  }
+
+  // 仍持有租约时写入检查点字段
+  private void put(String taskId, String... fieldsAndValues) {
+    String token = owned.get(taskId);
+    List<String> args = new ArrayList<>();
+    args.add(token != null ? token : "");
+    args.add(String.valueOf(TTL.getSeconds()));
+    args.addAll(Arrays.asList(fieldsAndValues));
+    Long written =
+        token == null
+            ? null
+            : redis.execute(
+                FENCED_PUT_SCRIPT,
+                List.of(ownerKey(taskId), checkpointKey(taskId)),
+                args.toArray());
+    if (written == null || written == 0) {
+      owned.remove(taskId);
+      throw new OwnershipLostException(taskId);
+    }
+  }
+}
@@ -109,6 +109,27 @@ public RequestPatternResponse getTaskState(String taskId) {
     return null;
   }
 
+  /**
+   * 直接从 Redis 读取任务状态并刷新缓存
+   *
+   * <p>任务可能在其他副本上执行（或中断后被其他副本接管），本地缓存不再更新，进度查询与续跑需要读取最新状态。
+   */
+  public RequestPatternResponse loadTaskState(String taskId) {
+    try {
+      String json = redis.opsForValue().get("task:pattern:" + taskId);
+      if (json != null) {
+        RequestPatternResponse response =
+            objectMapper.readValue(json, RequestPatternResponse.class);
+        taskCache.put(taskId, response);
+        return response;
+      }
+    } catch (Exception e) {
+      logger.error("Failed to load task state: {}", e.getMessage(), e);
+      return taskCache.get(taskId);
+    }
+    return null;
+  }
+
   /** 更新任务阶段 */
   public void updateTaskPhase(String taskId, TaskPhase phase) {
     updateTaskPhase(taskId, phase, null);
@@ -66,9 +66,10 @@ public void initTemplate() {
    *
    * @param appPort 应用端口
    * @param rules 录制规则
+   * @param recordingId 录制 ID，用于生成 admin tap 的 config_id
    * @return Envoy 配置 YAML 字符串
    */
-  public String render(int appPort, List<RecordingRule> rules) {
+  public String render(int appPort, List<RecordingRule> rules, String recordingId) {
     logger.debug("Rendering Envoy config for app port {} with {} rules", appPort, rules.size());
 
     if (rules == null || rules.isEmpty()) {
@@ -76,7 +77,7 @@ public String render(int appPort, List<RecordingRule> rules) {
     }
 
     // 构建模板上下文
-    Map<String, Object> context = buildTemplateContext(appPort, rules);
+    Map<String, Object> context = buildTemplateContext(appPort, rules, recordingId);
 
     StringWriter writer = new StringWriter();
     template.execute(writer, context);
@@ -87,7 +88,8 @@ public String render(int appPort, List<RecordingRule> rules) {
   }
 
   /** 构建模板渲染上下文 */
-  private Map<String, Object> buildTemplateContext(int appPort, List<RecordingRule> rules) {
+  private Map<String, Object> buildTemplateContext(
+      int appPort, List<RecordingRule> rules, String recordingId) {
     Map<String, Object> context = new HashMap<>();
 
     // 基础配置参数
@@ -97,6 +99,8 @@ private Map<String, Object> buildTemplateContext(int appPort, List<RecordingRule
     context.put("tapDir", recordingConfig.getEnvoy().getTapDir());
     context.put("tapPrefix", "rec-");
     context.put("maxBufferedBytes", recordingConfig.getEnvoy().getMaxBufferedBytes());
+    context.put("streaming", TapStreamReceiver.isStreamingMode(recordingConfig));
+    context.put("tapConfigId", TapStreamReceiver.tapConfigId(recordingId));
 
     // 转换规则为模板友好格式
     List<Map<String, Object>> ruleList =
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pod 与 Deployment 的 informer 缓存
+ *
+ * <p>informer 按命名空间建立：某个命名空间第一次被查询（录制、滚动等待等）时才为它启动 Pod 和 Deployment 的 list-watch， 只缓存有录制的命名空间，不
+ * watch 整个集群。之后该命名空间的查询都读本地缓存，API Server 的负载与活跃录制数量无关。 Pod 按 (namespace, app 标签) 建索引，另有一个只包含 Ready
+ * Pod 的索引。
+ *
+ * <p>informer 未同步完成或被关闭时回退为直接访问 API Server。缓存中的对象是共享的，调用方不得修改。
+ */
+@Component
+public class WorkloadCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(WorkloadCache.class);
+
+  static final String SERVICE_INDEX = "namespace-app";
+
+  static final String READY_SERVICE_INDEX = "namespace-app-ready";
+
+  static final String ENVOY_CONTAINER = "envoy";
+
+  @Autowired private KubernetesClient k8s;
+
+  @Autowired private RecordingSettings settings;
+
+  private volatile boolean stopped = false;
+
+  // key: namespace
+  private final Map<String, NamespaceInformers> namespaces = new ConcurrentHashMap<>();
+
+  private final List<Consumer<Pod>> tappedPodReadyListeners = new CopyOnWriteArrayList<>();
+
+  private final List<Consumer<Deployment>> deploymentListeners = new CopyOnWriteArrayList<>();
+
+  /** 一个命名空间的 Pod 与 Deployment informer */
+  private static final class NamespaceInformers {
+    final SharedIndexInformer<Pod> pods;
+    final SharedIndexInformer<Deployment> deployments;
+
+    NamespaceInformers(SharedIndexInformer<Pod> pods, SharedIndexInformer<Deployment> deployments) {
+      this.pods = pods;
+      this.deployments = deployments;
+    }
+
+    void stop() {
+      pods.stop();
+      deployments.stop();
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!settings.isInformerEnabled()) {
+      logger.info("Workload informers disabled, pod lookups go to the API server");
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    stopped = true;
+    for (NamespaceInformers informers : namespaces.values()) {
+      try {
+        informers.stop();
+      } catch (Exception e) {
+        logger.debug("Failed to stop workload informers: {}", e.getMessage());
+      }
+    }
+    namespaces.clear();
+  }
+
+  /** 命名空间的 informer，第一次访问时启动；不可用时返回 null */
+  private NamespaceInformers informers(String namespace) {
+    if (!settings.isInformerEnabled() || stopped || namespace == null) {
+      return null;
+    }
+    NamespaceInformers informers = namespaces.get(namespace);
+    if (informers != null) {
+      return informers;
+    }
+    try {
+      return namespaces.computeIfAbsent(namespace, this::startInformers);
+    } catch (Exception e) {
+      logger.warn(
+          "Failed to start workload informers in {}, falling back to API calls: {}",
+          namespace,
+          e.getMessage());
+      return null;
+    }
+  }
+
+  private NamespaceInformers startInformers(String namespace) {
+    long resync = settings.getInformerResyncMillis();
+
+    SharedIndexInformer<Pod> podInformer =
+        k8s.pods().inNamespace(namespace).runnableInformer(resync);
+    podInformer.addIndexers(
+        Map.of(
+            SERVICE_INDEX,
+            WorkloadCache::serviceKeys,
+            READY_SERVICE_INDEX,
+            pod -> isPodReady(pod) ? serviceKeys(pod) : Collections.emptyList()));
+    podInformer.addEventHandler(
+        new ResourceEventHandler<Pod>() {
+          @Override
+          public void onAdd(Pod pod) {
+            // 新建的 Pod 此时尚未就绪；初始同步中已就绪的 Pod 由周期采集覆盖，避免启动时集中触发
+          }
+
+          @Override
+          public void onUpdate(Pod oldPod, Pod newPod) {
+            if (!isTappedAndReady(oldPod) && isTappedAndReady(newPod)) {
+              notifyListeners(tappedPodReadyListeners, newPod);
+            }
+          }
+
+          @Override
+          public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {}
+        });
+
+    SharedIndexInformer<Deployment> deploymentInformer =
+        k8s.apps().deployments().inNamespace(namespace).runnableInformer(resync);
+    deploymentInformer.addEventHandler(
+        new ResourceEventHandler<Deployment>() {
+          @Override
+          public void onAdd(Deployment deployment) {
+            notifyListeners(deploymentListeners, deployment);
+          }
+
+          @Override
+          public void onUpdate(Deployment oldDeployment, Deployment newDeployment) {
+            notifyListeners(deploymentListeners, newDeployment);
+          }
+
+          @Override
+          public void onDelete(Deployment deployment, boolean deletedFinalStateUnknown) {}
+        });
+
+    // 不阻塞调用方，同步完成前的查询走回退路径
+    podInformer.start();
+    deploymentInformer.start();
+    logger.info("Workload informers started in namespace {} (resync {}ms)", namespace, resync);
+    return new NamespaceInformers(podInformer, deploymentInformer);
+  }
+
+  /** 服务（app 标签）对应的全部 Pod */
+  public List<Pod> getPods(String namespace, String serviceName) {
+    NamespaceInformers informers = informers(namespace);
+    if (informers != null && informers.pods.hasSynced()) {
+      return informers.pods.getIndexer().byIndex(SERVICE_INDEX, serviceKey(namespace, serviceName));
+    }
+    return k8s.pods().inNamespace(namespace).withLabel("app", serviceName).list().getItems();
+  }
+
+  /** 服务（app 标签）对应的 Ready Pod */
+  public List<Pod> getReadyPods(String namespace, String serviceName) {
+    NamespaceInformers informers = informers(namespace);
+    if (informers != null && informers.pods.hasSynced()) {
+      return informers
+          .pods
+          .getIndexer()
+          .byIndex(READY_SERVICE_INDEX, serviceKey(namespace, serviceName));
+    }
+    return getPods(namespace, serviceName).stream()
+        .filter(WorkloadCache::isPodReady)
+        .collect(Collectors.toList());
+  }
+
+  /** 读取 Deployment，不存在时返回 null */
+  public Deployment getDeployment(String namespace, String name) {
+    NamespaceInformers informers = informers(namespace);
+    if (informers != null && informers.deployments.hasSynced()) {
+      return informers.deployments.getStore().getByKey(namespace + "/" + name);
+    }
+    return k8s.apps().deployments().inNamespace(namespace).withName(name).get();
+  }
+
+  /** 命名空间的 Deployment informer 是否可用，不可用时调用方需要自行 watch */
+  public boolean isDeploymentCacheReady(String namespace) {
+    NamespaceInformers informers = informers(namespace);
+    return informers != null && informers.deployments.hasSynced();
+  }
+
+  /**
+   * 注册带 Envoy sidecar 的 Pod 变为 Ready 时的回调
+   *
+   * <p>回调在 informer 的事件线程中执行，耗时操作需自行转到其他线程。
+   */
+  public void addTappedPodReadyListener(Consumer<Pod> listener) {
+    tappedPodReadyListeners.add(listener);
+  }
+
+  /**
+   * 注册 Deployment 新增与更新事件的回调，在 informer 的事件线程中执行
+   *
+   * @return 用于注销回调的句柄
+   */
+  public Runnable addDeploymentListener(Consumer<Deployment> listener) {
+    deploymentListeners.add(listener);
+    return () -> deploymentListeners.remove(listener);
+  }
+
+  /** Pod 是否处于 Running 且 Ready 条件为 True */
+  public static boolean isPodReady(Pod pod) {
+    if (pod == null || pod.getStatus() == null) {
+      return false;
+    }
+    if (!"Running".equals(pod.getStatus().getPhase()) || pod.getStatus().getConditions() == null) {
+      return false;
+    }
+    for (PodCondition condition : pod.getStatus().getConditions()) {
+      if ("Ready".equals(condition.getType())) {
+        return "True".equals(condition.getStatus());
+      }
+    }
+    return false;
+  }
+
+  static String serviceKey(String namespace, String serviceName) {
+    return namespace + "/" + serviceName;
+  }
+
+  private static List<String> serviceKeys(Pod pod) {
+    Map<String, String> labels = pod.getMetadata().getLabels();
+    String app = labels != null ? labels.get("app") : null;
+    if (app == null) {
+      return Collections.emptyList();
+    }
+    return List.of(serviceKey(pod.getMetadata().getNamespace(), app));
+  }
+
+  private static boolean isTappedAndReady(Pod pod) {
+    return isPodReady(pod)
+        && pod.getSpec() != null
+        && pod.getSpec().getContainers().stream()
+            .anyMatch(container -> ENVOY_CONTAINER.equals(container.getName()));
+  }
+
+  private static <T> void notifyListeners(List<Consumer<T>> listeners, T resource) {
+    for (Consumer<T> listener : listeners) {
+      try {
+        listener.accept(resource);
+      } catch (Exception e) {
+        logger.warn("Workload listener failed: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * 内嵌 xDS 控制面（REST-JSON 传输）
+ *
+ * <p>启用后 sidecar 的 bootstrap 只保留 admin 与静态 clusters，listener 通过 LDS、路由通过 RDS 从本服务轮询获取 （{@code POST
+ * /v3/discovery:listeners|routes}）。规则变更时只需更新节点快照，Envoy 在下一个轮询周期内应用， 路由变更不影响 listener，listener 变更由
+ * Envoy 平滑排空，均不需要重启 Pod。
+ *
+ * <p>快照由各渲染器生成的完整静态配置转换而来，按资源类型计算版本号。完整配置写入 Redis 哈希 {@code xds:node:<节点>} （字段 rev 为配置摘要，config
+ * 为配置本身），所有副本共享；各副本内存中的快照只是缓存，每次发现请求先读取共享的 rev， 与缓存不一致时重新加载，因此任一副本发布或删除后，其他副本在下一次轮询即可生效。完整配置同时写入
+ * ConfigMap 的 {@link #RESOURCES_KEY}，Redis 中没有该节点时从 ConfigMap 恢复；节点删除后留下一段时间的空 rev 作为墓碑，避免其他副本
+ * 从尚未删除的 ConfigMap 恢复。未知节点返回 503，Envoy 会保留已有配置。
+ */
+@Component
+public class XdsControlPlane {
+
+  private static final Logger logger = LoggerFactory.getLogger(XdsControlPlane.class);
+
+  public static final String LISTENER_TYPE =
+      "type.googleapis.com/envoy.config.listener.v3.Listener";
+
+  public static final String ROUTE_TYPE =
+      "type.googleapis.com/envoy.config.route.v3.RouteConfiguration";
+
+  /** ConfigMap 中保存完整静态配置的 key，存在即表示该 sidecar 通过 xDS 接入 */
+  public static final String RESOURCES_KEY = "xds-resources.yaml";
+
+  static final String XDS_CLUSTER = "xds_control_plane";
+
+  private static final String HCM_FILTER = "envoy.filters.network.http_connection_manager";
+
+  private static final String REV_FIELD = "rev";
+  private static final String CONFIG_FIELD = "config";
+
+  private static final Duration TOMBSTONE_TTL = Duration.ofHours(1);
+
+  @Autowired private KubernetesClient k8s;
+
+  @Autowired private RecordingSettings settings;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private StringRedisTemplate redis;
+
+  // 本副本的快照缓存，key: namespace/configMapName
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  /** 节点的一组资源及其版本，发布后不再修改 */
+  private static final class Snapshot {
+    final String rev;
+    final Map<String, List<Map<String, Object>>> resources;
+    final Map<String, String> versions;
+
+    Snapshot(
+        String rev,
+        Map<String, List<Map<String, Object>>> resources,
+        Map<String, String> versions) {
+      this.rev = rev;
+      this.resources = resources;
+      this.versions = versions;
+    }
+  }
+
+  static String nodeKey(String node) {
+    return "xds:node:" + node;
+  }
+
+  public boolean isEnabled() {
+    return settings.isXdsEnabled() && StringUtils.hasText(settings.getXdsHost());
+  }
+
+  public static String nodeId(String namespace, String configMapName) {
+    return namespace + "/" + configMapName;
+  }
+
+  /**
+   * 由完整静态配置生成 bootstrap：保留 admin、clusters 等静态部分，listener 改为 LDS 获取
+   *
+   * <p>同一份静态部分总是生成相同的 bootstrap，调用方可据此判断变更是否必须重启 sidecar。
+   */
+  @SuppressWarnings("unchecked")
+  public String renderBootstrap(String namespace, String configMapName, String envoyYaml) {
+    Map<String, Object> config = parse(envoyYaml);
+    Map<String, Object> bootstrap = new LinkedHashMap<>();
+
+    Map<String, Object> node = new LinkedHashMap<>();
+    node.put("id", nodeId(namespace, configMapName));
+    node.put("cluster", configMapName);
+    bootstrap.put("node", node);
+
+    Map<String, Object> staticResources = new LinkedHashMap<>();
+    Object existing = config.get("static_resources");
+    if (existing instanceof Map) {
+      staticResources.putAll((Map<String, Object>) existing);
+    }
+    staticResources.remove("listeners");
+    List<Object> clusters = new ArrayList<>();
+    Object existingClusters = staticResources.get("clusters");
+    if (existingClusters instanceof Collection) {
+      clusters.addAll((Collection<Object>) existingClusters);
+    }
+    clusters.add(controlPlaneCluster());
+    staticResources.put("clusters", clusters);
+
+    for (Map.Entry<String, Object> entry : config.entrySet()) {
+      if (!"static_resources".equals(entry.getKey())) {
+        bootstrap.put(entry.getKey(), entry.getValue());
+      }
+    }
+    Map<String, Object> dynamicResources = new LinkedHashMap<>();
+    dynamicResources.put("lds_config", configSource());
+    bootstrap.put("dynamic_resources", dynamicResources);
+    bootstrap.put("static_resources", staticResources);
+
+    DumperOptions options = new DumperOptions();
+    options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+    return new Yaml(options).dump(bootstrap);
+  }
+
+  /** 用完整静态配置更新节点快照，只有内容变化的资源类型会得到新版本 */
+  public void publish(String namespace, String configMapName, String envoyYaml) {
+    String node = nodeId(namespace, configMapName);
+    Snapshot snapshot = toSnapshot(envoyYaml);
+    String key = nodeKey(node);
+    redis.opsForHash().putAll(key, Map.of(REV_FIELD, snapshot.rev, CONFIG_FIELD, envoyYaml));
+    redis.persist(key);
+    snapshots.put(node, snapshot);
+    logger.info(
+        "Published xDS snapshot for {}: listeners={}@{}, routes={}@{}",
+        node,
+        snapshot.resources.get(LISTENER_TYPE).size(),
+        snapshot.versions.get(LISTENER_TYPE),
+        snapshot.resources.get(ROUTE_TYPE).size(),
+        snapshot.versions.get(ROUTE_TYPE));
+  }
+
+  /** 删除节点，所有副本在下一次轮询时返回 503 */
+  public void remove(String namespace, String configMapName) {
+    String node = nodeId(namespace, configMapName);
+    String key = nodeKey(node);
+    redis.delete(key);
+    redis.opsForHash().put(key, REV_FIELD, "");
+    redis.expire(key, TOMBSTONE_TTL);
+    snapshots.remove(node);
+  }
+
+  /**
+   * 处理一次 REST xDS 请求
+   *
+   * @param typeUrl 资源类型
+   * @param request DiscoveryRequest 的 JSON
+   * @return DiscoveryResponse 的 JSON，节点未知时返回 null
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> discover(String typeUrl, Map<String, Object> request) {
+    Object nodeObj = request != null ? request.get("node") : null;
+    Object id = nodeObj instanceof Map ? ((Map<String, Object>) nodeObj).get("id") : null;
+    if (id == null) {
+      return null;
+    }
+    Snapshot snapshot = resolve(String.valueOf(id));
+    if (snapshot == null) {
+      return null;
+    }
+
+    List<Map<String, Object>> resources =
+        snapshot.resources.getOrDefault(typeUrl, Collections.emptyList());
+    Object names = request.get("resource_names");
+    if (names instanceof Collection && !((Collection<?>) names).isEmpty()) {
+      Set<Object> wanted = new HashSet<>((Collection<?>) names);
+      List<Map<String, Object>> filtered = new ArrayList<>();
+      for (Map<String, Object> resource : resources) {
+        if (wanted.contains(resource.get("name"))) {
+          filtered.add(resource);
+        }
+      }
+      resources = filtered;
+    }
+
+    Map<String, Object> response = new LinkedHashMap<>();
+    response.put("version_info", snapshot.versions.getOrDefault(typeUrl, ""));
+    response.put("resources", resources);
+    response.put("type_url", typeUrl);
+    return response;
+  }
+
+  /** 按共享的 rev 校验缓存，不一致时从 Redis 重新加载，Redis 中没有该节点时从 ConfigMap 恢复 */
+  private Snapshot resolve(String node) {
+    String key = nodeKey(node);
+    Object rev = redis.opsForHash().get(key, REV_FIELD);
+    if (rev == null) {
+      return restore(node);
+    }
+    if (rev.toString().isEmpty()) {
+      // 已删除
+      snapshots.remove(node);
+      return null;
+    }
+    Snapshot cached = snapshots.get(node);
+    if (cached != null && cached.rev.equals(rev)) {
+      return cached;
+    }
+    Object yaml = redis.opsForHash().get(key, CONFIG_FIELD);
+    if (yaml == null) {
+      return null;
+    }
+    Snapshot snapshot = toSnapshot(yaml.toString());
+    snapshots.put(node, snapshot);
+    logger.info("Loaded xDS snapshot {} for {} published by another replica", snapshot.rev, node);
+    return snapshot;
+  }
+
+  /** Redis 中没有该节点（如 Redis 数据丢失）时从 ConfigMap 恢复，并写回 Redis 供其他副本使用 */
+  private Snapshot restore(String node) {
+    int slash = node.indexOf('/');
+    if (slash <= 0) {
+      return null;
+    }
+    try {
+      ConfigMap cm =
+          k8s.configMaps()
+              .inNamespace(node.substring(0, slash))
+              .withName(node.substring(slash + 1))
+              .get();
+      String yaml = cm != null && cm.getData() != null ? cm.getData().get(RESOURCES_KEY) : null;
+      if (yaml == null) {
+        return null;
+      }
+      logger.info("Restored xDS snapshot for {} from ConfigMap", node);
+      Snapshot snapshot = toSnapshot(yaml);
+      // 只在仍不存在时写回，不覆盖并发的发布或删除
+      String key = nodeKey(node);
+      if (Boolean.TRUE.equals(redis.opsForHash().putIfAbsent(key, REV_FIELD, snapshot.rev))) {
+        redis.opsForHash().put(key, CONFIG_FIELD, yaml);
+      }
+      snapshots.put(node, snapshot);
+      return snapshot;
+    } catch (Exception e) {
+      logger.warn("Failed to restore xDS snapshot for {}: {}", node, e.getMessage());
+      return null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Snapshot toSnapshot(String envoyYaml) {
+    Map<String, Object> config = parse(envoyYaml);
+    List<Map<String, Object>> listeners = new ArrayList<>();
+    List<Map<String, Object>> routes = new ArrayList<>();
+
+    Object staticResources = config.get("static_resources");
+    Object listenerList =
+        staticResources instanceof Map
+            ? ((Map<String, Object>) staticResources).get("listeners")
+            : null;
+    if (listenerList instanceof Collection) {
+      for (Object listener : (Collection<Object>) listenerList) {
+        if (listener instanceof Map) {
+          Map<String, Object> resource = new LinkedHashMap<>();
+          resource.put("@type", LISTENER_TYPE);
+          resource.putAll((Map<String, Object>) listener);
+          extractRoutes(resource, routes);
+          listeners.add(resource);
+        }
+      }
+    }
+
+    Map<String, List<Map<String, Object>>> resources = new LinkedHashMap<>();
+    resources.put(LISTENER_TYPE, listeners);
+    resources.put(ROUTE_TYPE, routes);
+    Map<String, String> versions = new LinkedHashMap<>();
+    versions.put(LISTENER_TYPE, version(listeners));
+    versions.put(ROUTE_TYPE, version(routes));
+    return new Snapshot(digest(envoyYaml.getBytes(StandardCharsets.UTF_8)), resources, versions);
+  }
+
+  /** 把 HTTP 连接管理器中的内联 route_config 拆为 RDS 资源 */
+  @SuppressWarnings("unchecked")
+  private void extractRoutes(Map<String, Object> listener, List<Map<String, Object>> routes) {
+    Object chains = listener.get("filter_chains");
+    if (!(chains instanceof Collection)) {
+      return;
+    }
+    for (Object chain : (Collection<Object>) chains) {
+      Object filters = chain instanceof Map ? ((Map<String, Object>) chain).get("filters") : null;
+      if (!(filters instanceof Collection)) {
+        continue;
+      }
+      for (Object filter : (Collection<Object>) filters) {
+        if (!(filter instanceof Map)) {
+          continue;
+        }
+        Map<String, Object> filterMap = (Map<String, Object>) filter;
+        if (!HCM_FILTER.equals(filterMap.get("name"))) {
+          continue;
+        }
+        Object typed = filterMap.get("typed_config");
+        if (!(typed instanceof Map)) {
+          continue;
+        }
+        Map<String, Object> hcm = (Map<String, Object>) typed;
+        Object inline = hcm.remove("route_config");
+        if (!(inline instanceof Map)) {
+          continue;
+        }
+        Map<String, Object> route = new LinkedHashMap<>();
+        route.put("@type", ROUTE_TYPE);
+        route.putAll((Map<String, Object>) inline);
+        // 路由名在节点内必须唯一
+        String name = String.valueOf(route.getOrDefault("name", "route"));
+        if (routes.stream().anyMatch(r -> name.equals(r.get("name")))) {
+          route.put("name", listener.get("name") + "-" + name + "-" + routes.size());
+        } else {
+          route.put("name", name);
+        }
+        routes.add(route);
+
+        Map<String, Object> rds = new LinkedHashMap<>();
+        rds.put("route_config_name", route.get("name"));
+        rds.put("config_source", configSource());
+        hcm.put("rds", rds);
+      }
+    }
+  }
+
+  private Map<String, Object> configSource() {
+    Map<String, Object> api = new LinkedHashMap<>();
+    api.put("api_type", "REST");
+    api.put("transport_api_version", "V3");
+    api.put("cluster_names", List.of(XDS_CLUSTER));
+    api.put("refresh_delay", seconds(settings.getXdsRefreshMillis()));
+    api.put("request_timeout", seconds(Math.max(1000, settings.getXdsRefreshMillis())));
+    Map<String, Object> source = new LinkedHashMap<>();
+    source.put("resource_api_version", "V3");
+    source.put("api_config_source", api);
+    return source;
+  }
+
+  private Map<String, Object> controlPlaneCluster() {
+    Map<String, Object> socketAddress = new LinkedHashMap<>();
+    socketAddress.put("address", settings.getXdsHost());
+    socketAddress.put("port_value", settings.getXdsPort());
+    Map<String, Object> endpoint =
+        Map.of("endpoint", Map.of("address", Map.of("socket_address", socketAddress)));
+    Map<String, Object> loadAssignment = new LinkedHashMap<>();
+    loadAssignment.put("cluster_name", XDS_CLUSTER);
+    loadAssignment.put("endpoints", List.of(Map.of("lb_endpoints", List.of(endpoint))));
+
+    Map<String, Object> cluster = new LinkedHashMap<>();
+    cluster.put("name", XDS_CLUSTER);
+    cluster.put("connect_timeout", "1s");
+    cluster.put("type", "STRICT_DNS");
+    cluster.put("load_assignment", loadAssignment);
+    return cluster;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> parse(String envoyYaml) {
+    Object parsed = new Yaml().load(envoyYaml);
+    if (!(parsed instanceof Map)) {
+      throw new RuntimeException("Envoy config is not a YAML mapping");
+    }
+    return (Map<String, Object>) parsed;
+  }
+
+  private String version(List<Map<String, Object>> resources) {
+    try {
+      return digest(objectMapper.writeValueAsBytes(resources));
+    } catch (Exception e) {
+      return Integer.toHexString(resources.toString().hashCode());
+    }
+  }
+
+  private static String digest(byte[] data) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 8; i++) {
+        sb.append(String.format("%02x", digest[i]));
+      }
+      return sb.toString();
+    } catch (Exception e) {
+      throw new RuntimeException("SHA-256 not available", e);
+    }
+  }
+
+  private static String seconds(long millis) {
+    return String.format("%d.%03ds", millis / 1000, millis % 1000);
+  }
+}
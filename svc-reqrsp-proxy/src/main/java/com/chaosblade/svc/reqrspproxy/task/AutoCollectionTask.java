@@ -18,8 +18,11 @@
 
 import com.chaosblade.svc.reqrspproxy.config.RecordingConfig;
 import com.chaosblade.svc.reqrspproxy.entity.RecordingState;
+import com.chaosblade.svc.reqrspproxy.service.CollectionShardManager;
 import com.chaosblade.svc.reqrspproxy.service.RecordingStateService;
 import com.chaosblade.svc.reqrspproxy.service.TapCollector;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,25 +45,32 @@ public class AutoCollectionTask {
 
   @Autowired private RecordingConfig recordingConfig;
 
-  /** 定期采集运行中的录制数据 */
+  @Autowired private CollectionShardManager shardManager;
+
+  /**
+   * 定期采集运行中的录制数据
+   *
+   * <p>每个副本都会执行，但只采集分片归属本副本的 (录制, Pod)，见 {@link CollectionShardManager}。
+   */
   @Scheduled(fixedDelayString = "#{${recording.auto-collect-interval-sec:30} * 1000}")
   public void autoCollect() {
     logger.debug("Starting auto collection task");
 
     try {
-      // 查找所有运行中的录制
-      Set<String> stateKeys = redis.keys("rec:*:state");
-      if (stateKeys == null || stateKeys.isEmpty()) {
+      // 从录制索引读取，不再扫描键空间
+      List<String> recordingIds = stateService.listRecordingIds();
+      Set<String> activeIds = new HashSet<>();
+      if (recordingIds.isEmpty()) {
         logger.debug("No active recordings found");
+        shardManager.retainRecordings(activeIds);
         return;
       }
 
       int collectedCount = 0;
       int cleanedCount = 0;
 
-      for (String stateKey : stateKeys) {
-        String recordingId = extractRecordingId(stateKey);
-        if (recordingId == null) continue;
+      for (String recordingId : recordingIds) {
+        String stateKey = "rec:" + recordingId + ":state";
 
         // 如果状态键存在但状态已被其他流程删除，跳过并清理孤儿键
         if (!stateService.exists(recordingId)) {
@@ -75,6 +85,7 @@ public void autoCollect() {
           RecordingState state = stateService.loadState(recordingId);
 
           if (state.getStatus() == RecordingState.RecordingStatus.RECORDING) {
+            activeIds.add(recordingId);
             // 冷启动缓冲，避免 Envoy/Pod 未就绪
             java.time.LocalDateTime startedAt = state.getStartedAt();
             if (startedAt != null) {
@@ -90,7 +101,7 @@ public void autoCollect() {
             }
 
             tapCollector
-                .collectOnce(recordingId, state)
+                .collectOwned(recordingId, state)
                 .thenAccept(
                     count -> {
                       if (count > 0) {
@@ -112,6 +123,8 @@ public void autoCollect() {
               || state.getStatus() == RecordingState.RecordingStatus.ERROR) {
             logger.info(
                 "Cleaning up finished recording {}: status={}", recordingId, state.getStatus());
+            tapCollector.stopStreaming(recordingId);
+            shardManager.releaseRecording(recordingId);
             stateService.deleteState(recordingId);
             cleanedCount++;
           }
@@ -126,6 +139,9 @@ public void autoCollect() {
         }
       }
 
+      // 其他副本已清理的录制不会再出现在索引中，释放本副本仍持有的单元
+      shardManager.retainRecordings(activeIds);
+
       if (collectedCount > 0 || cleanedCount > 0) {
         logger.info(
             "Auto collection task completed: collected from {} recordings, cleaned up {} finished"
@@ -138,13 +154,4 @@ public void autoCollect() {
       logger.error("Auto collection task failed: {}", e.getMessage(), e);
     }
   }
-
-  /** 从状态键中提取录制 ID */
-  private String extractRecordingId(String stateKey) {
-    // 格式: rec:{recordingId}:state
-    if (stateKey.startsWith("rec:") && stateKey.endsWith(":state")) {
-      return stateKey.substring(4, stateKey.length() - 6);
-    }
-    return null;
-  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.RecordedEntry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** EntrySampler 测试 */
+class EntrySamplerTest {
+
+  private static final String RECORDING = "rec-1";
+
+  private EntrySampler sampler;
+  private HashOperations<String, Object, Object> hash;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    RecordingSettings settings = mock(RecordingSettings.class);
+    when(settings.isSamplingEnabled()).thenReturn(true);
+    when(settings.getSamplingExemplarsPerFingerprint()).thenReturn(2);
+    when(settings.getSamplingExemplarsPerEndpoint()).thenReturn(2);
+    when(settings.getSamplingDefaultRate()).thenReturn(0.0);
+    StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    hash = mock(HashOperations.class);
+    doReturn(hash).when(redis).opsForHash();
+
+    sampler = new EntrySampler();
+    ReflectionTestUtils.setField(sampler, "settings", settings);
+    ReflectionTestUtils.setField(sampler, "redis", redis);
+  }
+
+  @Test
+  void testFirstOccurrenceAdmittedAfterEndpointQuotaUsed() {
+    assertEquals(EntrySampler.Admission.RESERVED, sampler.admit(entry(200, "a")));
+    assertEquals(EntrySampler.Admission.RESERVED, sampler.admit(entry(200, "a")));
+    assertEquals(EntrySampler.Admission.DROPPED, sampler.admit(entry(200, "a")));
+
+    // 端点配额已满，新的响应形态仍保留第一条
+    assertEquals(EntrySampler.Admission.RESERVED, sampler.admit(entry(500, "a")));
+    assertEquals(EntrySampler.Admission.DROPPED, sampler.admit(entry(500, "a")));
+  }
+
+  @Test
+  void testReleasedQuotaCanBeReused() {
+    RecordedEntry first = entry(200, "a");
+    sampler.admit(first);
+    sampler.admit(entry(200, "a"));
+    assertEquals(EntrySampler.Admission.DROPPED, sampler.admit(entry(200, "a")));
+
+    // 批次写入失败后归还
+    sampler.release(RECORDING, List.of(first.getFingerprint()));
+
+    assertEquals(EntrySampler.Admission.RESERVED, sampler.admit(entry(200, "a")));
+  }
+
+  @Test
+  void testQuotaUsedByOtherReplicasIsShared() {
+    String fingerprint = "GET /api/orders/{id} 200 -";
+    when(hash.entries(TapEntryBatch.keptKey(RECORDING)))
+        .thenReturn(
+            Map.of("fp:" + fingerprint, "1", "ep:GET /api/orders/{id}", "2", "ep:junk", "x"));
+
+    sampler.refresh(RECORDING);
+
+    RecordedEntry entry = entry(200, null);
+    assertEquals(EntrySampler.Admission.DROPPED, sampler.admit(entry));
+    assertEquals(fingerprint, entry.getFingerprint());
+  }
+
+  @Test
+  void testQuotaFieldsUseEndpointOfFingerprint() {
+    assertEquals(
+        List.of("fp:POST /api/a 201 abc", "ep:POST /api/a"),
+        EntrySampler.quotaFields("POST /api/a 201 abc"));
+  }
+
+  private static RecordedEntry entry(int status, String body) {
+    RecordedEntry entry = new RecordedEntry();
+    entry.setRecordingId(RECORDING);
+    entry.setMethod("GET");
+    entry.setPath("/api/orders/42?x=1");
+    entry.setStatus(status);
+    entry.setRequestBody(body);
+    return entry;
+  }
+}
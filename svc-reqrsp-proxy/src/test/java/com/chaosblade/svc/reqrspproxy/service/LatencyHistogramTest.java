@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** LatencyHistogram 测试 */
+class LatencyHistogramTest {
+
+  @Test
+  void testEmptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMean());
+    assertEquals(0, histogram.percentile(0.99));
+    assertEquals(0, histogram.getMax());
+  }
+
+  @Test
+  void testPercentileReturnsBucketUpperBound() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 90; i++) {
+      histogram.record(3);
+    }
+    for (int i = 0; i < 10; i++) {
+      histogram.record(150);
+    }
+
+    assertEquals(100, histogram.getCount());
+    assertEquals(5, histogram.percentile(0.50));
+    assertEquals(5, histogram.percentile(0.90));
+    assertEquals(150, histogram.percentile(0.99));
+    assertEquals(150, histogram.getMax());
+    assertEquals(17.7, histogram.getMean(), 1e-9);
+  }
+
+  @Test
+  void testPercentileCappedByMax() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(12);
+
+    // 所在桶上界为 20，但不会超过实际最大值
+    assertEquals(12, histogram.percentile(0.50));
+  }
+
+  @Test
+  void testOverflowAndNegativeValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(300_000);
+
+    Map<String, Long> buckets = histogram.buckets();
+    assertEquals(1L, buckets.get("<=1"));
+    assertEquals(1L, buckets.get(">120000"));
+    assertEquals(300_000, histogram.percentile(1.0));
+    assertEquals(17, buckets.size());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/** PathTemplateClusterer 测试 */
+class PathTemplateClustererTest {
+
+  private final PathTemplateClusterer<String> clusterer = new PathTemplateClusterer<>(20, 3);
+
+  @Test
+  void testWildcardChildrenKeyedByShape() {
+    add("/orders/123");
+    add("/orders/550e8400-e29b-41d4-a716-446655440000");
+    add("/orders/2024-01-31");
+    add("/orders/456");
+
+    Map<String, Long> counts = counts();
+    assertEquals(3, counts.size(), counts.toString());
+    assertEquals(2L, counts.get("/orders/{id}"));
+    assertEquals(1L, counts.get("/orders/{uuid}"));
+    assertEquals(1L, counts.get("/orders/{date}"));
+  }
+
+  @Test
+  void testAlikeSiblingsCollapse() {
+    for (int i = 0; i < 25; i++) {
+      add("/users/user" + (char) ('a' + i) + "/profile");
+    }
+
+    Map<String, Long> counts = counts();
+    assertEquals(Map.of("/users/{param}/profile", 25L), counts);
+  }
+
+  @Test
+  void testDistinctEndpointsStayLiteral() {
+    for (int i = 0; i < 25; i++) {
+      add("/api/resource" + (char) ('a' + i) + "/action" + (char) ('a' + i));
+    }
+
+    Map<String, Long> counts = counts();
+    assertEquals(25, counts.size());
+    assertTrue(counts.keySet().stream().noneMatch(t -> t.contains("{param}")), counts.toString());
+  }
+
+  @Test
+  void testLaterAlikeSiblingJoinsCollapsedGroup() {
+    for (int i = 0; i < 21; i++) {
+      add("/users/user" + (char) ('a' + i) + "/profile");
+    }
+    add("/users/admin/settings");
+    add("/users/newcomer/profile");
+
+    Map<String, Long> counts = counts();
+    assertEquals(22L, counts.get("/users/{param}/profile"));
+    assertEquals(1L, counts.get("/users/admin/settings"));
+    assertEquals(2, counts.size(), counts.toString());
+  }
+
+  @Test
+  void testTooManyLiteralsCollapseRegardlessOfSubtree() {
+    PathTemplateClusterer<String> small = new PathTemplateClusterer<>(2, 3);
+    int limit = 2 * PathTemplateClusterer.LITERAL_LIMIT_FACTOR;
+    for (int i = 0; i <= limit; i++) {
+      small.add("GET", "/x/a" + (char) ('a' + i) + "/b" + (char) ('a' + i), "200", "s" + i);
+    }
+
+    List<PathTemplateClusterer.Cluster<String>> clusters = small.clusters();
+    assertEquals(1, clusters.size());
+    assertEquals("/x/{param}/{param}", clusters.get(0).getTemplate());
+    assertEquals(limit + 1, clusters.get(0).getCount());
+    assertEquals(3, clusters.get(0).getSamples().size());
+  }
+
+  private void add(String path) {
+    clusterer.add("GET", "http://svc" + path, "200", path);
+  }
+
+  /** 去掉 host 前缀的模板 -> 请求数 */
+  private Map<String, Long> counts() {
+    return clusterer.clusters().stream()
+        .collect(
+            Collectors.toMap(
+                c -> c.getTemplate().substring("http://svc".length()),
+                PathTemplateClusterer.Cluster::getCount));
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.dto.RequestPatternRequest;
+import com.chaosblade.svc.reqrspproxy.dto.RequestPatternResponse;
+import com.chaosblade.svc.reqrspproxy.dto.ServiceRequestPattern;
+import com.chaosblade.svc.reqrspproxy.entity.HttpReqDef;
+import com.chaosblade.svc.reqrspproxy.entity.RequestPattern;
+import com.chaosblade.svc.reqrspproxy.repository.HttpReqDefRepository;
+import com.chaosblade.svc.reqrspproxy.repository.RequestPatternRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/** 请求模式流程按检查点续跑的测试 */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RequestPatternFlowResumeTest {
+
+  private static final String TASK_ID = "task_1";
+
+  @Mock private HttpReqDefRepository httpReqDefRepository;
+  @Mock private RecordingService recordingService;
+  @Mock private HttpRequestExecutor httpRequestExecutor;
+  @Mock private RequestTrigger requestTrigger;
+  @Mock private ExpiryScheduler expiryScheduler;
+  @Mock private RequestPatternAnalyzer requestPatternAnalyzer;
+  @Mock private TaskStateManager taskStateManager;
+  @Mock private TaskCheckpointStore checkpointStore;
+  @Mock private TapCollector tapCollector;
+  @Mock private RecordingSettings recordingSettings;
+  @Mock private StringRedisTemplate redis;
+  @Mock private K8sTapManager k8sTapManager;
+  @Mock private RolloutWaiter rolloutWaiter;
+  @Mock private RecordingStateService recordingStateService;
+  @Mock private ObjectMapper objectMapper;
+  @Mock private RequestPatternRepository requestPatternRepository;
+
+  @InjectMocks private RequestPatternService service;
+
+  private RequestPatternRequest request;
+  private RequestPatternResponse response;
+
+  @BeforeEach
+  void setUp() {
+    request = new RequestPatternRequest(1L, "ns", List.of());
+    request.setExecutionId(7L);
+    request.setAutoTriggerRequest(false);
+    response = new RequestPatternResponse(TASK_ID, "ANALYZING_PATTERNS", "");
+    when(httpReqDefRepository.findById(1L)).thenReturn(Optional.of(new HttpReqDef()));
+    when(checkpointStore.loadRecordingIds(TASK_ID)).thenReturn(List.of("rec-1"));
+  }
+
+  @Test
+  void testResumeAfterAnalysisSkipsEarlierPhases() {
+    when(checkpointStore.getCheckpoint(TASK_ID))
+        .thenReturn(TaskCheckpointStore.Checkpoint.ANALYZED);
+    ServiceRequestPattern pattern =
+        new ServiceRequestPattern(
+            "svc",
+            List.of(
+                new ServiceRequestPattern.RequestMode("GET", "/api/a"),
+                new ServiceRequestPattern.RequestMode("POST", "/api/b")));
+    when(checkpointStore.loadPatterns(TASK_ID)).thenReturn(List.of(pattern));
+    // 上一次中断前已写入第一行
+    when(requestPatternRepository.findByExecutionId(7L))
+        .thenReturn(
+            List.of(new RequestPattern(7L, "svc", "GET", "/api/a", null, null, null, null, 200)));
+
+    service.executeRequestPatternFlow(request, response);
+
+    verify(recordingService, never()).start(any());
+    verify(recordingService, never()).getEntries(anyString(), anyInt(), anyInt());
+    verify(requestPatternAnalyzer, never()).analyzeRequestPatterns(any(), any());
+    verify(requestPatternRepository, times(1)).save(any());
+    verify(checkpointStore).mark(TASK_ID, TaskCheckpointStore.Checkpoint.PERSISTED);
+    verify(recordingService).stop("rec-1");
+    verify(taskStateManager).setTaskCompleted(eq(TASK_ID), same(response));
+    verify(checkpointStore).finish(TASK_ID);
+  }
+
+  @Test
+  void testResumeAfterCollectionRereadsRecordedRange() {
+    when(checkpointStore.getCheckpoint(TASK_ID))
+        .thenReturn(TaskCheckpointStore.Checkpoint.COLLECTED);
+    when(recordingStateService.exists("rec-1")).thenReturn(true);
+    when(checkpointStore.loadCollected(TASK_ID)).thenReturn(Map.of("rec-1", 3));
+    when(recordingService.getEntries("rec-1", 0, 3)).thenReturn(List.of());
+    when(requestPatternAnalyzer.analyzeRequestPatterns(any(), any())).thenReturn(List.of());
+
+    service.executeRequestPatternFlow(request, response);
+
+    verify(recordingService, never()).start(any());
+    verify(recordingService).getEntries("rec-1", 0, 3);
+    verify(checkpointStore).savePatterns(TASK_ID, List.of());
+    verify(taskStateManager).setTaskCompleted(eq(TASK_ID), same(response));
+  }
+
+  @Test
+  void testLostOwnershipAbandonsFlowWithoutCleanup() {
+    when(checkpointStore.getCheckpoint(TASK_ID))
+        .thenReturn(TaskCheckpointStore.Checkpoint.TRIGGERED);
+    when(recordingStateService.exists("rec-1")).thenReturn(true);
+    // 第一次确认通过，进入收集阶段前发现已被接管
+    doNothing()
+        .doThrow(new TaskCheckpointStore.OwnershipLostException(TASK_ID))
+        .when(checkpointStore)
+        .ensureOwner(TASK_ID);
+
+    service.executeRequestPatternFlow(request, response);
+
+    verify(checkpointStore, never()).saveCollected(anyString(), any());
+    verify(recordingService, never()).stop(anyString());
+    verify(taskStateManager, never()).setTaskFailed(anyString(), anyString());
+    verify(taskStateManager, never()).setTaskCompleted(anyString(), any());
+    verify(checkpointStore, never()).finish(anyString());
+    verify(recordingStateService, never()).deleteState(anyString());
+  }
+
+  @Test
+  void testMissingRecordingsRestartFromBeginning() {
+    when(checkpointStore.getCheckpoint(TASK_ID))
+        .thenReturn(TaskCheckpointStore.Checkpoint.TRIGGERED);
+    when(recordingStateService.exists("rec-1")).thenReturn(false);
+    // 重新启动录制后在滚动更新前停下
+    doNothing()
+        .doNothing()
+        .doThrow(new TaskCheckpointStore.OwnershipLostException(TASK_ID))
+        .when(checkpointStore)
+        .ensureOwner(TASK_ID);
+
+    service.executeRequestPatternFlow(request, response);
+
+    verify(checkpointStore).markRecordingStarted(TASK_ID, List.of());
+    verify(recordingService, never()).stop(anyString());
+  }
+}
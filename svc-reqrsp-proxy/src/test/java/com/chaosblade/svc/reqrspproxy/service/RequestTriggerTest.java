@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.chaosblade.svc.reqrspproxy.dto.TriggerSummary;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/** RequestTrigger 测试 */
+class RequestTriggerTest {
+
+  private static final HttpRequestExecutor.HttpRequestResult OK =
+      new HttpRequestExecutor.HttpRequestResult(true, 200, null, "ok", null);
+
+  private static final HttpRequestExecutor.HttpRequestResult ERROR =
+      new HttpRequestExecutor.HttpRequestResult(false, 500, null, null, "boom");
+
+  private final RequestTrigger trigger = new RequestTrigger();
+
+  @Test
+  void testOutcomesAreCounted() {
+    AtomicInteger calls = new AtomicInteger();
+
+    TriggerSummary summary =
+        trigger
+            .run(
+                () -> {
+                  int n = calls.incrementAndGet();
+                  if (n % 4 == 0) {
+                    return Mono.error(new IllegalStateException("refused"));
+                  }
+                  return Mono.just(n % 4 == 3 ? ERROR : OK);
+                },
+                8,
+                4,
+                0,
+                1,
+                Duration.ofSeconds(5))
+            .block(Duration.ofSeconds(10));
+
+    assertNotNull(summary);
+    assertEquals(8, calls.get());
+    assertEquals(8, summary.getTotal());
+    assertEquals(4, summary.getSucceeded());
+    assertEquals(4, summary.getFailed());
+    assertEquals(0, summary.getTimedOut());
+    assertEquals(4, summary.getConcurrency());
+  }
+
+  @Test
+  void testSlowRequestTimesOut() {
+    TriggerSummary summary =
+        trigger.run(Mono::never, 2, 2, 0, 2, Duration.ofMillis(100)).block(Duration.ofSeconds(10));
+
+    assertNotNull(summary);
+    assertEquals(2, summary.getTimedOut());
+    assertEquals(0, summary.getSucceeded());
+    assertTrue(summary.getMaxLatencyMillis() >= 100);
+  }
+
+  @Test
+  void testRequestsAreNotBuiltOnParallelScheduler() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    trigger
+        .run(
+            () -> {
+              // 模拟请求构造中同步获取令牌
+              threads.add(Thread.currentThread().getName());
+              return Mono.just(OK);
+            },
+            3,
+            1,
+            50,
+            1,
+            Duration.ofSeconds(5))
+        .block(Duration.ofSeconds(10));
+
+    assertFalse(threads.isEmpty());
+    assertTrue(threads.stream().noneMatch(name -> name.startsWith("parallel")), threads.toString());
+  }
+
+  @Test
+  void testScheduleReleasesBurstThenPacesAtRate() {
+    long start = System.nanoTime();
+
+    List<Long> intended = RequestTrigger.schedule(start, 4, 100, 2).collectList().block();
+
+    assertNotNull(intended);
+    // 前两个由桶容量立即放行，之后每 10ms 一个
+    assertEquals(List.of(start, start, start + 10_000_000L, start + 20_000_000L), intended);
+    assertTrue(System.nanoTime() - start >= 20_000_000L);
+  }
+
+  @Test
+  void testUnlimitedRateSendsImmediately() {
+    long start = System.nanoTime();
+
+    List<Long> intended = RequestTrigger.schedule(start, 3, 0, 1).collectList().block();
+
+    assertEquals(List.of(start, start, start), intended);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * RolloutWaiter 测试
+ *
+ * <p>使用 fabric8 的 CRUD 模拟 API Server：Deployment 状态由测试直接改写，模拟控制器推进滚动更新。
+ */
+@EnableKubernetesMockClient(crud = true)
+class RolloutWaiterTest {
+
+  private static final String NAMESPACE = "demo";
+  private static final String NAME = "orders";
+
+  static KubernetesClient client;
+
+  private WorkloadCache workloadCache;
+  private RolloutWaiter waiter;
+
+  @BeforeEach
+  void setUp() {
+    workloadCache = mock(WorkloadCache.class);
+    waiter = new RolloutWaiter();
+    ReflectionTestUtils.setField(waiter, "k8s", client);
+    ReflectionTestUtils.setField(waiter, "workloadCache", workloadCache);
+    client.apps().deployments().inNamespace(NAMESPACE).resource(deployment()).create();
+    setStatus(3, 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    client.apps().deployments().inNamespace(NAMESPACE).withName(NAME).delete();
+  }
+
+  @Test
+  void testWatchCompletesWhenRolledOut() throws Exception {
+    CompletableFuture<Deployment> future =
+        waiter.await(NAMESPACE, NAME, RolloutWaiter::isRolledOut, Duration.ofSeconds(10));
+    assertFalse(future.isDone());
+
+    setStatus(3, 3);
+
+    Deployment deployment = future.get(10, TimeUnit.SECONDS);
+    assertEquals(3, deployment.getStatus().getReadyReplicas());
+  }
+
+  @Test
+  void testAlreadyRolledOutReturnsWithoutEvents() {
+    setStatus(3, 3);
+
+    Deployment deployment = waiter.awaitRolledOut(NAMESPACE, NAME, Duration.ofSeconds(5));
+
+    assertTrue(RolloutWaiter.isRolledOut(deployment));
+  }
+
+  @Test
+  void testTimeoutWhenNeverReady() {
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class,
+            () -> waiter.awaitRolledOut(NAMESPACE, NAME, Duration.ofMillis(300)));
+
+    assertTrue(e.getMessage().contains("not ready within"), e.getMessage());
+  }
+
+  @Test
+  void testInformerEventsCompleteWait() throws Exception {
+    RecordingSettings settings = mock(RecordingSettings.class);
+    when(settings.isInformerEnabled()).thenReturn(true);
+    WorkloadCache cache = new WorkloadCache();
+    ReflectionTestUtils.setField(cache, "k8s", client);
+    ReflectionTestUtils.setField(cache, "settings", settings);
+    ReflectionTestUtils.setField(waiter, "workloadCache", cache);
+    try {
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (!cache.isDeploymentCacheReady(NAMESPACE) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+      assertTrue(cache.isDeploymentCacheReady(NAMESPACE));
+
+      CompletableFuture<Deployment> future =
+          waiter.await(NAMESPACE, NAME, RolloutWaiter::isRolledOut, Duration.ofSeconds(10));
+      setStatus(3, 3);
+
+      assertTrue(RolloutWaiter.isRolledOut(future.get(10, TimeUnit.SECONDS)));
+    } finally {
+      cache.stop();
+    }
+  }
+
+  @Test
+  void testTapManagerWaitsForRollout() throws Exception {
+    K8sTapManager tapManager = new K8sTapManager();
+    ReflectionTestUtils.setField(tapManager, "k8s", client);
+    ReflectionTestUtils.setField(tapManager, "rolloutWaiter", waiter);
+
+    CompletableFuture<Void> waiting =
+        CompletableFuture.runAsync(() -> tapManager.waitRolloutReady(NAMESPACE, NAME));
+    Thread.sleep(200);
+    assertFalse(waiting.isDone());
+
+    setStatus(3, 3);
+
+    waiting.get(10, TimeUnit.SECONDS);
+  }
+
+  private static Deployment deployment() {
+    return new DeploymentBuilder()
+        .withNewMetadata()
+        .withName(NAME)
+        .withNamespace(NAMESPACE)
+        .withGeneration(1L)
+        .endMetadata()
+        .withNewSpec()
+        .withReplicas(3)
+        .endSpec()
+        .build();
+  }
+
+  /** 模拟控制器更新状态：全部副本已更新，其中 ready 个就绪可用 */
+  private static void setStatus(int replicas, int ready) {
+    Deployment current = client.apps().deployments().inNamespace(NAMESPACE).withName(NAME).get();
+    current.setStatus(
+        new DeploymentBuilder()
+            .withNewStatus()
+            // 不依赖模拟服务器对 generation 的处理
+            .withObservedGeneration(Long.MAX_VALUE)
+            .withReplicas(replicas)
+            .withUpdatedReplicas(replicas)
+            .withReadyReplicas(ready)
+            .withAvailableReplicas(ready)
+            .endStatus()
+            .build()
+            .getStatus());
+    client.apps().deployments().inNamespace(NAMESPACE).resource(current).updateStatus();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** TapArchive 测试 */
+class TapArchiveTest {
+
+  @Test
+  void testDecodeFilesAndSkipRecords() {
+    List<String> files = new ArrayList<>();
+    List<String> skipped = new ArrayList<>();
+    TapArchive.Decoder decoder =
+        new TapArchive.Decoder(
+            16, (name, content) -> files.add(name + "=" + content), skipped::add);
+
+    write(decoder, "@@TAP a.json 5\nhello@@SKIP b.json 1048576\n@@TAP c.json 2\nok");
+
+    assertEquals(List.of("a.json=hello", "c.json=ok"), files);
+    assertEquals(List.of("b.json"), skipped);
+    assertEquals(2, decoder.getFileCount());
+    assertEquals(1, decoder.getSkippedCount());
+    assertEquals(0, decoder.getMalformedCount());
+    assertFalse(decoder.isIncomplete());
+  }
+
+  @Test
+  void testOversizedStreamedFileIsReportedAsSkipped() {
+    List<String> files = new ArrayList<>();
+    List<String> skipped = new ArrayList<>();
+    TapArchive.Decoder decoder =
+        new TapArchive.Decoder(4, (name, content) -> files.add(name), skipped::add);
+
+    write(decoder, "@@TAP big.json 10\n0123456789@@TAP a.json 3\nabc");
+
+    assertEquals(List.of("a.json"), files);
+    assertEquals(List.of("big.json"), skipped);
+  }
+
+  @Test
+  void testScriptsSkipFilesAboveLimit() {
+    String script = TapArchive.buildScript("/var/log/envoy/taps", 100, 4096, true);
+    assertTrue(script.contains("-gt 4096"));
+    assertTrue(script.contains(TapArchive.SKIP_PREFIX));
+
+    String page = TapArchive.buildPageScript("/var/log/envoy/taps", "a.json", 10, 4096);
+    assertTrue(page.contains("-gt 4096"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TapArchive.buildPageScript("/var/log/envoy/taps", "a'; rm -rf /", 10, 4096));
+  }
+
+  @Test
+  void testAckScriptMovesRejectedFiles() {
+    String script =
+        TapArchive.buildAckScript("/var/log/envoy/taps", List.of("a.json"), List.of("b.json"));
+    assertTrue(script.contains("rm -f -- a.json"));
+    assertTrue(script.contains("mv -f -- b.json ../.rejected/"));
+    assertNull(TapArchive.buildAckScript("/var/log/envoy/taps", List.of(), List.of()));
+  }
+
+  private static void write(TapArchive.Decoder decoder, String stream) {
+    byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+    // 逐段写入，覆盖头部与内容跨写入边界的情况
+    for (int i = 0; i < bytes.length; i += 3) {
+      decoder.write(bytes, i, Math.min(3, bytes.length - i));
+    }
+  }
+}
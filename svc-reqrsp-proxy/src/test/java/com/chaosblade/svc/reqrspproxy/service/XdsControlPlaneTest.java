@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.reqrspproxy.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.chaosblade.svc.reqrspproxy.config.RecordingSettings;
+import com.chaosblade.svc.reqrspproxy.controller.XdsController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * XdsControlPlane 测试
+ *
+ * <p>以进程内 REST xDS 客户端的方式轮询 {@link XdsController}，两个控制面实例共享同一份（内存模拟的）Redis，模拟多副本部署。
+ */
+class XdsControlPlaneTest {
+
+  private static final String NAMESPACE = "demo";
+  private static final String CONFIG_MAP = "envoy-tap-demo";
+  private static final String NODE = XdsControlPlane.nodeId(NAMESPACE, CONFIG_MAP);
+
+  private static final String HCM_TYPE =
+      "type.googleapis.com/envoy.extensions.filters.network.http_connection_manager.v3"
+          + ".HttpConnectionManager";
+
+  private final Map<String, Map<Object, Object>> redisData = new ConcurrentHashMap<>();
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private XdsControlPlane publisher;
+  private MockMvc envoy;
+
+  @BeforeEach
+  void setUp() {
+    StringRedisTemplate redis = sharedRedis();
+    publisher = controlPlane(redis);
+    XdsController controller = new XdsController();
+    // 轮询落到另一个副本上
+    ReflectionTestUtils.setField(controller, "xdsControlPlane", controlPlane(redis));
+    envoy = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  @Test
+  void testListenerAndRouteServedThroughLdsAndRds() throws Exception {
+    publisher.publish(NAMESPACE, CONFIG_MAP, envoyConfig("v1"));
+
+    Map<String, Object> lds = discover("listeners");
+    List<Map<String, Object>> listeners = resources(lds);
+    assertEquals(1, listeners.size());
+    assertEquals(XdsControlPlane.LISTENER_TYPE, listeners.get(0).get("@type"));
+    assertTrue(objectMapper.writeValueAsString(listeners).contains("route_config_name"));
+    assertFalse(objectMapper.writeValueAsString(listeners).contains("inline_string"));
+
+    Map<String, Object> rds = discover("routes");
+    List<Map<String, Object>> routes = resources(rds);
+    assertEquals(1, routes.size());
+    assertEquals(XdsControlPlane.ROUTE_TYPE, routes.get(0).get("@type"));
+    assertEquals("local_route", routes.get(0).get("name"));
+  }
+
+  @Test
+  void testRouteChangeOnOtherReplicaOnlyBumpsRouteVersion() throws Exception {
+    publisher.publish(NAMESPACE, CONFIG_MAP, envoyConfig("v1"));
+    Object listenerVersion = discover("listeners").get("version_info");
+    Object routeVersion = discover("routes").get("version_info");
+
+    publisher.publish(NAMESPACE, CONFIG_MAP, envoyConfig("v2"));
+
+    assertEquals(listenerVersion, discover("listeners").get("version_info"));
+    Map<String, Object> rds = discover("routes");
+    assertNotEquals(routeVersion, rds.get("version_info"));
+    assertTrue(objectMapper.writeValueAsString(rds).contains("v2"));
+  }
+
+  @Test
+  void testRemovedNodeIsUnavailableOnAllReplicas() throws Exception {
+    publisher.publish(NAMESPACE, CONFIG_MAP, envoyConfig("v1"));
+    discover("listeners");
+
+    publisher.remove(NAMESPACE, CONFIG_MAP);
+
+    envoy
+        .perform(
+            post("/v3/discovery:listeners")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(request(NODE)))
+        .andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  void testUnknownNodeIsUnavailable() throws Exception {
+    envoy
+        .perform(
+            post("/v3/discovery:routes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(request("demo/unknown")))
+        .andExpect(status().isServiceUnavailable());
+  }
+
+  private Map<String, Object> discover(String type) throws Exception {
+    String body =
+        envoy
+            .perform(
+                post("/v3/discovery:" + type)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(request(NODE)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    @SuppressWarnings("unchecked")
+    Map<String, Object> response = objectMapper.readValue(body, Map.class);
+    return response;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> resources(Map<String, Object> response) {
+    return (List<Map<String, Object>>) response.get("resources");
+  }
+
+  private String request(String node) throws Exception {
+    return objectMapper.writeValueAsString(
+        Map.of("version_info", "", "node", Map.of("id", node, "cluster", CONFIG_MAP)));
+  }
+
+  private XdsControlPlane controlPlane(StringRedisTemplate redis) {
+    RecordingSettings settings = mock(RecordingSettings.class);
+    when(settings.isXdsEnabled()).thenReturn(true);
+    when(settings.getXdsHost()).thenReturn("reqrsp-proxy.chaosblade");
+    when(settings.getXdsPort()).thenReturn(8105);
+    when(settings.getXdsRefreshMillis()).thenReturn(1000L);
+
+    XdsControlPlane controlPlane = new XdsControlPlane();
+    ReflectionTestUtils.setField(controlPlane, "settings", settings);
+    ReflectionTestUtils.setField(controlPlane, "objectMapper", objectMapper);
+    ReflectionTestUtils.setField(controlPlane, "redis", redis);
+    ReflectionTestUtils.setField(controlPlane, "k8s", mock(KubernetesClient.class));
+    return controlPlane;
+  }
+
+  /** 以内存 Map 模拟控制面用到的 Redis 哈希命令 */
+  @SuppressWarnings("unchecked")
+  private StringRedisTemplate sharedRedis() {
+    StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    HashOperations<String, Object, Object> hash = mock(HashOperations.class);
+    doReturn(hash).when(redis).opsForHash();
+    doAnswer(inv -> redisData.getOrDefault(inv.getArgument(0), Map.of()).get(inv.getArgument(1)))
+        .when(hash)
+        .get(anyString(), any());
+    doAnswer(
+            inv -> {
+              redisData
+                  .computeIfAbsent(inv.getArgument(0), k -> new HashMap<>())
+                  .put(inv.getArgument(1), inv.getArgument(2));
+              return null;
+            })
+        .when(hash)
+        .put(anyString(), any(), any());
+    doAnswer(
+            inv -> {
+              redisData
+                  .computeIfAbsent(inv.getArgument(0), k -> new HashMap<>())
+                  .putAll(inv.getArgument(1));
+              return null;
+            })
+        .when(hash)
+        .putAll(anyString(), anyMap());
+    doAnswer(
+            inv ->
+                redisData
+                        .computeIfAbsent(inv.getArgument(0), k -> new HashMap<>())
+                        .putIfAbsent(inv.getArgument(1), inv.getArgument(2))
+                    == null)
+        .when(hash)
+        .putIfAbsent(anyString(), any(), any());
+    doAnswer(inv -> redisData.remove((String) inv.getArgument(0)) != null)
+        .when(redis)
+        .delete(anyString());
+    return redis;
+  }
+
+  private static String envoyConfig(String mockBody) {
+    return String.format(
+        """
+        admin:
+          address:
+            socket_address: { address: 0.0.0.0, port_value: 9901 }
+        static_resources:
+          listeners:
+          - name: listener_0
+            address:
+              socket_address: { address: 0.0.0.0, port_value: 15006 }
+            filter_chains:
+            - filters:
+              - name: envoy.filters.network.http_connection_manager
+                typed_config:
+                  "@type": %s
+                  stat_prefix: ingress
+                  route_config:
+                    name: local_route
+                    virtual_hosts:
+                    - name: app
+                      domains: ["*"]
+                      routes:
+                      - match: { prefix: "/api/mock" }
+                        direct_response:
+                          status: 200
+                          body: { inline_string: "%s" }
+                      - match: { prefix: "/" }
+                        route: { cluster: app }
+          clusters:
+          - name: app
+            connect_timeout: 1s
+            type: STATIC
+        """,
+        HCM_TYPE, mockBody);
+  }
+}
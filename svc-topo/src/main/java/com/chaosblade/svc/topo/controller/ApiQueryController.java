@@ -16,7 +16,6 @@
 
 package com.chaosblade.svc.topo.controller;
 
-import com.chaosblade.svc.topo.config.ApiRequestConfig;
 import com.chaosblade.svc.topo.config.SystemCatalogConfig;
 import com.chaosblade.svc.topo.model.*;
 import com.chaosblade.svc.topo.model.SystemApiListResponse.SystemApiDetail;
@@ -29,12 +28,11 @@
 import com.chaosblade.svc.topo.model.entity.RelationType;
 import com.chaosblade.svc.topo.model.topology.TopologyGraph;
 import com.chaosblade.svc.topo.service.ApiQueryService;
+import com.chaosblade.svc.topo.service.ApiRequestCatalogStore;
 import com.chaosblade.svc.topo.service.TopologyCacheService;
 import com.chaosblade.svc.topo.service.TopologyConverterService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -66,7 +64,7 @@ public class ApiQueryController {
 
   @Autowired private SystemCatalogConfig systemCatalogConfig;
 
-  @Autowired private ApiRequestConfig apiRequestConfig;
+  @Autowired private ApiRequestCatalogStore apiRequestCatalogStore;
 
   @Autowired private SystemUnderTest systemUnderTest; // todo 目前是单例，之后有张表
 
@@ -389,9 +387,13 @@ private SystemRootApiListResponse.SystemRootApiDetail convertSystemApiDetailToSy
     rootApiDetail.setCreatedAt(apiDetail.getCreatedAt());
     rootApiDetail.setUpdatedAt(apiDetail.getUpdatedAt());
 
-    // 通过operationId查找对应的ApiRequestPayload
+    // 通过 (systemId, operationId) 查找对应的ApiRequestPayload
+    long systemId =
+        apiDetail.getSystemId() != null
+            ? apiDetail.getSystemId()
+            : apiRequestCatalogStore.getDefaultSystemId();
     Optional<ApiRequestPayload> payloadOptional =
-        apiRequestConfig.findByOperationId(apiDetail.getOperationId());
+        apiRequestCatalogStore.find(systemId, apiDetail.getOperationId());
     if (payloadOptional.isPresent()) {
       ApiRequestPayload payload = payloadOptional.get();
       rootApiDetail.setRootService(payload.getRootService());
@@ -736,50 +738,29 @@ private TopologyGraph getTopologyFromCacheOrCurrentForMetricsQuery(MetricsByApiR
   }
 
   /**
-   * 保存API请求负载数据到system-request.json文件
+   * 保存API请求负载数据到API请求目录（追加写日志）
    *
    * @param payload 要保存的ApiRequestPayload对象
+   * @param systemId 系统ID，缺省为当前被测系统
    * @return 保存结果响应
    */
   @PostMapping("/topology/api-request")
-  public ResponseEntity<String> saveApiRequestPayload(@RequestBody ApiRequestPayload payload) {
+  public ResponseEntity<String> saveApiRequestPayload(
+      @RequestBody ApiRequestPayload payload,
+      @RequestParam(value = "systemId", required = false) Long systemId) {
     logger.info("收到保存API请求负载的请求: {}", payload);
 
     try {
-      // 获取现有的API请求负载列表
-      List<ApiRequestPayload> payloads = new ArrayList<>(apiRequestConfig.getApiRequestPayloads());
-
-      // 检查是否已存在相同的operationId，如果存在则更新，否则添加
-      boolean updated = false;
-      for (int i = 0; i < payloads.size(); i++) {
-        if (payloads.get(i).getOperationId().equals(payload.getOperationId())) {
-          payloads.set(i, payload);
-          updated = true;
-          break;
-        }
-      }
-
-      if (!updated) {
-        payloads.add(payload);
-      }
-
-      // 将更新后的列表写入system-request.json文件
-      ObjectMapper objectMapper = new ObjectMapper();
-      String jsonString =
-          objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(payloads);
+      long effectiveSystemId =
+          systemId != null ? systemId : apiRequestCatalogStore.getDefaultSystemId();
+      apiRequestCatalogStore.put(effectiveSystemId, payload);
 
-      // 获取应用程序根目录下的system-request.json文件路径
-      // 使用相对路径，文件将保存在项目根目录下
-      File file = new File("system-request.json");
-      try (FileWriter writer = new FileWriter(file)) {
-        writer.write(jsonString);
-      }
-
-      // 更新内存中的配置
-      apiRequestConfig.updateOrAddApiRequestPayload(payload);
-
-      logger.info("成功保存API请求负载到system-request.json文件");
+      logger.info(
+          "成功保存API请求负载: systemId={}, operationId={}", effectiveSystemId, payload.getOperationId());
       return ResponseEntity.ok("API请求负载保存成功");
+    } catch (IllegalArgumentException e) {
+      logger.warn("API请求负载参数错误: {}", e.getMessage());
+      return ResponseEntity.badRequest().body("API请求负载参数错误: " + e.getMessage());
     } catch (IOException e) {
       logger.error("保存API请求负载失败: {}", e.getMessage(), e);
       return ResponseEntity.internalServerError().body("保存API请求负载失败: " + e.getMessage());
@@ -789,17 +770,43 @@ public ResponseEntity<String> saveApiRequestPayload(@RequestBody ApiRequestPaylo
     }
   }
 
+  /**
+   * 导出API请求目录的JSON视图（system-request.json 格式）
+   *
+   * @param systemId 系统ID，缺省为当前被测系统
+   * @return 导出结果响应
+   */
+  @PostMapping("/topology/api-requests/export")
+  public ResponseEntity<String> exportApiRequestPayloads(
+      @RequestParam(value = "systemId", required = false) Long systemId) {
+    logger.info("收到导出API请求负载的请求: systemId={}", systemId);
+
+    try {
+      long effectiveSystemId =
+          systemId != null ? systemId : apiRequestCatalogStore.getDefaultSystemId();
+      Path path = apiRequestCatalogStore.exportJson(effectiveSystemId);
+      return ResponseEntity.ok("API请求负载已导出到 " + path.toAbsolutePath());
+    } catch (IOException e) {
+      logger.error("导出API请求负载失败: {}", e.getMessage(), e);
+      return ResponseEntity.internalServerError().body("导出API请求负载失败: " + e.getMessage());
+    }
+  }
+
   /**
    * 获取所有API请求负载
    *
+   * @param systemId 系统ID，缺省为当前被测系统
    * @return API请求负载列表
    */
   @GetMapping("/topology/api-requests")
-  public ResponseEntity<List<ApiRequestPayload>> getApiRequestPayloads() {
+  public ResponseEntity<List<ApiRequestPayload>> getApiRequestPayloads(
+      @RequestParam(value = "systemId", required = false) Long systemId) {
     logger.info("收到获取API请求负载列表的请求");
 
     try {
-      List<ApiRequestPayload> payloads = apiRequestConfig.getApiRequestPayloads();
+      List<ApiRequestPayload> payloads =
+          apiRequestCatalogStore.list(
+              systemId != null ? systemId : apiRequestCatalogStore.getDefaultSystemId());
       logger.info("返回 {} 个API请求负载", payloads.size());
       return ResponseEntity.ok(payloads);
     } catch (Exception e) {
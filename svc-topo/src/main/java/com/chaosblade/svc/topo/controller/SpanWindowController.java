@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.controller;
+
+import com.chaosblade.svc.topo.model.trace.SpanColumns;
+import com.chaosblade.svc.topo.service.SpanWindowStore;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/** span 窗口查询控制器 在当前时间窗口的列式 span 数据上做即席分组聚合 */
+@RestController
+@RequestMapping("/v1/topology/spans")
+@CrossOrigin(origins = "*")
+public class SpanWindowController {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpanWindowController.class);
+
+  @Autowired private SpanWindowStore spanWindowStore;
+
+  /**
+   * 分组聚合
+   *
+   * @param groupBy 分组维度：service、operation、edge
+   * @param kind span 类型过滤，如 server、client
+   * @param start 开始时间（毫秒）
+   * @param end 结束时间（毫秒）
+   * @return 聚合结果
+   */
+  @GetMapping("/aggregate")
+  public ResponseEntity<List<SpanColumns.Aggregate>> aggregate(
+      @RequestParam(value = "groupBy", defaultValue = "service") String groupBy,
+      @RequestParam(value = "kind", required = false) String kind,
+      @RequestParam(value = "start", required = false) Long start,
+      @RequestParam(value = "end", required = false) Long end) {
+    SpanColumns.GroupBy dimension;
+    try {
+      dimension = SpanColumns.GroupBy.valueOf(groupBy.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      logger.warn("不支持的分组维度: {}", groupBy);
+      return ResponseEntity.badRequest().build();
+    }
+
+    try {
+      return ResponseEntity.ok(spanWindowStore.aggregate(dimension, kind, start, end));
+    } catch (Exception e) {
+      logger.error("span 分组聚合失败: {}", e.getMessage(), e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  /**
+   * 获取 span 窗口统计信息
+   *
+   * @return 统计信息
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<Map<String, Object>> getStats() {
+    return ResponseEntity.ok(spanWindowStore.getStats());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.controller;
+
+import com.chaosblade.svc.topo.model.topology.TopologyDelta;
+import com.chaosblade.svc.topo.service.TopologyChangeFeedService;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** 拓扑变更订阅控制器 通过 SSE 推送拓扑增量，替代对全量拓扑接口的轮询 */
+@RestController
+@RequestMapping("/v1/topology")
+@CrossOrigin(origins = "*")
+public class TopologyFeedController {
+
+  private static final Logger logger = LoggerFactory.getLogger(TopologyFeedController.class);
+
+  @Autowired private TopologyChangeFeedService topologyChangeFeedService;
+
+  /**
+   * 订阅拓扑变更事件流
+   *
+   * <p>断线重连时浏览器会自动携带 Last-Event-ID（{@code <epoch>:<seq>}），也可以通过 epoch、fromSeq 显式指定续传位置
+   *
+   * @param epoch 已收到的最后事件的流纪元
+   * @param fromSeq 已收到的最后序号
+   * @param lastEventId SSE 标准续传头
+   * @return SSE 事件流
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamTopologyChanges(
+      @RequestParam(value = "epoch", required = false) String epoch,
+      @RequestParam(value = "fromSeq", required = false) Long fromSeq,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    if (fromSeq == null && lastEventId != null) {
+      int colon = lastEventId.indexOf(':');
+      if (colon >= 0) {
+        epoch = lastEventId.substring(0, colon);
+        lastEventId = lastEventId.substring(colon + 1);
+      }
+      fromSeq = parseSeq(lastEventId);
+    }
+    logger.info("收到拓扑变更订阅请求: epoch={}, fromSeq={}", epoch, fromSeq);
+    return topologyChangeFeedService.subscribe(epoch, fromSeq);
+  }
+
+  /**
+   * 拉取指定位置之后的拓扑变更（无法使用 SSE 的客户端）
+   *
+   * @param epoch 已收到的最后事件的流纪元，与当前纪元不一致时返回全量快照
+   * @param fromSeq 已收到的最后序号，为空时返回全量快照
+   * @return 变更事件列表
+   */
+  @GetMapping("/changes")
+  public ResponseEntity<List<TopologyDelta>> getTopologyChanges(
+      @RequestParam(value = "epoch", required = false) String epoch,
+      @RequestParam(value = "fromSeq", required = false) Long fromSeq) {
+    try {
+      return ResponseEntity.ok(topologyChangeFeedService.getChangesSince(epoch, fromSeq));
+    } catch (Exception e) {
+      logger.error("查询拓扑变更失败: {}", e.getMessage(), e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  private Long parseSeq(String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      logger.warn("无效的 Last-Event-ID: {}", value);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.model.topology;
+
+import com.chaosblade.svc.topo.model.entity.Edge;
+import com.chaosblade.svc.topo.model.entity.Node;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 拓扑变更事件
+ *
+ * <p>type=delta 时只包含相对于上一序号的节点/边增删改；type=snapshot 时携带完整拓扑，用于客户端首次订阅或落后过多时重新同步
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class TopologyDelta {
+
+  public static final String TYPE_DELTA = "delta";
+  public static final String TYPE_SNAPSHOT = "snapshot";
+
+  /** 流纪元，服务重启后变化，序号只在同一纪元内可比较 */
+  @JsonProperty("epoch")
+  private String epoch;
+
+  /** 事件序号，单调递增 */
+  @JsonProperty("seq")
+  private long seq;
+
+  /** 事件类型：delta 或 snapshot */
+  @JsonProperty("type")
+  private String type;
+
+  /** 事件生成时间戳（毫秒） */
+  @JsonProperty("timestamp")
+  private long timestamp;
+
+  /** 完整拓扑（仅 snapshot） */
+  @JsonProperty("topology")
+  private TopologyGraph topology;
+
+  /** 新增节点 */
+  @JsonProperty("addedNodes")
+  private List<Node> addedNodes = new ArrayList<>();
+
+  /** 属性或指标变化的节点 */
+  @JsonProperty("updatedNodes")
+  private List<Node> updatedNodes = new ArrayList<>();
+
+  /** 删除的节点ID */
+  @JsonProperty("removedNodeIds")
+  private List<String> removedNodeIds = new ArrayList<>();
+
+  /** 新增边 */
+  @JsonProperty("addedEdges")
+  private List<Edge> addedEdges = new ArrayList<>();
+
+  /** 属性或指标变化的边 */
+  @JsonProperty("updatedEdges")
+  private List<Edge> updatedEdges = new ArrayList<>();
+
+  /** 删除的边ID */
+  @JsonProperty("removedEdgeIds")
+  private List<String> removedEdgeIds = new ArrayList<>();
+
+  public TopologyDelta() {}
+
+  public TopologyDelta(long seq, String type, long timestamp) {
+    this.seq = seq;
+    this.type = type;
+    this.timestamp = timestamp;
+  }
+
+  /** 创建全量快照事件 */
+  public static TopologyDelta snapshot(long seq, TopologyGraph topology) {
+    TopologyDelta delta = new TopologyDelta(seq, TYPE_SNAPSHOT, System.currentTimeMillis());
+    delta.setTopology(topology);
+    return delta;
+  }
+
+  /** 判断增量是否为空 */
+  @JsonIgnore
+  public boolean isEmpty() {
+    return topology == null
+        && addedNodes.isEmpty()
+        && updatedNodes.isEmpty()
+        && removedNodeIds.isEmpty()
+        && addedEdges.isEmpty()
+        && updatedEdges.isEmpty()
+        && removedEdgeIds.isEmpty();
+  }
+
+  // Getter and Setter methods
+  public String getEpoch() {
+    return epoch;
+  }
+
+  public void setEpoch(String epoch) {
+    this.epoch = epoch;
+  }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public void setSeq(long seq) {
+    this.seq = seq;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public TopologyGraph getTopology() {
+    return topology;
+  }
+
+  public void setTopology(TopologyGraph topology) {
+    this.topology = topology;
+  }
+
+  public List<Node> getAddedNodes() {
+    return addedNodes;
+  }
+
+  public void setAddedNodes(List<Node> addedNodes) {
+    this.addedNodes = addedNodes;
+  }
+
+  public List<Node> getUpdatedNodes() {
+    return updatedNodes;
+  }
+
+  public void setUpdatedNodes(List<Node> updatedNodes) {
+    this.updatedNodes = updatedNodes;
+  }
+
+  public List<String> getRemovedNodeIds() {
+    return removedNodeIds;
+  }
+
+  public void setRemovedNodeIds(List<String> removedNodeIds) {
+    this.removedNodeIds = removedNodeIds;
+  }
+
+  public List<Edge> getAddedEdges() {
+    return addedEdges;
+  }
+
+  public void setAddedEdges(List<Edge> addedEdges) {
+    this.addedEdges = addedEdges;
+  }
+
+  public List<Edge> getUpdatedEdges() {
+    return updatedEdges;
+  }
+
+  public void setUpdatedEdges(List<Edge> updatedEdges) {
+    this.updatedEdges = updatedEdges;
+  }
+
+  public List<String> getRemovedEdgeIds() {
+    return removedEdgeIds;
+  }
+
+  public void setRemovedEdgeIds(List<String> removedEdgeIds) {
+    this.removedEdgeIds = removedEdgeIds;
+  }
+
+  @Override
+  public String toString() {
+    return "TopologyDelta{"
+        + "seq="
+        + seq
+        + ", type='"
+        + type
+        + '\''
+        + ", addedNodes="
+        + addedNodes.size()
+        + ", updatedNodes="
+        + updatedNodes.size()
+        + ", removedNodes="
+        + removedNodeIds.size()
+        + ", addedEdges="
+        + addedEdges.size()
+        + ", updatedEdges="
+        + updatedEdges.size()
+        + ", removedEdges="
+        + removedEdgeIds.size()
+        + '}';
+  }
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.model.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式存储的 span 窗口
+ *
+ * <p>服务名、操作名、span 类型按字典编码为 int 列，开始时间/耗时保存在 long[] 中，错误标记使用位图，父 span 预先解析为行号。
+ * 分组聚合只需在这些基本类型数组上做一次顺序扫描，不再访问 {@link SpanData} 的标签列表和装箱字段。
+ *
+ * <p>构建完成后只读，可在多个线程间安全共享。
+ */
+public class SpanColumns {
+
+  /** 分组维度 */
+  public enum GroupBy {
+    /** 按服务 */
+    SERVICE,
+    /** 按服务+操作 */
+    OPERATION,
+    /** 按父服务→子服务调用对 */
+    EDGE
+  }
+
+  // 没有父 span 或父 span 不在窗口内
+  private static final int NO_PARENT = -1;
+
+  // 不按类型过滤
+  private static final int NO_FILTER = -1;
+
+  private final Dictionary services = new Dictionary();
+  private final Dictionary operations = new Dictionary();
+  private final Dictionary kinds = new Dictionary();
+
+  private final int size;
+  private final int[] serviceColumn;
+  private final int[] operationColumn;
+  private final int[] kindColumn;
+  private final int[] parentColumn;
+  private final long[] startColumn; // 微秒
+  private final long[] durationColumn; // 微秒
+  private final BitSet errorColumn;
+
+  private SpanColumns(int capacity) {
+    serviceColumn = new int[capacity];
+    operationColumn = new int[capacity];
+    kindColumn = new int[capacity];
+    parentColumn = new int[capacity];
+    startColumn = new long[capacity];
+    durationColumn = new long[capacity];
+    errorColumn = new BitSet(capacity);
+    size = capacity;
+  }
+
+  /**
+   * 从 trace 数据构建列式窗口
+   *
+   * @param traceData trace 数据
+   * @return 列式窗口，trace 数据为空时返回空窗口
+   */
+  public static SpanColumns from(TraceData traceData) {
+    List<TraceData.TraceRecord> records =
+        traceData != null && traceData.getData() != null ? traceData.getData() : List.of();
+
+    int total = 0;
+    for (TraceData.TraceRecord record : records) {
+      if (record.getSpans() != null) {
+        total += record.getSpans().size();
+      }
+    }
+
+    SpanColumns columns = new SpanColumns(total);
+    int row = 0;
+    for (TraceData.TraceRecord record : records) {
+      if (record.getSpans() == null) {
+        continue;
+      }
+      Map<String, ProcessData> processes =
+          record.getProcesses() != null ? record.getProcesses() : Map.of();
+
+      // 第一遍写入各列并记录 spanId -> 行号，第二遍解析父 span
+      int firstRow = row;
+      Map<String, Integer> rowBySpanId = new HashMap<>();
+      for (SpanData span : record.getSpans()) {
+        ProcessData process = processes.get(span.getProcessId());
+        String serviceName = process != null ? process.getServiceName() : span.getServiceName();
+        columns.serviceColumn[row] = columns.services.encode(serviceName);
+        columns.operationColumn[row] = columns.operations.encode(span.getOperationName());
+        columns.kindColumn[row] = columns.kinds.encode(span.getSpanKind());
+        columns.startColumn[row] = span.getStartTime() != null ? span.getStartTime() : 0L;
+        columns.durationColumn[row] = span.getDuration() != null ? span.getDuration() : 0L;
+        if (span.isError()) {
+          columns.errorColumn.set(row);
+        }
+        if (span.getSpanId() != null) {
+          rowBySpanId.put(span.getSpanId(), row);
+        }
+        row++;
+      }
+      for (int i = 0; i < record.getSpans().size(); i++) {
+        String parentSpanId = record.getSpans().get(i).getParentSpanId();
+        Integer parentRow = parentSpanId != null ? rowBySpanId.get(parentSpanId) : null;
+        columns.parentColumn[firstRow + i] = parentRow != null ? parentRow : NO_PARENT;
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * 在开始时间落在 [fromMicros, toMicros) 内的 span 上做分组聚合
+   *
+   * @param groupBy 分组维度
+   * @param kind 只统计指定 span 类型（如 server、client），null 表示不限
+   * @param fromMicros 开始时间下界（微秒），null 表示不限
+   * @param toMicros 开始时间上界（微秒），null 表示不限
+   * @return 聚合结果，按请求数降序
+   */
+  public List<Aggregate> aggregate(GroupBy groupBy, String kind, Long fromMicros, Long toMicros) {
+    long from = fromMicros != null ? fromMicros : Long.MIN_VALUE;
+    long to = toMicros != null ? toMicros : Long.MAX_VALUE;
+    // 类型过滤在字典中查一次编码，扫描时只比较 int
+    int kindCode = kind != null ? kinds.lookup(kind) : NO_FILTER;
+    if (kind != null && kindCode == NO_FILTER) {
+      return new ArrayList<>();
+    }
+
+    // 分组键（字典编码拼接成 long）-> 聚合槽位
+    LongIntMap slots = new LongIntMap();
+    int slotCount = 0;
+    int capacity = 16;
+    long[] slotKeys = new long[capacity];
+    long[] counts = new long[capacity];
+    long[] errors = new long[capacity];
+    long[] durationSums = new long[capacity];
+    long[] durationMaxes = new long[capacity];
+
+    for (int i = 0; i < size; i++) {
+      long start = startColumn[i];
+      if (start < from || start >= to) {
+        continue;
+      }
+      if (kindCode != NO_FILTER && kindColumn[i] != kindCode) {
+        continue;
+      }
+
+      long key;
+      switch (groupBy) {
+        case SERVICE:
+          key = serviceColumn[i];
+          break;
+        case OPERATION:
+          key = ((long) serviceColumn[i] << 32) | operationColumn[i];
+          break;
+        default:
+          int parent = parentColumn[i];
+          // 只统计跨服务调用
+          if (parent == NO_PARENT || serviceColumn[parent] == serviceColumn[i]) {
+            continue;
+          }
+          key = ((long) serviceColumn[parent] << 32) | serviceColumn[i];
+      }
+
+      int slot = slots.get(key);
+      if (slot < 0) {
+        slot = slotCount++;
+        slots.put(key, slot);
+        if (slot == capacity) {
+          capacity *= 2;
+          slotKeys = Arrays.copyOf(slotKeys, capacity);
+          counts = Arrays.copyOf(counts, capacity);
+          errors = Arrays.copyOf(errors, capacity);
+          durationSums = Arrays.copyOf(durationSums, capacity);
+          durationMaxes = Arrays.copyOf(durationMaxes, capacity);
+        }
+        slotKeys[slot] = key;
+      }
+
+      long duration = durationColumn[i];
+      counts[slot]++;
+      if (errorColumn.get(i)) {
+        errors[slot]++;
+      }
+      durationSums[slot] += duration;
+      if (duration > durationMaxes[slot]) {
+        durationMaxes[slot] = duration;
+      }
+    }
+
+    List<Aggregate> result = new ArrayList<>(slotCount);
+    for (int slot = 0; slot < slotCount; slot++) {
+      long key = slotKeys[slot];
+      int high = (int) (key >>> 32);
+      int low = (int) key;
+      String name;
+      String target = null;
+      switch (groupBy) {
+        case SERVICE:
+          name = services.decode(low);
+          break;
+        case OPERATION:
+          name = services.decode(high);
+          target = operations.decode(low);
+          break;
+        default:
+          name = services.decode(high);
+          target = services.decode(low);
+      }
+      result.add(
+          new Aggregate(
+              name,
+              target,
+              counts[slot],
+              errors[slot],
+              durationSums[slot] / 1000.0 / counts[slot],
+              durationMaxes[slot] / 1000.0));
+    }
+    result.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+    return result;
+  }
+
+  /** span 数量 */
+  public int size() {
+    return size;
+  }
+
+  /** 不同服务数量 */
+  public int getServiceCount() {
+    return services.size();
+  }
+
+  /** 不同操作名数量 */
+  public int getOperationCount() {
+    return operations.size();
+  }
+
+  /** 不同 span 类型数量 */
+  public int getKindCount() {
+    return kinds.size();
+  }
+
+  /** 各列占用的堆内存估算（字节），不含字典中的字符串 */
+  public long estimateColumnBytes() {
+    // 4 个 int 列 + 2 个 long 列 + 错误位图
+    return (long) size * (4 * Integer.BYTES + 2 * Long.BYTES) + errorColumn.size() / 8;
+  }
+
+  /** 分组聚合结果 */
+  public static class Aggregate {
+    private final String name;
+    private final String target;
+    private final long count;
+    private final long errorCount;
+    private final double avgDurationMs;
+    private final double maxDurationMs;
+
+    public Aggregate(
+        String name,
+        String target,
+        long count,
+        long errorCount,
+        double avgDurationMs,
+        double maxDurationMs) {
+      this.name = name;
+      this.target = target;
+      this.count = count;
+      this.errorCount = errorCount;
+      this.avgDurationMs = avgDurationMs;
+      this.maxDurationMs = maxDurationMs;
+    }
+
+    /** 服务名；EDGE 分组时为调用方服务 */
+    public String getName() {
+      return name;
+    }
+
+    /** OPERATION 分组时为操作名，EDGE 分组时为被调方服务，SERVICE 分组时为null */
+    public String getTarget() {
+      return target;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getErrorCount() {
+      return errorCount;
+    }
+
+    public double getErrorRate() {
+      return count > 0 ? (double) errorCount / count : 0.0;
+    }
+
+    public double getAvgDurationMs() {
+      return avgDurationMs;
+    }
+
+    public double getMaxDurationMs() {
+      return maxDurationMs;
+    }
+  }
+
+  /** long -> 非负 int 的开放寻址哈希表（线性探测），避免分组扫描时装箱 */
+  private static final class LongIntMap {
+    private static final int MISSING = -1;
+
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private boolean[] used = new boolean[16];
+    private int size;
+
+    /** 不存在时返回 -1 */
+    int get(long key) {
+      int mask = keys.length - 1;
+      for (int i = index(key, mask); used[i]; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return values[i];
+        }
+      }
+      return MISSING;
+    }
+
+    void put(long key, int value) {
+      // 负载因子不超过 0.5
+      if ((size + 1) * 2 > keys.length) {
+        resize();
+      }
+      int mask = keys.length - 1;
+      int i = index(key, mask);
+      while (used[i] && keys[i] != key) {
+        i = (i + 1) & mask;
+      }
+      if (!used[i]) {
+        used[i] = true;
+        keys[i] = key;
+        size++;
+      }
+      values[i] = value;
+    }
+
+    private void resize() {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      boolean[] oldUsed = used;
+      keys = new long[oldKeys.length * 2];
+      values = new int[oldKeys.length * 2];
+      used = new boolean[oldKeys.length * 2];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldUsed[i]) {
+          put(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+
+    private static int index(long key, int mask) {
+      // 混合高低 32 位，服务/操作编码拼接的键分布更均匀
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+  }
+
+  /** 字符串字典，编码从 0 开始连续分配 */
+  private static class Dictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+      String key = value != null ? value : "unknown";
+      Integer code = codes.get(key);
+      if (code == null) {
+        code = values.size();
+        codes.put(key, code);
+        values.add(key);
+      }
+      return code;
+    }
+
+    int lookup(String value) {
+      Integer code = codes.get(value);
+      return code != null ? code : NO_FILTER;
+    }
+
+    String decode(int code) {
+      return values.get(code);
+    }
+
+    int size() {
+      return values.size();
+    }
+  }
+}
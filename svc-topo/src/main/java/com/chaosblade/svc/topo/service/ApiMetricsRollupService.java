@@ -0,0 +1,308 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import com.chaosblade.svc.topo.util.EntityIdGenerator;
+import com.chaosblade.svc.topo.util.LatencySketch;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * API指标预聚合服务
+ *
+ * <p>每次拓扑刷新时把 RPC span 按API累加到 15秒 / 1分钟 / 10分钟 三级时间桶中（请求数、错误数、可合并的延迟草图）。
+ * 任意时间范围的查询通过合并覆盖该范围的最少桶集合得到，不需要再次访问 Jaeger。
+ */
+@Service
+public class ApiMetricsRollupService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApiMetricsRollupService.class);
+
+  /** 各级时间桶宽度（毫秒），从细到粗 */
+  static final long[] TIER_WIDTHS_MS = {15_000L, 60_000L, 600_000L};
+
+  @Autowired(required = false)
+  private TraceParserService traceParserService;
+
+  // 15秒桶保留时长（小时）
+  @Value("${topology.rollup.retention-hours.fine:1}")
+  private int fineRetentionHours = 1;
+
+  // 1分钟桶保留时长（小时）
+  @Value("${topology.rollup.retention-hours.medium:24}")
+  private int mediumRetentionHours = 24;
+
+  // 10分钟桶保留时长（小时）
+  @Value("${topology.rollup.retention-hours.coarse:168}")
+  private int coarseRetentionHours = 168;
+
+  // apiId -> 该API的各级时间桶
+  private final Map<String, ApiRollups> rollups = new ConcurrentHashMap<>();
+
+  // 已入库数据的结束时间（毫秒），避免相邻刷新窗口重叠导致重复计数
+  private volatile long watermarkMs = 0;
+
+  /** 单个时间桶的聚合值 */
+  public static class Rollup {
+    private long count;
+    private long errors;
+    private final LatencySketch latency = new LatencySketch();
+
+    void add(double latencyMillis, boolean error) {
+      count++;
+      if (error) {
+        errors++;
+      }
+      latency.add(latencyMillis);
+    }
+
+    void merge(Rollup other) {
+      count += other.count;
+      errors += other.errors;
+      latency.merge(other.latency);
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public LatencySketch getLatency() {
+      return latency;
+    }
+  }
+
+  /** 合并后的时间范围查询结果 */
+  public static class RollupResult {
+    private final Rollup rollup;
+    private final long startMs;
+    private final long endMs;
+    private final int bucketCount;
+
+    RollupResult(Rollup rollup, long startMs, long endMs, int bucketCount) {
+      this.rollup = rollup;
+      this.startMs = startMs;
+      this.endMs = endMs;
+      this.bucketCount = bucketCount;
+    }
+
+    public long getCount() {
+      return rollup.count;
+    }
+
+    public long getErrors() {
+      return rollup.errors;
+    }
+
+    /** 错误率（0-1） */
+    public double getErrorRate() {
+      return rollup.count > 0 ? (double) rollup.errors / rollup.count : 0.0;
+    }
+
+    /** 每秒请求数，按桶对齐后的时间范围计算 */
+    public double getThroughputRps() {
+      long seconds = (endMs - startMs) / 1000;
+      return seconds > 0 ? (double) rollup.count / seconds : 0.0;
+    }
+
+    /** 延迟分位数（毫秒） */
+    public double getPercentile(int percentile) {
+      return rollup.latency.quantile(percentile / 100.0);
+    }
+
+    public long getStartMs() {
+      return startMs;
+    }
+
+    public long getEndMs() {
+      return endMs;
+    }
+
+    /** 参与合并的桶数量 */
+    public int getBucketCount() {
+      return bucketCount;
+    }
+  }
+
+  /** 单个API的三级时间桶 */
+  private static class ApiRollups {
+    @SuppressWarnings("unchecked")
+    private final TreeMap<Long, Rollup>[] tiers = new TreeMap[TIER_WIDTHS_MS.length];
+
+    ApiRollups() {
+      for (int i = 0; i < tiers.length; i++) {
+        tiers[i] = new TreeMap<>();
+      }
+    }
+
+    synchronized void add(long timestampMs, double latencyMillis, boolean error) {
+      for (int i = 0; i < tiers.length; i++) {
+        long bucketStart = Math.floorDiv(timestampMs, TIER_WIDTHS_MS[i]) * TIER_WIDTHS_MS[i];
+        tiers[i].computeIfAbsent(bucketStart, k -> new Rollup()).add(latencyMillis, error);
+      }
+    }
+
+    synchronized Rollup get(int tier, long bucketStart) {
+      return tiers[tier].get(bucketStart);
+    }
+
+    synchronized Long oldestBucket(int tier) {
+      return tiers[tier].isEmpty() ? null : tiers[tier].firstKey();
+    }
+
+    synchronized void evictBefore(long[] cutoffs) {
+      for (int i = 0; i < tiers.length; i++) {
+        tiers[i].headMap(cutoffs[i]).clear();
+      }
+    }
+
+    synchronized boolean isEmpty() {
+      for (TreeMap<Long, Rollup> tier : tiers) {
+        if (!tier.isEmpty()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * 将一次刷新获取的 trace 数据累加到时间桶中
+   *
+   * <p>只统计开始时间落在 [max(watermark, startMs), endMs) 内的 span，相邻刷新窗口重叠部分不会重复计数
+   *
+   * @param traceData 本次刷新获取的 trace 数据
+   * @param startMs 查询窗口开始时间（毫秒）
+   * @param endMs 查询窗口结束时间（毫秒）
+   * @return 入库的 span 数
+   */
+  public int ingest(TraceData traceData, long startMs, long endMs) {
+    if (traceData == null || traceData.getData() == null || traceParserService == null) {
+      return 0;
+    }
+
+    long from = Math.max(startMs, watermarkMs);
+    int ingested = 0;
+    List<TraceParserService.RpcInterface> rpcs = traceParserService.extractRpcInterfaces(traceData);
+    for (TraceParserService.RpcInterface rpc : rpcs) {
+      if (rpc.getStartTime() == null || rpc.getInterfaceName() == null) {
+        continue;
+      }
+      long timestampMs = rpc.getStartTime() / 1000; // 微秒转毫秒
+      if (timestampMs < from || timestampMs >= endMs) {
+        continue;
+      }
+      double latencyMillis = rpc.getDuration() != null ? rpc.getDuration() / 1000.0 : 0;
+      record(
+          EntityIdGenerator.generateRpcId(rpc.getInterfaceName()),
+          timestampMs,
+          latencyMillis,
+          rpc.isError());
+      ingested++;
+    }
+
+    watermarkMs = Math.max(watermarkMs, endMs);
+    evictExpired(endMs);
+    logger.debug("API指标预聚合完成: 窗口 {}-{}, 入库 {} 个span", from, endMs, ingested);
+    return ingested;
+  }
+
+  /**
+   * 记录单个请求
+   *
+   * @param apiId API ID（RPC 实体ID）
+   * @param timestampMs 请求开始时间（毫秒）
+   * @param latencyMillis 延迟（毫秒）
+   * @param error 是否错误
+   */
+  public void record(String apiId, long timestampMs, double latencyMillis, boolean error) {
+    rollups.computeIfAbsent(apiId, k -> new ApiRollups()).add(timestampMs, latencyMillis, error);
+  }
+
+  /**
+   * 查询指定API在时间范围内的合并指标
+   *
+   * <p>范围按 15 秒对齐后，从左到右贪心地选择起点对齐、完全落在范围内且仍在保留期内的最粗粒度桶
+   *
+   * @param apiId API ID
+   * @param startMs 开始时间（毫秒）
+   * @param endMs 结束时间（毫秒）
+   * @return 合并结果，API不存在时返回null
+   */
+  public RollupResult query(String apiId, long startMs, long endMs) {
+    ApiRollups api = rollups.get(apiId);
+    if (api == null || endMs <= startMs) {
+      return null;
+    }
+
+    long fine = TIER_WIDTHS_MS[0];
+    long alignedStart = Math.floorDiv(startMs, fine) * fine;
+    long alignedEnd = Math.floorDiv(endMs + fine - 1, fine) * fine;
+
+    Rollup merged = new Rollup();
+    int buckets = 0;
+    long cursor = alignedStart;
+    while (cursor < alignedEnd) {
+      int tier = 0;
+      for (int i = TIER_WIDTHS_MS.length - 1; i > 0; i--) {
+        Long oldest = api.oldestBucket(i);
+        if (cursor % TIER_WIDTHS_MS[i] == 0
+            && cursor + TIER_WIDTHS_MS[i] <= alignedEnd
+            && oldest != null
+            && cursor >= oldest) {
+          tier = i;
+          break;
+        }
+      }
+      Rollup rollup = api.get(tier, cursor);
+      if (rollup != null) {
+        merged.merge(rollup);
+        buckets++;
+      }
+      cursor += TIER_WIDTHS_MS[tier];
+    }
+
+    return new RollupResult(merged, alignedStart, alignedEnd, buckets);
+  }
+
+  /** 清理超过保留时长的时间桶 */
+  private void evictExpired(long nowMs) {
+    long[] cutoffs = {
+      nowMs - fineRetentionHours * 3_600_000L,
+      nowMs - mediumRetentionHours * 3_600_000L,
+      nowMs - coarseRetentionHours * 3_600_000L
+    };
+    rollups
+        .entrySet()
+        .removeIf(
+            entry -> {
+              entry.getValue().evictBefore(cutoffs);
+              return entry.getValue().isEmpty();
+            });
+  }
+}
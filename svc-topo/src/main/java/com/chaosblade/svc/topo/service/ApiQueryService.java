@@ -43,6 +43,10 @@ public class ApiQueryService {
   // 添加缓存服务依赖
   @Autowired private TopologyCacheService topologyCacheService;
 
+  // API指标预聚合服务，有预聚合数据时优先使用
+  @Autowired(required = false)
+  private ApiMetricsRollupService apiMetricsRollupService;
+
   /**
    * 根据查询请求从拓扑图中提取API列表
    *
@@ -437,11 +441,24 @@ public MetricsByApiResponse queryMetricsByApiId(
       latency.setP99(0);
       chainMetrics.setLatency(latency);
 
-      // 通过EntityId查找目标节点（使用缓存加速）
-      Node targetNode = findNodeByEntityId(topology, request.getApiId());
+      // 优先使用预聚合数据，按请求的时间范围合并
+      ApiMetricsRollupService.RollupResult rollup = queryRollup(request);
 
-      // 如果找到目标节点，提取指标数据
-      if (targetNode != null) {
+      // 通过EntityId查找目标节点（使用缓存加速）
+      Node targetNode = rollup == null ? findNodeByEntityId(topology, request.getApiId()) : null;
+
+      if (rollup != null) {
+        chainMetrics.setPercentileMethod("LOG_BUCKET");
+        chainMetrics.setTotalCount((int) rollup.getCount());
+        chainMetrics.setErrorCount((int) rollup.getErrors());
+        chainMetrics.setErrorRate(rollup.getErrorRate());
+        chainMetrics.setThroughputRps(rollup.getThroughputRps());
+        latency.setP50((int) Math.round(rollup.getPercentile(50)));
+        latency.setP95((int) Math.round(rollup.getPercentile(95)));
+        latency.setP99((int) Math.round(rollup.getPercentile(99)));
+        logger.debug("使用预聚合指标: API ID={}, 合并桶数={}", request.getApiId(), rollup.getBucketCount());
+      } else if (targetNode != null) {
+        // 如果找到目标节点，提取指标数据
         RedMetrics redMetrics = targetNode.getRedMetrics();
         if (redMetrics != null) {
           // 设置计数和错误信息
@@ -493,6 +510,26 @@ public MetricsByApiResponse queryMetricsByApiId(
     }
   }
 
+  /**
+   * 从预聚合桶中查询指定时间范围的指标
+   *
+   * @param request 指标查询请求
+   * @return 合并结果，未启用预聚合、时间范围不完整或范围内没有数据时返回null
+   */
+  private ApiMetricsRollupService.RollupResult queryRollup(MetricsByApiRequest request) {
+    if (apiMetricsRollupService == null
+        || request.getApiId() == null
+        || request.getTimeRange() == null
+        || request.getTimeRange().getStart() == null
+        || request.getTimeRange().getEnd() == null) {
+      return null;
+    }
+    ApiMetricsRollupService.RollupResult rollup =
+        apiMetricsRollupService.query(
+            request.getApiId(), request.getTimeRange().getStart(), request.getTimeRange().getEnd());
+    return rollup != null && rollup.getCount() > 0 ? rollup : null;
+  }
+
   /**
    * 通过EntityId查找节点（使用缓存加速）
    *
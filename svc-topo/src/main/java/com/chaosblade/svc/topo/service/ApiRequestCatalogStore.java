@@ -0,0 +1,493 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import com.chaosblade.svc.topo.config.ApiRequestConfig;
+import com.chaosblade.svc.topo.model.ApiRequestPayload;
+import com.chaosblade.svc.topo.model.SystemUnderTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * API请求目录存储服务
+ *
+ * <p>使用追加写日志（每行一条JSON记录）持久化 ApiRequestPayload，内存中按 (systemId, apiId) 建立索引：
+ *
+ * <ul>
+ *   <li>注册/更新API只需一次追加写，写入代价与目录大小无关
+ *   <li>所有写操作通过同一把锁串行化，并发写入不会丢失更新
+ *   <li>定时压缩日志，去除被覆盖的旧记录
+ *   <li>按需导出 system-request.json 格式的JSON视图
+ * </ul>
+ */
+@Service
+public class ApiRequestCatalogStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApiRequestCatalogStore.class);
+
+  private static final String OP_PUT = "PUT";
+  private static final String OP_DELETE = "DELETE";
+
+  // 未知系统时使用的默认系统ID
+  private static final long DEFAULT_SYSTEM_ID = 1L;
+
+  @Autowired(required = false)
+  private ApiRequestConfig apiRequestConfig;
+
+  @Autowired(required = false)
+  private SystemUnderTest systemUnderTest;
+
+  // 追加写日志文件路径
+  @Value("${topology.api-request.log-path:system-request.log}")
+  private String logPath = "system-request.log";
+
+  // 导出的JSON视图文件路径
+  @Value("${topology.api-request.export-path:system-request.json}")
+  private String exportPath = "system-request.json";
+
+  // 每次追加后是否强制刷盘
+  @Value("${topology.api-request.fsync:true}")
+  private boolean fsync = true;
+
+  // 触发压缩的最少过期记录数
+  @Value("${topology.api-request.compact-min-stale:64}")
+  private int compactMinStale = 64;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  // 内存索引：(systemId, apiId) -> 目录项
+  private final Map<CatalogKey, CatalogEntry> index = new ConcurrentHashMap<>();
+
+  // 写锁：串行化日志追加、压缩和导出
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  // 目录项首次出现的顺序，用于稳定输出
+  private final AtomicLong sequence = new AtomicLong();
+
+  // 日志中的总记录数，与 index.size() 之差即为可压缩的过期记录数
+  private long logRecordCount = 0;
+
+  private FileChannel channel;
+
+  /** 目录键：systemId + apiId（即 operationId） */
+  public static class CatalogKey {
+    private final long systemId;
+    private final String apiId;
+
+    public CatalogKey(long systemId, String apiId) {
+      this.systemId = systemId;
+      this.apiId = Objects.requireNonNull(apiId, "apiId");
+    }
+
+    public long getSystemId() {
+      return systemId;
+    }
+
+    public String getApiId() {
+      return apiId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      CatalogKey that = (CatalogKey) o;
+      return systemId == that.systemId && apiId.equals(that.apiId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(systemId) + apiId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "CatalogKey{" + "systemId=" + systemId + ", apiId='" + apiId + '\'' + '}';
+    }
+  }
+
+  /** 目录项：负载数据及其首次出现的顺序 */
+  private static class CatalogEntry {
+    private final long order;
+    private final ApiRequestPayload payload;
+
+    CatalogEntry(long order, ApiRequestPayload payload) {
+      this.order = order;
+      this.payload = payload;
+    }
+  }
+
+  @PostConstruct
+  public void init() {
+    try {
+      open();
+    } catch (IOException e) {
+      throw new IllegalStateException("初始化API请求目录日志失败: " + logPath, e);
+    }
+  }
+
+  /** 打开日志：存在则回放，不存在则从 system-request.json 初始化 */
+  void open() throws IOException {
+    writeLock.lock();
+    try {
+      Path path = Paths.get(logPath);
+      boolean exists = Files.exists(path);
+      if (exists) {
+        replay(path);
+      }
+      channel =
+          FileChannel.open(
+              path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+      if (!exists) {
+        seedFromConfig();
+      }
+      logger.info(
+          "API请求目录已加载: {} 个API, 日志记录 {} 条, 日志文件: {}",
+          index.size(),
+          logRecordCount,
+          path.toAbsolutePath());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    writeLock.lock();
+    try {
+      if (channel != null && channel.isOpen()) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      logger.warn("关闭API请求目录日志失败: {}", e.getMessage());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * 回放日志重建内存索引
+   *
+   * <p>每条记录以换行结尾。末尾没有换行的残缺记录（写入中途崩溃）会被截掉，否则之后追加的记录会接在残片后面，下次回放时一起无法解析。
+   */
+  private void replay(Path path) throws IOException {
+    long complete = 0; // 最后一条完整记录之后的偏移
+    long offset = 0;
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(path)) {
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+          if (buffer[i] == '\n') {
+            line.write(buffer, start, i - start);
+            replayLine(line.toString(StandardCharsets.UTF_8));
+            line.reset();
+            start = i + 1;
+            complete = offset + i + 1;
+          }
+        }
+        line.write(buffer, start, n - start);
+        offset += n;
+      }
+    }
+    if (offset > complete) {
+      logger.warn("截掉API请求目录日志末尾残缺的记录: {} 字节", offset - complete);
+      try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        file.truncate(complete);
+        if (fsync) {
+          file.force(true);
+        }
+      }
+    }
+  }
+
+  private void replayLine(String line) throws IOException {
+    if (line.isBlank()) {
+      return;
+    }
+    JsonNode record;
+    try {
+      record = objectMapper.readTree(line);
+    } catch (IOException e) {
+      logger.warn("跳过无法解析的API请求目录记录: {}", e.getMessage());
+      return;
+    }
+    logRecordCount++;
+    applyRecord(record);
+  }
+
+  private void applyRecord(JsonNode record) throws IOException {
+    CatalogKey key =
+        new CatalogKey(record.path("systemId").asLong(), record.path("apiId").asText());
+    if (OP_DELETE.equals(record.path("op").asText())) {
+      index.remove(key);
+      return;
+    }
+    ApiRequestPayload payload =
+        objectMapper.treeToValue(record.get("payload"), ApiRequestPayload.class);
+    index.compute(
+        key,
+        (k, old) ->
+            new CatalogEntry(old != null ? old.order : sequence.getAndIncrement(), payload));
+  }
+
+  /** 首次启动时将 system-request.json 中的数据写入日志 */
+  private void seedFromConfig() throws IOException {
+    if (apiRequestConfig == null || apiRequestConfig.getApiRequestPayloads() == null) {
+      return;
+    }
+    long systemId = getDefaultSystemId();
+    for (ApiRequestPayload payload : apiRequestConfig.getApiRequestPayloads()) {
+      if (payload.getOperationId() != null) {
+        appendLocked(OP_PUT, new CatalogKey(systemId, payload.getOperationId()), payload);
+      }
+    }
+  }
+
+  /**
+   * 注册或更新API请求负载
+   *
+   * @param systemId 系统ID
+   * @param payload API请求负载，operationId 作为 apiId
+   */
+  public void put(long systemId, ApiRequestPayload payload) throws IOException {
+    if (payload == null || payload.getOperationId() == null) {
+      throw new IllegalArgumentException("operationId 不能为空");
+    }
+    writeLock.lock();
+    try {
+      appendLocked(OP_PUT, new CatalogKey(systemId, payload.getOperationId()), payload);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * 删除API请求负载
+   *
+   * @param systemId 系统ID
+   * @param apiId API ID
+   * @return 是否存在并被删除
+   */
+  public boolean remove(long systemId, String apiId) throws IOException {
+    CatalogKey key = new CatalogKey(systemId, apiId);
+    writeLock.lock();
+    try {
+      if (!index.containsKey(key)) {
+        return false;
+      }
+      appendLocked(OP_DELETE, key, null);
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** 追加一条记录并更新索引，调用方必须持有写锁 */
+  private void appendLocked(String op, CatalogKey key, ApiRequestPayload payload)
+      throws IOException {
+    ObjectNode record = objectMapper.createObjectNode();
+    record.put("op", op);
+    record.put("systemId", key.getSystemId());
+    record.put("apiId", key.getApiId());
+    record.put("ts", System.currentTimeMillis());
+    if (payload != null) {
+      record.set("payload", objectMapper.valueToTree(payload));
+    }
+
+    byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.wrap(line);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    if (fsync) {
+      channel.force(false);
+    }
+    logRecordCount++;
+
+    if (OP_DELETE.equals(op)) {
+      index.remove(key);
+    } else {
+      index.compute(
+          key,
+          (k, old) ->
+              new CatalogEntry(old != null ? old.order : sequence.getAndIncrement(), payload));
+    }
+  }
+
+  /**
+   * 根据 (systemId, apiId) 查找API请求负载
+   *
+   * @param systemId 系统ID
+   * @param apiId API ID（operationId）
+   * @return Optional包装的ApiRequestPayload对象
+   */
+  public Optional<ApiRequestPayload> find(long systemId, String apiId) {
+    if (apiId == null) {
+      return Optional.empty();
+    }
+    CatalogEntry entry = index.get(new CatalogKey(systemId, apiId));
+    return entry != null ? Optional.of(entry.payload) : Optional.empty();
+  }
+
+  /**
+   * 获取指定系统的所有API请求负载，按首次注册顺序排列
+   *
+   * @param systemId 系统ID
+   * @return ApiRequestPayload列表
+   */
+  public List<ApiRequestPayload> list(long systemId) {
+    return index.entrySet().stream()
+        .filter(e -> e.getKey().getSystemId() == systemId)
+        .map(Map.Entry::getValue)
+        .sorted(Comparator.comparingLong(e -> e.order))
+        .map(e -> e.payload)
+        .toList();
+  }
+
+  /** 获取当前被测系统的ID，未配置时返回默认值 */
+  public long getDefaultSystemId() {
+    if (systemUnderTest != null
+        && systemUnderTest.getSystemInfo() != null
+        && systemUnderTest.getSystemInfo().getId() != null) {
+      return systemUnderTest.getSystemInfo().getId();
+    }
+    return DEFAULT_SYSTEM_ID;
+  }
+
+  /** 当前日志中可被压缩掉的过期记录数 */
+  public long getStaleRecordCount() {
+    writeLock.lock();
+    try {
+      return logRecordCount - index.size();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** 定时压缩日志，过期记录数达到阈值时执行 */
+  @Scheduled(fixedDelayString = "#{${topology.api-request.compact-interval-seconds:300} * 1000}")
+  public void compactPeriodically() {
+    if (getStaleRecordCount() < compactMinStale) {
+      return;
+    }
+    try {
+      compact();
+    } catch (IOException e) {
+      logger.error("压缩API请求目录日志失败: {}", e.getMessage(), e);
+    }
+  }
+
+  /** 压缩日志：将当前索引写入临时文件后原子替换原日志 */
+  public void compact() throws IOException {
+    writeLock.lock();
+    try {
+      Path path = Paths.get(logPath);
+      Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+      long before = logRecordCount;
+
+      List<Map.Entry<CatalogKey, CatalogEntry>> entries = new ArrayList<>(index.entrySet());
+      entries.sort(Comparator.comparingLong(e -> e.getValue().order));
+
+      try (FileChannel out =
+          FileChannel.open(
+              tmp,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<CatalogKey, CatalogEntry> e : entries) {
+          ObjectNode record = objectMapper.createObjectNode();
+          record.put("op", OP_PUT);
+          record.put("systemId", e.getKey().getSystemId());
+          record.put("apiId", e.getKey().getApiId());
+          record.put("ts", System.currentTimeMillis());
+          record.set("payload", objectMapper.valueToTree(e.getValue().payload));
+          sb.append(objectMapper.writeValueAsString(record)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+          out.write(buffer);
+        }
+        out.force(true);
+      }
+
+      channel.close();
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      logRecordCount = entries.size();
+
+      logger.info("API请求目录日志压缩完成: {} -> {} 条记录", before, logRecordCount);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * 导出指定系统的JSON视图（与 system-request.json 格式一致）
+   *
+   * @param systemId 系统ID
+   * @return 导出的文件路径
+   */
+  public Path exportJson(long systemId) throws IOException {
+    writeLock.lock();
+    try {
+      List<ApiRequestPayload> payloads = list(systemId);
+      Path path = Paths.get(exportPath);
+      Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+      Files.write(tmp, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(payloads));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      logger.info("已导出 {} 个API请求负载到 {}", payloads.size(), path.toAbsolutePath());
+      return path;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+}
@@ -25,7 +25,6 @@
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.StatusRuntimeException;
-import io.jaegertracing.api_v2.Model;
 import io.jaegertracing.api_v2.Query;
 import io.jaegertracing.api_v2.QueryServiceGrpc;
 import java.time.Duration;
@@ -763,198 +762,18 @@ private void validateJaegerSource(JaegerSource jaegerSource, long startTime, lon
     }
   }
 
-  /** 处理FindTraces响应 */
+  /** 处理FindTraces响应，按 chunk 流式解码 */
   private TraceData processFindTracesResponse(
       Iterator<Query.SpansResponseChunk> responseIterator, int limit) {
-    TraceData traceData = new TraceData();
-    List<TraceData.TraceRecord> traces = new ArrayList<>();
-
-    // 用于存储所有span，按traceId分组
-    Map<String, List<SpanData>> spansByTraceId = new HashMap<>();
-    Map<String, Map<String, ProcessData>> processesByTraceId = new HashMap<>();
-
-    // 处理响应流中的每个chunk
-    while (responseIterator.hasNext() && traces.size() < limit) {
-      Query.SpansResponseChunk chunk = responseIterator.next();
-
-      // 处理chunk中的每个span
-      for (Model.Span span : chunk.getSpansList()) {
-        String traceId = bytesToHex(span.getTraceId().toByteArray());
-
-        // 转换span
-        SpanData spanData = convertSpan(span);
-
-        // 按traceId分组存储span
-        spansByTraceId.computeIfAbsent(traceId, k -> new ArrayList<>()).add(spanData);
-
-        // 处理进程信息
-        if (span.hasProcess()) {
-          ProcessData processData = convertProcess(span.getProcess());
-          String processId = span.getProcessId();
-
-          processesByTraceId
-              .computeIfAbsent(traceId, k -> new HashMap<>())
-              .put(processId, processData);
-        }
-      }
-    }
-
-    // 构建trace记录，限制数量
-    int count = 0;
-    for (Map.Entry<String, List<SpanData>> entry : spansByTraceId.entrySet()) {
-      if (count >= limit) {
-        break;
-      }
-
-      String traceId = entry.getKey();
-      List<SpanData> spanList = entry.getValue();
-
-      TraceData.TraceRecord traceRecord = new TraceData.TraceRecord();
-      traceRecord.setTraceId(traceId);
-      traceRecord.setSpans(spanList);
-      traceRecord.setProcesses(processesByTraceId.getOrDefault(traceId, new HashMap<>()));
-
-      traces.add(traceRecord);
-      count++;
-    }
-
-    traceData.setData(traces);
-    return traceData;
-  }
-
-  /** 转换Jaeger Span为项目中的SpanData */
-  private SpanData convertSpan(Model.Span span) {
-    SpanData spanData = new SpanData();
-
-    spanData.setTraceId(bytesToHex(span.getTraceId().toByteArray()));
-    spanData.setSpanId(bytesToHex(span.getSpanId().toByteArray()));
-    spanData.setOperationName(span.getOperationName());
-    spanData.setStartTime(
-        span.getStartTime().getSeconds() * 1_000_000 + span.getStartTime().getNanos() / 1000);
-    spanData.setDuration(
-        span.getDuration().getSeconds() * 1_000_000 + span.getDuration().getNanos() / 1000);
-    spanData.setProcessId(span.getProcessId());
-    spanData.setWarnings(span.getWarningsList());
-
-    // 转换标签
-    List<SpanData.Tag> tags = new ArrayList<>();
-    for (Model.KeyValue keyValue : span.getTagsList()) {
-      SpanData.Tag tag = new SpanData.Tag();
-      tag.setKey(keyValue.getKey());
-      tag.setType(convertValueType(keyValue.getVType()));
-      tag.setValue(getValueFromKeyValue(keyValue));
-      tags.add(tag);
-    }
-    spanData.setTags(tags);
-
-    // 转换引用关系
-    List<SpanData.SpanReference> references = new ArrayList<>();
-    for (Model.SpanRef spanRef : span.getReferencesList()) {
-      SpanData.SpanReference reference = new SpanData.SpanReference();
-      reference.setRefType(convertSpanRefType(spanRef.getRefType()));
-      reference.setTraceId(bytesToHex(spanRef.getTraceId().toByteArray()));
-      reference.setSpanId(bytesToHex(spanRef.getSpanId().toByteArray()));
-      references.add(reference);
-    }
-    spanData.setReferences(references);
-
-    // 转换日志
-    List<SpanData.LogEntry> logs = new ArrayList<>();
-    for (Model.Log log : span.getLogsList()) {
-      SpanData.LogEntry logEntry = new SpanData.LogEntry();
-      logEntry.setTimestamp(
-          log.getTimestamp().getSeconds() * 1_000_000 + log.getTimestamp().getNanos() / 1000);
-
-      List<SpanData.Tag> logFields = new ArrayList<>();
-      for (Model.KeyValue keyValue : log.getFieldsList()) {
-        SpanData.Tag tag = new SpanData.Tag();
-        tag.setKey(keyValue.getKey());
-        tag.setType(convertValueType(keyValue.getVType()));
-        tag.setValue(getValueFromKeyValue(keyValue));
-        logFields.add(tag);
-      }
-      logEntry.setFields(logFields);
-      logs.add(logEntry);
+    JaegerSpanDecoder decoder = new JaegerSpanDecoder(limit);
+    while (responseIterator.hasNext()) {
+      decoder.accept(responseIterator.next());
     }
-    spanData.setLogs(logs);
-
-    return spanData;
-  }
-
-  /** 转换Jaeger Process为项目中的ProcessData */
-  private ProcessData convertProcess(Model.Process process) {
-    ProcessData processData = new ProcessData();
-    processData.setServiceName(process.getServiceName());
-
-    // 转换标签
-    List<SpanData.Tag> tags = new ArrayList<>();
-    for (Model.KeyValue keyValue : process.getTagsList()) {
-      SpanData.Tag tag = new SpanData.Tag();
-      tag.setKey(keyValue.getKey());
-      tag.setType(convertValueType(keyValue.getVType()));
-      tag.setValue(getValueFromKeyValue(keyValue));
-      tags.add(tag);
-    }
-    processData.setTags(tags);
-
-    return processData;
-  }
-
-  /** 转换ValueType为字符串表示 */
-  private String convertValueType(Model.ValueType valueType) {
-    switch (valueType) {
-      case STRING:
-        return "string";
-      case BOOL:
-        return "bool";
-      case INT64:
-        return "int64";
-      case FLOAT64:
-        return "float64";
-      case BINARY:
-        return "binary";
-      default:
-        return "string";
-    }
-  }
-
-  /** 从KeyValue中获取值 */
-  private Object getValueFromKeyValue(Model.KeyValue keyValue) {
-    switch (keyValue.getVType()) {
-      case STRING:
-        return keyValue.getVStr();
-      case BOOL:
-        return keyValue.getVBool();
-      case INT64:
-        return keyValue.getVInt64();
-      case FLOAT64:
-        return keyValue.getVFloat64();
-      case BINARY:
-        return keyValue.getVBinary().toByteArray();
-      default:
-        return keyValue.getVStr();
-    }
-  }
-
-  /** 转换SpanRefType为字符串表示 */
-  private String convertSpanRefType(Model.SpanRefType refType) {
-    switch (refType) {
-      case CHILD_OF:
-        return "CHILD_OF";
-      case FOLLOWS_FROM:
-        return "FOLLOWS_FROM";
-      default:
-        return "CHILD_OF";
-    }
-  }
 
-  /** 将字节数组转换为十六进制字符串 */
-  private String bytesToHex(byte[] bytes) {
-    StringBuilder result = new StringBuilder();
-    for (byte b : bytes) {
-      result.append(String.format("%02x", b));
+    if (decoder.getSkippedSpanCount() > 0) {
+      logger.debug("trace 数量达到上限 {}，跳过 {} 个span", limit, decoder.getSkippedSpanCount());
     }
-    return result.toString();
+    return decoder.finish();
   }
 
   /** 关闭所有gRPC通道 */
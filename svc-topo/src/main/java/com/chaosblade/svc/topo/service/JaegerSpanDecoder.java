@@ -0,0 +1,293 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import com.chaosblade.svc.topo.model.trace.ProcessData;
+import com.chaosblade.svc.topo.model.trace.SpanData;
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import com.google.protobuf.ByteString;
+import io.jaegertracing.api_v2.Model;
+import io.jaegertracing.api_v2.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Jaeger gRPC 响应解码器
+ *
+ * <p>按 chunk 逐个消费 FindTraces 的响应流，直接组装成 {@link TraceData}：
+ *
+ * <ul>
+ *   <li>traceId 以两个 long 作为分组键，每个 trace 只生成一次十六进制字符串，同一 trace 内的 span 和引用共享该字符串
+ *   <li>十六进制转换查表完成，直接读取 ByteString，不复制字节数组
+ *   <li>标签键、操作名以及常见标签的值做字符串驻留，同一进程只转换一次
+ *   <li>达到 trace 数量上限后，新 trace 的 span 直接跳过，不再转换
+ * </ul>
+ *
+ * <p>每次查询创建一个实例，非线程安全。
+ */
+class JaegerSpanDecoder {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  // 取值基数较低的标签，值也做驻留
+  private static final Set<String> LOW_CARDINALITY_TAGS =
+      Set.of(
+          "span.kind",
+          "service.name",
+          "rpc.system",
+          "rpc.service",
+          "rpc.method",
+          "http.method",
+          "otel.status_code",
+          "otel.library.name",
+          "component",
+          "net.peer.name",
+          "k8s.namespace.name",
+          "k8s.pod.name",
+          "host.name",
+          "hostname");
+
+  private final int limit;
+
+  // 保持 trace 到达顺序，保证 limit 截取结果稳定
+  private final Map<TraceKey, TraceData.TraceRecord> traces = new LinkedHashMap<>();
+
+  private final Map<String, String> strings = new HashMap<>();
+
+  private int spanCount = 0;
+  private int skippedSpanCount = 0;
+
+  JaegerSpanDecoder(int limit) {
+    this.limit = limit;
+  }
+
+  /** 解码一个响应 chunk */
+  void accept(Query.SpansResponseChunk chunk) {
+    for (Model.Span span : chunk.getSpansList()) {
+      TraceKey key = TraceKey.of(span.getTraceId());
+      TraceData.TraceRecord record = traces.get(key);
+      if (record == null) {
+        if (traces.size() >= limit) {
+          skippedSpanCount++;
+          continue;
+        }
+        record = new TraceData.TraceRecord();
+        record.setTraceId(key.toHex());
+        record.setSpans(new ArrayList<>());
+        record.setProcesses(new HashMap<>());
+        traces.put(key, record);
+      }
+
+      record.getSpans().add(decodeSpan(span, key, record.getTraceId()));
+      spanCount++;
+
+      // 同一 trace 内的 span 通常携带相同的进程信息，只转换第一次出现的
+      if (span.hasProcess() && !record.getProcesses().containsKey(span.getProcessId())) {
+        record.getProcesses().put(span.getProcessId(), decodeProcess(span.getProcess()));
+      }
+    }
+  }
+
+  /** 结束解码，返回组装好的 trace 数据 */
+  TraceData finish() {
+    TraceData traceData = new TraceData();
+    traceData.setData(new ArrayList<>(traces.values()));
+    return traceData;
+  }
+
+  int getSpanCount() {
+    return spanCount;
+  }
+
+  int getSkippedSpanCount() {
+    return skippedSpanCount;
+  }
+
+  private SpanData decodeSpan(Model.Span span, TraceKey traceKey, String traceId) {
+    SpanData spanData = new SpanData();
+    spanData.setTraceId(traceId);
+    spanData.setSpanId(toHex(span.getSpanId()));
+    spanData.setOperationName(intern(span.getOperationName()));
+    spanData.setStartTime(
+        span.getStartTime().getSeconds() * 1_000_000 + span.getStartTime().getNanos() / 1000);
+    spanData.setDuration(
+        span.getDuration().getSeconds() * 1_000_000 + span.getDuration().getNanos() / 1000);
+    spanData.setProcessId(intern(span.getProcessId()));
+    spanData.setWarnings(span.getWarningsList());
+    spanData.setTags(decodeTags(span.getTagsList()));
+
+    List<SpanData.SpanReference> references = new ArrayList<>(span.getReferencesCount());
+    for (Model.SpanRef spanRef : span.getReferencesList()) {
+      SpanData.SpanReference reference = new SpanData.SpanReference();
+      reference.setRefType(
+          spanRef.getRefType() == Model.SpanRefType.FOLLOWS_FROM ? "FOLLOWS_FROM" : "CHILD_OF");
+      // 引用通常指向同一 trace，复用已生成的 traceId 字符串
+      TraceKey refKey = TraceKey.of(spanRef.getTraceId());
+      reference.setTraceId(refKey.equals(traceKey) ? traceId : refKey.toHex());
+      reference.setSpanId(toHex(spanRef.getSpanId()));
+      references.add(reference);
+    }
+    spanData.setReferences(references);
+
+    List<SpanData.LogEntry> logs = new ArrayList<>(span.getLogsCount());
+    for (Model.Log log : span.getLogsList()) {
+      SpanData.LogEntry logEntry = new SpanData.LogEntry();
+      logEntry.setTimestamp(
+          log.getTimestamp().getSeconds() * 1_000_000 + log.getTimestamp().getNanos() / 1000);
+      logEntry.setFields(decodeTags(log.getFieldsList()));
+      logs.add(logEntry);
+    }
+    spanData.setLogs(logs);
+
+    return spanData;
+  }
+
+  private ProcessData decodeProcess(Model.Process process) {
+    ProcessData processData = new ProcessData();
+    processData.setServiceName(intern(process.getServiceName()));
+    processData.setTags(decodeTags(process.getTagsList()));
+    return processData;
+  }
+
+  private List<SpanData.Tag> decodeTags(List<Model.KeyValue> keyValues) {
+    List<SpanData.Tag> tags = new ArrayList<>(keyValues.size());
+    for (Model.KeyValue keyValue : keyValues) {
+      String key = intern(keyValue.getKey());
+      SpanData.Tag tag = new SpanData.Tag();
+      tag.setKey(key);
+      switch (keyValue.getVType()) {
+        case BOOL:
+          tag.setType("bool");
+          tag.setValue(keyValue.getVBool());
+          break;
+        case INT64:
+          tag.setType("int64");
+          tag.setValue(keyValue.getVInt64());
+          break;
+        case FLOAT64:
+          tag.setType("float64");
+          tag.setValue(keyValue.getVFloat64());
+          break;
+        case BINARY:
+          tag.setType("binary");
+          tag.setValue(keyValue.getVBinary().toByteArray());
+          break;
+        default:
+          tag.setType("string");
+          tag.setValue(
+              LOW_CARDINALITY_TAGS.contains(key) ? intern(keyValue.getVStr()) : keyValue.getVStr());
+      }
+      tags.add(tag);
+    }
+    return tags;
+  }
+
+  private String intern(String value) {
+    String existing = strings.putIfAbsent(value, value);
+    return existing != null ? existing : value;
+  }
+
+  /** 查表将字节转换为小写十六进制字符串 */
+  static String toHex(ByteString bytes) {
+    int size = bytes.size();
+    char[] chars = new char[size * 2];
+    for (int i = 0; i < size; i++) {
+      int b = bytes.byteAt(i) & 0xff;
+      chars[i * 2] = HEX_DIGITS[b >>> 4];
+      chars[i * 2 + 1] = HEX_DIGITS[b & 0x0f];
+    }
+    return new String(chars);
+  }
+
+  /** 以两个 long 表示的 traceId（最长 16 字节），十六进制字符串按需生成 */
+  static final class TraceKey {
+    private final long high;
+    private final long low;
+    private final int length;
+    // 超过 16 字节的非标准 traceId 退化为按原始字节比较
+    private final ByteString overflow;
+
+    private TraceKey(long high, long low, int length, ByteString overflow) {
+      this.high = high;
+      this.low = low;
+      this.length = length;
+      this.overflow = overflow;
+    }
+
+    static TraceKey of(ByteString bytes) {
+      int size = bytes.size();
+      if (size > 16) {
+        return new TraceKey(0, 0, size, bytes);
+      }
+      long high = 0;
+      long low = 0;
+      for (int i = 0; i < size; i++) {
+        int b = bytes.byteAt(i) & 0xff;
+        // 右对齐：最后 8 个字节进入 low
+        if (i < size - 8) {
+          high = (high << 8) | b;
+        } else {
+          low = (low << 8) | b;
+        }
+      }
+      return new TraceKey(high, low, size, null);
+    }
+
+    String toHex() {
+      if (overflow != null) {
+        return JaegerSpanDecoder.toHex(overflow);
+      }
+      char[] chars = new char[length * 2];
+      for (int i = 0; i < length; i++) {
+        // 第 i 个字节距离末尾的位置
+        int fromEnd = length - 1 - i;
+        long word = fromEnd < 8 ? low : high;
+        int b = (int) (word >>> ((fromEnd % 8) * 8)) & 0xff;
+        chars[i * 2] = HEX_DIGITS[b >>> 4];
+        chars[i * 2 + 1] = HEX_DIGITS[b & 0x0f];
+      }
+      return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TraceKey)) {
+        return false;
+      }
+      TraceKey other = (TraceKey) o;
+      if (overflow != null || other.overflow != null) {
+        return overflow != null && overflow.equals(other.overflow);
+      }
+      return high == other.high && low == other.low && length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+      if (overflow != null) {
+        return overflow.hashCode();
+      }
+      return Long.hashCode(high) * 31 + Long.hashCode(low) + length;
+    }
+  }
+}
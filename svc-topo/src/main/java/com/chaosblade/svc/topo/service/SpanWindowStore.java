@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import com.chaosblade.svc.topo.model.trace.SpanColumns;
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * 当前时间窗口的列式 span 存储
+ *
+ * <p>每次拓扑刷新后用新获取的 trace 数据整体替换窗口，查询端读取不可变快照，无需加锁。拓扑转换的 RED 指标也在窗口上计算， 转换的正是窗口对应的那批 trace
+ * 时直接复用，不再重复构建。
+ */
+@Service
+public class SpanWindowStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpanWindowStore.class);
+
+  private volatile SpanColumns window = SpanColumns.from(null);
+
+  // 当前窗口及其来源，一起替换；弱引用不延长 trace 数据的生命周期
+  private volatile Source source = new Source(null, window);
+
+  private volatile long updatedAt = 0;
+
+  /**
+   * 用新的 trace 数据替换当前窗口
+   *
+   * @param traceData 本次刷新获取的 trace 数据
+   */
+  public void update(TraceData traceData) {
+    long begin = System.nanoTime();
+    SpanColumns columns = SpanColumns.from(traceData);
+    window = columns;
+    source = new Source(traceData, columns);
+    updatedAt = System.currentTimeMillis();
+    logger.debug(
+        "span 窗口已更新: {} 个span, {} 个服务, 构建耗时 {} ms",
+        columns.size(),
+        columns.getServiceCount(),
+        (System.nanoTime() - begin) / 1_000_000);
+  }
+
+  /**
+   * 对当前窗口做分组聚合
+   *
+   * @param groupBy 分组维度
+   * @param kind span 类型过滤，null 表示不限
+   * @param startMs 开始时间（毫秒），null 表示不限
+   * @param endMs 结束时间（毫秒），null 表示不限
+   * @return 聚合结果
+   */
+  public List<SpanColumns.Aggregate> aggregate(
+      SpanColumns.GroupBy groupBy, String kind, Long startMs, Long endMs) {
+    return window.aggregate(
+        groupBy,
+        kind,
+        startMs != null ? startMs * 1000 : null,
+        endMs != null ? endMs * 1000 : null);
+  }
+
+  /**
+   * 获取 trace 数据的列式窗口
+   *
+   * @param traceData trace 数据
+   * @return 与当前窗口来源相同时返回当前窗口，否则临时构建
+   */
+  public SpanColumns columnsFor(TraceData traceData) {
+    Source current = source;
+    if (traceData != null && current.traceData.get() == traceData) {
+      return current.columns;
+    }
+    return SpanColumns.from(traceData);
+  }
+
+  /** 获取当前窗口 */
+  public SpanColumns getWindow() {
+    return window;
+  }
+
+  /** 获取窗口统计信息 */
+  public Map<String, Object> getStats() {
+    SpanColumns columns = window;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("spanCount", columns.size());
+    stats.put("serviceCount", columns.getServiceCount());
+    stats.put("operationCount", columns.getOperationCount());
+    stats.put("kindCount", columns.getKindCount());
+    stats.put("columnBytes", columns.estimateColumnBytes());
+    stats.put("updatedAt", updatedAt);
+    return stats;
+  }
+
+  private static final class Source {
+    final WeakReference<TraceData> traceData;
+    final SpanColumns columns;
+
+    Source(TraceData traceData, SpanColumns columns) {
+      this.traceData = new WeakReference<>(traceData);
+      this.columns = columns;
+    }
+  }
+}
@@ -53,6 +53,18 @@ public class TopologyAutoRefreshService {
   // 添加缓存服务
   @Autowired private TopologyCacheService topologyCacheService;
 
+  // 拓扑变更推送服务
+  @Autowired(required = false)
+  private TopologyChangeFeedService topologyChangeFeedService;
+
+  // API指标预聚合服务
+  @Autowired(required = false)
+  private ApiMetricsRollupService apiMetricsRollupService;
+
+  // 列式 span 窗口
+  @Autowired(required = false)
+  private SpanWindowStore spanWindowStore;
+
   // 注入JaegerSource bean，它已经正确处理了环境变量
   @Autowired private JaegerSource jaegerSource;
 
@@ -405,6 +417,9 @@ private void refreshTopologyData() {
               operationName);
         }
 
+        // 累加到API指标预聚合桶，供任意时间范围的指标查询使用
+        ingestMetricsRollup(traceData, startTime, endTime);
+
         // 如果当前时间查询不到数据，使用历史时间区间的拓扑数据
         if (traceData == null || traceData.getData() == null || traceData.getData().isEmpty()) {
           logger.warn("获取当前时间 trace 记录为空，尝试使用历史时间区间的拓扑数据");
@@ -423,6 +438,7 @@ private void refreshTopologyData() {
 
               // 更新当前拓扑
               topologyConverterService.setCurrentTopology(historicalTopology);
+              publishTopologyChange(historicalTopology);
               return; // 直接返回，不继续执行后续逻辑
             } else {
               logger.warn("缓存中未找到历史时间区间的拓扑数据");
@@ -440,6 +456,11 @@ private void refreshTopologyData() {
 
       logger.debug("获取到 {} 条 trace 记录", traceData.getData().size());
 
+      // 更新列式 span 窗口，供即席聚合查询使用
+      if (spanWindowStore != null) {
+        spanWindowStore.update(traceData);
+      }
+
       // 转换为拓扑图
       TopologyGraph newTopology = topologyConverterService.convertTraceToTopology(traceData);
 
@@ -454,6 +475,7 @@ private void refreshTopologyData() {
 
       // 更新当前拓扑
       topologyConverterService.setCurrentTopology(newTopology);
+      publishTopologyChange(newTopology);
 
       logger.debug(
           "成功更新拓扑数据：{} 个节点，{} 条边", newTopology.getNodes().size(), newTopology.getEdges().size());
@@ -470,6 +492,30 @@ private void refreshTopologyData() {
     }
   }
 
+  /** 向订阅者推送拓扑增量，推送失败不影响刷新结果 */
+  private void publishTopologyChange(TopologyGraph topology) {
+    if (topologyChangeFeedService == null) {
+      return;
+    }
+    try {
+      topologyChangeFeedService.publish(topology);
+    } catch (Exception e) {
+      logger.warn("推送拓扑变更失败: {}", e.getMessage());
+    }
+  }
+
+  /** 将本次刷新的 trace 数据累加到API指标预聚合桶，失败不影响拓扑刷新 */
+  private void ingestMetricsRollup(TraceData traceData, long startTime, long endTime) {
+    if (apiMetricsRollupService == null) {
+      return;
+    }
+    try {
+      apiMetricsRollupService.ingest(traceData, startTime, endTime);
+    } catch (Exception e) {
+      logger.warn("API指标预聚合失败: {}", e.getMessage());
+    }
+  }
+
   /** 从本地文件加载mock的trace数据 */
   private TraceData loadMockTraceData() {
     try {
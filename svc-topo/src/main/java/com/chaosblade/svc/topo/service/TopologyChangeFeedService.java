@@ -0,0 +1,327 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import com.chaosblade.svc.topo.model.entity.Edge;
+import com.chaosblade.svc.topo.model.entity.Node;
+import com.chaosblade.svc.topo.model.topology.TopologyDelta;
+import com.chaosblade.svc.topo.model.topology.TopologyGraph;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 拓扑变更推送服务
+ *
+ * <p>每次拓扑刷新后与上一次快照比较，计算节点/边/指标的增量并分配递增序号，通过 SSE 推送给订阅者：
+ *
+ * <ul>
+ *   <li>最近的增量保存在有界环形缓冲中，客户端可从指定序号续传
+ *   <li>序号只在本进程内有效，每个事件带有进程启动时生成的流纪元（epoch），续传令牌为 {@code <epoch>:<seq>}； 纪元不一致（服务重启后序号从头开始）时发送全量快照
+ *   <li>请求的序号已被淘汰（落后过多）或首次订阅时，先发送全量快照再继续推送增量
+ *   <li>拓扑无变化时不产生事件，推送流量只与变化量相关
+ * </ul>
+ *
+ * <p>事件在单独的推送线程上按序号顺序发送，慢订阅者不会阻塞拓扑发布与续传查询。
+ */
+@Service
+public class TopologyChangeFeedService {
+
+  private static final Logger logger = LoggerFactory.getLogger(TopologyChangeFeedService.class);
+
+  /** SSE 事件名 */
+  public static final String EVENT_NAME = "topology";
+
+  // 比较时忽略的字段：每次刷新都会重新生成
+  private static final List<String> VOLATILE_FIELDS = List.of("firstSeen", "lastSeen");
+
+  // 环形缓冲保留的最大增量数
+  @Value("${topology.feed.buffer-size:256}")
+  private int bufferSize = 256;
+
+  // SSE 连接超时（毫秒），0 表示不超时
+  @Value("${topology.feed.emitter-timeout-ms:1800000}")
+  private long emitterTimeoutMs = 1800000L;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Object lock = new Object();
+
+  // 本进程的流纪元，序号只在同一纪元内可比较
+  private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+  // 所有 SSE 发送都在该线程上执行：持锁入队保证顺序，发送本身不持锁
+  private final ExecutorService dispatcher =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread thread = new Thread(r, "topology-feed-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  // 最近的增量，按序号递增
+  private final Deque<TopologyDelta> buffer = new ArrayDeque<>();
+
+  private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+  // 上一次快照的节点/边指纹
+  private Map<String, JsonNode> lastNodeFingerprints = new HashMap<>();
+  private Map<String, JsonNode> lastEdgeFingerprints = new HashMap<>();
+
+  private TopologyGraph lastTopology;
+  private long currentSeq = 0;
+
+  /**
+   * 发布新的拓扑，计算增量并推送给所有订阅者
+   *
+   * @param topology 刷新后的拓扑图
+   * @return 生成的增量事件，无变化时返回null
+   */
+  public TopologyDelta publish(TopologyGraph topology) {
+    if (topology == null) {
+      return null;
+    }
+
+    TopologyDelta delta;
+    synchronized (lock) {
+      Map<String, JsonNode> nodeFingerprints = new HashMap<>();
+      Map<String, JsonNode> edgeFingerprints = new HashMap<>();
+      delta =
+          new TopologyDelta(currentSeq + 1, TopologyDelta.TYPE_DELTA, System.currentTimeMillis());
+      delta.setEpoch(epoch);
+
+      for (Node node : topology.getNodes()) {
+        if (node.getNodeId() == null) {
+          continue;
+        }
+        JsonNode fingerprint = fingerprint(node);
+        nodeFingerprints.put(node.getNodeId(), fingerprint);
+        JsonNode previous = lastNodeFingerprints.get(node.getNodeId());
+        if (previous == null) {
+          delta.getAddedNodes().add(node);
+        } else if (!previous.equals(fingerprint)) {
+          delta.getUpdatedNodes().add(node);
+        }
+      }
+      for (String nodeId : lastNodeFingerprints.keySet()) {
+        if (!nodeFingerprints.containsKey(nodeId)) {
+          delta.getRemovedNodeIds().add(nodeId);
+        }
+      }
+
+      for (Edge edge : topology.getEdges()) {
+        if (edge.getEdgeId() == null) {
+          continue;
+        }
+        JsonNode fingerprint = fingerprint(edge);
+        edgeFingerprints.put(edge.getEdgeId(), fingerprint);
+        JsonNode previous = lastEdgeFingerprints.get(edge.getEdgeId());
+        if (previous == null) {
+          delta.getAddedEdges().add(edge);
+        } else if (!previous.equals(fingerprint)) {
+          delta.getUpdatedEdges().add(edge);
+        }
+      }
+      for (String edgeId : lastEdgeFingerprints.keySet()) {
+        if (!edgeFingerprints.containsKey(edgeId)) {
+          delta.getRemovedEdgeIds().add(edgeId);
+        }
+      }
+
+      lastTopology = topology;
+      lastNodeFingerprints = nodeFingerprints;
+      lastEdgeFingerprints = edgeFingerprints;
+
+      if (delta.isEmpty()) {
+        logger.debug("拓扑无变化，不产生变更事件");
+        return null;
+      }
+
+      currentSeq = delta.getSeq();
+      buffer.addLast(delta);
+      while (buffer.size() > bufferSize) {
+        buffer.removeFirst();
+      }
+
+      // 持锁入队，保证每个订阅者收到的事件严格按序号递增
+      List<SseEmitter> targets = new ArrayList<>(emitters);
+      TopologyDelta event = delta;
+      dispatch(
+          () -> {
+            for (SseEmitter emitter : targets) {
+              send(emitter, event);
+            }
+          });
+    }
+
+    logger.debug("发布拓扑变更事件: {}", delta);
+    return delta;
+  }
+
+  /**
+   * 订阅拓扑变更
+   *
+   * @param fromEpoch 续传令牌中的流纪元，null 表示只按序号续传
+   * @param fromSeq 客户端已收到的最后序号，null 表示首次订阅
+   * @return SSE 发送器
+   */
+  public SseEmitter subscribe(String fromEpoch, Long fromSeq) {
+    SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(e -> emitters.remove(emitter));
+
+    // 持锁确定补发内容并注册，补发先于之后的新事件入队，两者之间没有缺口
+    synchronized (lock) {
+      List<TopologyDelta> backlog = getChangesSince(fromEpoch, fromSeq);
+      emitters.add(emitter);
+      dispatch(
+          () -> {
+            for (TopologyDelta delta : backlog) {
+              if (!send(emitter, delta)) {
+                return;
+              }
+            }
+          });
+    }
+
+    logger.info(
+        "新增拓扑变更订阅: fromSeq={}, 当前序号={}, 订阅者数量={}", fromSeq, getCurrentSeq(), emitters.size());
+    return emitter;
+  }
+
+  /** 按序号续传，不校验纪元 */
+  public List<TopologyDelta> getChangesSince(Long fromSeq) {
+    return getChangesSince(null, fromSeq);
+  }
+
+  /**
+   * 获取指定位置之后的变更
+   *
+   * <p>序号仍在缓冲区内时返回后续增量；首次请求、纪元不一致、序号超前于当前序号（来自重启之前）或已被淘汰时， 返回一个当前序号的全量快照
+   *
+   * @param fromEpoch 客户端上次收到的事件的纪元，null 表示不校验
+   * @param fromSeq 客户端已收到的最后序号，null 表示首次请求
+   * @return 变更事件列表
+   */
+  public List<TopologyDelta> getChangesSince(String fromEpoch, Long fromSeq) {
+    synchronized (lock) {
+      List<TopologyDelta> changes = new ArrayList<>();
+      boolean sameStream = fromEpoch == null || epoch.equals(fromEpoch);
+      if (sameStream && fromSeq != null && fromSeq == currentSeq) {
+        return changes;
+      }
+
+      long oldestSeq = buffer.isEmpty() ? currentSeq + 1 : buffer.peekFirst().getSeq();
+      if (!sameStream
+          || fromSeq == null
+          || fromSeq < 0
+          || fromSeq > currentSeq
+          || fromSeq + 1 < oldestSeq) {
+        if (lastTopology != null) {
+          TopologyDelta snapshot = TopologyDelta.snapshot(currentSeq, lastTopology);
+          snapshot.setEpoch(epoch);
+          changes.add(snapshot);
+        }
+        return changes;
+      }
+
+      for (TopologyDelta delta : buffer) {
+        if (delta.getSeq() > fromSeq) {
+          changes.add(delta);
+        }
+      }
+      return changes;
+    }
+  }
+
+  /** 当前流纪元 */
+  public String getEpoch() {
+    return epoch;
+  }
+
+  /** 获取当前序号 */
+  public long getCurrentSeq() {
+    synchronized (lock) {
+      return currentSeq;
+    }
+  }
+
+  /** 获取订阅者数量 */
+  public int getSubscriberCount() {
+    return emitters.size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    dispatcher.shutdownNow();
+  }
+
+  private void dispatch(Runnable task) {
+    try {
+      dispatcher.execute(task);
+    } catch (RejectedExecutionException e) {
+      logger.debug("推送线程已关闭，丢弃拓扑变更推送");
+    }
+  }
+
+  /** 计算节点/边的比较指纹，去掉每次刷新都会变化的时间戳 */
+  private JsonNode fingerprint(Object element) {
+    ObjectNode tree = objectMapper.valueToTree(element);
+    tree.remove(VOLATILE_FIELDS);
+    JsonNode entity = tree.get("entity");
+    if (entity != null && entity.isObject()) {
+      ((ObjectNode) entity).remove(VOLATILE_FIELDS);
+    }
+    return tree;
+  }
+
+  private boolean send(SseEmitter emitter, TopologyDelta delta) {
+    try {
+      emitter.send(
+          SseEmitter.event()
+              .id(delta.getEpoch() + ":" + delta.getSeq())
+              .name(EVENT_NAME)
+              .data(delta, MediaType.APPLICATION_JSON));
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      logger.debug("推送拓扑变更失败，移除订阅者: {}", e.getMessage());
+      emitters.remove(emitter);
+      emitter.completeWithError(e);
+      return false;
+    }
+  }
+}
@@ -19,6 +19,7 @@
 import com.chaosblade.svc.topo.model.entity.*;
 import com.chaosblade.svc.topo.model.topology.TopologyGraph;
 import com.chaosblade.svc.topo.model.trace.ProcessData;
+import com.chaosblade.svc.topo.model.trace.SpanColumns;
 import com.chaosblade.svc.topo.model.trace.SpanData;
 import com.chaosblade.svc.topo.model.trace.TraceData;
 import com.chaosblade.svc.topo.util.EntityIdGenerator;
@@ -43,6 +44,10 @@ public class TopologyConverterService {
 
   @Autowired private TraceParserService traceParserService;
 
+  // 列式 span 窗口，RED 指标在窗口上聚合
+  @Autowired(required = false)
+  private SpanWindowStore spanWindowStore;
+
   // 存储当前拓扑图
   private TopologyGraph currentTopology;
 
@@ -432,16 +437,21 @@ private void calculateRedMetrics(TopologyGraph topology, TraceData traceData) {
     Map<String, RedMetrics> nodeMetrics = new HashMap<>();
     Map<String, RedMetrics> edgeMetrics = new HashMap<>();
 
-    // 从trace数据中提取指标
-    if (traceData.getData() != null) {
-      for (TraceData.TraceRecord record : traceData.getData()) {
-        if (record.getSpans() == null) continue;
-
-        for (SpanData span : record.getSpans()) {
-          // 更新节点指标
-          updateNodeMetrics(nodeMetrics, span);
-        }
-      }
+    // 按服务在列式窗口上一次扫描聚合
+    SpanColumns columns =
+        spanWindowStore != null
+            ? spanWindowStore.columnsFor(traceData)
+            : SpanColumns.from(traceData);
+    for (SpanColumns.Aggregate aggregate :
+        columns.aggregate(SpanColumns.GroupBy.SERVICE, null, null, null)) {
+      int errors = (int) aggregate.getErrorCount();
+      nodeMetrics.put(
+          "svc-" + aggregate.getName(),
+          new RedMetrics(
+              (int) aggregate.getCount(),
+              errors,
+              aggregate.getAvgDurationMs(),
+              errors > 0 ? "error" : "success"));
     }
 
     // 应用指标到节点
@@ -467,29 +477,6 @@ private void calculateRedMetrics(TopologyGraph topology, TraceData traceData) {
 
   // todo 接入 prom 指标数据
 
-  /** 更新节点指标 */
-  private void updateNodeMetrics(Map<String, RedMetrics> nodeMetrics, SpanData span) {
-    // 这里可以根据具体业务逻辑更新指标
-    // 示例实现：基于span的duration和error状态
-    double duration = span.getDuration() != null ? span.getDuration() / 1000.0 : 0; // 转为毫秒
-    boolean isError = span.isError();
-
-    RedMetrics metrics =
-        new RedMetrics(1, isError ? 1 : 0, duration, isError ? "error" : "success");
-
-    // 可以根据span的信息映射到具体的节点ID
-    // 这里简化处理
-    String nodeId = "svc-" + (span.getServiceName() != null ? span.getServiceName() : "unknown");
-
-    nodeMetrics.merge(
-        nodeId,
-        metrics,
-        (existing, newMetrics) -> {
-          existing.addMetrics(newMetrics);
-          return existing;
-        });
-  }
-
   /** 从AppId中提取服务名 */
   private String extractServiceNameFromAppId(String appId) {
     if (appId == null) return null;
@@ -254,6 +254,7 @@ public List<RpcInterface> extractRpcInterfaces(TraceData traceData) {
                   serviceName,
                   rpcService + "/" + rpcMethod,
                   "grpc", // 基于示例数据，大多数是gRPC
+                  span.getStartTime(),
                   span.getDuration(),
                   span.isError());
           rpcInterfaces.add(rpcInterface);
@@ -264,6 +265,7 @@ public List<RpcInterface> extractRpcInterfaces(TraceData traceData) {
                   serviceName,
                   span.getHttpMethod() + " " + span.getHttpUrl(),
                   "http",
+                  span.getStartTime(),
                   span.getDuration(),
                   span.isError());
           rpcInterfaces.add(rpcInterface);
@@ -274,6 +276,7 @@ public List<RpcInterface> extractRpcInterfaces(TraceData traceData) {
                   serviceName,
                   span.getOperationName(),
                   "internal",
+                  span.getStartTime(),
                   span.getDuration(),
                   span.isError());
           rpcInterfaces.add(rpcInterface);
@@ -346,6 +349,7 @@ public static class RpcInterface {
     private final String serviceName;
     private final String interfaceName;
     private final String protocol;
+    private final Long startTime;
     private final Long duration;
     private final boolean isError;
     private final String method;
@@ -353,6 +357,16 @@ public static class RpcInterface {
 
     public RpcInterface(
         String serviceName, String interfaceName, String protocol, Long duration, boolean isError) {
+      this(serviceName, interfaceName, protocol, null, duration, isError);
+    }
+
+    public RpcInterface(
+        String serviceName,
+        String interfaceName,
+        String protocol,
+        Long startTime,
+        Long duration,
+        boolean isError) {
       this.serviceName = serviceName;
       // 对interfaceName进行正则匹配和转换
       // 例如: GET http://details:9080/details/0 转换成 GET /details/0
@@ -385,6 +399,7 @@ public RpcInterface(
         this.path = null; // 非HTTP协议时设置为null
       }
       this.protocol = protocol;
+      this.startTime = startTime;
       this.duration = duration;
       this.isError = isError;
     }
@@ -401,6 +416,11 @@ public String getProtocol() {
       return protocol;
     }
 
+    /** span 开始时间（微秒） */
+    public Long getStartTime() {
+      return startTime;
+    }
+
     public Long getDuration() {
       return duration;
     }
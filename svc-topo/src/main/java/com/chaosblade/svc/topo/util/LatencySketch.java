@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 可合并的延迟分布草图
+ *
+ * <p>按对数刻度分桶（相对误差 1%），同一刻度的两个草图可以直接按桶相加合并，合并结果与一次性统计全部样本完全一致， 用于把不同时间窗口的延迟分布合并后计算任意分位数。
+ *
+ * <p>非线程安全，调用方负责同步。
+ */
+public class LatencySketch {
+
+  // 相对误差
+  private static final double RELATIVE_ACCURACY = 0.01;
+
+  private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+
+  private static final double LOG_GAMMA = Math.log(GAMMA);
+
+  // 小于该值（毫秒）的样本归入零桶
+  private static final double MIN_VALUE = 1e-3;
+
+  // 桶索引 -> 样本数
+  private final TreeMap<Integer, Long> bins = new TreeMap<>();
+
+  private long zeroCount = 0;
+  private long count = 0;
+  private double max = 0;
+
+  /**
+   * 记录一个延迟样本
+   *
+   * @param valueMillis 延迟（毫秒）
+   */
+  public void add(double valueMillis) {
+    count++;
+    if (valueMillis > max) {
+      max = valueMillis;
+    }
+    if (valueMillis < MIN_VALUE) {
+      zeroCount++;
+      return;
+    }
+    int index = (int) Math.ceil(Math.log(valueMillis) / LOG_GAMMA);
+    bins.merge(index, 1L, Long::sum);
+  }
+
+  /** 合并另一个草图 */
+  public void merge(LatencySketch other) {
+    if (other == null) {
+      return;
+    }
+    for (Map.Entry<Integer, Long> entry : other.bins.entrySet()) {
+      bins.merge(entry.getKey(), entry.getValue(), Long::sum);
+    }
+    zeroCount += other.zeroCount;
+    count += other.count;
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * 计算分位数
+   *
+   * @param quantile 分位（0-1）
+   * @return 延迟（毫秒），没有样本时返回0
+   */
+  public double quantile(double quantile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * count);
+    if (rank <= zeroCount) {
+      return 0;
+    }
+    long seen = zeroCount;
+    for (Map.Entry<Integer, Long> entry : bins.entrySet()) {
+      seen += entry.getValue();
+      if (seen >= rank) {
+        // 取桶的中点值，保证相对误差不超过 RELATIVE_ACCURACY
+        double value = 2 * Math.pow(GAMMA, entry.getKey()) / (1 + GAMMA);
+        return Math.min(value, max);
+      }
+    }
+    return max;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMax() {
+    return max;
+  }
+
+  /** 桶数量，用于估算内存占用 */
+  public int getBinCount() {
+    return bins.size();
+  }
+}
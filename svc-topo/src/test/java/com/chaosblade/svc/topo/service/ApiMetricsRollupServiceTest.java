@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.chaosblade.svc.topo.model.ApiQueryRequest;
+import com.chaosblade.svc.topo.model.MetricsByApiRequest;
+import com.chaosblade.svc.topo.model.MetricsByApiResponse;
+import com.chaosblade.svc.topo.model.topology.TopologyGraph;
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import com.chaosblade.svc.topo.util.EntityIdGenerator;
+import com.chaosblade.svc.topo.util.LatencySketch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** API指标预聚合服务测试类 */
+class ApiMetricsRollupServiceTest {
+
+  private static final String API_ID = "rpc-get-api-orders";
+
+  // 10分钟对齐的基准时间
+  private static final long BASE = 1_700_000_400_000L;
+
+  private ApiMetricsRollupService rollupService;
+
+  @BeforeEach
+  void setUp() {
+    rollupService = new ApiMetricsRollupService();
+  }
+
+  @Test
+  void testQueryMergesCoveringBuckets() {
+    // 每15秒一个请求，共20分钟
+    for (int i = 0; i < 80; i++) {
+      rollupService.record(API_ID, BASE + i * 15_000L, 10 + i, i % 10 == 0);
+    }
+
+    ApiMetricsRollupService.RollupResult result =
+        rollupService.query(API_ID, BASE, BASE + 20 * 60_000L);
+
+    assertEquals(80, result.getCount());
+    assertEquals(8, result.getErrors());
+    // 整个范围正好是两个10分钟桶
+    assertEquals(2, result.getBucketCount());
+    assertEquals(80.0 / 1200, result.getThroughputRps(), 1e-9);
+    assertEquals(89, result.getPercentile(100), 89 * 0.01);
+  }
+
+  @Test
+  void testUnalignedRangeUsesFinerBuckets() {
+    for (int i = 0; i < 80; i++) {
+      rollupService.record(API_ID, BASE + i * 15_000L, 10, false);
+    }
+
+    // 起点偏移 30 秒：2个15秒桶 + 9个1分钟桶 + 1个10分钟桶
+    ApiMetricsRollupService.RollupResult result =
+        rollupService.query(API_ID, BASE + 30_000L, BASE + 20 * 60_000L);
+
+    assertEquals(78, result.getCount());
+    assertEquals(12, result.getBucketCount());
+  }
+
+  @Test
+  void testIngestSkipsOverlapWithPreviousWindow() throws Exception {
+    ReflectionTestUtils.setField(rollupService, "traceParserService", new TraceParserService());
+    TraceData traceData = traceData(BASE + 10_000L, BASE + 70_000L);
+
+    // 第一个窗口只包含第一个span
+    assertEquals(1, rollupService.ingest(traceData, BASE, BASE + 60_000L));
+    // 与上一个窗口重叠的部分不会重复入库
+    assertEquals(1, rollupService.ingest(traceData, BASE, BASE + 120_000L));
+
+    ApiMetricsRollupService.RollupResult result =
+        rollupService.query(EntityIdGenerator.generateRpcId("ShipOrder"), BASE, BASE + 120_000L);
+    assertEquals(2, result.getCount());
+    assertEquals(38, result.getPercentile(99), 38 * 0.01);
+  }
+
+  @Test
+  void testSketchMergeMatchesSingleSketch() {
+    LatencySketch whole = new LatencySketch();
+    LatencySketch left = new LatencySketch();
+    LatencySketch right = new LatencySketch();
+    for (int i = 1; i <= 1000; i++) {
+      whole.add(i);
+      (i % 2 == 0 ? left : right).add(i);
+    }
+    left.merge(right);
+
+    assertEquals(whole.quantile(0.99), left.quantile(0.99));
+    assertEquals(990, left.quantile(0.99), 990 * 0.01);
+    assertEquals(500, left.quantile(0.5), 500 * 0.01);
+  }
+
+  @Test
+  void testMetricsByApiUsesRollupWhenAvailable() {
+    for (int i = 0; i < 40; i++) {
+      rollupService.record(API_ID, BASE + i * 15_000L, 100, i < 4);
+    }
+    ApiQueryService apiQueryService = new ApiQueryService();
+    ReflectionTestUtils.setField(apiQueryService, "apiMetricsRollupService", rollupService);
+
+    MetricsByApiRequest request = new MetricsByApiRequest();
+    request.setApiId(API_ID);
+    ApiQueryRequest.TimeRange timeRange = new ApiQueryRequest.TimeRange();
+    timeRange.setStart(BASE);
+    timeRange.setEnd(BASE + 10 * 60_000L);
+    request.setTimeRange(timeRange);
+
+    MetricsByApiResponse response =
+        apiQueryService.queryMetricsByApiId(new TopologyGraph(), request);
+    MetricsByApiResponse.ChainMetrics chain = response.getStatistics().getChain();
+
+    assertEquals("LOG_BUCKET", chain.getPercentileMethod());
+    assertEquals(Integer.valueOf(40), chain.getTotalCount());
+    assertEquals(Integer.valueOf(4), chain.getErrorCount());
+    assertEquals(0.1, chain.getErrorRate(), 1e-9);
+    assertEquals(Integer.valueOf(100), chain.getLatency().getP99());
+  }
+
+  private TraceData traceData(long... startMillis) throws Exception {
+    StringBuilder spans = new StringBuilder();
+    for (int i = 0; i < startMillis.length; i++) {
+      if (i > 0) {
+        spans.append(',');
+      }
+      spans
+          .append("{\"traceID\":\"t1\",\"spanID\":\"s")
+          .append(i)
+          .append("\",\"operationName\":\"ShipOrder\",\"startTime\":")
+          .append(startMillis[i] * 1000)
+          .append(",\"duration\":38000,\"processID\":\"p1\"}");
+    }
+    String json =
+        "{\"data\":[{\"traceID\":\"t1\",\"spans\":["
+            + spans
+            + "],\"processes\":{\"p1\":{\"serviceName\":\"shipping\"}}}]}";
+    return new ObjectMapper().readValue(json, TraceData.class);
+  }
+}
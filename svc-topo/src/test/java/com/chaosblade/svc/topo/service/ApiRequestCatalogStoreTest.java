@@ -0,0 +1,170 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.chaosblade.svc.topo.model.ApiRequestPayload;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** API请求目录存储测试类 */
+class ApiRequestCatalogStoreTest {
+
+  @TempDir Path tempDir;
+
+  private ApiRequestCatalogStore store;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    store = newStore();
+  }
+
+  @AfterEach
+  void tearDown() {
+    store.close();
+  }
+
+  private ApiRequestCatalogStore newStore() throws Exception {
+    ApiRequestCatalogStore s = new ApiRequestCatalogStore();
+    ReflectionTestUtils.setField(s, "logPath", tempDir.resolve("catalog.log").toString());
+    ReflectionTestUtils.setField(s, "exportPath", tempDir.resolve("catalog.json").toString());
+    ReflectionTestUtils.setField(s, "fsync", false);
+    s.open();
+    return s;
+  }
+
+  private ApiRequestPayload payload(String operationId, int timeoutMs) {
+    ApiRequestPayload payload = new ApiRequestPayload();
+    payload.setOperationId(operationId);
+    payload.setRootService("ts-preserve-service");
+    payload.setTimeoutMs(timeoutMs);
+    return payload;
+  }
+
+  @Test
+  void testPutAndFind() throws Exception {
+    store.put(1L, payload("GET /a", 1000));
+    store.put(2L, payload("GET /a", 2000));
+
+    assertEquals(1000, store.find(1L, "GET /a").orElseThrow().getTimeoutMs());
+    assertEquals(2000, store.find(2L, "GET /a").orElseThrow().getTimeoutMs());
+    assertTrue(store.find(3L, "GET /a").isEmpty());
+  }
+
+  @Test
+  void testUpdateAndRemoveReplayAfterRestart() throws Exception {
+    store.put(1L, payload("GET /a", 1000));
+    store.put(1L, payload("GET /b", 1000));
+    store.put(1L, payload("GET /a", 3000));
+    assertTrue(store.remove(1L, "GET /b"));
+
+    store.close();
+    store = newStore();
+
+    List<ApiRequestPayload> payloads = store.list(1L);
+    assertEquals(1, payloads.size());
+    assertEquals(3000, payloads.get(0).getTimeoutMs());
+    assertEquals(3, store.getStaleRecordCount());
+  }
+
+  @Test
+  void testTornTailIsTruncatedBeforeNextAppend() throws Exception {
+    store.put(1L, payload("GET /a", 1000));
+    store.close();
+    Path log = tempDir.resolve("catalog.log");
+    // 模拟写入中途崩溃留下的残缺记录
+    Files.writeString(log, "{\"op\":\"put\",\"systemId\":1,\"api", StandardOpenOption.APPEND);
+
+    store = newStore();
+    store.put(1L, payload("GET /b", 2000));
+    store.close();
+    store = newStore();
+
+    assertEquals(1000, store.find(1L, "GET /a").orElseThrow().getTimeoutMs());
+    assertEquals(2000, store.find(1L, "GET /b").orElseThrow().getTimeoutMs());
+    assertEquals(0, store.getStaleRecordCount());
+    assertTrue(Files.readString(log).endsWith("}\n"));
+  }
+
+  @Test
+  void testCompactDropsStaleRecords() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      store.put(1L, payload("GET /a", i));
+    }
+    assertEquals(9, store.getStaleRecordCount());
+
+    store.compact();
+
+    assertEquals(0, store.getStaleRecordCount());
+    assertEquals(1, Files.readAllLines(tempDir.resolve("catalog.log")).size());
+
+    store.put(1L, payload("GET /b", 1));
+    store.close();
+    store = newStore();
+    assertEquals(2, store.list(1L).size());
+    assertEquals(9, store.find(1L, "GET /a").orElseThrow().getTimeoutMs());
+  }
+
+  @Test
+  void testConcurrentWritersDoNotLoseUpdates() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final int n = i;
+        futures.add(
+            executor.submit(
+                () -> {
+                  store.put(1L, payload("GET /api/" + n, n));
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(200, store.list(1L).size());
+    store.close();
+    store = newStore();
+    assertEquals(200, store.list(1L).size());
+  }
+
+  @Test
+  void testExportJson() throws Exception {
+    store.put(1L, payload("GET /a", 1000));
+
+    Path exported = store.exportJson(1L);
+
+    String json = Files.readString(exported);
+    assertTrue(json.contains("\"operationId\" : \"GET /a\""));
+  }
+}
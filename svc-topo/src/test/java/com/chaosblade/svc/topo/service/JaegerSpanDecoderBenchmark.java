@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import io.jaegertracing.api_v2.Model;
+import io.jaegertracing.api_v2.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jaeger gRPC 响应解码基准
+ *
+ * <p>合成 {@value #TRACES} 个 trace、每个 {@value #SPANS_PER_TRACE} 个 span 的 FindTraces 响应，按 {@value
+ * #SPANS_PER_CHUNK} 个 span 切分 chunk。结果为每个 span 的平均耗时：
+ *
+ * <ul>
+ *   <li>{@code decode}：只测 {@link JaegerSpanDecoder}，输入是已解析的 chunk
+ *   <li>{@code parseAndDecode}：加上 protobuf 反序列化，接近 gRPC 流上的实际开销
+ * </ul>
+ *
+ * <p>运行：{@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=JaegerSpanDecoderBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(JaegerSpanDecoderBenchmark.TOTAL_SPANS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+public class JaegerSpanDecoderBenchmark {
+
+  static final int TRACES = 1000;
+  static final int SPANS_PER_TRACE = 30;
+  static final int SPANS_PER_CHUNK = 300;
+  static final int TOTAL_SPANS = TRACES * SPANS_PER_TRACE;
+
+  private static final String[] SERVICES = {"frontend", "cart", "checkout", "payment", "shipping"};
+  private static final String[] OPERATIONS = {
+    "GET /api/cart", "POST /api/checkout", "GetCart", "Charge", "ShipOrder", "redis GET"
+  };
+
+  private List<Query.SpansResponseChunk> chunks;
+  private List<byte[]> serializedChunks;
+
+  @Setup
+  public void setUp() {
+    chunks = chunks();
+    serializedChunks = new ArrayList<>(chunks.size());
+    for (Query.SpansResponseChunk chunk : chunks) {
+      serializedChunks.add(chunk.toByteArray());
+    }
+  }
+
+  @Benchmark
+  public TraceData decode() {
+    JaegerSpanDecoder decoder = new JaegerSpanDecoder(TRACES);
+    for (Query.SpansResponseChunk chunk : chunks) {
+      decoder.accept(chunk);
+    }
+    return decoder.finish();
+  }
+
+  @Benchmark
+  public TraceData parseAndDecode() throws InvalidProtocolBufferException {
+    JaegerSpanDecoder decoder = new JaegerSpanDecoder(TRACES);
+    for (byte[] bytes : serializedChunks) {
+      decoder.accept(Query.SpansResponseChunk.parseFrom(bytes));
+    }
+    return decoder.finish();
+  }
+
+  /** 每个 trace 的 span 连续出现，按固定大小切分 chunk，与 Jaeger 的流式返回方式一致 */
+  static List<Query.SpansResponseChunk> chunks() {
+    Random random = new Random(42);
+    List<Query.SpansResponseChunk> chunks = new ArrayList<>();
+    Query.SpansResponseChunk.Builder chunk = Query.SpansResponseChunk.newBuilder();
+    for (int t = 0; t < TRACES; t++) {
+      ByteString traceId = randomBytes(random, 16);
+      ByteString parent = null;
+      for (int s = 0; s < SPANS_PER_TRACE; s++) {
+        ByteString spanId = randomBytes(random, 8);
+        chunk.addSpans(span(random, traceId, spanId, parent));
+        parent = spanId;
+        if (chunk.getSpansCount() == SPANS_PER_CHUNK) {
+          chunks.add(chunk.build());
+          chunk = Query.SpansResponseChunk.newBuilder();
+        }
+      }
+    }
+    if (chunk.getSpansCount() > 0) {
+      chunks.add(chunk.build());
+    }
+    return chunks;
+  }
+
+  private static Model.Span span(
+      Random random, ByteString traceId, ByteString spanId, ByteString parent) {
+    String service = SERVICES[random.nextInt(SERVICES.length)];
+    Model.Span.Builder builder =
+        Model.Span.newBuilder()
+            .setTraceId(traceId)
+            .setSpanId(spanId)
+            .setOperationName(OPERATIONS[random.nextInt(OPERATIONS.length)])
+            .setStartTime(
+                Timestamp.newBuilder()
+                    .setSeconds(1_700_000_000L + random.nextInt(3600))
+                    .setNanos(random.nextInt(1_000_000) * 1000))
+            .setDuration(
+                com.google.protobuf.Duration.newBuilder().setNanos(random.nextInt(50_000_000)))
+            .setProcessId(service)
+            .setProcess(
+                Model.Process.newBuilder()
+                    .setServiceName(service)
+                    .addTags(stringTag("hostname", service + "-7d9f8c6b5-x2k4q"))
+                    .addTags(stringTag("ip", "10.0.3." + random.nextInt(255))))
+            .addTags(stringTag("span.kind", random.nextBoolean() ? "server" : "client"))
+            .addTags(stringTag("http.method", "GET"))
+            .addTags(stringTag("http.url", "/api/items/" + random.nextInt(100_000)))
+            .addTags(
+                Model.KeyValue.newBuilder()
+                    .setKey("http.status_code")
+                    .setVType(Model.ValueType.INT64)
+                    .setVInt64(200))
+            .addTags(
+                Model.KeyValue.newBuilder()
+                    .setKey("error")
+                    .setVType(Model.ValueType.BOOL)
+                    .setVBool(random.nextInt(20) == 0));
+    if (parent != null) {
+      builder.addReferences(
+          Model.SpanRef.newBuilder()
+              .setTraceId(traceId)
+              .setSpanId(parent)
+              .setRefType(Model.SpanRefType.CHILD_OF));
+    }
+    return builder.build();
+  }
+
+  private static Model.KeyValue stringTag(String key, String value) {
+    return Model.KeyValue.newBuilder()
+        .setKey(key)
+        .setVType(Model.ValueType.STRING)
+        .setVStr(value)
+        .build();
+  }
+
+  private static ByteString randomBytes(Random random, int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return ByteString.copyFrom(bytes);
+  }
+}
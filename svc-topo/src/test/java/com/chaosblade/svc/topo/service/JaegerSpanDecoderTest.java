@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.chaosblade.svc.topo.model.trace.SpanData;
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import io.jaegertracing.api_v2.Model;
+import io.jaegertracing.api_v2.Query;
+import java.util.HexFormat;
+import org.junit.jupiter.api.Test;
+
+/** Jaeger gRPC 响应解码器测试类 */
+class JaegerSpanDecoderTest {
+
+  private static final String TRACE_ID = "00a1b2c3d4e5f60718293a4b5c6d7e8f";
+
+  private static Model.Span span(String traceId, String spanId, String parentSpanId) {
+    Model.Span.Builder builder =
+        Model.Span.newBuilder()
+            .setTraceId(bytes(traceId))
+            .setSpanId(bytes(spanId))
+            .setOperationName("GetCart")
+            .setStartTime(Timestamp.newBuilder().setSeconds(1_700_000_000L).setNanos(123_456_000))
+            .setDuration(com.google.protobuf.Duration.newBuilder().setNanos(2_500_000))
+            .setProcessId("p1")
+            .setProcess(Model.Process.newBuilder().setServiceName("cart"))
+            .addTags(
+                Model.KeyValue.newBuilder()
+                    .setKey("span.kind")
+                    .setVType(Model.ValueType.STRING)
+                    .setVStr("server"))
+            .addTags(
+                Model.KeyValue.newBuilder()
+                    .setKey("error")
+                    .setVType(Model.ValueType.BOOL)
+                    .setVBool(true));
+    if (parentSpanId != null) {
+      builder.addReferences(
+          Model.SpanRef.newBuilder()
+              .setTraceId(bytes(traceId))
+              .setSpanId(bytes(parentSpanId))
+              .setRefType(Model.SpanRefType.CHILD_OF));
+    }
+    return builder.build();
+  }
+
+  private static ByteString bytes(String hex) {
+    return ByteString.copyFrom(HexFormat.of().parseHex(hex));
+  }
+
+  @Test
+  void testDecodeSpanFields() {
+    JaegerSpanDecoder decoder = new JaegerSpanDecoder(10);
+    decoder.accept(
+        Query.SpansResponseChunk.newBuilder()
+            .addSpans(span(TRACE_ID, "0102030405060708", null))
+            .addSpans(span(TRACE_ID, "1112131415161718", "0102030405060708"))
+            .build());
+
+    TraceData traceData = decoder.finish();
+    assertEquals(1, traceData.getData().size());
+    TraceData.TraceRecord record = traceData.getData().get(0);
+    assertEquals(TRACE_ID, record.getTraceId());
+    assertEquals(1, record.getProcesses().size());
+    assertEquals("cart", record.getProcesses().get("p1").getServiceName());
+
+    SpanData child = record.getSpans().get(1);
+    assertEquals("1112131415161718", child.getSpanId());
+    assertEquals(1_700_000_000_123_456L, child.getStartTime());
+    assertEquals(2500L, child.getDuration());
+    assertEquals("server", child.getSpanKind());
+    assertTrue(child.isError());
+    assertEquals("0102030405060708", child.getParentSpanId());
+    // 同一 trace 内共享 traceId 字符串
+    assertSame(record.getTraceId(), child.getTraceId());
+    assertSame(record.getTraceId(), child.getReferences().get(0).getTraceId());
+  }
+
+  @Test
+  void testShortAndLongTraceIds() {
+    String shortId = "0000000000000abc";
+    String longId = "0102030405060708090a0b0c0d0e0f1011";
+    JaegerSpanDecoder decoder = new JaegerSpanDecoder(10);
+    decoder.accept(
+        Query.SpansResponseChunk.newBuilder()
+            .addSpans(span(shortId, "0000000000000001", null))
+            .addSpans(span(longId, "0000000000000002", null))
+            .build());
+
+    TraceData traceData = decoder.finish();
+    assertEquals(shortId, traceData.getData().get(0).getTraceId());
+    assertEquals(longId, traceData.getData().get(1).getTraceId());
+  }
+
+  @Test
+  void testLimitSkipsLaterTraces() {
+    JaegerSpanDecoder decoder = new JaegerSpanDecoder(1);
+    decoder.accept(
+        Query.SpansResponseChunk.newBuilder()
+            .addSpans(span(TRACE_ID, "0000000000000001", null))
+            .build());
+    decoder.accept(
+        Query.SpansResponseChunk.newBuilder()
+            .addSpans(span("ffffffffffffffffffffffffffffffff", "0000000000000002", null))
+            .addSpans(span(TRACE_ID, "0000000000000003", null))
+            .build());
+
+    TraceData traceData = decoder.finish();
+    assertEquals(1, traceData.getData().size());
+    assertEquals(2, traceData.getData().get(0).getSpans().size());
+    assertEquals(2, decoder.getSpanCount());
+    assertEquals(1, decoder.getSkippedSpanCount());
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.chaosblade.svc.topo.model.trace.SpanColumns;
+import com.chaosblade.svc.topo.model.trace.TraceData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** 列式 span 窗口测试类 */
+class SpanWindowStoreTest {
+
+  // frontend(server) -> frontend(client) -> cart(server, 出错) ；frontend(server) -> checkout(server)
+  private static final String TRACE_JSON =
+      """
+      {
+        "data": [
+          {
+            "traceID": "t1",
+            "spans": [
+              {"traceID": "t1", "spanID": "a", "operationName": "GET /cart",
+               "startTime": 1000000, "duration": 4000, "processID": "p1",
+               "tags": [{"key": "span.kind", "type": "string", "value": "server"}]},
+              {"traceID": "t1", "spanID": "b", "operationName": "GetCart",
+               "startTime": 1001000, "duration": 2000, "processID": "p1",
+               "references": [{"refType": "CHILD_OF", "traceID": "t1", "spanID": "a"}],
+               "tags": [{"key": "span.kind", "type": "string", "value": "client"}]},
+              {"traceID": "t1", "spanID": "c", "operationName": "GetCart",
+               "startTime": 1001500, "duration": 1000, "processID": "p2",
+               "references": [{"refType": "CHILD_OF", "traceID": "t1", "spanID": "b"}],
+               "tags": [{"key": "span.kind", "type": "string", "value": "server"},
+                        {"key": "error", "type": "bool", "value": true}]},
+              {"traceID": "t1", "spanID": "d", "operationName": "PlaceOrder",
+               "startTime": 5000000, "duration": 3000, "processID": "p3",
+               "references": [{"refType": "CHILD_OF", "traceID": "t1", "spanID": "a"}],
+               "tags": [{"key": "span.kind", "type": "string", "value": "server"}]}
+            ],
+            "processes": {
+              "p1": {"serviceName": "frontend"},
+              "p2": {"serviceName": "cart"},
+              "p3": {"serviceName": "checkout"}
+            }
+          }
+        ]
+      }
+      """;
+
+  private SpanWindowStore store;
+  private TraceData traceData;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    store = new SpanWindowStore();
+    traceData = new ObjectMapper().readValue(TRACE_JSON, TraceData.class);
+    store.update(traceData);
+  }
+
+  @Test
+  void testDictionaryEncoding() {
+    SpanColumns window = store.getWindow();
+    assertEquals(4, window.size());
+    assertEquals(3, window.getServiceCount());
+    assertEquals(3, window.getOperationCount());
+    assertEquals(2, window.getKindCount());
+  }
+
+  @Test
+  void testGroupByService() {
+    List<SpanColumns.Aggregate> result =
+        store.aggregate(SpanColumns.GroupBy.SERVICE, null, null, null);
+
+    assertEquals(3, result.size());
+    SpanColumns.Aggregate frontend = result.get(0);
+    assertEquals("frontend", frontend.getName());
+    assertEquals(2, frontend.getCount());
+    assertEquals(3.0, frontend.getAvgDurationMs(), 1e-9);
+    assertEquals(4.0, frontend.getMaxDurationMs(), 1e-9);
+
+    SpanColumns.Aggregate cart = find(result, "cart", null);
+    assertEquals(1, cart.getErrorCount());
+    assertEquals(1.0, cart.getErrorRate(), 1e-9);
+  }
+
+  @Test
+  void testGroupByEdgeSkipsSameServiceCalls() {
+    List<SpanColumns.Aggregate> result =
+        store.aggregate(SpanColumns.GroupBy.EDGE, null, null, null);
+
+    // a->b 同属 frontend，不计入
+    assertEquals(2, result.size());
+    assertEquals(1, find(result, "frontend", "cart").getCount());
+    assertEquals(1, find(result, "frontend", "checkout").getCount());
+  }
+
+  @Test
+  void testKindAndTimeFilter() {
+    List<SpanColumns.Aggregate> servers =
+        store.aggregate(SpanColumns.GroupBy.OPERATION, "server", null, null);
+    assertEquals(3, servers.size());
+    assertNull(findOrNull(servers, "frontend", "GetCart"));
+
+    // 开始时间（毫秒）在 [1000, 2000) 内的只有前三个 span
+    List<SpanColumns.Aggregate> early =
+        store.aggregate(SpanColumns.GroupBy.SERVICE, null, 1000L, 2000L);
+    assertNull(findOrNull(early, "checkout", null));
+
+    assertTrue(store.aggregate(SpanColumns.GroupBy.SERVICE, "producer", null, null).isEmpty());
+  }
+
+  @Test
+  void testColumnsForReusesCurrentWindow() throws Exception {
+    assertSame(store.getWindow(), store.columnsFor(traceData));
+
+    TraceData other = new ObjectMapper().readValue(TRACE_JSON, TraceData.class);
+    SpanColumns columns = store.columnsFor(other);
+    assertNotSame(store.getWindow(), columns);
+    assertEquals(4, columns.size());
+  }
+
+  @Test
+  void testManyGroups() throws Exception {
+    // 300 个服务各一个 span，分组槽位需要多次扩容
+    StringBuilder spans = new StringBuilder();
+    StringBuilder processes = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      if (i > 0) {
+        spans.append(',');
+        processes.append(',');
+      }
+      spans.append(
+          String.format(
+              "{\"traceID\": \"t\", \"spanID\": \"s%d\", \"operationName\": \"op%d\","
+                  + " \"startTime\": 1, \"duration\": %d, \"processID\": \"p%d\"}",
+              i, i % 7, (i + 1) * 1000, i));
+      processes.append(String.format("\"p%d\": {\"serviceName\": \"svc%d\"}", i, i));
+    }
+    String json =
+        "{\"data\": [{\"traceID\": \"t\", \"spans\": ["
+            + spans
+            + "], \"processes\": {"
+            + processes
+            + "}}]}";
+    store.update(new ObjectMapper().readValue(json, TraceData.class));
+
+    List<SpanColumns.Aggregate> services =
+        store.aggregate(SpanColumns.GroupBy.SERVICE, null, null, null);
+    assertEquals(300, services.size());
+    assertEquals(42.0, find(services, "svc41", null).getAvgDurationMs(), 1e-9);
+    assertEquals(300, services.stream().mapToLong(SpanColumns.Aggregate::getCount).sum());
+    assertEquals(300, store.aggregate(SpanColumns.GroupBy.OPERATION, null, null, null).size());
+  }
+
+  private SpanColumns.Aggregate find(
+      List<SpanColumns.Aggregate> result, String name, String target) {
+    SpanColumns.Aggregate aggregate = findOrNull(result, name, target);
+    assertNotNull(aggregate, name + " -> " + target);
+    return aggregate;
+  }
+
+  private SpanColumns.Aggregate findOrNull(
+      List<SpanColumns.Aggregate> result, String name, String target) {
+    return result.stream()
+        .filter(a -> a.getName().equals(name))
+        .filter(a -> target == null || target.equals(a.getTarget()))
+        .findFirst()
+        .orElse(null);
+  }
+}
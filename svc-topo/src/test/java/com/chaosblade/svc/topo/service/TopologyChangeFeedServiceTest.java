@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 The ChaosBlade Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.chaosblade.svc.topo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.chaosblade.svc.topo.model.entity.Edge;
+import com.chaosblade.svc.topo.model.entity.Entity;
+import com.chaosblade.svc.topo.model.entity.EntityType;
+import com.chaosblade.svc.topo.model.entity.Node;
+import com.chaosblade.svc.topo.model.entity.RedMetrics;
+import com.chaosblade.svc.topo.model.entity.RelationType;
+import com.chaosblade.svc.topo.model.topology.TopologyDelta;
+import com.chaosblade.svc.topo.model.topology.TopologyGraph;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** 拓扑变更推送服务测试类 */
+class TopologyChangeFeedServiceTest {
+
+  private TopologyChangeFeedService feedService;
+
+  @BeforeEach
+  void setUp() {
+    feedService = new TopologyChangeFeedService();
+    // 设置较小的缓冲区，便于测试落后过多的场景
+    ReflectionTestUtils.setField(feedService, "bufferSize", 2);
+  }
+
+  private TopologyGraph topology(int count, String... services) {
+    TopologyGraph graph = new TopologyGraph();
+    for (String service : services) {
+      Entity entity = new Entity("svc-" + service, EntityType.SERVICE, service);
+      Node node = new Node("svc-" + service, entity);
+      node.setRedMetrics(new RedMetrics(count, 0, 10.0, "success"));
+      graph.addNode(node);
+    }
+    for (int i = 1; i < services.length; i++) {
+      graph.addEdge(
+          new Edge(
+              "e-" + services[i - 1] + "-" + services[i],
+              "svc-" + services[i - 1],
+              "svc-" + services[i],
+              RelationType.DEPENDS_ON));
+    }
+    return graph;
+  }
+
+  @Test
+  void testFirstPublishAddsEverything() {
+    TopologyDelta delta = feedService.publish(topology(1, "a", "b"));
+
+    assertNotNull(delta);
+    assertEquals(1, delta.getSeq());
+    assertEquals(2, delta.getAddedNodes().size());
+    assertEquals(1, delta.getAddedEdges().size());
+  }
+
+  @Test
+  void testUnchangedTopologyProducesNoEvent() {
+    feedService.publish(topology(1, "a", "b"));
+
+    // 边的 firstSeen/lastSeen 每次都会变化，不应被视为变更
+    assertNull(feedService.publish(topology(1, "a", "b")));
+    assertEquals(1, feedService.getCurrentSeq());
+  }
+
+  @Test
+  void testDeltaContainsOnlyChanges() {
+    feedService.publish(topology(1, "a", "b"));
+
+    TopologyDelta delta = feedService.publish(topology(5, "a", "c"));
+
+    assertEquals(2, delta.getSeq());
+    assertEquals(List.of("svc-c"), delta.getAddedNodes().stream().map(Node::getNodeId).toList());
+    assertEquals(List.of("svc-a"), delta.getUpdatedNodes().stream().map(Node::getNodeId).toList());
+    assertEquals(List.of("svc-b"), delta.getRemovedNodeIds());
+    assertEquals(List.of("e-a-b"), delta.getRemovedEdgeIds());
+    assertEquals(1, delta.getAddedEdges().size());
+  }
+
+  @Test
+  void testResumeFromSequence() {
+    feedService.publish(topology(1, "a"));
+    feedService.publish(topology(2, "a"));
+    feedService.publish(topology(3, "a"));
+
+    List<TopologyDelta> changes = feedService.getChangesSince(2L);
+    assertEquals(1, changes.size());
+    assertEquals(3, changes.get(0).getSeq());
+    assertEquals(TopologyDelta.TYPE_DELTA, changes.get(0).getType());
+
+    assertTrue(feedService.getChangesSince(3L).isEmpty());
+  }
+
+  @Test
+  void testSnapshotWhenTooFarBehind() {
+    feedService.publish(topology(1, "a"));
+    feedService.publish(topology(2, "a"));
+    feedService.publish(topology(3, "a"));
+
+    // 缓冲区只保留序号 2、3，从序号 0 续传需要全量快照
+    List<TopologyDelta> changes = feedService.getChangesSince(0L);
+    assertEquals(1, changes.size());
+    assertEquals(TopologyDelta.TYPE_SNAPSHOT, changes.get(0).getType());
+    assertEquals(3, changes.get(0).getSeq());
+    assertNotNull(changes.get(0).getTopology());
+
+    // 首次订阅同样返回快照
+    assertEquals(TopologyDelta.TYPE_SNAPSHOT, feedService.getChangesSince(null).get(0).getType());
+  }
+
+  @Test
+  void testSnapshotAfterRestart() {
+    feedService.publish(topology(1, "a"));
+    String epoch = feedService.getEpoch();
+    assertEquals(epoch, feedService.getChangesSince(epoch, 0L).get(0).getEpoch());
+    assertTrue(feedService.getChangesSince(epoch, 1L).isEmpty());
+
+    // 重启后的新实例：序号重新从 1 开始，旧令牌的序号与纪元都不能直接比较
+    TopologyChangeFeedService restarted = new TopologyChangeFeedService();
+    restarted.publish(topology(1, "a", "b"));
+    assertNotEquals(epoch, restarted.getEpoch());
+
+    List<TopologyDelta> changes = restarted.getChangesSince(epoch, 1L);
+    assertEquals(1, changes.size());
+    assertEquals(TopologyDelta.TYPE_SNAPSHOT, changes.get(0).getType());
+    assertEquals(restarted.getEpoch(), changes.get(0).getEpoch());
+
+    // 只带序号的旧客户端：序号超前于当前序号同样视为来自重启之前
+    assertEquals(TopologyDelta.TYPE_SNAPSHOT, restarted.getChangesSince(5L).get(0).getType());
+  }
+}